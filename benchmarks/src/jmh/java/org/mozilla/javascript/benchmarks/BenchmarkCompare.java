@@ -0,0 +1,404 @@
+package org.mozilla.javascript.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH result files in JSON format, such as the ones produced by "./gradlew jmh", and
+ * prints the change in score and in allocated bytes per operation of every benchmark. The exit
+ * status is 1 if any benchmark got slower by more than the threshold, and by more than the sum of
+ * the score errors, or if any benchmark of the baseline is missing from the current results, so
+ * that this can be used to check an upgrade of Rhino in a build pipeline. The files are read
+ * without using Rhino, so that a broken build cannot affect the comparison.
+ *
+ * <p>Usage: BenchmarkCompare [--threshold percent] [--alloc-threshold percent] baseline.json
+ * current.json
+ */
+public class BenchmarkCompare {
+    private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+
+    /** The results of one benchmark with one set of parameters. */
+    static final class Result {
+        final String mode;
+        final double score;
+        final double error;
+        final String unit;
+        final double alloc;
+
+        Result(String mode, double score, double error, String unit, double alloc) {
+            this.mode = mode;
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+            this.alloc = alloc;
+        }
+
+        /** In throughput mode, a bigger score is better, and in all other modes, a smaller one. */
+        boolean higherIsBetter() {
+            return "thrpt".equals(mode);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        double threshold = 10.0;
+        double allocThreshold = Double.NaN;
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("--threshold".equals(args[i]) && i + 1 < args.length) {
+                threshold = Double.parseDouble(args[++i]);
+            } else if ("--alloc-threshold".equals(args[i]) && i + 1 < args.length) {
+                allocThreshold = Double.parseDouble(args[++i]);
+            } else {
+                files.add(args[i]);
+            }
+        }
+        if (files.size() != 2) {
+            System.err.println(
+                    "Usage: BenchmarkCompare [--threshold percent] [--alloc-threshold percent]"
+                            + " baseline.json current.json");
+            System.exit(2);
+        }
+
+        Map<String, Result> baseline = load(files.get(0));
+        Map<String, Result> current = load(files.get(1));
+        int failures = compare(baseline, current, threshold, allocThreshold);
+        if (failures > 0) {
+            System.out.println(failures + " benchmark(s) regressed or are missing");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Print a table of the results and return the number of benchmarks that got worse by more than
+     * the thresholds, plus the number of benchmarks of the baseline that are missing from the
+     * current results. An allocation threshold of NaN means that allocation is only reported.
+     */
+    static int compare(
+            Map<String, Result> baseline,
+            Map<String, Result> current,
+            double threshold,
+            double allocThreshold) {
+        int regressions = 0;
+        System.out.printf(
+                "%-80s %14s %14s %-8s %9s %12s %12s %9s%n",
+                "Benchmark",
+                "Baseline",
+                "Current",
+                "Unit",
+                "Change",
+                "B/op base",
+                "B/op curr",
+                "Change");
+        for (Map.Entry<String, Result> e : current.entrySet()) {
+            Result cur = e.getValue();
+            Result base = baseline.get(e.getKey());
+            if (base == null) {
+                System.out.printf(
+                        "%-80s %14s %14.3f %-8s %9s%n",
+                        e.getKey(), "-", cur.score, cur.unit, "new");
+                continue;
+            }
+
+            double change = percentChange(base.score, cur.score);
+            double worse = cur.higherIsBetter() ? -change : change;
+            double errors = zeroIfNaN(base.error) + zeroIfNaN(cur.error);
+            boolean regressed = worse > threshold && Math.abs(cur.score - base.score) > errors;
+
+            double allocChange = percentChange(base.alloc, cur.alloc);
+            if (!Double.isNaN(allocThreshold) && allocChange > allocThreshold) {
+                regressed = true;
+            }
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf(
+                    "%-80s %14.3f %14.3f %-8s %+8.1f%% %12s %12s %9s%s%n",
+                    e.getKey(),
+                    base.score,
+                    cur.score,
+                    cur.unit,
+                    change,
+                    formatNumber(base.alloc, "%.0f"),
+                    formatNumber(cur.alloc, "%.0f"),
+                    formatNumber(allocChange, "%+.1f%%"),
+                    regressed ? "  REGRESSION" : "");
+        }
+        for (Map.Entry<String, Result> e : baseline.entrySet()) {
+            if (!current.containsKey(e.getKey())) {
+                Result base = e.getValue();
+                System.out.printf(
+                        "%-80s %14.3f %14s %-8s %9s%n",
+                        e.getKey(), base.score, "-", base.unit, "MISSING");
+                regressions++;
+            }
+        }
+        return regressions;
+    }
+
+    private static double percentChange(double base, double cur) {
+        if (base == 0.0) {
+            return cur == 0.0 ? 0.0 : Double.NaN;
+        }
+        return (cur - base) * 100.0 / base;
+    }
+
+    private static String formatNumber(double d, String format) {
+        return Double.isNaN(d) ? "-" : String.format(format, d);
+    }
+
+    private static double zeroIfNaN(double d) {
+        return Double.isNaN(d) ? 0.0 : d;
+    }
+
+    /**
+     * Read a JMH result file and return the results keyed by the benchmark name and its
+     * parameters, in the order of the file.
+     */
+    static Map<String, Result> load(String fileName) throws IOException {
+        String json = new String(Files.readAllBytes(Paths.get(fileName)), StandardCharsets.UTF_8);
+        Object parsed;
+        try {
+            parsed = new JsonReader(json).read();
+        } catch (IllegalArgumentException | ClassCastException e) {
+            throw new IOException(fileName + ": " + e.getMessage(), e);
+        }
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (Object r : (List<?>) parsed) {
+            Map<?, ?> run = (Map<?, ?>) r;
+            // Leave out the package, which is the same for all of our benchmarks
+            String name = (String) run.get("benchmark");
+            int dot = name.lastIndexOf('.', name.lastIndexOf('.') - 1);
+            StringBuilder key = new StringBuilder(name.substring(dot + 1));
+            Object params = run.get("params");
+            if (params instanceof Map) {
+                // Sort the parameters so that the key does not depend on their order
+                Map<String, String> sorted = new TreeMap<>();
+                for (Map.Entry<?, ?> p : ((Map<?, ?>) params).entrySet()) {
+                    sorted.put(p.getKey().toString(), String.valueOf(p.getValue()));
+                }
+                for (Map.Entry<String, String> p : sorted.entrySet()) {
+                    key.append(' ').append(p.getKey()).append('=').append(p.getValue());
+                }
+            }
+
+            Map<?, ?> primary = (Map<?, ?>) run.get("primaryMetric");
+            double alloc = Double.NaN;
+            Object secondary = run.get("secondaryMetrics");
+            if (secondary instanceof Map) {
+                for (Map.Entry<?, ?> m : ((Map<?, ?>) secondary).entrySet()) {
+                    // Older versions of JMH put a dot in front of the name of the metric
+                    if (m.getKey().toString().endsWith(ALLOC_METRIC)) {
+                        alloc = getNumber((Map<?, ?>) m.getValue(), "score");
+                    }
+                }
+            }
+            results.put(
+                    key.toString(),
+                    new Result(
+                            (String) run.get("mode"),
+                            getNumber(primary, "score"),
+                            getNumber(primary, "scoreError"),
+                            (String) primary.get("scoreUnit"),
+                            alloc));
+        }
+        return results;
+    }
+
+    private static double getNumber(Map<?, ?> obj, String name) {
+        Object value = obj.get(name);
+        if (value instanceof Double) {
+            return (Double) value;
+        }
+        // JMH writes "NaN" as a string when there is not enough data for the error
+        return value instanceof String ? Double.parseDouble((String) value) : Double.NaN;
+    }
+
+    /**
+     * A small JSON parser that is enough for JMH result files. Objects are read as maps in the
+     * order of the file, arrays as lists, and numbers as doubles.
+     */
+    static final class JsonReader {
+        private final String json;
+        private int pos;
+
+        JsonReader(String json) {
+            this.json = json;
+        }
+
+        Object read() {
+            Object value = readValue();
+            skipWhitespace();
+            if (pos < json.length()) {
+                throw error("Unexpected text after the value");
+            }
+            return value;
+        }
+
+        private Object readValue() {
+            skipWhitespace();
+            if (pos >= json.length()) {
+                throw error("Unexpected end of input");
+            }
+            char c = json.charAt(pos);
+            switch (c) {
+                case '{':
+                    return readObject();
+                case '[':
+                    return readArray();
+                case '"':
+                    return readString();
+                case 't':
+                    return readLiteral("true", Boolean.TRUE);
+                case 'f':
+                    return readLiteral("false", Boolean.FALSE);
+                case 'n':
+                    return readLiteral("null", null);
+                default:
+                    if (c == '-' || (c >= '0' && c <= '9')) {
+                        return readNumber();
+                    }
+                    throw error("Unexpected character '" + c + "'");
+            }
+        }
+
+        private Map<String, Object> readObject() {
+            Map<String, Object> obj = new LinkedHashMap<>();
+            pos++;
+            skipWhitespace();
+            if (consume('}')) {
+                return obj;
+            }
+            do {
+                skipWhitespace();
+                if (pos >= json.length() || json.charAt(pos) != '"') {
+                    throw error("Expected a property name");
+                }
+                String name = readString();
+                skipWhitespace();
+                expect(':');
+                obj.put(name, readValue());
+                skipWhitespace();
+            } while (consume(','));
+            expect('}');
+            return obj;
+        }
+
+        private List<Object> readArray() {
+            List<Object> array = new ArrayList<>();
+            pos++;
+            skipWhitespace();
+            if (consume(']')) {
+                return array;
+            }
+            do {
+                array.add(readValue());
+                skipWhitespace();
+            } while (consume(','));
+            expect(']');
+            return array;
+        }
+
+        private String readString() {
+            StringBuilder sb = new StringBuilder();
+            pos++;
+            while (pos < json.length()) {
+                char c = json.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos >= json.length()) {
+                    break;
+                }
+                c = json.charAt(pos++);
+                switch (c) {
+                    case 'b':
+                        sb.append('\b');
+                        break;
+                    case 'f':
+                        sb.append('\f');
+                        break;
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'u':
+                        if (pos + 4 > json.length()) {
+                            throw error("Bad unicode escape");
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(json.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Bad unicode escape");
+                        }
+                        pos += 4;
+                        break;
+                    default:
+                        // Quotes, backslashes and slashes stand for themselves
+                        sb.append(c);
+                        break;
+                }
+            }
+            throw error("Unterminated string");
+        }
+
+        private Double readNumber() {
+            int start = pos;
+            while (pos < json.length() && "+-0123456789.eE".indexOf(json.charAt(pos)) >= 0) {
+                pos++;
+            }
+            try {
+                return Double.valueOf(json.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw error("Bad number");
+            }
+        }
+
+        private Object readLiteral(String literal, Object value) {
+            if (!json.startsWith(literal, pos)) {
+                throw error("Unexpected character '" + json.charAt(pos) + "'");
+            }
+            pos += literal.length();
+            return value;
+        }
+
+        private void skipWhitespace() {
+            while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private boolean consume(char c) {
+            if (pos < json.length() && json.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!consume(c)) {
+                throw error("Expected '" + c + "'");
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at offset " + pos);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.mozilla.javascript.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import org.mozilla.javascript.CompiledScriptCache;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measure the time from having the source of a set of library scripts to having executed them,
+ * without a compiled script cache, with an empty cache, and with a cache that already contains
+ * all of the scripts, as it would when the JVM is started again.
+ */
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CompiledScriptCacheBenchmark {
+    private static final String TEST_BASE = "testsrc/benchmarks/v8-benchmarks-v6/";
+    private static final String[] FILES = {
+        "base.js",
+        "crypto.js",
+        "deltablue.js",
+        "earley-boyer.js",
+        "raytrace.js",
+        "regexp.js",
+        "richards.js",
+        "splay.js"
+    };
+
+    @State(Scope.Thread)
+    public static class CacheState {
+        @Param({"-1", "9"})
+        public int optLevel;
+
+        String[] sources;
+        File directory;
+        CompiledScriptCache cache;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            sources = new String[FILES.length];
+            for (int i = 0; i < FILES.length; i++) {
+                sources[i] = new String(Files.readAllBytes(Paths.get(TEST_BASE + FILES[i])));
+            }
+            directory = Files.createTempDirectory("rhino-cache").toFile();
+            cache = new CompiledScriptCache(directory);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            cache.clear();
+            directory.delete();
+        }
+
+        Object load(CompiledScriptCache c) {
+            Object result = null;
+            try (Context cx = Context.enter()) {
+                cx.setLanguageVersion(Context.VERSION_ES6);
+                cx.setOptimizationLevel(optLevel);
+                cx.setCompiledScriptCache(c);
+                Scriptable scope = cx.initStandardObjects();
+                for (int i = 0; i < FILES.length; i++) {
+                    Script script = cx.compileString(sources[i], FILES[i], 1, null);
+                    result = script.exec(cx, scope);
+                }
+            }
+            return result;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ColdState extends CacheState {
+        @Setup(Level.Invocation)
+        public void clearCache() {
+            cache.clear();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class WarmState extends CacheState {
+        @Setup(Level.Trial)
+        public void fillCache() {
+            load(cache);
+        }
+    }
+
+    @Benchmark
+    public Object noCache(CacheState state) {
+        return state.load(null);
+    }
+
+    @Benchmark
+    public Object coldCache(ColdState state) {
+        return state.load(state.cache);
+    }
+
+    @Benchmark
+    public Object warmCache(WarmState state) {
+        return state.load(state.cache);
+    }
+}
@@ -0,0 +1,101 @@
+package org.mozilla.javascript.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measure entering and exiting a Context in many short-lived tasks, one per virtual thread if the
+ * JVM supports them and one per task on a small pool of platform threads otherwise, either
+ * through ContextFactory.call or through enterContext and exit. On Java 25 and later, the former
+ * binds the Context with a ScopedValue instead of a ThreadLocal. With a context pool, the tasks
+ * reuse released Contexts instead of creating new ones.
+ */
+public class ContextEnterBenchmark {
+    private static final int TASKS = 10000;
+
+    @State(Scope.Benchmark)
+    public static class ContextEnterState {
+        @Param({"virtual", "platform"})
+        public String threads;
+
+        @Param({"0", "64"})
+        public int contextPoolSize;
+
+        ContextFactory factory;
+        ExecutorService executor;
+        Scriptable scope;
+        Script script;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            factory = new ContextFactory();
+            factory.setContextPoolSize(contextPoolSize);
+            try (Context cx = factory.enterContext()) {
+                cx.setOptimizationLevel(9);
+                scope = cx.initStandardObjects(null, true);
+                script = cx.compileString("1 + 1", "enter.js", 1, null);
+            }
+            executor = "virtual".equals(threads) ? newVirtualThreadPerTaskExecutor() : null;
+            if (executor == null) {
+                executor =
+                        Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void close() {
+            executor.shutdown();
+        }
+    }
+
+    /* Executors.newVirtualThreadPerTaskExecutor is only available from Java 21 */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService)
+                    Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static Object runTasks(ContextEnterState state, Runnable task) throws Exception {
+        List<Future<?>> futures = new ArrayList<>(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            futures.add(state.executor.submit(task));
+        }
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        return futures;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS)
+    public Object call(ContextEnterState state) throws Exception {
+        return runTasks(
+                state, () -> state.factory.call(cx -> state.script.exec(cx, state.scope)));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS)
+    public Object enterExit(ContextEnterState state) throws Exception {
+        return runTasks(
+                state,
+                () -> {
+                    Context cx = state.factory.enterContext();
+                    try {
+                        state.script.exec(cx, state.scope);
+                    } finally {
+                        Context.exit();
+                    }
+                });
+    }
+}
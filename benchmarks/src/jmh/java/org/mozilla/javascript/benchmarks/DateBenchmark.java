@@ -0,0 +1,115 @@
+package org.mozilla.javascript.benchmarks;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Function;
+import org.mozilla.javascript.ScriptRuntime;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measure parsing and formatting dates in the ISO 8601 format of toISOString, common in JSON, and
+ * in the RFC 1123 format of toUTCString, common in HTTP, as well as in the format of toString,
+ * which is left to the general parser.
+ */
+public class DateBenchmark {
+    private static final String SOURCE =
+            "var date = new Date(951817300123);\n"
+                    + "function parseISO() { return Date.parse('2000-02-29T09:41:40.123Z'); }\n"
+                    + "function parseISOWithOffset() {\n"
+                    + "  return Date.parse('2000-02-29T10:41:40.123+01:00');\n"
+                    + "}\n"
+                    + "function parseRFC1123() {\n"
+                    + "  return Date.parse('Tue, 29 Feb 2000 09:41:40 GMT');\n"
+                    + "}\n"
+                    + "function parseToString() {\n"
+                    + "  return Date.parse('Tue Feb 29 2000 09:41:40 GMT-0000 (UTC)');\n"
+                    + "}\n"
+                    + "function newDateISO() { return new Date('2000-02-29T09:41:40.123Z'); }\n"
+                    + "function toISOString() { return date.toISOString(); }\n"
+                    + "function toUTCString() { return date.toUTCString(); }\n"
+                    + "function toJSON() { return JSON.stringify(date); }\n";
+
+    @State(Scope.Thread)
+    public static class DateState {
+        Context cx;
+        Scriptable scope;
+
+        Function parseISO;
+        Function parseISOWithOffset;
+        Function parseRFC1123;
+        Function parseToString;
+        Function newDateISO;
+        Function toISOString;
+        Function toUTCString;
+        Function toJSON;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            cx = Context.enter();
+            cx.setOptimizationLevel(9);
+            cx.setLanguageVersion(Context.VERSION_ES6);
+            scope = cx.initStandardObjects();
+            cx.evaluateString(scope, SOURCE, "date-benchmarks.js", 1, null);
+
+            parseISO = (Function) ScriptableObject.getProperty(scope, "parseISO");
+            parseISOWithOffset =
+                    (Function) ScriptableObject.getProperty(scope, "parseISOWithOffset");
+            parseRFC1123 = (Function) ScriptableObject.getProperty(scope, "parseRFC1123");
+            parseToString = (Function) ScriptableObject.getProperty(scope, "parseToString");
+            newDateISO = (Function) ScriptableObject.getProperty(scope, "newDateISO");
+            toISOString = (Function) ScriptableObject.getProperty(scope, "toISOString");
+            toUTCString = (Function) ScriptableObject.getProperty(scope, "toUTCString");
+            toJSON = (Function) ScriptableObject.getProperty(scope, "toJSON");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            cx.close();
+        }
+    }
+
+    private static Object call(DateState state, Function f) {
+        return f.call(state.cx, state.scope, null, ScriptRuntime.emptyArgs);
+    }
+
+    @Benchmark
+    public Object parseISO(DateState state) {
+        return call(state, state.parseISO);
+    }
+
+    @Benchmark
+    public Object parseISOWithOffset(DateState state) {
+        return call(state, state.parseISOWithOffset);
+    }
+
+    @Benchmark
+    public Object parseRFC1123(DateState state) {
+        return call(state, state.parseRFC1123);
+    }
+
+    @Benchmark
+    public Object parseToString(DateState state) {
+        return call(state, state.parseToString);
+    }
+
+    @Benchmark
+    public Object newDateISO(DateState state) {
+        return call(state, state.newDateISO);
+    }
+
+    @Benchmark
+    public Object toISOString(DateState state) {
+        return call(state, state.toISOString);
+    }
+
+    @Benchmark
+    public Object toUTCString(DateState state) {
+        return call(state, state.toUTCString);
+    }
+
+    @Benchmark
+    public Object toJSON(DateState state) {
+        return call(state, state.toJSON);
+    }
+}
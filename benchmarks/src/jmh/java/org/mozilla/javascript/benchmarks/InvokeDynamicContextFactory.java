@@ -0,0 +1,21 @@
+package org.mozilla.javascript.benchmarks;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+
+/** A ContextFactory that optionally turns on invokedynamic call sites in compiled code. */
+class InvokeDynamicContextFactory extends ContextFactory {
+    private final boolean invokeDynamic;
+
+    InvokeDynamicContextFactory(boolean invokeDynamic) {
+        this.invokeDynamic = invokeDynamic;
+    }
+
+    @Override
+    protected boolean hasFeature(Context cx, int featureIndex) {
+        if (featureIndex == Context.FEATURE_INVOKEDYNAMIC) {
+            return invokeDynamic;
+        }
+        return super.hasFeature(cx, featureIndex);
+    }
+}
@@ -0,0 +1,155 @@
+package org.mozilla.javascript.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.mozilla.javascript.ClassCache;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Function;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measure calls from scripts to the members of Java objects: getters, bean properties, overloaded
+ * methods, methods of non-public classes that are called through a public interface, and
+ * constructors.
+ */
+public class JavaInteropBenchmark {
+    private static final int ITERATIONS = 1000;
+
+    public static class Bean {
+        private int count = 1;
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public static int pick(int i) {
+            return i;
+        }
+
+        public static int pick(String s) {
+            return s.length();
+        }
+
+        public static int pick(int i, String s) {
+            return i + s.length();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class InteropState {
+        @Param({"false", "true"})
+        public boolean invokerOptimization;
+
+        Context cx;
+        Scriptable scope;
+
+        Function callGetter;
+        Function readBeanProperty;
+        Function writeBeanProperty;
+        Function callOverloaded;
+        Function callInterfaceMethod;
+        Function callConstructor;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            cx = Context.enter();
+            cx.setOptimizationLevel(9);
+            cx.setLanguageVersion(Context.VERSION_ES6);
+            scope = cx.initStandardObjects();
+            ClassCache.get(scope).setInvokerOptimizationEnabled(invokerOptimization);
+
+            List<Integer> list = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                list.add(i);
+            }
+            ScriptableObject.putProperty(scope, "bean", Context.javaToJS(new Bean(), scope));
+            ScriptableObject.putProperty(
+                    scope, "list", Context.javaToJS(Collections.unmodifiableList(list), scope));
+            ScriptableObject.putProperty(
+                    scope,
+                    "Bean",
+                    cx.getWrapFactory().wrapJavaClass(cx, scope, Bean.class));
+
+            cx.evaluateString(
+                    scope,
+                    "function callGetter(n) { var t = 0;"
+                            + " for (var i = 0; i < n; i++) { t += bean.getCount(); } return t; }\n"
+                            + "function readBeanProperty(n) { var t = 0;"
+                            + " for (var i = 0; i < n; i++) { t += bean.count; } return t; }\n"
+                            + "function writeBeanProperty(n) {"
+                            + " for (var i = 0; i < n; i++) { bean.count = i; }"
+                            + " return bean.count; }\n"
+                            + "function callOverloaded(n) { var t = 0;"
+                            + " for (var i = 0; i < n; i++) {"
+                            + " t += Bean.pick(i) + Bean.pick('abc') + Bean.pick(i, 'abc'); }"
+                            + " return t; }\n"
+                            + "function callInterfaceMethod(n) { var t = 0;"
+                            + " for (var i = 0; i < n; i++) { t += list.get(i % 10); }"
+                            + " return t; }\n"
+                            + "function callConstructor(n) { var b;"
+                            + " for (var i = 0; i < n; i++) { b = new Bean(); } return b; }\n",
+                    "interop.js",
+                    1,
+                    null);
+            callGetter = (Function) ScriptableObject.getProperty(scope, "callGetter");
+            readBeanProperty = (Function) ScriptableObject.getProperty(scope, "readBeanProperty");
+            writeBeanProperty = (Function) ScriptableObject.getProperty(scope, "writeBeanProperty");
+            callOverloaded = (Function) ScriptableObject.getProperty(scope, "callOverloaded");
+            callInterfaceMethod =
+                    (Function) ScriptableObject.getProperty(scope, "callInterfaceMethod");
+            callConstructor = (Function) ScriptableObject.getProperty(scope, "callConstructor");
+        }
+
+        @TearDown(Level.Trial)
+        public void close() {
+            cx.close();
+        }
+
+        Object call(Function f) {
+            return f.call(cx, scope, scope, new Object[] {ITERATIONS});
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public Object getter(InteropState state) {
+        return state.call(state.callGetter);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public Object beanPropertyRead(InteropState state) {
+        return state.call(state.readBeanProperty);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public Object beanPropertyWrite(InteropState state) {
+        return state.call(state.writeBeanProperty);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public Object overloadedStatic(InteropState state) {
+        return state.call(state.callOverloaded);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public Object interfaceMethod(InteropState state) {
+        return state.call(state.callInterfaceMethod);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public Object constructor(InteropState state) {
+        return state.call(state.callConstructor);
+    }
+}
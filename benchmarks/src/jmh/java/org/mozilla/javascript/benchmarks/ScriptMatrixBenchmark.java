@@ -0,0 +1,171 @@
+package org.mozilla.javascript.benchmarks;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.mozilla.javascript.Callable;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Runs every bundled benchmark script at every optimization level, so that the interpreter and
+ * the compiler can be compared, and so that two builds of Rhino can be compared using the JSON
+ * results and BenchmarkCompare. The SunSpider scripts are run as a whole, and the V8 scripts are
+ * loaded using "framework.js" and then run all the benchmarks that they define. The V8 version 6
+ * RegExp benchmark is left out because it replaces the global RegExp constructor, which does not
+ * work with "framework.js". ScriptMatrixBenchmarkTest checks that the list of scripts matches the
+ * directories.
+ */
+public class ScriptMatrixBenchmark {
+    private static final String TEST_BASE = "testsrc/benchmarks/";
+    private static final Object[] emptyArgs = new Object[] {};
+
+    @State(Scope.Thread)
+    public static class ScriptState {
+        @Param({
+            "sunspider-0.9.1/3d-cube.js",
+            "sunspider-0.9.1/3d-morph.js",
+            "sunspider-0.9.1/3d-raytrace.js",
+            "sunspider-0.9.1/access-binary-trees.js",
+            "sunspider-0.9.1/access-fannkuch.js",
+            "sunspider-0.9.1/access-nbody.js",
+            "sunspider-0.9.1/access-nsieve.js",
+            "sunspider-0.9.1/bitops-3bit-bits-in-byte.js",
+            "sunspider-0.9.1/bitops-bits-in-byte.js",
+            "sunspider-0.9.1/bitops-bitwise-and.js",
+            "sunspider-0.9.1/bitops-nsieve-bits.js",
+            "sunspider-0.9.1/controlflow-recursive.js",
+            "sunspider-0.9.1/crypto-aes.js",
+            "sunspider-0.9.1/crypto-md5.js",
+            "sunspider-0.9.1/crypto-sha1.js",
+            "sunspider-0.9.1/date-format-tofte.js",
+            "sunspider-0.9.1/date-format-xparb.js",
+            "sunspider-0.9.1/math-cordic.js",
+            "sunspider-0.9.1/math-partial-sums.js",
+            "sunspider-0.9.1/math-spectral-norm.js",
+            "sunspider-0.9.1/regexp-dna.js",
+            "sunspider-0.9.1/string-base64.js",
+            "sunspider-0.9.1/string-fasta.js",
+            "sunspider-0.9.1/string-tagcloud.js",
+            "sunspider-0.9.1/string-unpack-code.js",
+            "sunspider-0.9.1/string-validate-input.js",
+            "sunspider-1.0/3d-cube.js",
+            "sunspider-1.0/3d-morph.js",
+            "sunspider-1.0/3d-raytrace.js",
+            "sunspider-1.0/access-binary-trees.js",
+            "sunspider-1.0/access-fannkuch.js",
+            "sunspider-1.0/access-nbody.js",
+            "sunspider-1.0/access-nsieve.js",
+            "sunspider-1.0/bitops-3bit-bits-in-byte.js",
+            "sunspider-1.0/bitops-bits-in-byte.js",
+            "sunspider-1.0/bitops-bitwise-and.js",
+            "sunspider-1.0/bitops-nsieve-bits.js",
+            "sunspider-1.0/controlflow-recursive.js",
+            "sunspider-1.0/crypto-aes.js",
+            "sunspider-1.0/crypto-md5.js",
+            "sunspider-1.0/crypto-sha1.js",
+            "sunspider-1.0/date-format-tofte.js",
+            "sunspider-1.0/date-format-xparb.js",
+            "sunspider-1.0/math-cordic.js",
+            "sunspider-1.0/math-partial-sums.js",
+            "sunspider-1.0/math-spectral-norm.js",
+            "sunspider-1.0/regexp-dna.js",
+            "sunspider-1.0/string-base64.js",
+            "sunspider-1.0/string-fasta.js",
+            "sunspider-1.0/string-tagcloud.js",
+            "sunspider-1.0/string-unpack-code.js",
+            "sunspider-1.0/string-validate-input.js",
+            "v8-benchmarks-v5/crypto.js",
+            "v8-benchmarks-v5/deltablue.js",
+            "v8-benchmarks-v5/earley-boyer.js",
+            "v8-benchmarks-v5/raytrace.js",
+            "v8-benchmarks-v5/regexp.js",
+            "v8-benchmarks-v5/richards.js",
+            "v8-benchmarks-v5/splay.js",
+            "v8-benchmarks-v6/crypto.js",
+            "v8-benchmarks-v6/deltablue.js",
+            "v8-benchmarks-v6/earley-boyer.js",
+            "v8-benchmarks-v6/raytrace.js",
+            "v8-benchmarks-v6/richards.js",
+            "v8-benchmarks-v6/splay.js"
+        })
+        public String script;
+
+        @Param({"-1", "0", "9"})
+        public int optLevel;
+
+        Context cx;
+        Scriptable scope;
+        Script compiled;
+        Callable[] runFuncs;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            cx = Context.enter();
+            cx.setLanguageVersion(Context.VERSION_ES6);
+            cx.setOptimizationLevel(optLevel);
+            scope = cx.initStandardObjects();
+
+            if (script.startsWith("v8-")) {
+                evaluateSource("framework.js");
+                evaluateSource(script);
+                getFunc("setup").call(cx, scope, scope, emptyArgs);
+                Scriptable benchmarks =
+                        (Scriptable) ScriptableObject.getProperty(scope, "Benchmarks");
+                Callable getRunFunc = getFunc("getRunFunc");
+                ArrayList<Callable> funcs = new ArrayList<>();
+                for (Object name : benchmarks.getIds()) {
+                    funcs.add((Callable) getRunFunc.call(cx, scope, scope, new Object[] {name}));
+                }
+                runFuncs = funcs.toArray(new Callable[0]);
+            } else {
+                try (FileReader rdr = new FileReader(TEST_BASE + script)) {
+                    compiled = cx.compileReader(rdr, script, 1, null);
+                }
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            if (runFuncs != null) {
+                getFunc("cleanup").call(cx, scope, scope, emptyArgs);
+            }
+            Context.exit();
+        }
+
+        private void evaluateSource(String fileName) throws IOException {
+            try (FileReader rdr = new FileReader(TEST_BASE + fileName)) {
+                cx.evaluateReader(scope, rdr, fileName, 1, null);
+            }
+        }
+
+        private Callable getFunc(String name) {
+            Object f = ScriptableObject.getProperty(scope, name);
+            if (!(f instanceof Callable)) {
+                throw new RuntimeException("Benchmark function " + name + " not found");
+            }
+            return (Callable) f;
+        }
+
+        Object run() {
+            if (compiled != null) {
+                return compiled.exec(cx, scope);
+            }
+            Object result = null;
+            for (Callable f : runFuncs) {
+                result = f.call(cx, scope, scope, emptyArgs);
+            }
+            return result;
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object runScript(ScriptState state) {
+        return state.run();
+    }
+}
@@ -1,8 +1,12 @@
 package org.mozilla.javascript.benchmarks;
 
 import java.util.Random;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
 import org.mozilla.javascript.EmbeddedSlotMap;
 import org.mozilla.javascript.HashSlotMap;
+import org.mozilla.javascript.NativeObject;
+import org.mozilla.javascript.ScriptableObject;
 import org.mozilla.javascript.Slot;
 import org.mozilla.javascript.SlotMap;
 import org.openjdk.jmh.annotations.*;
@@ -141,6 +145,85 @@ public class SlotMapBenchmark {
         return slot;
     }
 
+    /**
+     * An object with 100 properties that is shared by all the benchmark threads, with the property
+     * map that is used for thread-safe objects. "concurrent" selects the lock-free map instead of
+     * the one that uses a lock.
+     */
+    @State(Scope.Benchmark)
+    public static class SharedState {
+        @Param({"false", "true"})
+        public boolean concurrent;
+
+        ScriptableObject object;
+        final String[] keys = new String[100];
+
+        @Setup(Level.Trial)
+        public void create() {
+            ContextFactory factory =
+                    new ContextFactory() {
+                        @Override
+                        protected boolean hasFeature(Context cx, int featureIndex) {
+                            if (featureIndex == Context.FEATURE_THREAD_SAFE_OBJECTS) {
+                                return true;
+                            }
+                            if (featureIndex == Context.FEATURE_CONCURRENT_OBJECTS) {
+                                return concurrent;
+                            }
+                            return super.hasFeature(cx, featureIndex);
+                        }
+                    };
+            try (Context cx = factory.enterContext()) {
+                object = new NativeObject();
+                for (int i = 0; i < keys.length; i++) {
+                    keys[i] = makeRandomString();
+                    ScriptableObject.putProperty(object, keys[i], keys[i]);
+                }
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final String tempKey = "temp" + Thread.currentThread().getId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(100)
+    public Object sharedQuery(SharedState state) {
+        Object value = null;
+        for (int i = 0; i < 100; i++) {
+            value = ScriptableObject.getProperty(state.object, state.keys[i]);
+        }
+        if (value == null) {
+            throw new AssertionError();
+        }
+        return value;
+    }
+
+    @Benchmark
+    @Group("sharedMixed")
+    @GroupThreads(3)
+    @OperationsPerInvocation(100)
+    public Object sharedMixedQuery(SharedState state) {
+        return sharedQuery(state);
+    }
+
+    /** Update existing properties, and add and remove one, while other threads read. */
+    @Benchmark
+    @Group("sharedMixed")
+    @GroupThreads(1)
+    @OperationsPerInvocation(100)
+    public Object sharedMixedUpdate(SharedState state, ThreadState ts) {
+        for (int i = 0; i < 100; i++) {
+            ScriptableObject.putProperty(state.object, state.keys[i], state.keys[i]);
+        }
+        ScriptableObject.putProperty(state.object, ts.tempKey, ts.tempKey);
+        ScriptableObject.deleteProperty(state.object, ts.tempKey);
+        return state.object;
+    }
+
     /** Make a new string between 1 and 50 characters out of random lower-case letters. */
     private static String makeRandomString() {
         int len = rand.nextInt(49) + 1;
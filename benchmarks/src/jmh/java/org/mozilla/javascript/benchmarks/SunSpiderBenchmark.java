@@ -16,6 +16,9 @@ public class SunSpiderBenchmark {
     private static final int DURATION_SECONDS = 5;
 
     abstract static class AbstractState {
+        @Param({"false", "true"})
+        public boolean invokeDynamic;
+
         Context cx;
         Scriptable scope;
         Script script;
@@ -27,7 +30,7 @@ public class SunSpiderBenchmark {
 
         @Setup(Level.Trial)
         public void setUp() {
-            cx = Context.enter();
+            cx = new InvokeDynamicContextFactory(invokeDynamic).enterContext();
             cx.setLanguageVersion(Context.VERSION_ES6);
             cx.setOptimizationLevel(9);
             scope = cx.initStandardObjects();
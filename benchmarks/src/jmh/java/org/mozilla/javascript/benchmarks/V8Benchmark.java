@@ -12,6 +12,9 @@ public class V8Benchmark {
     static Object[] emptyArgs = new Object[] {};
 
     abstract static class AbstractState {
+        @Param({"false", "true"})
+        public boolean invokeDynamic;
+
         Context cx;
         Scriptable scope;
 
@@ -37,7 +40,7 @@ public class V8Benchmark {
         }
 
         void initialize() {
-            cx = Context.enter();
+            cx = new InvokeDynamicContextFactory(invokeDynamic).enterContext();
             cx.setLanguageVersion(Context.VERSION_ES6);
             cx.setOptimizationLevel(9);
             scope = cx.initStandardObjects();
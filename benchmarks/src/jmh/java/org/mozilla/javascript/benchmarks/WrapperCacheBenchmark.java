@@ -0,0 +1,75 @@
+package org.mozilla.javascript.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Function;
+import org.mozilla.javascript.ScriptRuntime;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measure a script that iterates over a list of Java objects, with and without the wrapper cache
+ * of the WrapFactory. Run it with "-prof gc" to see how much less the cache allocates.
+ */
+public class WrapperCacheBenchmark {
+    private static final int ITEMS = 10000;
+
+    public static class Item {
+        private final int value;
+
+        public Item(int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class WrapperCacheState {
+        @Param({"0", "16384"})
+        public int wrapperCacheSize;
+
+        Context cx;
+        Scriptable scope;
+        Function sumItems;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            cx = Context.enter();
+            cx.setOptimizationLevel(9);
+            cx.setLanguageVersion(Context.VERSION_ES6);
+            cx.getWrapFactory().setWrapperCacheSize(wrapperCacheSize);
+            scope = cx.initStandardObjects();
+
+            List<Item> items = new ArrayList<>();
+            for (int i = 0; i < ITEMS; i++) {
+                items.add(new Item(i));
+            }
+            ScriptableObject.putProperty(scope, "items", Context.javaToJS(items, scope));
+            cx.evaluateString(
+                    scope,
+                    "function sumItems() { var t = 0;"
+                            + " for (var i = 0; i < items.size(); i++) { t += items.get(i).value; }"
+                            + " return t; }",
+                    "wrappers.js",
+                    1,
+                    null);
+            sumItems = (Function) ScriptableObject.getProperty(scope, "sumItems");
+        }
+
+        @TearDown(Level.Trial)
+        public void close() {
+            cx.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public Object iterateList(WrapperCacheState state) {
+        return state.sumItems.call(state.cx, state.scope, state.scope, ScriptRuntime.emptyArgs);
+    }
+}
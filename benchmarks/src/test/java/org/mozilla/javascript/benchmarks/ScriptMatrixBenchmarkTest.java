@@ -0,0 +1,63 @@
+package org.mozilla.javascript.benchmarks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+/**
+ * Checks that ScriptMatrixBenchmark runs every script of the SunSpider and V8 suites, since JMH
+ * needs the list of scripts in an annotation and cannot find them by itself. The scripts in
+ * "micro" and "caliper" have benchmarks of their own.
+ */
+public class ScriptMatrixBenchmarkTest {
+    private static final String TEST_BASE = "testsrc/benchmarks/";
+    private static final String SOURCE =
+            "src/jmh/java/org/mozilla/javascript/benchmarks/ScriptMatrixBenchmark.java";
+
+    // The harnesses of the suites, and the V8 version 6 RegExp benchmark, see ScriptMatrixBenchmark
+    private static final List<String> NOT_RUN =
+            Arrays.asList("run.js", "base.js", "v8-benchmarks-v6/regexp.js");
+
+    @Test
+    public void runsAllScripts() throws IOException {
+        TreeSet<String> expected = new TreeSet<>();
+        for (String suite :
+                Arrays.asList(
+                        "sunspider-0.9.1",
+                        "sunspider-1.0",
+                        "v8-benchmarks-v5",
+                        "v8-benchmarks-v6")) {
+            File[] files = new File(TEST_BASE + suite).listFiles();
+            assertTrue(suite + " not found", files != null && files.length > 0);
+            for (File f : files) {
+                String script = suite + '/' + f.getName();
+                if (f.getName().endsWith(".js")
+                        && !NOT_RUN.contains(f.getName())
+                        && !NOT_RUN.contains(script)) {
+                    expected.add(script);
+                }
+            }
+        }
+
+        String source = new String(Files.readAllBytes(Paths.get(SOURCE)), StandardCharsets.UTF_8);
+        int start = source.indexOf("@Param({");
+        String params = source.substring(start, source.indexOf("})", start));
+        TreeSet<String> actual = new TreeSet<>();
+        Matcher m = Pattern.compile("\"([^\"]*)\"").matcher(params);
+        while (m.find()) {
+            actual.add(m.group(1));
+        }
+        assertEquals(expected, actual);
+    }
+}
@@ -8,6 +8,7 @@ import java.io.IOException;
 import java.io.Reader;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.script.AbstractScriptEngine;
 import javax.script.Bindings;
 import javax.script.Compilable;
@@ -21,6 +22,8 @@ import javax.script.SimpleBindings;
 import org.mozilla.javascript.Callable;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.NativeObject;
+import org.mozilla.javascript.NativeSymbol;
 import org.mozilla.javascript.RhinoException;
 import org.mozilla.javascript.Script;
 import org.mozilla.javascript.Scriptable;
@@ -49,6 +52,14 @@ import org.mozilla.javascript.ScriptableObject;
  *       as 200.
  *   <li>org.mozilla.javascript.optimization_level: The level of optimization Rhino performs on the
  *       generated bytecode. Default is 9, which is the most. Set to -1 to use interpreted mode.
+ *   <li>org.mozilla.javascript.script_cache_size: The number of scripts passed to "eval" as strings
+ *       that are kept in compiled form, so that evaluating the same source again does not parse
+ *       and compile it again. Default is 256. Set to 0 to disable the cache.
+ *   <li>org.mozilla.javascript.shared_standard_objects: Set to true, either as a Boolean or a
+ *       String, before the first script is run, to have the engine use a set of sealed standard
+ *       objects that is shared with all other engines that do the same and use the same language
+ *       version. Such engines are much cheaper to create, but scripts can not modify the built-in
+ *       objects.
  * </ul>
  */
 public class RhinoScriptEngine extends AbstractScriptEngine implements Compilable, Invocable {
@@ -60,27 +71,62 @@ public class RhinoScriptEngine extends AbstractScriptEngine implements Compilabl
      */
     public static final String OPTIMIZATION_LEVEL = "org.mozilla.javascript.optimization_level";
 
+    /**
+     * Reserved key for the maximum number of compiled scripts that "eval" keeps for sources that it
+     * has seen before. The least recently used script is discarded when the cache is full. Default
+     * is "256." Set this to "0" to disable the cache.
+     */
+    public static final String SCRIPT_CACHE_SIZE = "org.mozilla.javascript.script_cache_size";
+
+    /**
+     * Reserved key to make the engine use sealed standard objects that are shared between engines,
+     * instead of creating its own. Default is "false." This must be set before the engine runs its
+     * first script, and any attempt of a script to modify a built-in object will fail.
+     */
+    public static final String SHARED_STANDARD_OBJECTS =
+            "org.mozilla.javascript.shared_standard_objects";
+
     static final int DEFAULT_LANGUAGE_VERSION = Context.VERSION_ES6;
     private static final int DEFAULT_OPT = 9;
     private static final boolean DEFAULT_DEBUG = true;
     private static final String DEFAULT_FILENAME = "eval";
+    private static final int DEFAULT_SCRIPT_CACHE_SIZE = 256;
 
     private static final CtxFactory ctxFactory = new CtxFactory();
 
+    /** Sealed standard objects for each language version, shared by all engines that ask. */
+    private static final ConcurrentHashMap<Integer, ScriptableObject> sharedScopes =
+            new ConcurrentHashMap<>();
+
     private final RhinoScriptEngineFactory factory;
     private final Builtins builtins;
+    private final ScriptCache scriptCache;
     private ScriptableObject topLevelScope = null;
 
     RhinoScriptEngine(RhinoScriptEngineFactory factory) {
         this.factory = factory;
         this.builtins = new Builtins();
+        this.scriptCache = new ScriptCache(DEFAULT_SCRIPT_CACHE_SIZE);
     }
 
     private Scriptable initScope(Context cx, ScriptContext sc) throws ScriptException {
         configureContext(cx);
 
         if (topLevelScope == null) {
-            topLevelScope = cx.initStandardObjects();
+            Object shared = get(SHARED_STANDARD_OBJECTS);
+            if (shared != null && parseBoolean(shared)) {
+                ScriptableObject sharedScope =
+                        sharedScopes.computeIfAbsent(
+                                cx.getLanguageVersion(), v -> cx.initStandardObjects(null, true));
+                // Our own built-ins go into a scope that sits in front of the shared one
+                topLevelScope = new NativeObject();
+                topLevelScope.setPrototype(sharedScope);
+                topLevelScope.setParentScope(null);
+                // Symbol.for must not return symbols that other engines have registered
+                NativeSymbol.initRegistry(topLevelScope);
+            } else {
+                topLevelScope = cx.initStandardObjects();
+            }
             // We need to stash this away so that the built in functions can find
             // this engine's specific stuff that they need to work.
             topLevelScope.associateValue(Builtins.BUILTIN_KEY, builtins);
@@ -105,7 +151,8 @@ public class RhinoScriptEngine extends AbstractScriptEngine implements Compilabl
     public Object eval(String script, ScriptContext context) throws ScriptException {
         try (Context cx = ctxFactory.enterContext()) {
             Scriptable scope = initScope(cx, context);
-            Object ret = cx.evaluateString(scope, script, getFilename(), 0, null);
+            Script s = getScript(cx, script);
+            Object ret = s.exec(cx, scope);
             return Context.jsToJava(ret, Object.class);
         } catch (RhinoException re) {
             throw new ScriptException(
@@ -113,6 +160,28 @@ public class RhinoScriptEngine extends AbstractScriptEngine implements Compilabl
         }
     }
 
+    private Script getScript(Context cx, String script) throws ScriptException {
+        Object cs = get(SCRIPT_CACHE_SIZE);
+        int cacheSize = cs == null ? DEFAULT_SCRIPT_CACHE_SIZE : parseInteger(cs);
+        if (cacheSize != scriptCache.getMaxSize()) {
+            scriptCache.setMaxSize(Math.max(cacheSize, 0));
+        }
+        String fileName = getFilename();
+        if (cacheSize <= 0) {
+            return cx.compileString(script, fileName, 0, null);
+        }
+
+        ScriptCache.Key key =
+                new ScriptCache.Key(
+                        script, fileName, cx.getLanguageVersion(), cx.getOptimizationLevel());
+        Script s = scriptCache.get(key);
+        if (s == null) {
+            s = cx.compileString(script, fileName, 0, null);
+            scriptCache.put(key, s);
+        }
+        return s;
+    }
+
     @Override
     public Object eval(Reader reader, ScriptContext context) throws ScriptException {
         try (Context cx = ctxFactory.enterContext()) {
@@ -258,6 +327,37 @@ public class RhinoScriptEngine extends AbstractScriptEngine implements Compilabl
                         new RhinoInvocationHandler(this, thiz));
     }
 
+    /**
+     * Return the number of times that "eval" found a compiled script for its source in the script
+     * cache.
+     */
+    public long getScriptCacheHits() {
+        return scriptCache.getHits();
+    }
+
+    /**
+     * Return the number of times that "eval" had to compile a script because it was not in the
+     * script cache.
+     */
+    public long getScriptCacheMisses() {
+        return scriptCache.getMisses();
+    }
+
+    /** Return the number of compiled scripts that were discarded because the cache was full. */
+    public long getScriptCacheEvictions() {
+        return scriptCache.getEvictions();
+    }
+
+    /** Return the number of compiled scripts that are currently in the script cache. */
+    public int getScriptCacheSize() {
+        return scriptCache.size();
+    }
+
+    /** Discard all compiled scripts from the script cache. The counters are not reset. */
+    public void clearScriptCache() {
+        scriptCache.clear();
+    }
+
     @Override
     public Bindings createBindings() {
         return new SimpleBindings();
@@ -293,6 +393,16 @@ public class RhinoScriptEngine extends AbstractScriptEngine implements Compilabl
         }
     }
 
+    private static boolean parseBoolean(Object v) throws ScriptException {
+        if (v instanceof Boolean) {
+            return ((Boolean) v).booleanValue();
+        } else if (v instanceof String) {
+            return Boolean.parseBoolean((String) v);
+        } else {
+            throw new ScriptException("Value must be a string or boolean");
+        }
+    }
+
     private String getFilename() {
         Object fn = get(ScriptEngine.FILENAME);
         if (fn instanceof String) {
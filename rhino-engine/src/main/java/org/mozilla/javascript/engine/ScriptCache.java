@@ -0,0 +1,124 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.engine;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import org.mozilla.javascript.Script;
+
+/**
+ * A size-bounded cache of compiled scripts that evicts the least recently used entry when it is
+ * full. Like the engine that owns it, it is not thread safe.
+ */
+final class ScriptCache {
+
+    private final LinkedHashMap<Key, Script> scripts;
+    private int maxSize;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    ScriptCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.scripts =
+                new LinkedHashMap<Key, Script>(16, 0.75f, true) {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Key, Script> eldest) {
+                        if (size() > ScriptCache.this.maxSize) {
+                            evictions++;
+                            return true;
+                        }
+                        return false;
+                    }
+                };
+    }
+
+    Script get(Key key) {
+        Script script = scripts.get(key);
+        if (script == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return script;
+    }
+
+    void put(Key key, Script script) {
+        scripts.put(key, script);
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        while (scripts.size() > maxSize) {
+            scripts.remove(scripts.keySet().iterator().next());
+            evictions++;
+        }
+    }
+
+    int size() {
+        return scripts.size();
+    }
+
+    long getHits() {
+        return hits;
+    }
+
+    long getMisses() {
+        return misses;
+    }
+
+    long getEvictions() {
+        return evictions;
+    }
+
+    void clear() {
+        scripts.clear();
+    }
+
+    /** The source of a script together with everything else that affects how it is compiled. */
+    static final class Key {
+        private final String source;
+        private final String fileName;
+        private final int languageVersion;
+        private final int optimizationLevel;
+        private final int hashCode;
+
+        Key(String source, String fileName, int languageVersion, int optimizationLevel) {
+            this.source = source;
+            this.fileName = fileName;
+            this.languageVersion = languageVersion;
+            this.optimizationLevel = optimizationLevel;
+            this.hashCode = Objects.hash(source, fileName, languageVersion, optimizationLevel);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return hashCode == k.hashCode
+                    && languageVersion == k.languageVersion
+                    && optimizationLevel == k.optimizationLevel
+                    && fileName.equals(k.fileName)
+                    && source.equals(k.source);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -286,4 +286,50 @@ public class ScriptEngineTest {
         Object result = engine.eval("file.getAbsolutePath();");
         assertEquals(absVal, result);
     }
+
+    @Test
+    public void scriptCache() throws ScriptException {
+        RhinoScriptEngine rhino = (RhinoScriptEngine) engine;
+        engine.put("x", 1);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(2L, engine.eval("x + 1"));
+        }
+        // The cached script sees new bindings
+        engine.put("x", 2);
+        assertEquals(3L, engine.eval("x + 1"));
+        assertEquals(1, rhino.getScriptCacheMisses());
+        assertEquals(3, rhino.getScriptCacheHits());
+
+        // Different settings compile the same source again
+        engine.put(RhinoScriptEngine.OPTIMIZATION_LEVEL, -1);
+        assertEquals(3L, engine.eval("x + 1"));
+        engine.put(ScriptEngine.FILENAME, "other.js");
+        assertEquals(3L, engine.eval("x + 1"));
+        assertEquals(3, rhino.getScriptCacheMisses());
+        assertEquals(3, rhino.getScriptCacheSize());
+
+        rhino.clearScriptCache();
+        assertEquals(0, rhino.getScriptCacheSize());
+    }
+
+    @Test
+    public void scriptCacheEviction() throws ScriptException {
+        RhinoScriptEngine rhino = (RhinoScriptEngine) engine;
+        engine.put(RhinoScriptEngine.SCRIPT_CACHE_SIZE, 2);
+        engine.eval("1");
+        engine.eval("2");
+        engine.eval("1");
+        engine.eval("3");
+        assertEquals(1, rhino.getScriptCacheEvictions());
+        // "2" was the least recently used script
+        engine.eval("1");
+        engine.eval("2");
+        assertEquals(2, rhino.getScriptCacheHits());
+        assertEquals(2, rhino.getScriptCacheEvictions());
+
+        engine.put(RhinoScriptEngine.SCRIPT_CACHE_SIZE, "0");
+        engine.eval("1");
+        assertEquals(0, rhino.getScriptCacheSize());
+        assertEquals(2, rhino.getScriptCacheHits());
+    }
 }
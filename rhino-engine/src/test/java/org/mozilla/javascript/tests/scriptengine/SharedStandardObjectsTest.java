@@ -0,0 +1,160 @@
+package org.mozilla.javascript.tests.scriptengine;
+
+import static org.junit.Assert.*;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mozilla.javascript.engine.RhinoScriptEngine;
+import org.mozilla.javascript.engine.RhinoScriptEngineFactory;
+
+public class SharedStandardObjectsTest {
+
+    private static ScriptEngineManager manager;
+
+    @BeforeClass
+    public static void initManager() {
+        manager = new ScriptEngineManager();
+        manager.registerEngineName("rhino", new RhinoScriptEngineFactory());
+    }
+
+    private static ScriptEngine newEngine(Object shared) {
+        ScriptEngine engine = manager.getEngineByName("rhino");
+        engine.put(RhinoScriptEngine.SHARED_STANDARD_OBJECTS, shared);
+        return engine;
+    }
+
+    @Test
+    public void sharedBuiltins() throws ScriptException {
+        ScriptEngine e1 = newEngine(Boolean.TRUE);
+        ScriptEngine e2 = newEngine("true");
+        ScriptEngine e3 = newEngine(Boolean.FALSE);
+        Object array1 = e1.eval("Array");
+        assertSame(array1, e2.eval("Array"));
+        assertNotSame(array1, e3.eval("Array"));
+
+        assertEquals("1,2,3", e1.eval("[3, 1, 2].sort().join()"));
+        assertEquals(Boolean.TRUE, e2.eval("new Map([[1, 2]]).has(1)"));
+    }
+
+    @Test
+    public void separateGlobals() throws ScriptException {
+        ScriptEngine e1 = newEngine(Boolean.TRUE);
+        ScriptEngine e2 = newEngine(Boolean.TRUE);
+        e1.eval("var x = 1; function f() { return x; }");
+        e2.eval("var x = 2;");
+        assertEquals(1L, e1.eval("f()"));
+        assertEquals(2L, e2.eval("x"));
+        assertEquals(Boolean.TRUE, e2.eval("typeof f === 'undefined'"));
+    }
+
+    @Test
+    public void builtinsAreSealed() {
+        ScriptEngine engine = newEngine(Boolean.TRUE);
+        assertThrows(ScriptException.class, () -> engine.eval("Array.prototype.foo = 1;"));
+        assertThrows(ScriptException.class, () -> engine.eval("Math.PI2 = 6.28;"));
+    }
+
+    @Test
+    public void print() throws ScriptException {
+        ScriptEngine engine = newEngine(Boolean.TRUE);
+        StringWriter out = new StringWriter();
+        engine.getContext().setWriter(out);
+        engine.eval("print('Hello', 1 + 1);");
+        assertEquals("Hello2\n", out.toString());
+    }
+
+    @Test
+    public void badValue() {
+        ScriptEngine engine = newEngine(1);
+        assertThrows(ScriptException.class, () -> engine.eval("1"));
+    }
+
+    @Test
+    public void separateSymbolRegistries() throws ScriptException {
+        ScriptEngine e1 = newEngine(Boolean.TRUE);
+        ScriptEngine e2 = newEngine(Boolean.TRUE);
+        Object secret = e1.eval("var s = Symbol.for('secret'); s");
+        assertEquals(Boolean.TRUE, e1.eval("Symbol.for('secret') === s"));
+        e2.put("other", secret);
+        assertEquals(Boolean.FALSE, e2.eval("Symbol.for('secret') === other"));
+        assertEquals(Boolean.TRUE, e2.eval("Symbol.keyFor(other) === undefined"));
+        assertEquals("secret", e1.eval("Symbol.keyFor(s)"));
+    }
+
+    @Test
+    public void concurrentSymbolRegistries() throws Exception {
+        ScriptEngine e1 = newEngine(Boolean.TRUE);
+        ScriptEngine e2 = newEngine(Boolean.TRUE);
+        // Set the engines up before they are used by several threads
+        e1.eval("1");
+        e2.eval("1");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                ScriptEngine engine = i % 2 == 0 ? e1 : e2;
+                results.add(
+                        executor.submit(
+                                () ->
+                                        engine.eval(
+                                                "(function() {\n"
+                                                        + "  var ok = true;\n"
+                                                        + "  for (var i = 0; i < 100; i++) {\n"
+                                                        + "    var k = 'key' + i;\n"
+                                                        + "    var s = Symbol.for(k);\n"
+                                                        + "    ok = ok && Symbol.keyFor(s) === k"
+                                                        + " && Symbol.for(k) === s;\n"
+                                                        + "  }\n"
+                                                        + "  return ok;\n"
+                                                        + "})()")));
+            }
+            for (Future<Object> result : results) {
+                assertEquals(Boolean.TRUE, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Object key = e1.eval("Symbol.for('key1')");
+        e2.put("other", key);
+        assertEquals(Boolean.FALSE, e2.eval("Symbol.for('key1') === other"));
+    }
+
+    @Test
+    public void concurrentEngines() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                final int n = i;
+                results.add(
+                        executor.submit(
+                                () -> {
+                                    ScriptEngine engine = newEngine(Boolean.TRUE);
+                                    engine.put("n", n);
+                                    return engine.eval(
+                                            "JSON.stringify(Array.from({length: n}, (v, i) => i)"
+                                                    + ".map(String).reduce((a, b) => a + b, ''))");
+                                }));
+            }
+            for (int i = 0; i < 16; i++) {
+                StringBuilder expected = new StringBuilder("\"");
+                for (int j = 0; j < i; j++) {
+                    expected.append(j);
+                }
+                expected.append('"');
+                assertEquals(expected.toString(), results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
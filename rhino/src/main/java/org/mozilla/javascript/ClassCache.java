@@ -22,6 +22,7 @@ public class ClassCache implements Serializable {
     private static final long serialVersionUID = -8866246036237312215L;
     private static final Object AKEY = "ClassCache";
     private volatile boolean cachingIsEnabled = true;
+    private volatile boolean invokerOptimizationIsEnabled;
     private transient Map<CacheKey, JavaMembers> classTable;
     private transient Map<JavaAdapter.JavaAdapterSignature, Class<?>> classAdapterCache;
     private transient Map<Class<?>, Object> interfaceAdapterCache;
@@ -150,22 +151,31 @@ public class ClassCache implements Serializable {
     }
 
     /**
-     * @deprecated The method always returns false.
+     * Check if the getters and setters of bean properties are called through generated classes.
+     *
      * @see #setInvokerOptimizationEnabled(boolean enabled)
      */
-    @Deprecated
     public boolean isInvokerOptimizationEnabled() {
-        return false;
+        return invokerOptimizationIsEnabled;
     }
 
     /**
-     * @deprecated The method does nothing. Invoker optimization is no longer used by Rhino. On
-     *     modern JDK like 1.4 or 1.5 the disadvantages of the optimization like increased memory
-     *     usage or longer initialization time overweight small speed increase that can be gained
-     *     using generated proxy class to replace reflection.
+     * Set whether to generate a class for each Java class that is reflected, which calls the
+     * getters and setters of its bean properties directly instead of through reflection. This
+     * makes reading and writing the properties of Java objects from scripts faster, at the cost
+     * of generating and loading the classes. Bean properties that the generated classes cannot
+     * access are still called through reflection.
+     *
+     * <p>If the setting changes, the cached reflection information is emptied, so that it is
+     * created again with the new setting. The optimization is disabled by default.
+     *
+     * @param enabled if true, invoker optimization is enabled
      */
-    @Deprecated
-    public synchronized void setInvokerOptimizationEnabled(boolean enabled) {}
+    public synchronized void setInvokerOptimizationEnabled(boolean enabled) {
+        if (enabled == invokerOptimizationIsEnabled) return;
+        classTable = null;
+        invokerOptimizationIsEnabled = enabled;
+    }
 
     /**
      * Internal engine method to return serial number for generated classes to ensure name
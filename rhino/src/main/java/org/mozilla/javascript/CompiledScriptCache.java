@@ -0,0 +1,254 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A cache of compiled scripts that is kept in a directory on disk, so that scripts that were
+ * compiled once do not have to be parsed and compiled again when the JVM is restarted.
+ *
+ * <p>Entries are keyed by a hash of the source, its name and starting line, the settings of the
+ * {@link CompilerEnvirons} that affect the generated code, and the Rhino version. Classes
+ * generated at optimization level 0 and above are stored as class files, and scripts for the
+ * interpreter are stored in serialized form. Scripts with the same source but different settings
+ * are stored separately.
+ *
+ * <p>To use it, set it on the Context with {@link Context#setCompiledScriptCache}, for example
+ * from {@link ContextFactory#onContextCreated}. The cache is only consulted when compiling or
+ * evaluating whole scripts and functions, and not for code passed to "eval" or when a debugger
+ * is attached. Warnings that were reported while a script was compiled are not reported again
+ * when it is loaded from the cache.
+ *
+ * <p>Any problem with reading or writing the cache directory is treated like a cache miss.
+ * Interpreted scripts are read back using Java serialization, restricted to the classes that the
+ * interpreter uses, but the cache directory should still only be writable by trusted users.
+ *
+ * <p>A single instance may be shared by any number of Contexts and threads, and a directory may
+ * be shared by several processes.
+ */
+public class CompiledScriptCache {
+
+    private static final int MAGIC = 0x52484331; // "RHC1"
+    private static final byte TYPE_CLASS = 1;
+    private static final byte TYPE_INTERPRETED = 2;
+    private static final String SUFFIX = ".rhc";
+
+    private static final ObjectInputFilter INTERPRETER_DATA_FILTER =
+            info -> {
+                Class<?> cl = info.serialClass();
+                if (cl == null) {
+                    return ObjectInputFilter.Status.UNDECIDED;
+                }
+                while (cl.isArray()) {
+                    cl = cl.getComponentType();
+                }
+                if (cl.isPrimitive()
+                        || cl == String.class
+                        || cl == InterpreterData.class
+                        || cl == UintMap.class
+                        || cl == Double.class
+                        || cl == Integer.class
+                        || cl == java.math.BigInteger.class
+                        || cl == Number.class
+                        || cl == Object.class
+                        || cl.getName().startsWith("org.mozilla.javascript.regexp.")) {
+                    return ObjectInputFilter.Status.ALLOWED;
+                }
+                return ObjectInputFilter.Status.REJECTED;
+            };
+
+    private final File directory;
+
+    /**
+     * Create a cache that keeps its entries in the given directory. The directory is created when
+     * the first entry is stored if it does not exist yet.
+     *
+     * @param directory the cache directory
+     */
+    public CompiledScriptCache(File directory) {
+        if (directory == null) throw new IllegalArgumentException();
+        this.directory = directory;
+    }
+
+    /** Return the directory that this cache keeps its entries in. */
+    public final File getDirectory() {
+        return directory;
+    }
+
+    /** Remove all entries from the cache directory. */
+    public void clear() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File f : files) {
+            if (f.getName().endsWith(SUFFIX)) {
+                f.delete();
+            }
+        }
+    }
+
+    /**
+     * Compute the key of the entry for a script. This includes everything that may influence the
+     * code that is generated for it.
+     */
+    String getKey(
+            String source,
+            String sourceName,
+            int lineno,
+            boolean isFunction,
+            boolean defaultStrict,
+            CompilerEnvirons compilerEnv) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(ImplementationVersion.get()).append('\n');
+        sb.append(sourceName).append('\n');
+        sb.append(lineno).append('\n');
+        sb.append(isFunction).append(defaultStrict).append('\n');
+        sb.append(compilerEnv.getLanguageVersion()).append(',');
+        sb.append(compilerEnv.getOptimizationLevel()).append(',');
+        sb.append(compilerEnv.isGenerateDebugInfo()).append(',');
+        sb.append(compilerEnv.isReservedKeywordAsIdentifier()).append(',');
+        sb.append(compilerEnv.isAllowMemberExprAsFunctionName()).append(',');
+        sb.append(compilerEnv.isStrictMode()).append(',');
+        sb.append(compilerEnv.reportWarningAsError()).append(',');
+        sb.append(compilerEnv.isXmlAvailable()).append(',');
+        sb.append(compilerEnv.isGeneratingSource()).append(',');
+        sb.append(compilerEnv.isGenerateObserverCount()).append(',');
+        sb.append(compilerEnv.isUseInvokeDynamic()).append(',');
+        sb.append(compilerEnv.isUseHiddenClasses()).append('\n');
+        Set<String> activationNames = compilerEnv.getActivationNames();
+        if (activationNames != null) {
+            sb.append(new TreeSet<>(activationNames));
+        }
+        sb.append('\n');
+        md.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+        md.update(source.getBytes(StandardCharsets.UTF_8));
+
+        byte[] digest = md.digest();
+        StringBuilder key = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            key.append(Character.forDigit((b >> 4) & 0xF, 16));
+            key.append(Character.forDigit(b & 0xF, 16));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Return the compiled form of the script with the given key, in the format that the
+     * corresponding {@link Evaluator} produces, or null if there is no usable entry.
+     */
+    Object load(String key) {
+        File file = new File(directory, key + SUFFIX);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+            DataInputStream din = new DataInputStream(in);
+            if (din.readInt() != MAGIC) {
+                return null;
+            }
+            byte type = din.readByte();
+            if (type == TYPE_CLASS) {
+                String className = din.readUTF();
+                byte[] classBytes = new byte[din.readInt()];
+                din.readFully(classBytes);
+                return new Object[] {className, classBytes};
+            } else if (type == TYPE_INTERPRETED) {
+                ObjectInputStream oin = new ObjectInputStream(din);
+                oin.setObjectInputFilter(INTERPRETER_DATA_FILTER);
+                return oin.readObject();
+            }
+            return null;
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            // Treat anything unreadable, including entries that are still being
+            // written by another process, as a miss
+            return null;
+        }
+    }
+
+    /** Store the compiled form of the script with the given key, if it is in a known format. */
+    void store(String key, Object bytecode) {
+        byte type;
+        if (bytecode instanceof InterpreterData) {
+            type = TYPE_INTERPRETED;
+        } else if (bytecode instanceof Object[]
+                && ((Object[]) bytecode).length == 2
+                && ((Object[]) bytecode)[0] instanceof String
+                && ((Object[]) bytecode)[1] instanceof byte[]) {
+            type = TYPE_CLASS;
+        } else {
+            return;
+        }
+
+        Path tmp = null;
+        try {
+            Path dir = directory.toPath();
+            Files.createDirectories(dir);
+            tmp = Files.createTempFile(dir, key, ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                DataOutputStream dout = new DataOutputStream(out);
+                dout.writeInt(MAGIC);
+                dout.writeByte(type);
+                if (type == TYPE_CLASS) {
+                    Object[] nameBytesPair = (Object[]) bytecode;
+                    byte[] classBytes = (byte[]) nameBytesPair[1];
+                    dout.writeUTF((String) nameBytesPair[0]);
+                    dout.writeInt(classBytes.length);
+                    dout.write(classBytes);
+                    dout.flush();
+                } else {
+                    ObjectOutputStream oout = new ObjectOutputStream(dout);
+                    oout.writeObject(bytecode);
+                    oout.flush();
+                }
+            }
+            Path target = dir.resolve(key + SUFFIX);
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tmp = null;
+        } catch (IOException | RuntimeException e) {
+            // The cache is only an optimization
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+        }
+    }
+}
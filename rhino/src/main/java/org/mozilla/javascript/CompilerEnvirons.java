@@ -42,6 +42,9 @@ public class CompilerEnvirons {
 
         // Observer code generation in compiled code :
         generateObserverCount = cx.isGenerateObserverCount();
+        useInvokeDynamic = cx.hasFeature(Context.FEATURE_INVOKEDYNAMIC);
+        useHiddenClasses =
+                cx.hasFeature(Context.FEATURE_HIDDEN_CLASSES) && cx.getSecurityController() == null;
     }
 
     public final ErrorReporter getErrorReporter() {
@@ -161,6 +164,36 @@ public class CompilerEnvirons {
         this.generateObserverCount = generateObserverCount;
     }
 
+    public boolean isUseInvokeDynamic() {
+        return useInvokeDynamic;
+    }
+
+    /**
+     * Turn on or off linking of property accesses, name lookups and calls in generated JVM byte
+     * code through invokedynamic call sites.
+     *
+     * @param useInvokeDynamic if true, generated code will use invokedynamic call sites
+     * @see Context#FEATURE_INVOKEDYNAMIC
+     */
+    public void setUseInvokeDynamic(boolean useInvokeDynamic) {
+        this.useInvokeDynamic = useInvokeDynamic;
+    }
+
+    public boolean isUseHiddenClasses() {
+        return useHiddenClasses;
+    }
+
+    /**
+     * Turn on or off defining the classes generated for scripts and functions as hidden classes,
+     * where the Java runtime supports it.
+     *
+     * @param useHiddenClasses if true, generated classes will be defined as hidden classes
+     * @see Context#FEATURE_HIDDEN_CLASSES
+     */
+    public void setUseHiddenClasses(boolean useHiddenClasses) {
+        this.useHiddenClasses = useHiddenClasses;
+    }
+
     public boolean isRecordingComments() {
         return recordingComments;
     }
@@ -249,6 +282,8 @@ public class CompilerEnvirons {
     private boolean strictMode;
     private boolean warningAsError;
     private boolean generateObserverCount;
+    private boolean useInvokeDynamic;
+    private boolean useHiddenClasses;
     private boolean recordingComments;
     private boolean recordingLocalJsDocComments;
     private boolean recoverFromErrors;
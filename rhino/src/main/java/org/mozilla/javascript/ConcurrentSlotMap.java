@@ -0,0 +1,157 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class implements the SlotMap interface so that it may be used by many threads at once
+ * without any locking on the part of the caller. Lookups never block, and updates to different
+ * properties may run in parallel. The slots are kept in a ConcurrentHashMap, and a second,
+ * concurrent sorted map keeps track of the order in which they were added, so that iteration still
+ * happens in insertion order. Iteration is weakly consistent: it never fails because of concurrent
+ * updates, but may or may not see slots that are added or removed while it is in progress.
+ */
+public class ConcurrentSlotMap implements SlotMap {
+
+    /**
+     * The current slot for a property, together with its position in insertion order. Replacing
+     * the slot using "compute" keeps the position.
+     */
+    private static final class Entry {
+        final long order;
+        volatile Slot slot;
+
+        Entry(long order, Slot slot) {
+            this.order = order;
+            this.slot = slot;
+        }
+    }
+
+    private static final class Iter implements Iterator<Slot> {
+        private final Iterator<Entry> entries;
+
+        Iter(Iterator<Entry> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return entries.hasNext();
+        }
+
+        @Override
+        public Slot next() {
+            return entries.next().slot;
+        }
+    }
+
+    private final ConcurrentHashMap<Object, Entry> slots;
+    private final ConcurrentSkipListMap<Long, Entry> ordered = new ConcurrentSkipListMap<>();
+    private final AtomicLong nextOrder = new AtomicLong();
+
+    public ConcurrentSlotMap() {
+        slots = new ConcurrentHashMap<>();
+    }
+
+    public ConcurrentSlotMap(int initialSize) {
+        slots = new ConcurrentHashMap<>(initialSize);
+    }
+
+    /**
+     * Properties with a name are keyed by the name, and indexed ones by the boxed index. A String
+     * or Symbol never equals an Integer, so the two can not collide.
+     */
+    private static Object toKey(Object name, int index) {
+        return name != null ? name : Integer.valueOf(index);
+    }
+
+    @Override
+    public int size() {
+        return slots.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return slots.isEmpty();
+    }
+
+    @Override
+    public Iterator<Slot> iterator() {
+        return new Iter(ordered.values().iterator());
+    }
+
+    @Override
+    public Slot query(Object key, int index) {
+        Entry e = slots.get(toKey(key, index));
+        return e == null ? null : e.slot;
+    }
+
+    @Override
+    public Slot modify(Object key, int index, int attributes) {
+        Object k = toKey(key, index);
+        Entry e = slots.get(k);
+        if (e == null) {
+            e = slots.computeIfAbsent(k, kk -> newEntry(new Slot(key, index, attributes)));
+        }
+        return e.slot;
+    }
+
+    @Override
+    public <S extends Slot> S compute(Object key, int index, SlotComputer<S> c) {
+        Object[] result = new Object[1];
+        slots.compute(
+                toKey(key, index),
+                (k, e) -> {
+                    if (e == null) {
+                        S newSlot = c.compute(key, index, null);
+                        if (newSlot == null) {
+                            return null;
+                        }
+                        result[0] = newSlot;
+                        return newEntry(newSlot);
+                    }
+                    S newSlot = c.compute(key, index, e.slot);
+                    if (newSlot == null) {
+                        ordered.remove(e.order);
+                        return null;
+                    }
+                    result[0] = newSlot;
+                    e.slot = newSlot;
+                    return e;
+                });
+        @SuppressWarnings("unchecked")
+        S newSlot = (S) result[0];
+        return newSlot;
+    }
+
+    @Override
+    public void add(Slot newSlot) {
+        slots.compute(
+                toKey(newSlot.name, newSlot.indexOrHash),
+                (k, e) -> {
+                    if (e == null) {
+                        return newEntry(newSlot);
+                    }
+                    e.slot = newSlot;
+                    return e;
+                });
+    }
+
+    /**
+     * Create the entry for a new slot and add it to the end of the insertion order. This is only
+     * called while the hash map holds the lock for the key, so a key is in the order at most once.
+     */
+    private Entry newEntry(Slot slot) {
+        Entry e = new Entry(nextOrder.getAndIncrement(), slot);
+        ordered.put(e.order, e);
+        return e;
+    }
+}
@@ -0,0 +1,45 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+/**
+ * This class extends the SlotMapContainer so that we have thread-safe access to all the properties
+ * of an object without any locks, by always using a ConcurrentSlotMap. Unlike the
+ * ThreadSafeSlotMapContainer, readers never wait for writers, and writers only wait for each other
+ * when they update the same part of the map. No read lock is needed for iteration either, because
+ * iterating over the map never fails, although it may not see changes that are made while it is in
+ * progress.
+ */
+class ConcurrentSlotMapContainer extends SlotMapContainer {
+
+    ConcurrentSlotMapContainer() {
+        super(new ConcurrentSlotMap());
+    }
+
+    ConcurrentSlotMapContainer(int initialSize) {
+        super(new ConcurrentSlotMap(initialSize));
+    }
+
+    @Override
+    public Slot modify(Object key, int index, int attributes) {
+        return map.modify(key, index, attributes);
+    }
+
+    @Override
+    public <S extends Slot> S compute(Object key, int index, SlotComputer<S> c) {
+        return map.compute(key, index, c);
+    }
+
+    @Override
+    public void add(Slot newSlot) {
+        map.add(newSlot);
+    }
+
+    /** The map is never replaced, so shapes are never used here. */
+    @Override
+    void useShapes() {}
+}
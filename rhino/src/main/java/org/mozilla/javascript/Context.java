@@ -350,6 +350,50 @@ public class Context implements Closeable {
      */
     public static final int FEATURE_INTL_402 = 22;
 
+    /**
+     * Control whether code compiled to JVM bytecode links property accesses and function calls
+     * through invokedynamic call sites instead of static calls into the runtime. This gives the
+     * JVM a chance to inline through call sites that always see the same kind of function or
+     * object layout, at the cost of some extra work when code is first run.
+     *
+     * <p>This only has an effect when the optimization level is 0 or higher. By default {@link
+     * #hasFeature(int)} returns false.
+     *
+     * @since 1.7 Release 16
+     */
+    public static final int FEATURE_INVOKEDYNAMIC = 23;
+
+    /**
+     * Control whether classes generated for compiled scripts and functions are defined as hidden
+     * classes that share a single lookup context, instead of each being defined in a class loader
+     * of its own. Hidden classes take less memory and are quicker to define, and can be unloaded
+     * as soon as the script or function is no longer used, which helps applications that compile
+     * many small scripts.
+     *
+     * <p>Hidden classes require Java 15 or later, and are not used when a {@link
+     * SecurityController} is installed. The Java stack frames of hidden classes are not visible
+     * to the Rhino runtime, so exceptions thrown from hidden classes carry no script line numbers
+     * and do not appear in script stack traces. By default {@link #hasFeature(int)} returns
+     * false.
+     *
+     * @since 1.7 Release 16
+     */
+    public static final int FEATURE_HIDDEN_CLASSES = 24;
+
+    /**
+     * If set together with {@link #FEATURE_THREAD_SAFE_OBJECTS}, then the property maps of all
+     * objects are concurrent maps that do not use locks. Property lookups never wait, and property
+     * updates only wait for other updates that happen at the same time in the same part of the
+     * map, which helps when objects such as shared prototypes are used by many threads at once.
+     * Iterating over the properties of an object does not see a snapshot, but may or may not see
+     * properties that are added or removed while it is in progress. The concurrent maps take more
+     * memory and are slower for single-threaded use than the default ones. By default {@link
+     * #hasFeature(int)} returns false.
+     *
+     * @since 1.7 Release 16
+     */
+    public static final int FEATURE_CONCURRENT_OBJECTS = 25;
+
     public static final String languageVersionProperty = "language version";
     public static final String errorReporterProperty = "error reporter";
 
@@ -448,14 +492,21 @@ public class Context implements Closeable {
             cx = old;
         } else {
             if (cx == null) {
-                cx = factory.makeContext();
-                if (cx.enterCount != 0) {
-                    throw new IllegalStateException(
-                            "factory.makeContext() returned Context instance already associated with some thread");
-                }
-                factory.onContextCreated(cx);
-                if (factory.isSealed() && !cx.isSealed()) {
-                    cx.seal(null);
+                cx = factory.takePooledContext();
+                if (cx == null) {
+                    cx = factory.makeContext();
+                    if (cx.enterCount != 0) {
+                        throw new IllegalStateException(
+                                "factory.makeContext() returned Context instance already associated with some thread");
+                    }
+                    factory.onContextCreated(cx);
+                    if (factory.isSealed() && !cx.isSealed()) {
+                        cx.seal(null);
+                    }
+                    if (factory.isContextPoolEnabled()) {
+                        cx.pooledSettings = new Context(factory);
+                        cx.pooledSettings.copySettings(cx);
+                    }
                 }
             } else {
                 if (cx.enterCount != 0) {
@@ -489,6 +540,9 @@ public class Context implements Closeable {
         if (--cx.enterCount == 0) {
             VMBridge.instance.setContext(helper, null);
             cx.factory.onContextReleased(cx);
+            if (cx.pooledSettings != null) {
+                cx.factory.releasePooledContext(cx);
+            }
         }
     }
 
@@ -499,6 +553,9 @@ public class Context implements Closeable {
             Object helper = VMBridge.instance.getThreadContextHelper();
             VMBridge.instance.setContext(helper, null);
             factory.onContextReleased(this);
+            if (pooledSettings != null) {
+                factory.releasePooledContext(this);
+            }
         }
     }
 
@@ -545,9 +602,12 @@ public class Context implements Closeable {
 
     /** The method implements {@link ContextFactory#call(ContextAction)} logic. */
     static <T> T call(ContextFactory factory, ContextAction<T> action) {
-        try (Context cx = enter(null, factory)) {
-            return action.run(cx);
-        }
+        return VMBridge.instance.callInContextScope(
+                () -> {
+                    try (Context cx = enter(null, factory)) {
+                        return action.run(cx);
+                    }
+                });
     }
 
     /**
@@ -1580,7 +1640,7 @@ public class Context implements Closeable {
      * @return the new array object
      */
     public Scriptable newArray(Scriptable scope, int length) {
-        NativeArray result = new NativeArray(length);
+        NativeArray result = new NativeArray(length).pickElementKind(this);
         ScriptRuntime.setBuiltinProtoAndParent(result, scope, TopLevel.Builtins.Array);
         return result;
     }
@@ -1596,7 +1656,7 @@ public class Context implements Closeable {
     public Scriptable newArray(Scriptable scope, Object[] elements) {
         if (elements.getClass().getComponentType() != ScriptRuntime.ObjectClass)
             throw new IllegalArgumentException();
-        NativeArray result = new NativeArray(elements);
+        NativeArray result = new NativeArray(elements).pickElementKind(this);
         ScriptRuntime.setBuiltinProtoAndParent(result, scope, TopLevel.Builtins.Array);
         return result;
     }
@@ -2286,6 +2346,85 @@ public class Context implements Closeable {
         return this.generateObserverCount;
     }
 
+    /**
+     * Set a cache in which compiled scripts are kept across JVM restarts. When a script or
+     * function is compiled or evaluated and the cache has an entry for the same source and
+     * compiler settings, that entry is used instead of parsing and compiling the source again.
+     *
+     * @param cache the cache to use, or null to not use one
+     * @see CompiledScriptCache
+     * @since 1.7 Release 16
+     */
+    public final void setCompiledScriptCache(CompiledScriptCache cache) {
+        if (sealed) onSealedMutation();
+        this.compiledScriptCache = cache;
+    }
+
+    /**
+     * Return the cache for compiled scripts set with {@link #setCompiledScriptCache}, or null if
+     * there is none.
+     *
+     * @since 1.7 Release 16
+     */
+    public final CompiledScriptCache getCompiledScriptCache() {
+        return compiledScriptCache;
+    }
+
+    /**
+     * Set the cache of compiled regular expressions to use in this Context instead of the one of
+     * its {@link ContextFactory}.
+     *
+     * @param cache the cache to use, or null to always compile regular expressions
+     * @see RegExpCache
+     * @since 1.7 Release 16
+     */
+    public final void setRegExpCache(RegExpCache cache) {
+        if (sealed) onSealedMutation();
+        this.regExpCache = cache;
+        this.hasRegExpCache = true;
+    }
+
+    /**
+     * Return the cache of compiled regular expressions that is used in this Context, which is the
+     * one of its {@link ContextFactory} unless {@link #setRegExpCache} was called, or null if there
+     * is none.
+     *
+     * @since 1.7 Release 16
+     */
+    public final RegExpCache getRegExpCache() {
+        return hasRegExpCache ? regExpCache : factory.getRegExpCache();
+    }
+
+    /**
+     * Enable or disable linear time matching of regular expressions. When enabled, regular
+     * expressions are matched by simulating all the ways of matching them at the same time, so
+     * that the time of a match grows only linearly with the length of the input, whatever the
+     * pattern. This protects against patterns like /(a+)+b/ that take exponential time with the
+     * default backtracking matcher, at the price of matching somewhat slower on average.
+     *
+     * <p>Patterns that use back references or lookahead assertions, or that repeat something that
+     * can match the empty string any number of times, like /(a*)*b/, are still matched by
+     * backtracking.
+     *
+     * <p>This is disabled by default.
+     *
+     * @since 1.7 Release 16
+     */
+    public final void setLinearRegExpMatching(boolean linearRegExpMatching) {
+        if (sealed) onSealedMutation();
+        this.linearRegExpMatching = linearRegExpMatching;
+    }
+
+    /**
+     * Return true if regular expressions are matched in linear time where possible.
+     *
+     * @see #setLinearRegExpMatching
+     * @since 1.7 Release 16
+     */
+    public final boolean isLinearRegExpMatching() {
+        return linearRegExpMatching;
+    }
+
     /**
      * Allow application to monitor counter of executed script instructions in Context subclasses.
      * Run-time calls this when instruction counting is enabled and the counter reaches limit set by
@@ -2440,6 +2579,33 @@ public class Context implements Closeable {
             compilationErrorReporter = compilerEnv.getErrorReporter();
         }
 
+        // Only use the cache when the caller did not ask for a specific compiler,
+        // which is what happens for eval
+        CompiledScriptCache cache = null;
+        String cacheKey = null;
+        if (compiledScriptCache != null && compiler == null && debugger == null) {
+            cache = compiledScriptCache;
+            cacheKey =
+                    cache.getKey(
+                            sourceString,
+                            sourceName,
+                            lineno,
+                            returnFunction,
+                            isStrictMode(),
+                            compilerEnv);
+            Object bytecode = cache.load(cacheKey);
+            if (bytecode != null) {
+                compiler =
+                        bytecode instanceof InterpreterData
+                                ? createInterpreter()
+                                : createCompiler();
+                if (returnFunction) {
+                    return compiler.createFunctionObject(this, scope, bytecode, securityDomain);
+                }
+                return compiler.createScriptObject(bytecode, securityDomain);
+            }
+        }
+
         ScriptNode tree =
                 parse(
                         sourceString,
@@ -2474,6 +2640,10 @@ public class Context implements Closeable {
             bytecode = compiler.compile(compilerEnv, tree, sourceString, returnFunction);
         }
 
+        if (cache != null) {
+            cache.store(cacheKey, bytecode);
+        }
+
         if (debugger != null) {
             if (sourceString == null) Kit.codeBug();
             if (bytecode instanceof DebuggableScript) {
@@ -2661,6 +2831,67 @@ public class Context implements Closeable {
         return cx.isStrictMode();
     }
 
+    /**
+     * Copy the settings of the other Context to this one, which is a Context of the same factory
+     * that is not entered.
+     */
+    private void copySettings(Context other) {
+        sealed = other.sealed;
+        sealKey = other.sealKey;
+        interpreterSecurityDomain = other.interpreterSecurityDomain;
+        version = other.version;
+        securityController = other.securityController;
+        hasClassShutter = other.hasClassShutter;
+        classShutter = other.classShutter;
+        errorReporter = other.errorReporter;
+        regExpProxy = other.regExpProxy;
+        locale = other.locale;
+        timezone = other.timezone;
+        generatingDebug = other.generatingDebug;
+        generatingDebugChanged = other.generatingDebugChanged;
+        generatingSource = other.generatingSource;
+        useDynamicScope = other.useDynamicScope;
+        optimizationLevel = other.optimizationLevel;
+        maximumInterpreterStackDepth = other.maximumInterpreterStackDepth;
+        wrapFactory = other.wrapFactory;
+        debugger = other.debugger;
+        debuggerData = other.debuggerData;
+        propertyListeners = other.propertyListeners;
+        applicationClassLoader = other.applicationClassLoader;
+        javaToJSONConverter = other.javaToJSONConverter;
+        compiledScriptCache = other.compiledScriptCache;
+        regExpCache = other.regExpCache;
+        hasRegExpCache = other.hasRegExpCache;
+        linearRegExpMatching = other.linearRegExpMatching;
+        unhandledPromises.enable(other.unhandledPromises.isEnabled());
+        activationNames =
+                other.activationNames == null ? null : new HashSet<>(other.activationNames);
+        instructionThreshold = other.instructionThreshold;
+        generateObserverCount = other.generateObserverCount;
+    }
+
+    /**
+     * Prepare a released Context of the pool of its factory for reuse: restore the settings it had
+     * when it was created, and drop everything that previous executions left behind.
+     */
+    final void resetPooled() {
+        copySettings(pooledSettings);
+        topCallScope = null;
+        isContinuationsTopCall = false;
+        currentActivationCall = null;
+        cachedXMLLib = null;
+        typeErrorThrower = null;
+        iterating = null;
+        threadLocalMap = null;
+        microtasks.clear();
+        lastInterpreterFrame = null;
+        previousInterpreterInvocations = null;
+        instructionCount = 0;
+        scratchUint32 = 0;
+        scratchScriptable = null;
+        isTopLevelStrict = false;
+    }
+
     private final ContextFactory factory;
     private boolean sealed;
     private Object sealKey;
@@ -2687,6 +2918,9 @@ public class Context implements Closeable {
     RegExpProxy regExpProxy;
     private Locale locale;
     private TimeZone timezone;
+    // NativeDate's daylight saving intervals of the time zone it last used
+    TimeZone daylightSavingZone;
+    DaylightSavingTransitions daylightSavingTransitions;
     private boolean generatingDebug;
     private boolean generatingDebugChanged;
     private boolean generatingSource = true;
@@ -2701,9 +2935,17 @@ public class Context implements Closeable {
     private Map<Object, Object> threadLocalMap;
     private ClassLoader applicationClassLoader;
     private UnaryOperator<Object> javaToJSONConverter;
+    private CompiledScriptCache compiledScriptCache;
+    private RegExpCache regExpCache;
+    private boolean hasRegExpCache;
+    private boolean linearRegExpMatching;
     private final ArrayDeque<Runnable> microtasks = new ArrayDeque<>();
     private final UnhandledRejectionTracker unhandledPromises = new UnhandledRejectionTracker();
 
+    // For a Context that its factory keeps in a pool, a Context with the settings to restore
+    // when it is reused
+    private Context pooledSettings;
+
     /** This is the list of names of objects forcing the creation of function activation records. */
     Set<String> activationNames;
 
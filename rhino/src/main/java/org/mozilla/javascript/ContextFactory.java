@@ -10,6 +10,9 @@ package org.mozilla.javascript;
 
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Factory class that Rhino runtime uses to create new {@link Context} instances. A <code>
@@ -114,6 +117,9 @@ public class ContextFactory {
     private volatile Object listeners;
     private boolean disabledListening;
     private ClassLoader applicationClassLoader;
+    private volatile RegExpCache regExpCache = new RegExpCache(RegExpCache.DEFAULT_SIZE);
+    private volatile AtomicReferenceArray<Context> contextPool;
+    private final LongAdder contextPoolHits = new LongAdder();
 
     /** Listener of {@link Context} creation and release events. */
     public interface Listener {
@@ -290,6 +296,15 @@ public class ContextFactory {
 
             case Context.FEATURE_INTL_402:
                 return false;
+
+            case Context.FEATURE_INVOKEDYNAMIC:
+                return false;
+
+            case Context.FEATURE_HIDDEN_CLASSES:
+                return false;
+
+            case Context.FEATURE_CONCURRENT_OBJECTS:
+                return false;
         }
         // It is a bug to call the method with unknown featureIndex
         throw new IllegalArgumentException(String.valueOf(featureIndex));
@@ -428,6 +443,120 @@ public class ContextFactory {
         }
     }
 
+    /**
+     * Return the cache of compiled regular expressions that is shared by the Contexts of this
+     * factory, or null if there is none.
+     *
+     * @since 1.7 Release 16
+     */
+    public final RegExpCache getRegExpCache() {
+        return regExpCache;
+    }
+
+    /**
+     * Set the cache of compiled regular expressions that is shared by the Contexts of this factory.
+     * By default, this is a cache of {@link RegExpCache#DEFAULT_SIZE} entries.
+     *
+     * @param cache the cache to use, or null to always compile regular expressions
+     * @since 1.7 Release 16
+     */
+    public final void setRegExpCache(RegExpCache cache) {
+        checkNotSealed();
+        this.regExpCache = cache;
+    }
+
+    /**
+     * Keep up to the given number of released {@link Context} instances to reuse them instead of
+     * creating new ones. The pool is used when a thread enters a Context with {@link
+     * #enterContext()} or {@link #call(ContextAction)} and has none yet. A Context from the pool
+     * gets back the settings it had after {@link #makeContext()} and {@link
+     * Listener#contextCreated(Context)} created it, and loses all other state, like its thread
+     * local values. It is not announced to the listeners as created again, but it is announced as
+     * released each time it is released.
+     *
+     * <p>Only Contexts that the factory created itself are pooled. As a pooled Context may be
+     * used by another thread as soon as it is released, enable the pool only if the application
+     * does not use a Context after it has exited it. Subclasses of Context that keep state of
+     * their own should not be pooled. By default the pool size is 0 and no pool is used.
+     *
+     * @param size the maximum number of Contexts to keep, or 0 to keep none
+     * @see #getContextPoolHits()
+     * @since 1.7 Release 16
+     */
+    public final void setContextPoolSize(int size) {
+        checkNotSealed();
+        if (size < 0) {
+            throw new IllegalArgumentException("size < 0");
+        }
+        contextPool = size == 0 ? null : new AtomicReferenceArray<>(size);
+    }
+
+    /**
+     * Return the maximum number of released Contexts that are kept for reuse.
+     *
+     * @see #setContextPoolSize(int)
+     * @since 1.7 Release 16
+     */
+    public final int getContextPoolSize() {
+        AtomicReferenceArray<Context> pool = contextPool;
+        return pool == null ? 0 : pool.length();
+    }
+
+    /**
+     * Return how many times a Context was taken from the pool instead of being created.
+     *
+     * @see #setContextPoolSize(int)
+     * @since 1.7 Release 16
+     */
+    public final long getContextPoolHits() {
+        return contextPoolHits.sum();
+    }
+
+    final boolean isContextPoolEnabled() {
+        return contextPool != null;
+    }
+
+    /** Take a released Context from the pool, or return null if there is none. */
+    final Context takePooledContext() {
+        AtomicReferenceArray<Context> pool = contextPool;
+        if (pool == null) {
+            return null;
+        }
+        // Start at a random slot so that threads do not all compete for the first one
+        int length = pool.length();
+        int index = ThreadLocalRandom.current().nextInt(length);
+        for (int i = 0; i < length; i++) {
+            Context cx = pool.get(index);
+            if (cx != null && pool.compareAndSet(index, cx, null)) {
+                contextPoolHits.increment();
+                return cx;
+            }
+            if (++index == length) {
+                index = 0;
+            }
+        }
+        return null;
+    }
+
+    /** Reset a released Context and put it in the pool, unless the pool is full. */
+    final void releasePooledContext(Context cx) {
+        AtomicReferenceArray<Context> pool = contextPool;
+        if (pool == null) {
+            return;
+        }
+        cx.resetPooled();
+        int length = pool.length();
+        int index = ThreadLocalRandom.current().nextInt(length);
+        for (int i = 0; i < length; i++) {
+            if (pool.get(index) == null && pool.compareAndSet(index, null, cx)) {
+                return;
+            }
+            if (++index == length) {
+                index = 0;
+            }
+        }
+    }
+
     /** The method is used only to implement Context.disableStaticContextListening() */
     final void disableContextListening() {
         checkNotSealed();
@@ -0,0 +1,184 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The intervals of time in which a time zone is or is not in daylight saving time, from 1970 to
+ * 2035, so that NativeDate can find out whether a time is in daylight saving time with a binary
+ * search instead of allocating a Date to ask {@link TimeZone#inDaylightTime}.
+ *
+ * <p>The intervals are bounded by the transitions of the {@link ZoneRules} of the zone and by the
+ * changes of its standard offset, and each interval is in daylight saving time if {@link
+ * TimeZone#inDaylightTime} says so, so that the result is the same as without the intervals. The
+ * intervals of a zone are computed once and shared by all the TimeZone instances that have the
+ * same rules as the zone of the same ID.
+ */
+final class DaylightSavingTransitions {
+
+    /*
+     * 2036-01-01T00:00:00Z. Later times are left to the TimeZone, which does not use the
+     * transitions of the zone from 2037 on, but repeats the rules of its last year.
+     */
+    private static final long LIMIT = 2082758400000L;
+
+    private static final long SECONDS_PER_DAY = 24 * 60 * 60;
+
+    private static final byte STANDARD = 0;
+    private static final byte DAYLIGHT = 1;
+    private static final byte UNKNOWN = -1;
+
+    /** Used for time zones that are not known by their ID, whose intervals are not computed. */
+    static final DaylightSavingTransitions NONE =
+            new DaylightSavingTransitions(null, new long[0], new byte[0], 0);
+
+    private static final ConcurrentHashMap<String, DaylightSavingTransitions> byZoneId =
+            new ConcurrentHashMap<>();
+
+    /* The TimeZone from which the intervals were computed */
+    private final TimeZone zone;
+
+    /* The start of each interval, the first being 0 */
+    private final long[] starts;
+
+    /* For each interval, DAYLIGHT, STANDARD or UNKNOWN if that changes within the interval */
+    private final byte[] states;
+
+    /* The end of the last interval */
+    private final long limit;
+
+    private DaylightSavingTransitions(TimeZone zone, long[] starts, byte[] states, long limit) {
+        this.zone = zone;
+        this.starts = starts;
+        this.states = states;
+        this.limit = limit;
+    }
+
+    /**
+     * Return the intervals for the time zone, or {@link #NONE} if the time zone is not a time zone
+     * of the Java runtime or has been changed.
+     */
+    static DaylightSavingTransitions forTimeZone(TimeZone tz) {
+        String id = tz.getID();
+        DaylightSavingTransitions transitions = byZoneId.get(id);
+        if (transitions == null) {
+            // Custom IDs are not remembered, as there may be any number of them
+            transitions = compute(id);
+            if (transitions == NONE) {
+                return NONE;
+            }
+            DaylightSavingTransitions other = byZoneId.putIfAbsent(id, transitions);
+            if (other != null) {
+                transitions = other;
+            }
+        }
+        if (!transitions.zone.hasSameRules(tz)) {
+            return NONE;
+        }
+        return transitions;
+    }
+
+    /**
+     * Return 1 if the time in milliseconds since the epoch is in daylight saving time, 0 if it is
+     * not, and -1 if the time is out of range or this is not known.
+     */
+    int isDaylightTime(long t) {
+        if (t < 0 || t >= limit) {
+            return UNKNOWN;
+        }
+        int i = Arrays.binarySearch(starts, t);
+        if (i < 0) {
+            i = -i - 2;
+        }
+        return states[i];
+    }
+
+    private static DaylightSavingTransitions compute(String id) {
+        ZoneId zoneId;
+        try {
+            zoneId = ZoneId.of(id, ZoneId.SHORT_IDS);
+        } catch (DateTimeException e) {
+            return NONE;
+        }
+        TimeZone zone = TimeZone.getTimeZone(zoneId);
+        ZoneRules rules = zoneId.getRules();
+
+        long[] starts = new long[16];
+        int count = 0;
+        starts[count++] = 0;
+        ZoneOffsetTransition transition = rules.nextTransition(Instant.EPOCH);
+        while (transition != null && transition.toEpochSecond() * 1000 < LIMIT) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+            }
+            starts[count++] = transition.toEpochSecond() * 1000;
+            transition = rules.nextTransition(transition.getInstant());
+        }
+
+        // A change of the standard offset that does not change the actual offset, like
+        // in Argentina in 1999, is no transition, but still starts or ends daylight
+        // saving time. Such changes only happen before the last explicit transition,
+        // so look for them day by day up to there.
+        List<ZoneOffsetTransition> explicit = rules.getTransitions();
+        long lastExplicit =
+                explicit.isEmpty() ? 0 : explicit.get(explicit.size() - 1).toEpochSecond();
+        ZoneOffset standard = rules.getStandardOffset(Instant.EPOCH);
+        for (long second = SECONDS_PER_DAY;
+                second < lastExplicit + SECONDS_PER_DAY;
+                second += SECONDS_PER_DAY) {
+            ZoneOffset next = rules.getStandardOffset(Instant.ofEpochSecond(second));
+            if (next.equals(standard)) {
+                continue;
+            }
+            long low = second - SECONDS_PER_DAY, high = second;
+            while (high - low > 1) {
+                long middle = (low + high) >>> 1;
+                if (rules.getStandardOffset(Instant.ofEpochSecond(middle)).equals(standard)) {
+                    low = middle;
+                } else {
+                    high = middle;
+                }
+            }
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+            }
+            starts[count++] = high * 1000;
+            standard = next;
+        }
+        Arrays.sort(starts, 0, count);
+        int distinct = 1;
+        for (int i = 1; i < count; i++) {
+            if (starts[i] != starts[distinct - 1]) {
+                starts[distinct++] = starts[i];
+            }
+        }
+        count = distinct;
+        starts = Arrays.copyOf(starts, count);
+
+        // If the TimeZone does not agree with the rules and changes between daylight
+        // saving and standard time within an interval, leave that interval to it.
+        byte[] states = new byte[count];
+        for (int i = 0; i < count; i++) {
+            long end = (i + 1 < count ? starts[i + 1] : LIMIT) - 1;
+            boolean atStart = zone.inDaylightTime(new Date(starts[i]));
+            boolean atEnd = zone.inDaylightTime(new Date(end));
+            states[i] = atStart != atEnd ? UNKNOWN : atStart ? DAYLIGHT : STANDARD;
+        }
+        return new DaylightSavingTransitions(zone, starts, states, LIMIT);
+    }
+}
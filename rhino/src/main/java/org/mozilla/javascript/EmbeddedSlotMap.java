@@ -7,54 +7,97 @@
 package org.mozilla.javascript;
 
 /*
- * This class implements the SlotMap interface using an embedded hash table. This hash table
- * has the minimum overhead needed to get the job done. In particular, it embeds the Slot
- * directly into the hash table rather than creating an intermediate object, which seems
- * to have a measurable performance benefit.
+ * This class implements the SlotMap interface using a compact, open-addressing hash table.
+ * The slots themselves are kept in an array in the order in which they were added, with
+ * the hash codes of their keys in a parallel int array. The hash table is a power-of-two
+ * sized int array of positions in those arrays, and is searched using linear probing, so
+ * that a lookup only touches the int arrays until it finds a slot with a matching hash.
+ * There are no intermediate objects per slot, and no pointers inside the slots, which keeps
+ * large objects that are used as dictionaries small.
+ *
+ * Removing a slot leaves a hole in the slot array, which is closed up the next time that
+ * the arrays are reallocated.
  */
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 
 public class EmbeddedSlotMap implements SlotMap {
 
+    // slots in definition order, with null for slots that were removed
     private Slot[] slots;
+    // the hash codes of the slots, so that probing does not have to look at the slots
+    private int[] hashes;
+    // the hash table, with the position of each slot plus one, or zero for an empty entry
+    private int[] table;
 
-    // gateways into the definition-order linked list of slots
-    private Slot firstAdded;
-    private Slot lastAdded;
-
+    // the number of positions in "slots" that are in use, including removed slots
+    private int used;
     private int count;
 
-    // initial slot array size, must be a power of 2
-    private static final int INITIAL_SLOT_SIZE = 4;
+    // set when a search has run through a long cluster of occupied buckets, or through a lot of
+    // keys with exactly the same hash code
+    private boolean longClusters;
+
+    // initial hash table size, must be a power of 2
+    private static final int INITIAL_TABLE_SIZE = 4;
+
+    /**
+     * If a search has to look at more buckets than this times the number of bits of the table
+     * size, then somebody is probably adding keys whose hash codes collide, or fall into the same
+     * buckets, on purpose. With a table that is at most three quarters full, the longest search
+     * only grows with the logarithm of the size, and stays well below that for ordinary keys.
+     */
+    private static final int PROBES_PER_BIT = 16;
+
+    /**
+     * If a search runs into more keys than this that have the same hash code as the key that it is
+     * looking for, then somebody is probably adding colliding keys on purpose.
+     */
+    private static final int COLLISION_LIMIT = 32;
 
     private static final class Iter implements Iterator<Slot> {
-        private Slot next;
+        private final Slot[] slots;
+        private final int used;
+        private int pos;
 
-        Iter(Slot slot) {
-            next = slot;
+        Iter(Slot[] slots, int used) {
+            this.slots = slots;
+            this.used = used;
         }
 
         @Override
         public boolean hasNext() {
-            return next != null;
+            while (pos < used && slots[pos] == null) {
+                pos++;
+            }
+            return pos < used;
         }
 
         @Override
         public Slot next() {
-            Slot ret = next;
-            if (ret == null) {
+            if (!hasNext()) {
                 throw new NoSuchElementException();
             }
-            next = next.orderedNext;
-            return ret;
+            return slots[pos++];
         }
     }
 
     public EmbeddedSlotMap() {}
 
+    /**
+     * Create a map that can hold the given number of slots before it needs to grow.
+     *
+     * @param initialSize the expected number of slots
+     */
+    public EmbeddedSlotMap(int initialSize) {
+        if (initialSize > 0) {
+            allocate(tableSizeFor(initialSize));
+        }
+    }
+
     @Override
     public int size() {
         return count;
@@ -67,22 +110,43 @@ public class EmbeddedSlotMap implements SlotMap {
 
     @Override
     public Iterator<Slot> iterator() {
-        return new Iter(firstAdded);
+        return new Iter(slots, used);
+    }
+
+    /**
+     * Return true if a search has run through so many keys whose hash codes fall into the same
+     * buckets that a map that is more robust against collisions should be used instead.
+     */
+    boolean hasLongClusters() {
+        return longClusters;
     }
 
     /** Locate the slot with the given name or index. */
     @Override
     public Slot query(Object key, int index) {
-        if (slots == null) {
+        // This may be called without a lock by ThreadSafeSlotMapContainer, while another thread
+        // modifies the map. It must not fail or loop forever then, but the result does not matter.
+        final int[] t = table;
+        if (t == null) {
             return null;
         }
-
-        int indexOrHash = (key != null ? key.hashCode() : index);
-        int slotIndex = getSlotIndex(slots.length, indexOrHash);
-        for (Slot slot = slots[slotIndex]; slot != null; slot = slot.next) {
-            if (indexOrHash == slot.indexOrHash && Objects.equals(slot.name, key)) {
-                return slot;
+        final int[] hs = hashes;
+        final Slot[] ss = slots;
+        final int indexOrHash = (key != null ? key.hashCode() : index);
+        final int mask = t.length - 1;
+        int bucket = getBucket(mask, indexOrHash);
+        for (int i = 0; i <= mask; i++) {
+            int pos = t[bucket] - 1;
+            if (pos < 0) {
+                return null;
             }
+            if (pos < hs.length && hs[pos] == indexOrHash && pos < ss.length) {
+                Slot slot = ss[pos];
+                if (slot != null && Objects.equals(slot.name, key)) {
+                    return slot;
+                }
+            }
+            bucket = (bucket + 1) & mask;
         }
         return null;
     }
@@ -96,87 +160,36 @@ public class EmbeddedSlotMap implements SlotMap {
     @Override
     public Slot modify(Object key, int index, int attributes) {
         final int indexOrHash = (key != null ? key.hashCode() : index);
-        Slot slot;
-
-        if (slots != null) {
-            final int slotIndex = getSlotIndex(slots.length, indexOrHash);
-            for (slot = slots[slotIndex]; slot != null; slot = slot.next) {
-                if (indexOrHash == slot.indexOrHash && Objects.equals(slot.name, key)) {
-                    break;
-                }
-            }
-            if (slot != null) {
-                return slot;
+        int bucket = -1;
+        if (table != null) {
+            bucket = findBucket(key, indexOrHash);
+            if (bucket >= 0) {
+                return slots[table[bucket] - 1];
             }
         }
 
         // A new slot has to be inserted.
         Slot newSlot = new Slot(key, index, attributes);
-        createNewSlot(newSlot);
+        insertNewSlot(newSlot, ~bucket);
         return newSlot;
     }
 
-    private void createNewSlot(Slot newSlot) {
-        if (count == 0) {
-            // Always throw away old slots if any on empty insert.
-            slots = new Slot[INITIAL_SLOT_SIZE];
-        }
-
-        // Check if the table is not too full before inserting.
-        if (4 * (count + 1) > 3 * slots.length) {
-            // table size must be a power of 2 -- always grow by x2!
-            Slot[] newSlots = new Slot[slots.length * 2];
-            copyTable(slots, newSlots);
-            slots = newSlots;
-        }
-
-        insertNewSlot(newSlot);
-    }
-
     @Override
     public <S extends Slot> S compute(Object key, int index, SlotComputer<S> c) {
         final int indexOrHash = (key != null ? key.hashCode() : index);
 
-        if (slots != null) {
-            Slot slot;
-            final int slotIndex = getSlotIndex(slots.length, indexOrHash);
-            Slot prev = slots[slotIndex];
-            for (slot = prev; slot != null; slot = slot.next) {
-                if (indexOrHash == slot.indexOrHash && Objects.equals(slot.name, key)) {
-                    break;
-                }
-                prev = slot;
-            }
-            if (slot != null) {
+        if (table != null) {
+            int bucket = findBucket(key, indexOrHash);
+            if (bucket >= 0) {
                 // Modify or remove existing slot
-                S newSlot = c.compute(key, index, slot);
+                int pos = table[bucket] - 1;
+                S newSlot = c.compute(key, index, slots[pos]);
                 if (newSlot == null) {
                     // Need to delete this slot actually
-                    removeSlot(slot, prev, slotIndex, key);
-                } else if (!Objects.equals(slot, newSlot)) {
-                    // Replace slot in hash table
-                    if (prev == slot) {
-                        slots[slotIndex] = newSlot;
-                    } else {
-                        prev.next = newSlot;
-                    }
-                    newSlot.next = slot.next;
-                    // Replace new slot in linked list, keeping same order
-                    if (slot == firstAdded) {
-                        firstAdded = newSlot;
-                    } else {
-                        Slot ps = firstAdded;
-                        while ((ps != null) && (ps.orderedNext != slot)) {
-                            ps = ps.orderedNext;
-                        }
-                        if (ps != null) {
-                            ps.orderedNext = newSlot;
-                        }
-                    }
-                    newSlot.orderedNext = slot.orderedNext;
-                    if (slot == lastAdded) {
-                        lastAdded = newSlot;
-                    }
+                    removeSlot(bucket, pos);
+                } else {
+                    // Replacing the slot keeps its place in the order
+                    slots[pos] = newSlot;
                 }
                 return newSlot;
             }
@@ -185,87 +198,174 @@ public class EmbeddedSlotMap implements SlotMap {
         // If we get here, we know we are potentially adding a new slot
         S newSlot = c.compute(key, index, null);
         if (newSlot != null) {
-            createNewSlot(newSlot);
+            insertNewSlot(newSlot, -1);
         }
         return newSlot;
     }
 
     @Override
     public void add(Slot newSlot) {
-        if (slots == null) {
-            slots = new Slot[INITIAL_SLOT_SIZE];
+        insertNewSlot(newSlot, -1);
+    }
+
+    /**
+     * Search the hash table for the slot with the given key, and return its bucket. If there is no
+     * such slot, then return the complement of the empty bucket where the search stopped.
+     */
+    private int findBucket(Object key, int indexOrHash) {
+        final int[] t = table;
+        final int mask = t.length - 1;
+        final int probeLimit = PROBES_PER_BIT * Integer.bitCount(mask);
+        int bucket = getBucket(mask, indexOrHash);
+        int sameHash = 0;
+        for (int probes = 0; ; probes++) {
+            int pos = t[bucket] - 1;
+            if (pos < 0) {
+                if (probes > probeLimit || sameHash > COLLISION_LIMIT) {
+                    longClusters = true;
+                }
+                return ~bucket;
+            }
+            if (hashes[pos] == indexOrHash) {
+                if (Objects.equals(slots[pos].name, key)) {
+                    if (probes > probeLimit) {
+                        longClusters = true;
+                    }
+                    return bucket;
+                }
+                sameHash++;
+            }
+            bucket = (bucket + 1) & mask;
         }
-        insertNewSlot(newSlot);
     }
 
-    private void insertNewSlot(Slot newSlot) {
-        ++count;
-        // add new slot to linked list
-        if (lastAdded != null) {
-            lastAdded.orderedNext = newSlot;
+    /**
+     * Add a slot whose key is known to be absent from the map. If "bucket" is not negative, it is
+     * the empty bucket of the hash table where the slot belongs.
+     */
+    private void insertNewSlot(Slot newSlot, int bucket) {
+        if (table == null) {
+            allocate(INITIAL_TABLE_SIZE);
+            bucket = -1;
+        } else if (used == slots.length) {
+            // Either close up the holes left by removed slots, or grow
+            reallocate(tableSizeFor(count + 1 + (count >> 1)));
+            bucket = -1;
         }
-        if (firstAdded == null) {
-            firstAdded = newSlot;
+
+        final int indexOrHash = newSlot.indexOrHash;
+        if (bucket < 0) {
+            bucket = findBucket(newSlot.name, indexOrHash);
+            if (bucket >= 0) {
+                // Not absent after all, so replace the existing slot
+                slots[table[bucket] - 1] = newSlot;
+                return;
+            }
+            bucket = ~bucket;
         }
-        lastAdded = newSlot;
-        addKnownAbsentSlot(slots, newSlot);
+        table[bucket] = used + 1;
+        slots[used] = newSlot;
+        hashes[used] = indexOrHash;
+        used++;
+        count++;
     }
 
-    private void removeSlot(Slot slot, Slot prev, int ix, Object key) {
+    private void removeSlot(int bucket, int pos) {
         count--;
-        // remove slot from hash table
-        if (prev == slot) {
-            slots[ix] = slot.next;
-        } else {
-            prev.next = slot.next;
+        slots[pos] = null;
+        if (count == 0) {
+            // Start over, so that an object that is used as a queue does not keep growing
+            used = 0;
+            Arrays.fill(table, 0);
+            return;
+        }
+        while (used > 0 && slots[used - 1] == null) {
+            used--;
         }
 
-        // remove from ordered list. Previously this was done lazily in
-        // getIds() but delete is an infrequent operation so O(n)
-        // should be ok
-
-        // ordered list always uses the actual slot
-        if (slot == firstAdded) {
-            prev = null;
-            firstAdded = slot.orderedNext;
-        } else {
-            prev = firstAdded;
-            while (prev.orderedNext != slot) {
-                prev = prev.orderedNext;
+        // Shift back the following entries of the same cluster, so that every entry can still
+        // be found by searching from its home bucket without running into an empty bucket.
+        final int[] t = table;
+        final int mask = t.length - 1;
+        int empty = bucket;
+        int next = bucket;
+        for (; ; ) {
+            next = (next + 1) & mask;
+            int p = t[next] - 1;
+            if (p < 0) {
+                break;
+            }
+            int home = getBucket(mask, hashes[p]);
+            // Move the entry unless its home bucket lies cyclically in (empty, next]
+            boolean stays =
+                    (empty <= next)
+                            ? (empty < home && home <= next)
+                            : (empty < home || home <= next);
+            if (!stays) {
+                t[empty] = t[next];
+                empty = next;
             }
-            prev.orderedNext = slot.orderedNext;
-        }
-        if (slot == lastAdded) {
-            lastAdded = prev;
         }
+        t[empty] = 0;
+    }
+
+    private void allocate(int tableSize) {
+        table = new int[tableSize];
+        slots = new Slot[capacityFor(tableSize)];
+        hashes = new int[slots.length];
+        used = 0;
+        count = 0;
     }
 
-    private static void copyTable(Slot[] oldSlots, Slot[] newSlots) {
-        for (Slot slot : oldSlots) {
-            while (slot != null) {
-                Slot nextSlot = slot.next;
-                slot.next = null;
-                addKnownAbsentSlot(newSlots, slot);
-                slot = nextSlot;
+    /** Copy the slots that have not been removed to new arrays, and rebuild the hash table. */
+    private void reallocate(int tableSize) {
+        Slot[] oldSlots = slots;
+        int[] oldHashes = hashes;
+        int oldUsed = used;
+
+        int[] newTable = new int[tableSize];
+        Slot[] newSlots = new Slot[capacityFor(tableSize)];
+        int[] newHashes = new int[newSlots.length];
+        int mask = tableSize - 1;
+        int n = 0;
+        for (int i = 0; i < oldUsed; i++) {
+            Slot slot = oldSlots[i];
+            if (slot != null) {
+                int bucket = getBucket(mask, oldHashes[i]);
+                while (newTable[bucket] != 0) {
+                    bucket = (bucket + 1) & mask;
+                }
+                newTable[bucket] = n + 1;
+                newSlots[n] = slot;
+                newHashes[n] = oldHashes[i];
+                n++;
             }
         }
+        slots = newSlots;
+        hashes = newHashes;
+        table = newTable;
+        used = n;
     }
 
-    /**
-     * Add slot with keys that are known to absent from the table. This is an optimization to use
-     * when inserting into empty table, after table growth or during deserialization.
-     */
-    private static void addKnownAbsentSlot(Slot[] addSlots, Slot slot) {
-        final int insertPos = getSlotIndex(addSlots.length, slot.indexOrHash);
-        Slot old = addSlots[insertPos];
-        addSlots[insertPos] = slot;
-        slot.next = old;
+    /** Return the smallest table size that leaves room for "size" slots. */
+    private static int tableSizeFor(int size) {
+        int tableSize = INITIAL_TABLE_SIZE;
+        while (capacityFor(tableSize) < size) {
+            tableSize *= 2;
+        }
+        return tableSize;
+    }
+
+    /** The hash table is never more than three quarters full. */
+    private static int capacityFor(int tableSize) {
+        return tableSize - (tableSize >> 2);
     }
 
-    private static int getSlotIndex(int tableSize, int indexOrHash) {
-        // This is a Java trick to efficiently "mod" the hash code by the table size.
-        // It only works if the table size is a power of 2.
-        // The performance improvement is measurable.
-        return indexOrHash & (tableSize - 1);
+    private static int getBucket(int mask, int indexOrHash) {
+        // Multiply by 2^32 divided by the golden ratio and take the highest bits, as many as the
+        // mask has, which must be one less than a power of 2. This spreads out the hash codes of
+        // keys that only differ in their last characters, and indices with a large stride, which
+        // would otherwise form long clusters that make linear probing slow.
+        return (indexOrHash * 0x9E3779B9) >>> Integer.numberOfLeadingZeros(mask);
     }
 }
@@ -13,7 +13,8 @@ import java.util.LinkedHashMap;
  * This class implements the SlotMap interface using a java.util.HashMap. This class has more
  * overhead than EmbeddedSlotMap, especially because it puts each "Slot" inside an intermediate
  * object. However it is much more resistant to large number of hash collisions than EmbeddedSlotMap
- * and therefore we use this implementation when an object gains a large number of properties.
+ * and therefore we use this implementation when an object gains many properties whose keys have
+ * the same hash code.
  */
 public class HashSlotMap implements SlotMap {
 
@@ -440,10 +440,11 @@ public final class Interpreter extends Icode implements Evaluator {
 
     @Override
     public Script createScriptObject(Object bytecode, Object staticSecurityDomain) {
-        if (bytecode != itsData) {
+        // The bytecode may also have been compiled earlier and loaded from a cache
+        if (itsData != null && bytecode != itsData) {
             Kit.codeBug();
         }
-        return InterpretedFunction.createScript(itsData, staticSecurityDomain);
+        return InterpretedFunction.createScript((InterpreterData) bytecode, staticSecurityDomain);
     }
 
     @Override
@@ -454,10 +455,11 @@ public final class Interpreter extends Icode implements Evaluator {
     @Override
     public Function createFunctionObject(
             Context cx, Scriptable scope, Object bytecode, Object staticSecurityDomain) {
-        if (bytecode != itsData) {
+        if (itsData != null && bytecode != itsData) {
             Kit.codeBug();
         }
-        return InterpretedFunction.createFunction(cx, scope, itsData, staticSecurityDomain);
+        return InterpretedFunction.createFunction(
+                cx, scope, (InterpreterData) bytecode, staticSecurityDomain);
     }
 
     private static int getShort(byte[] iCode, int pc) {
@@ -1518,6 +1520,12 @@ public final class Interpreter extends Icode implements Evaluator {
                                 }
                             case Token.NEG:
                                 {
+                                    if (isNumberOperand(stack[stackTop])) {
+                                        double rDbl = stack_double(frame, stackTop);
+                                        stack[stackTop] = DBL_MRK;
+                                        sDbl[stackTop] = -rDbl;
+                                        continue Loop;
+                                    }
                                     Number rNum = stack_numeric(frame, stackTop);
                                     Number rNegNum = ScriptRuntime.negate(rNum);
                                     if (rNegNum instanceof BigInteger) {
@@ -2779,6 +2787,26 @@ public final class Interpreter extends Icode implements Evaluator {
         boolean valBln;
         object_compare:
         {
+            if (isNumberOperand(lhs) && isNumberOperand(rhs)) {
+                double lDbl = stack_double(frame, stackTop);
+                double rDbl = stack_double(frame, stackTop + 1);
+                switch (op) {
+                    case Token.GE:
+                        valBln = lDbl >= rDbl;
+                        break object_compare;
+                    case Token.LE:
+                        valBln = lDbl <= rDbl;
+                        break object_compare;
+                    case Token.GT:
+                        valBln = lDbl > rDbl;
+                        break object_compare;
+                    case Token.LT:
+                        valBln = lDbl < rDbl;
+                        break object_compare;
+                    default:
+                        throw Kit.codeBug();
+                }
+            }
             number_compare:
             {
                 Number rNum, lNum;
@@ -2802,6 +2830,34 @@ public final class Interpreter extends Icode implements Evaluator {
 
     private static int doBitOp(
             CallFrame frame, int op, Object[] stack, double[] sDbl, int stackTop) {
+        if (isNumberOperand(stack[stackTop - 1]) && isNumberOperand(stack[stackTop])) {
+            int lInt = stack_int32(frame, stackTop - 1);
+            int rInt = stack_int32(frame, stackTop);
+            stackTop--;
+            int intResult;
+            switch (op) {
+                case Token.BITAND:
+                    intResult = lInt & rInt;
+                    break;
+                case Token.BITOR:
+                    intResult = lInt | rInt;
+                    break;
+                case Token.BITXOR:
+                    intResult = lInt ^ rInt;
+                    break;
+                case Token.LSH:
+                    intResult = lInt << rInt;
+                    break;
+                case Token.RSH:
+                    intResult = lInt >> rInt;
+                    break;
+                default:
+                    throw Kit.codeBug();
+            }
+            stack[stackTop] = DOUBLE_MARK;
+            sDbl[stackTop] = intResult;
+            return stackTop;
+        }
         Number lValue = stack_numeric(frame, stackTop - 1);
         Number rValue = stack_numeric(frame, stackTop);
         stackTop--;
@@ -2835,6 +2891,12 @@ public final class Interpreter extends Icode implements Evaluator {
     }
 
     private static int doBitNOT(CallFrame frame, Object[] stack, double[] sDbl, int stackTop) {
+        if (isNumberOperand(stack[stackTop])) {
+            int value = stack_int32(frame, stackTop);
+            stack[stackTop] = DOUBLE_MARK;
+            sDbl[stackTop] = ~value;
+            return stackTop;
+        }
         Number value = stack_numeric(frame, stackTop);
         Number result = ScriptRuntime.bitwiseNOT(value);
         if (result instanceof BigInteger) {
@@ -2866,6 +2928,16 @@ public final class Interpreter extends Icode implements Evaluator {
         }
         Object value;
         Object id = stack[stackTop + 1];
+        if (lhs instanceof NativeArray && lhs.getClass() == NativeArray.class) {
+            // Numbers that are stored unboxed stay unboxed
+            NativeArray array = (NativeArray) lhs;
+            int index = toElementIndex(id, sDbl[stackTop + 1]);
+            if (array.hasUnboxedElement(index)) {
+                stack[stackTop] = DOUBLE_MARK;
+                sDbl[stackTop] = array.getUnboxedElement(index);
+                return stackTop;
+            }
+        }
         if (id != DOUBLE_MARK) {
             value = ScriptRuntime.getObjectElem(lhs, id, cx, frame.scope);
         } else {
@@ -2881,6 +2953,16 @@ public final class Interpreter extends Icode implements Evaluator {
         stackTop -= 2;
         Object rhs = stack[stackTop + 2];
         if (rhs == DOUBLE_MARK) {
+            Object target = stack[stackTop];
+            if (target instanceof NativeArray && target.getClass() == NativeArray.class) {
+                double d = sDbl[stackTop + 2];
+                int index = toElementIndex(stack[stackTop + 1], sDbl[stackTop + 1]);
+                if (((NativeArray) target).putUnboxedElement(index, d)) {
+                    stack[stackTop] = DOUBLE_MARK;
+                    sDbl[stackTop] = d;
+                    return stackTop;
+                }
+            }
             rhs = ScriptRuntime.wrapNumber(sDbl[stackTop + 2]);
         }
         Object lhs = stack[stackTop];
@@ -2899,6 +2981,21 @@ public final class Interpreter extends Icode implements Evaluator {
         return stackTop;
     }
 
+    /**
+     * Return the array index that an element id on the stack stands for, or -1 if it is not a
+     * number that is a valid array index.
+     */
+    private static int toElementIndex(Object id, double d) {
+        if (id == DOUBLE_MARK) {
+            int index = (int) d;
+            return index == d ? index : -1;
+        }
+        if (id instanceof Integer) {
+            return ((Integer) id).intValue();
+        }
+        return -1;
+    }
+
     private static int doElemIncDec(
             Context cx,
             CallFrame frame,
@@ -3552,6 +3649,16 @@ public final class Interpreter extends Icode implements Evaluator {
         return frame.sDbl[i];
     }
 
+    /**
+     * Return true if the value is a number on the double stack, or a boxed number that is not a
+     * BigInt, so that operators can work on doubles without calling ScriptRuntime. Int32 values
+     * have no tag of their own: a double holds each of them exactly, and they are boxed by
+     * ScriptRuntime.wrapNumber like any other number when they leave the double stack.
+     */
+    private static boolean isNumberOperand(Object x) {
+        return x == UniqueTag.DOUBLE_MARK || x instanceof Integer || x instanceof Double;
+    }
+
     private static Number stack_numeric(CallFrame frame, int i) {
         Object x = frame.stack[i];
         if (x != UniqueTag.DOUBLE_MARK) {
@@ -3661,6 +3768,35 @@ public final class Interpreter extends Icode implements Evaluator {
 
     private static int doArithmetic(
             CallFrame frame, int op, Object[] stack, double[] sDbl, int stackTop) {
+        if (isNumberOperand(stack[stackTop - 1]) && isNumberOperand(stack[stackTop])) {
+            // Stay on the double stack, since stack_numeric would box both operands
+            double lDbl = stack_double(frame, stackTop - 1);
+            double rDbl = stack_double(frame, stackTop);
+            --stackTop;
+            double dblResult;
+            switch (op) {
+                case Token.SUB:
+                    dblResult = lDbl - rDbl;
+                    break;
+                case Token.MUL:
+                    dblResult = lDbl * rDbl;
+                    break;
+                case Token.DIV:
+                    dblResult = lDbl / rDbl;
+                    break;
+                case Token.MOD:
+                    dblResult = lDbl % rDbl;
+                    break;
+                case Token.EXP:
+                    dblResult = Math.pow(lDbl, rDbl);
+                    break;
+                default:
+                    throw Kit.codeBug();
+            }
+            stack[stackTop] = DOUBLE_MARK;
+            sDbl[stackTop] = dblResult;
+            return stackTop;
+        }
         Number lNum = stack_numeric(frame, stackTop - 1);
         Number rNum = stack_numeric(frame, stackTop);
         --stackTop;
@@ -0,0 +1,30 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+/**
+ * The base class of the classes that are generated to call the getters and setters of the bean
+ * properties of a Java class when {@link ClassCache#setInvokerOptimizationEnabled(boolean)} is
+ * on. This is only public so that the generated classes, which are defined by their own class
+ * loader, can extend it, and it is not meant to be used by anything else.
+ */
+public abstract class JavaBeanAccessor {
+
+    protected JavaBeanAccessor() {}
+
+    /**
+     * Call the getter with the given id on the target, which is ignored for a static getter, and
+     * return the result, with primitive values boxed.
+     */
+    public abstract Object get(int id, Object target);
+
+    /**
+     * Call the setter with the given id on the target, which is ignored for a static setter. The
+     * value must already be converted to the type of the setter, with primitive values boxed.
+     */
+    public abstract void set(int id, Object target, Object value);
+}
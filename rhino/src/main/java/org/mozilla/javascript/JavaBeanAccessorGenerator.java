@@ -0,0 +1,274 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.mozilla.classfile.ByteCode;
+import org.mozilla.classfile.ClassFileWriter;
+
+/**
+ * Generates a subclass of JavaBeanAccessor for the bean properties of a Java class. Its get and
+ * set methods switch over the ids of the getters and setters and call them directly, so that
+ * reading and writing a property does not need reflection or an array of arguments.
+ *
+ * <p>Only methods that any class could call are included: public methods of public classes in
+ * exported packages, whose parameter types are public too. The others are still called through
+ * their MemberBox.
+ */
+final class JavaBeanAccessorGenerator {
+
+    private static final String SUPER_CLASS = "org.mozilla.javascript.JavaBeanAccessor";
+
+    private static final Object globalLock = new Object();
+    private static int globalSerialClassCounter;
+
+    private JavaBeanAccessorGenerator() {}
+
+    /*
+     * Generate an accessor for the bean properties of the class, and set the getterId and the
+     * setterId of the properties that it can access. Return null if it cannot access any of them.
+     */
+    static JavaBeanAccessor generate(Class<?> cl, Collection<BeanProperty> properties) {
+        ClassLoader parentLoader = findParentLoader(cl);
+        if (parentLoader == null) {
+            return null;
+        }
+        List<BeanProperty> getters = new ArrayList<>();
+        List<BeanProperty> setters = new ArrayList<>();
+        for (BeanProperty bp : properties) {
+            if (bp.getter != null && isAccessible(bp.getter.method(), parentLoader)) {
+                getters.add(bp);
+            }
+            if (bp.setter != null && isAccessible(bp.setter.method(), parentLoader)) {
+                setters.add(bp);
+            }
+        }
+        if (getters.isEmpty() && setters.isEmpty()) {
+            return null;
+        }
+
+        int serial;
+        synchronized (globalLock) {
+            serial = ++globalSerialClassCounter;
+        }
+        String className = "org.mozilla.javascript.gen.JavaBeanAccessor_" + serial;
+        ClassFileWriter cfw = new ClassFileWriter(className, SUPER_CLASS, null);
+        cfw.startMethod("<init>", "()V", ClassFileWriter.ACC_PUBLIC);
+        cfw.addALoad(0);
+        cfw.addInvoke(ByteCode.INVOKESPECIAL, SUPER_CLASS, "<init>", "()V");
+        cfw.add(ByteCode.RETURN);
+        cfw.stopMethod(1);
+        generateGet(cfw, getters);
+        generateSet(cfw, setters);
+        byte[] classBytes = cfw.toByteArray();
+
+        JavaBeanAccessor accessor;
+        try {
+            GeneratedClassLoader loader = SecurityController.createLoader(parentLoader, null);
+            Class<?> accessorClass = loader.defineClass(className, classBytes);
+            loader.linkClass(accessorClass);
+            accessor = (JavaBeanAccessor) accessorClass.getConstructor().newInstance();
+        } catch (Exception | LinkageError ex) {
+            Context.reportWarning(
+                    "Could not generate bean accessor for class "
+                            + cl.getName()
+                            + ": "
+                            + ex.toString());
+            return null;
+        }
+        for (int i = 0; i < getters.size(); i++) {
+            getters.get(i).getterId = i;
+        }
+        for (int i = 0; i < setters.size(); i++) {
+            setters.get(i).setterId = i;
+        }
+        return accessor;
+    }
+
+    /*
+     * Return a class loader that finds both the class and JavaBeanAccessor, to be the parent of
+     * the loader of the generated class, or null if there is none.
+     */
+    private static ClassLoader findParentLoader(Class<?> cl) {
+        ClassLoader rhinoLoader = JavaBeanAccessor.class.getClassLoader();
+        if (rhinoLoader != null && canLoad(rhinoLoader, cl)) {
+            return rhinoLoader;
+        }
+        ClassLoader classLoader = cl.getClassLoader();
+        if (classLoader != null && canLoad(classLoader, JavaBeanAccessor.class)) {
+            return classLoader;
+        }
+        return null;
+    }
+
+    private static boolean canLoad(ClassLoader loader, Class<?> cl) {
+        try {
+            return Class.forName(cl.getName(), false, loader) == cl;
+        } catch (ClassNotFoundException | LinkageError ex) {
+            return false;
+        }
+    }
+
+    private static boolean isAccessible(Method method, ClassLoader loader) {
+        Class<?> declaringClass = method.getDeclaringClass();
+        if (Modifier.isStatic(method.getModifiers()) && declaringClass.isInterface()) {
+            // This would need an interface method reference
+            return false;
+        }
+        if (!canLoad(loader, declaringClass)) {
+            return false;
+        }
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        try {
+            lookup.unreflect(method);
+            for (Class<?> type : method.getParameterTypes()) {
+                while (type.isArray()) {
+                    type = type.getComponentType();
+                }
+                if (!type.isPrimitive()) {
+                    // The value is cast to the type
+                    lookup.accessClass(type);
+                    if (!canLoad(loader, type)) {
+                        return false;
+                    }
+                }
+            }
+        } catch (IllegalAccessException | SecurityException ex) {
+            return false;
+        }
+        return true;
+    }
+
+    /* Generate: Object get(int id, Object target) */
+    private static void generateGet(ClassFileWriter cfw, List<BeanProperty> getters) {
+        cfw.startMethod(
+                "get",
+                "(ILjava/lang/Object;)Ljava/lang/Object;",
+                (short) (ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_FINAL));
+        if (!getters.isEmpty()) {
+            cfw.addILoad(1);
+            int switchStart = cfw.addTableSwitch(0, getters.size() - 1);
+            for (int i = 0; i < getters.size(); i++) {
+                cfw.markTableSwitchCase(switchStart, i, 0);
+                Method method = getters.get(i).getter.method();
+                generateInvoke(cfw, method);
+                Class<?> type = method.getReturnType();
+                if (type.isPrimitive()) {
+                    Class<?> boxed = boxedClass(type);
+                    cfw.addInvoke(
+                            ByteCode.INVOKESTATIC,
+                            boxed.getName(),
+                            "valueOf",
+                            signature(new Class<?>[] {type}, boxed));
+                }
+                cfw.add(ByteCode.ARETURN);
+            }
+            cfw.markTableSwitchDefault(switchStart);
+        }
+        cfw.add(ByteCode.ACONST_NULL);
+        cfw.add(ByteCode.ARETURN);
+        cfw.stopMethod(3);
+    }
+
+    /* Generate: void set(int id, Object target, Object value) */
+    private static void generateSet(ClassFileWriter cfw, List<BeanProperty> setters) {
+        cfw.startMethod(
+                "set",
+                "(ILjava/lang/Object;Ljava/lang/Object;)V",
+                (short) (ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_FINAL));
+        if (!setters.isEmpty()) {
+            cfw.addILoad(1);
+            int switchStart = cfw.addTableSwitch(0, setters.size() - 1);
+            for (int i = 0; i < setters.size(); i++) {
+                cfw.markTableSwitchCase(switchStart, i, 0);
+                Method method = setters.get(i).setter.method();
+                generateInvoke(cfw, method);
+                Class<?> returnType = method.getReturnType();
+                if (returnType == Long.TYPE || returnType == Double.TYPE) {
+                    cfw.add(ByteCode.POP2);
+                } else if (returnType != Void.TYPE) {
+                    cfw.add(ByteCode.POP);
+                }
+                cfw.add(ByteCode.RETURN);
+            }
+            cfw.markTableSwitchDefault(switchStart);
+        }
+        cfw.add(ByteCode.RETURN);
+        cfw.stopMethod(4);
+    }
+
+    /*
+     * Generate the call of the method on the target in local 2, with the value in local 3 as the
+     * argument if it has one.
+     */
+    private static void generateInvoke(ClassFileWriter cfw, Method method) {
+        Class<?> declaringClass = method.getDeclaringClass();
+        int opCode;
+        if (Modifier.isStatic(method.getModifiers())) {
+            opCode = ByteCode.INVOKESTATIC;
+        } else {
+            cfw.addALoad(2);
+            cfw.add(ByteCode.CHECKCAST, declaringClass.getName());
+            opCode =
+                    declaringClass.isInterface()
+                            ? ByteCode.INVOKEINTERFACE
+                            : ByteCode.INVOKEVIRTUAL;
+        }
+        Class<?>[] argTypes = method.getParameterTypes();
+        if (argTypes.length == 1) {
+            cfw.addALoad(3);
+            Class<?> type = argTypes[0];
+            if (type.isPrimitive()) {
+                Class<?> boxed = boxedClass(type);
+                cfw.add(ByteCode.CHECKCAST, boxed.getName());
+                cfw.addInvoke(
+                        ByteCode.INVOKEVIRTUAL,
+                        boxed.getName(),
+                        type.getName() + "Value",
+                        signature(new Class<?>[0], type));
+            } else if (type != Object.class) {
+                cfw.add(ByteCode.CHECKCAST, type.getName());
+            }
+        }
+        cfw.addInvoke(
+                opCode,
+                declaringClass.getName(),
+                method.getName(),
+                signature(argTypes, method.getReturnType()));
+    }
+
+    private static String signature(Class<?>[] argTypes, Class<?> returnType) {
+        StringBuilder sb = new StringBuilder();
+        JavaAdapter.appendMethodSignature(argTypes, returnType, sb);
+        return sb.toString();
+    }
+
+    private static Class<?> boxedClass(Class<?> type) {
+        if (type == Boolean.TYPE) {
+            return Boolean.class;
+        } else if (type == Byte.TYPE) {
+            return Byte.class;
+        } else if (type == Character.TYPE) {
+            return Character.class;
+        } else if (type == Short.TYPE) {
+            return Short.class;
+        } else if (type == Integer.TYPE) {
+            return Integer.class;
+        } else if (type == Long.TYPE) {
+            return Long.class;
+        } else if (type == Float.TYPE) {
+            return Float.class;
+        } else {
+            return Double.class;
+        }
+    }
+}
@@ -52,6 +52,9 @@ class JavaMembers {
             this.cl = cl;
             boolean includePrivate = cx.hasFeature(Context.FEATURE_ENHANCED_JAVA_ACCESS);
             reflect(cx, scope, includeProtected, includePrivate);
+            if (ClassCache.get(scope).isInvokerOptimizationEnabled()) {
+                beanAccessor = JavaBeanAccessorGenerator.generate(cl, getBeanProperties());
+            }
         }
     }
 
@@ -101,7 +104,11 @@ class JavaMembers {
             if (member instanceof BeanProperty) {
                 BeanProperty bp = (BeanProperty) member;
                 if (bp.getter == null) return Scriptable.NOT_FOUND;
-                rval = bp.getter.invoke(javaObject, Context.emptyArgs);
+                if (bp.getterId >= 0 && !(javaObject instanceof Delegator)) {
+                    rval = beanAccessor.get(bp.getterId, javaObject);
+                } else {
+                    rval = bp.getter.invoke(javaObject, Context.emptyArgs);
+                }
                 type = bp.getter.method().getReturnType();
             } else {
                 Field field = (Field) member;
@@ -140,9 +147,15 @@ class JavaMembers {
             // setter to use:
             if (bp.setters == null || value == null) {
                 Class<?> setType = bp.setter.argTypes[0];
-                Object[] args = {Context.jsToJava(value, setType)};
+                Object javaValue = Context.jsToJava(value, setType);
                 try {
-                    bp.setter.invoke(javaObject, args);
+                    if (bp.setterId >= 0
+                            && !(javaObject instanceof Delegator)
+                            && (javaValue != null || !setType.isPrimitive())) {
+                        beanAccessor.set(bp.setterId, javaObject, javaValue);
+                    } else {
+                        bp.setter.invoke(javaObject, new Object[] {javaValue});
+                    }
                 } catch (Exception ex) {
                     throw Context.throwAsScriptRuntimeEx(ex);
                 }
@@ -180,6 +193,18 @@ class JavaMembers {
         }
     }
 
+    private List<BeanProperty> getBeanProperties() {
+        List<BeanProperty> properties = new ArrayList<>();
+        for (Map<String, Object> ht : Arrays.asList(staticMembers, members)) {
+            for (Object member : ht.values()) {
+                if (member instanceof BeanProperty) {
+                    properties.add((BeanProperty) member);
+                }
+            }
+        }
+        return properties;
+    }
+
     Object[] getIds(boolean isStatic) {
         Map<String, Object> map = isStatic ? staticMembers : members;
         return map.keySet().toArray(new Object[0]);
@@ -866,6 +891,7 @@ class JavaMembers {
     private Map<String, FieldAndMethods> fieldAndMethods;
     private Map<String, Object> staticMembers;
     private Map<String, FieldAndMethods> staticFieldAndMethods;
+    private JavaBeanAccessor beanAccessor; // calls the getters and setters with an id
     NativeJavaMethod ctors; // we use NativeJavaMethod for ctor overload resolution
 }
 
@@ -879,6 +905,10 @@ class BeanProperty {
     MemberBox getter;
     MemberBox setter;
     NativeJavaMethod setters;
+
+    // The ids of the getter and the setter in the JavaBeanAccessor of the class, or -1
+    int getterId = -1;
+    int setterId = -1;
 }
 
 class FieldAndMethods extends NativeJavaMethod {
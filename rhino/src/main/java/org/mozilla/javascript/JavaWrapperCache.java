@@ -0,0 +1,94 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import java.lang.ref.SoftReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A cache of the wrappers of Java objects in a top-level scope, see {@link
+ * WrapFactory#setWrapperCacheSize(int)}. The wrappers are found by the identity of the Java
+ * object, so that wrapping the same object again returns the same wrapper.
+ *
+ * <p>The cache is a table of a fixed size, where each object has a few slots that it can be in.
+ * A new wrapper goes to the first of them, and the others move down to make room, so the oldest
+ * is dropped first. The wrappers are only softly reachable from the
+ * cache. As a wrapper refers to its Java object, the cache keeps the object alive for as long as
+ * the wrapper is in it, but only until memory runs low, and for no more objects than the size of
+ * the cache.
+ */
+final class JavaWrapperCache {
+
+    private static final Object AKEY = "JavaWrapperCache";
+
+    /* The number of slots that a wrapper can be in */
+    private static final int WAYS = 4;
+
+    private volatile AtomicReferenceArray<SoftReference<Scriptable>> slots;
+
+    private JavaWrapperCache(int capacity) {
+        slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /* The number of slots for a cache of the size, a power of two that leaves some room */
+    private static int capacityFor(int size) {
+        int capacity = WAYS;
+        while (capacity < size * 2 && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /*
+     * Return the cache of the top-level scope of the scope, which is created for the given size if
+     * there is none yet, and emptied and resized if it was created for a different size. Return
+     * null if the scope cannot have a cache.
+     */
+    static JavaWrapperCache get(Scriptable scope, int size) {
+        Scriptable topScope = ScriptableObject.getTopLevelScope(scope);
+        if (!(topScope instanceof ScriptableObject)) {
+            return null;
+        }
+        ScriptableObject so = (ScriptableObject) topScope;
+        int capacity = capacityFor(size);
+        JavaWrapperCache cache = (JavaWrapperCache) so.getAssociatedValue(AKEY);
+        if (cache == null) {
+            cache = (JavaWrapperCache) so.associateValue(AKEY, new JavaWrapperCache(capacity));
+        }
+        if (cache.slots.length() != capacity) {
+            cache.slots = new AtomicReferenceArray<>(capacity);
+        }
+        return cache;
+    }
+
+    /* Return the wrapper of the Java object, or null if it is not in the cache */
+    Scriptable find(Object javaObject) {
+        AtomicReferenceArray<SoftReference<Scriptable>> slots = this.slots;
+        int start = System.identityHashCode(javaObject) & (slots.length() - WAYS);
+        for (int i = start; i < start + WAYS; i++) {
+            SoftReference<Scriptable> ref = slots.get(i);
+            if (ref == null) {
+                break;
+            }
+            Scriptable wrapper = ref.get();
+            if (wrapper instanceof Wrapper && ((Wrapper) wrapper).unwrap() == javaObject) {
+                return wrapper;
+            }
+        }
+        return null;
+    }
+
+    /* Add the wrapper of the Java object, which is not in the cache yet */
+    void add(Object javaObject, Scriptable wrapper) {
+        AtomicReferenceArray<SoftReference<Scriptable>> slots = this.slots;
+        int start = System.identityHashCode(javaObject) & (slots.length() - WAYS);
+        for (int i = start + WAYS - 1; i > start; i--) {
+            slots.set(i, slots.get(i - 1));
+        }
+        slots.set(start, new SoftReference<>(wrapper));
+    }
+}
@@ -10,6 +10,9 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Member;
@@ -29,6 +32,15 @@ final class MemberBox implements Serializable {
     transient Class<?>[] argTypes;
     transient boolean vararg;
 
+    /*
+     * The member as a method handle that takes the target object, if it is a method, and an array
+     * of the arguments, created when it is first called, or NO_HANDLE if the member cannot be
+     * accessed that way, and is called through reflection.
+     */
+    private transient volatile MethodHandle handle;
+
+    private static final MethodHandle NO_HANDLE = MethodHandles.constant(Object.class, null);
+
     transient Function asGetterFunction;
     transient Function asSetterFunction;
     transient Object delegateTo;
@@ -196,8 +208,6 @@ final class MemberBox implements Serializable {
     }
 
     Object invoke(Object target, Object[] args) {
-        Method method = method();
-
         // handle delegators
         if (target instanceof Delegator) {
             target = ((Delegator) target).getDelegee();
@@ -208,6 +218,19 @@ final class MemberBox implements Serializable {
             }
         }
 
+        MethodHandle mh = getHandle();
+        if (mh != NO_HANDLE) {
+            try {
+                return (Object) mh.invokeExact(target, args);
+            } catch (ContinuationPending e) {
+                // Must allow ContinuationPending exceptions to propagate unhindered
+                throw e;
+            } catch (Throwable e) {
+                throw Context.throwAsScriptRuntimeEx(e);
+            }
+        }
+
+        Method method = method();
         try {
             try {
                 return method.invoke(target, args);
@@ -238,6 +261,15 @@ final class MemberBox implements Serializable {
     }
 
     Object newInstance(Object[] args) {
+        MethodHandle mh = getHandle();
+        if (mh != NO_HANDLE) {
+            try {
+                return (Object) mh.invokeExact(args);
+            } catch (Throwable e) {
+                throw Context.throwAsScriptRuntimeEx(e);
+            }
+        }
+
         Constructor<?> ctor = ctor();
         try {
             try {
@@ -253,6 +285,53 @@ final class MemberBox implements Serializable {
         }
     }
 
+    private MethodHandle getHandle() {
+        MethodHandle mh = handle;
+        if (mh == null) {
+            mh = createHandle();
+            handle = mh;
+        }
+        return mh;
+    }
+
+    /*
+     * Bind the member to a method handle that has the same type for all members, so that calling
+     * it does not need the checks and the boxing of Method.invoke. A public method of a class
+     * that is not public is looked up in its public supertypes, as invoke does.
+     */
+    private MethodHandle createHandle() {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        int arity = argTypes.length;
+        try {
+            if (isCtor()) {
+                return lookup.unreflectConstructor(ctor())
+                        .asFixedArity()
+                        .asType(MethodType.genericMethodType(arity))
+                        .asSpreader(Object[].class, arity);
+            }
+            Method method = method();
+            MethodHandle mh;
+            try {
+                mh = lookup.unreflect(method);
+            } catch (IllegalAccessException ex) {
+                Method accessible = searchAccessibleMethod(method, argTypes);
+                if (accessible == null) {
+                    return NO_HANDLE;
+                }
+                mh = lookup.unreflect(accessible);
+                memberObject = accessible;
+            }
+            mh = mh.asFixedArity();
+            if (isStatic()) {
+                mh = MethodHandles.dropArguments(mh, 0, Object.class);
+            }
+            return mh.asType(MethodType.genericMethodType(arity + 1))
+                    .asSpreader(Object[].class, arity);
+        } catch (IllegalAccessException | SecurityException ex) {
+            return NO_HANDLE;
+        }
+    }
+
     private static Method searchAccessibleMethod(Method method, Class<?>[] params) {
         int modifiers = method.getModifiers();
         if (Modifier.isPublic(modifiers) && !Modifier.isStatic(modifiers)) {
@@ -19,6 +19,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.NoSuchElementException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.mozilla.javascript.regexp.NativeRegExp;
 import org.mozilla.javascript.xml.XMLObject;
 
@@ -487,14 +489,14 @@ public class NativeArray extends IdScriptableObject implements List {
     @Override
     public Object get(int index, Scriptable start) {
         if (!denseOnly && isGetterOrSetter(null, index, false)) return super.get(index, start);
-        if (dense != null && 0 <= index && index < dense.length) return dense[index];
+        if (0 <= index && index < denseCapacity()) return getDense(index);
         return super.get(index, start);
     }
 
     @Override
     public boolean has(int index, Scriptable start) {
         if (!denseOnly && isGetterOrSetter(null, index, false)) return super.has(index, start);
-        if (dense != null && 0 <= index && index < dense.length) return dense[index] != NOT_FOUND;
+        if (0 <= index && index < denseCapacity()) return isDensePresent(index);
         return super.has(index, start);
     }
 
@@ -577,24 +579,222 @@ public class NativeArray extends IdScriptableObject implements List {
             // If the object is sealed, super will throw exception
             long index = toArrayIndex(id);
             if (index >= length) {
+                setDenseOnly(false);
                 length = index + 1;
                 modCount++;
-                denseOnly = false;
             }
         }
     }
 
     private boolean ensureCapacity(int capacity) {
-        if (capacity > dense.length) {
+        int oldCapacity = denseCapacity();
+        if (capacity > oldCapacity) {
             if (capacity > MAX_PRE_GROW_SIZE) {
-                denseOnly = false;
+                setDenseOnly(false);
                 return false;
             }
-            capacity = Math.max(capacity, (int) (dense.length * GROW_FACTOR));
-            Object[] newDense = new Object[capacity];
-            System.arraycopy(dense, 0, newDense, 0, dense.length);
-            Arrays.fill(newDense, dense.length, newDense.length, Scriptable.NOT_FOUND);
-            dense = newDense;
+            capacity = Math.max(capacity, (int) (oldCapacity * GROW_FACTOR));
+            switch (elementKind) {
+                case ELEMENTS_INT:
+                    denseInts = Arrays.copyOf(denseInts, capacity);
+                    break;
+                case ELEMENTS_DOUBLE:
+                    denseDoubles = Arrays.copyOf(denseDoubles, capacity);
+                    break;
+                default:
+                    Object[] newDense = new Object[capacity];
+                    System.arraycopy(dense, 0, newDense, 0, dense.length);
+                    Arrays.fill(newDense, dense.length, newDense.length, Scriptable.NOT_FOUND);
+                    dense = newDense;
+                    break;
+            }
+        }
+        return true;
+    }
+
+    /** Return the number of elements that the dense storage can hold, or 0 if there is none. */
+    private int denseCapacity() {
+        switch (elementKind) {
+            case ELEMENTS_INT:
+                return denseInts.length;
+            case ELEMENTS_DOUBLE:
+                return denseDoubles.length;
+            default:
+                return dense == null ? 0 : dense.length;
+        }
+    }
+
+    /** Return the array that holds the dense elements, whatever its type. */
+    private Object denseStorage() {
+        switch (elementKind) {
+            case ELEMENTS_INT:
+                return denseInts;
+            case ELEMENTS_DOUBLE:
+                return denseDoubles;
+            default:
+                return dense;
+        }
+    }
+
+    /** Return true if there is an element at an index below denseCapacity(). */
+    private boolean isDensePresent(int index) {
+        if (elementKind == ELEMENTS_GENERIC) {
+            return dense[index] != NOT_FOUND;
+        }
+        return index < length;
+    }
+
+    /** Return the element at an index below denseCapacity(), or NOT_FOUND for a hole. */
+    private Object getDense(int index) {
+        switch (elementKind) {
+            case ELEMENTS_INT:
+                return index < length ? Integer.valueOf(denseInts[index]) : NOT_FOUND;
+            case ELEMENTS_DOUBLE:
+                return index < length ? ScriptRuntime.wrapNumber(denseDoubles[index]) : NOT_FOUND;
+            default:
+                return dense[index];
+        }
+    }
+
+    /**
+     * Store an element at an index below denseCapacity(), and switch to a more general kind of
+     * storage first if the value does not fit in the current one. This does not change the length.
+     */
+    private void setDense(int index, Object value) {
+        if (elementKind != ELEMENTS_GENERIC) {
+            // Storing past the end would leave a hole
+            if (index <= length) {
+                if (value instanceof Integer && useElementKind(ELEMENTS_INT)) {
+                    denseInts[index] = ((Integer) value).intValue();
+                    return;
+                }
+                if (value instanceof Double && useElementKind(ELEMENTS_DOUBLE)) {
+                    denseDoubles[index] = ((Double) value).doubleValue();
+                    return;
+                }
+            }
+            toGenericElements();
+        }
+        dense[index] = value;
+    }
+
+    /**
+     * Return true if the unboxed storage is of the given kind, or can be switched to it because
+     * the array is empty. Each kind only holds one type of box, so that reading an element returns
+     * the same type of number that was stored.
+     */
+    private boolean useElementKind(int kind) {
+        if (elementKind == kind) {
+            return true;
+        }
+        if (length != 0) {
+            return false;
+        }
+        int capacity = denseCapacity();
+        if (kind == ELEMENTS_INT) {
+            denseInts = new int[capacity];
+            denseDoubles = null;
+        } else {
+            denseDoubles = new double[capacity];
+            denseInts = null;
+        }
+        elementKind = kind;
+        return true;
+    }
+
+    /** Switch from unboxed storage to an array of objects that can hold anything, and holes. */
+    private void toGenericElements() {
+        if (elementKind == ELEMENTS_GENERIC) {
+            return;
+        }
+        int capacity = denseCapacity();
+        int len = (int) length;
+        Object[] values = new Object[capacity];
+        for (int i = 0; i < len; i++) {
+            values[i] = getDense(i);
+        }
+        Arrays.fill(values, len, capacity, NOT_FOUND);
+        dense = values;
+        denseInts = null;
+        denseDoubles = null;
+        elementKind = ELEMENTS_GENERIC;
+    }
+
+    /**
+     * Store the elements of a new array unboxed if there are no holes and they are all Integers, or
+     * all Doubles, so that more numbers can be added without boxing them. Only the interpreter
+     * reads unboxed elements without boxing them again, so compiled code keeps the object storage,
+     * where reading an element returns the same box every time instead of allocating a new one.
+     */
+    NativeArray pickElementKind(Context cx) {
+        if (cx.getOptimizationLevel() >= 0
+                || elementKind != ELEMENTS_GENERIC
+                || !denseOnly
+                || dense == null) {
+            return this;
+        }
+        int len = (int) length;
+        // The interpreter stores numbers as Doubles, so an empty array expects those
+        int kind = len > 0 && dense[0] instanceof Integer ? ELEMENTS_INT : ELEMENTS_DOUBLE;
+        Class<?> type = kind == ELEMENTS_INT ? Integer.class : Double.class;
+        for (int i = 0; i < len; i++) {
+            Object value = dense[i];
+            if (value == null || value.getClass() != type) {
+                return this;
+            }
+        }
+        if (kind == ELEMENTS_INT) {
+            denseInts = new int[dense.length];
+            for (int i = 0; i < len; i++) {
+                denseInts[i] = ((Integer) dense[i]).intValue();
+            }
+        } else {
+            denseDoubles = new double[dense.length];
+            for (int i = 0; i < len; i++) {
+                denseDoubles[i] = ((Double) dense[i]).doubleValue();
+            }
+        }
+        dense = null;
+        elementKind = kind;
+        return this;
+    }
+
+    /**
+     * Return true if the element at the index is a Double that is stored unboxed, so that the
+     * interpreter can read it using getUnboxedElement without allocating. Integers are read as
+     * usual, so that they stay Integers.
+     */
+    boolean hasUnboxedElement(int index) {
+        return elementKind == ELEMENTS_DOUBLE && 0 <= index && index < length;
+    }
+
+    double getUnboxedElement(int index) {
+        return denseDoubles[index];
+    }
+
+    /**
+     * Store a number, which would otherwise be boxed as a Double, without boxing it, if the array
+     * uses unboxed storage that can hold it and the index is that of an existing element or of the
+     * next one. Return false if put has to be used instead.
+     */
+    boolean putUnboxedElement(int index, double value) {
+        if (elementKind == ELEMENTS_GENERIC || index < 0 || index > length || isSealed()) {
+            return false;
+        }
+        if (index == length) {
+            if (!isExtensible()
+                    || !ensureCapacity(index + 1)
+                    || !useElementKind(ELEMENTS_DOUBLE)) {
+                return false;
+            }
+            denseDoubles[index] = value;
+            length = (long) index + 1;
+            modCount++;
+        } else {
+            if (!useElementKind(ELEMENTS_DOUBLE)) {
+                return false;
+            }
+            denseDoubles[index] = value;
         }
         return true;
     }
@@ -603,27 +803,28 @@ public class NativeArray extends IdScriptableObject implements List {
     public void put(int index, Scriptable start, Object value) {
         if (start == this
                 && !isSealed()
-                && dense != null
+                && (dense != null || elementKind != ELEMENTS_GENERIC)
                 && 0 <= index
                 && (denseOnly || !isGetterOrSetter(null, index, true))) {
+            int capacity = denseCapacity();
             if (!isExtensible() && this.length <= index) {
                 return;
-            } else if (index < dense.length) {
-                dense[index] = value;
+            } else if (index < capacity) {
+                setDense(index, value);
                 if (this.length <= index) {
                     this.length = (long) index + 1;
                     this.modCount++;
                 }
                 return;
             } else if (denseOnly
-                    && index < dense.length * GROW_FACTOR
+                    && index < capacity * GROW_FACTOR
                     && ensureCapacity(index + 1)) {
-                dense[index] = value;
+                setDense(index, value);
                 this.length = (long) index + 1;
                 this.modCount++;
                 return;
             } else {
-                denseOnly = false;
+                setDenseOnly(false);
             }
         }
         super.put(index, start, value);
@@ -639,12 +840,15 @@ public class NativeArray extends IdScriptableObject implements List {
 
     @Override
     public void delete(int index) {
-        if (dense != null
-                && 0 <= index
-                && index < dense.length
+        if (0 <= index
+                && index < denseCapacity()
                 && !isSealed()
                 && (denseOnly || !isGetterOrSetter(null, index, true))) {
-            dense[index] = NOT_FOUND;
+            if (isDensePresent(index)) {
+                // Unboxed storage can not have holes
+                toGenericElements();
+                dense[index] = NOT_FOUND;
+            }
         } else {
             super.delete(index);
         }
@@ -653,10 +857,7 @@ public class NativeArray extends IdScriptableObject implements List {
     @Override
     public Object[] getIds(boolean nonEnumerable, boolean getSymbols) {
         Object[] superIds = super.getIds(nonEnumerable, getSymbols);
-        if (dense == null) {
-            return superIds;
-        }
-        int N = dense.length;
+        int N = denseCapacity();
         long currentLength = length;
         if (N > currentLength) {
             N = (int) currentLength;
@@ -670,7 +871,7 @@ public class NativeArray extends IdScriptableObject implements List {
         int presentCount = 0;
         for (int i = 0; i != N; ++i) {
             // Replace existing elements by their indexes
-            if (dense[i] != NOT_FOUND) {
+            if (isDensePresent(i)) {
                 ids[presentCount] = Integer.valueOf(i);
                 ++presentCount;
             }
@@ -721,7 +922,7 @@ public class NativeArray extends IdScriptableObject implements List {
 
     @Override
     public int getAttributes(int index) {
-        if (dense != null && index >= 0 && index < dense.length && dense[index] != NOT_FOUND) {
+        if (index >= 0 && index < denseCapacity() && isDensePresent(index)) {
             return EMPTY;
         }
         return super.getAttributes(index);
@@ -729,12 +930,10 @@ public class NativeArray extends IdScriptableObject implements List {
 
     @Override
     protected ScriptableObject getOwnPropertyDescriptor(Context cx, Object id) {
-        if (dense != null) {
-            int index = toDenseIndex(id);
-            if (0 <= index && index < dense.length && dense[index] != NOT_FOUND) {
-                Object value = dense[index];
-                return defaultIndexPropertyDescriptor(value);
-            }
+        int index = toDenseIndex(id);
+        if (0 <= index && index < denseCapacity() && isDensePresent(index)) {
+            Object value = getDense(index);
+            return defaultIndexPropertyDescriptor(value);
         }
         return super.getOwnPropertyDescriptor(cx, id);
     }
@@ -743,6 +942,10 @@ public class NativeArray extends IdScriptableObject implements List {
     protected void defineOwnProperty(
             Context cx, Object id, ScriptableObject desc, boolean checkValid) {
         long index = toArrayIndex(id);
+        if (index != -1) {
+            // The element is going to be stored in a slot, which needs boxed values
+            toGenericElements();
+        }
         if (index >= length) {
             length = index + 1;
             modCount++;
@@ -775,17 +978,17 @@ public class NativeArray extends IdScriptableObject implements List {
 
     /** See ECMA 15.4.1,2 */
     private static Object jsConstructor(Context cx, Scriptable scope, Object[] args) {
-        if (args.length == 0) return new NativeArray(0);
+        if (args.length == 0) return new NativeArray(0).pickElementKind(cx);
 
         // Only use 1 arg as first element for version 1.2; for
         // any other version (including 1.3) follow ECMA and use it as
         // a length.
         if (cx.getLanguageVersion() == Context.VERSION_1_2) {
-            return new NativeArray(args);
+            return new NativeArray(args).pickElementKind(cx);
         }
         Object arg0 = args[0];
         if (args.length > 1 || !(arg0 instanceof Number)) {
-            return new NativeArray(args);
+            return new NativeArray(args).pickElementKind(cx);
         }
         long len = ScriptRuntime.toUint32(arg0);
         if (len != ((Number) arg0).doubleValue()) {
@@ -924,6 +1127,10 @@ public class NativeArray extends IdScriptableObject implements List {
      */
     void setDenseOnly(boolean denseOnly) {
         if (denseOnly && !this.denseOnly) throw new IllegalArgumentException();
+        if (!denseOnly) {
+            // Unboxed storage is only used for arrays that are dense only
+            toGenericElements();
+        }
         this.denseOnly = denseOnly;
     }
 
@@ -947,19 +1154,25 @@ public class NativeArray extends IdScriptableObject implements List {
 
         if (denseOnly) {
             if (longVal < length) {
-                // downcast okay because denseOnly
-                Arrays.fill(dense, (int) longVal, dense.length, NOT_FOUND);
+                if (elementKind == ELEMENTS_GENERIC) {
+                    // downcast okay because denseOnly
+                    Arrays.fill(dense, (int) longVal, dense.length, NOT_FOUND);
+                }
                 length = longVal;
                 modCount++;
                 return;
             } else if (longVal < MAX_PRE_GROW_SIZE
                     && longVal < (length * GROW_FACTOR)
                     && ensureCapacity((int) longVal)) {
+                if (longVal > length) {
+                    // The new elements are holes
+                    toGenericElements();
+                }
                 length = longVal;
                 modCount++;
                 return;
             } else {
-                denseOnly = false;
+                setDenseOnly(false);
             }
         }
         if (longVal < length) {
@@ -1231,8 +1444,8 @@ public class NativeArray extends IdScriptableObject implements List {
                     if (i != 0) {
                         sb.append(separator);
                     }
-                    if (i < na.dense.length) {
-                        Object temp = na.dense[i];
+                    if (i < na.denseCapacity()) {
+                        Object temp = na.getDense(i);
                         if (temp != null
                                 && temp != Undefined.instance
                                 && temp != Scriptable.NOT_FOUND) {
@@ -1279,11 +1492,7 @@ public class NativeArray extends IdScriptableObject implements List {
         if (o instanceof NativeArray) {
             NativeArray na = (NativeArray) o;
             if (na.denseOnly) {
-                for (int i = 0, j = ((int) na.length) - 1; i < j; i++, j--) {
-                    Object temp = na.dense[i];
-                    na.dense[i] = na.dense[j];
-                    na.dense[j] = temp;
-                }
+                na.reverseDense();
                 return o;
             }
         }
@@ -1300,6 +1509,28 @@ public class NativeArray extends IdScriptableObject implements List {
         return o;
     }
 
+    private void reverseDense() {
+        for (int i = 0, j = ((int) length) - 1; i < j; i++, j--) {
+            switch (elementKind) {
+                case ELEMENTS_INT:
+                    int tempInt = denseInts[i];
+                    denseInts[i] = denseInts[j];
+                    denseInts[j] = tempInt;
+                    break;
+                case ELEMENTS_DOUBLE:
+                    double tempDouble = denseDoubles[i];
+                    denseDoubles[i] = denseDoubles[j];
+                    denseDoubles[j] = tempDouble;
+                    break;
+                default:
+                    Object temp = dense[i];
+                    dense[i] = dense[j];
+                    dense[j] = temp;
+                    break;
+            }
+        }
+    }
+
     /** See ECMA 15.4.4.5 */
     private static Scriptable js_sort(
             final Context cx,
@@ -1309,8 +1540,10 @@ public class NativeArray extends IdScriptableObject implements List {
         Scriptable o = ScriptRuntime.toObject(cx, scope, thisObj);
 
         final Comparator<Object> comparator;
+        Callable compareFunction = null;
         if (args.length > 0 && Undefined.instance != args[0]) {
             final Callable jsCompareFunction = ScriptRuntime.getValueFunctionAndThis(args[0], cx);
+            compareFunction = jsCompareFunction;
             final Scriptable funThis = ScriptRuntime.lastStoredScriptable(cx);
             final Object[] cmpBuf = new Object[2]; // Buffer for cmp arguments
             comparator =
@@ -1342,6 +1575,13 @@ public class NativeArray extends IdScriptableObject implements List {
             throw Context.reportRuntimeErrorById(
                     "msg.arraylength.too.big", String.valueOf(llength));
         }
+        if (o instanceof NativeArray) {
+            NativeArray na = (NativeArray) o;
+            if (na.denseOnly && !na.isSealed() && na.isExtensible()) {
+                na.sortDense(cx, comparator, compareFunction);
+                return o;
+            }
+        }
         // copy the JS array into a working array, so it can be
         // sorted cheaply.
         final Object[] working = new Object[length];
@@ -1367,6 +1607,205 @@ public class NativeArray extends IdScriptableObject implements List {
         return o;
     }
 
+    /**
+     * Sort an array that is dense only. Numbers and strings are sorted as primitives when there is
+     * no comparator, or when the comparator is recognized as a numeric one, because then no script
+     * code can run during the sort. Otherwise, the elements are sorted in a copy, which is then
+     * copied back, so that an exception or an inconsistent comparator leaves the array as it was.
+     */
+    private void sortDense(Context cx, Comparator<Object> comparator, Callable compareFunction) {
+        int len = (int) length;
+        int order = compareFunction == null ? 0 : getNumericOrder(compareFunction);
+        if (compareFunction == null || order != 0) {
+            if (elementKind == ELEMENTS_INT) {
+                sortInts(denseInts, len, order);
+                return;
+            }
+            if (elementKind == ELEMENTS_DOUBLE) {
+                if (sortDoubles(denseDoubles, len, order)) {
+                    return;
+                }
+            } else if (sortPrimitiveObjects(len, order)) {
+                return;
+            }
+        }
+
+        Object[] working = new Object[len];
+        for (int i = 0; i < len; i++) {
+            working[i] = getDense(i);
+        }
+        // Java's 'Arrays.sort' is guaranteed to be stable so we can use it; however,
+        // if the comparator is not consistent, it throws an IllegalArgumentException.
+        // In case where the comparator is not consistent, the ECMAScript specification states
+        // that sort order is implementation-defined, so we can just return the original array.
+        try {
+            Arrays.sort(working, comparator);
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+
+        if (denseOnly && length >= len) {
+            for (int i = 0; i < len; i++) {
+                setDense(i, working[i]);
+            }
+        } else {
+            // The comparator changed the array
+            for (int i = 0; i < len; i++) {
+                setRawElem(cx, this, i, working[i]);
+            }
+        }
+    }
+
+    /**
+     * Sort ints in the default order, which is that of their strings, if the order is 0, or else
+     * in ascending or descending numeric order.
+     */
+    private static void sortInts(int[] values, int len, int order) {
+        if (order == 0) {
+            String[] keys = new String[len];
+            for (int i = 0; i < len; i++) {
+                keys[i] = Integer.toString(values[i]);
+            }
+            Arrays.sort(keys);
+            for (int i = 0; i < len; i++) {
+                values[i] = Integer.parseInt(keys[i]);
+            }
+            return;
+        }
+        Arrays.sort(values, 0, len);
+        if (order < 0) {
+            for (int i = 0, j = len - 1; i < j; i++, j--) {
+                int temp = values[i];
+                values[i] = values[j];
+                values[j] = temp;
+            }
+        }
+    }
+
+    /**
+     * Sort doubles like sortInts does, unless there is a NaN or a negative zero, which can not be
+     * told apart from other values in the sorted result. Return false in that case.
+     */
+    private static boolean sortDoubles(double[] values, int len, int order) {
+        for (int i = 0; i < len; i++) {
+            double d = values[i];
+            if (Double.isNaN(d) || (d == 0.0 && 1 / d < 0)) {
+                return false;
+            }
+        }
+        if (order == 0) {
+            String[] keys = new String[len];
+            for (int i = 0; i < len; i++) {
+                keys[i] = ScriptRuntime.toString(values[i]);
+            }
+            Arrays.sort(keys);
+            for (int i = 0; i < len; i++) {
+                values[i] = ScriptRuntime.toNumber(keys[i]);
+            }
+            return true;
+        }
+        Arrays.sort(values, 0, len);
+        if (order < 0) {
+            for (int i = 0, j = len - 1; i < j; i++, j--) {
+                double temp = values[i];
+                values[i] = values[j];
+                values[j] = temp;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sort generic dense elements as primitives if they are all numbers, or all strings and there
+     * is no comparator. Return false if they are not, or if there are holes. The elements
+     * themselves are moved, so that they keep their types.
+     */
+    private boolean sortPrimitiveObjects(int len, int order) {
+        boolean allNumbers = true;
+        boolean allStrings = order == 0;
+        for (int i = 0; i < len && (allNumbers || allStrings); i++) {
+            Object value = dense[i];
+            allNumbers &= value instanceof Integer || value instanceof Double;
+            allStrings &= value instanceof CharSequence;
+        }
+        if (!allNumbers && !allStrings) {
+            return false;
+        }
+        if (order == 0) {
+            String[] keys = new String[len];
+            for (int i = 0; i < len; i++) {
+                Object value = dense[i];
+                keys[i] = allStrings ? value.toString() : ScriptRuntime.toString(value);
+            }
+            sortDenseByKeys(keys, len);
+            return true;
+        }
+        for (int i = 0; i < len; i++) {
+            // The comparator would not order NaN consistently
+            if (Double.isNaN(((Number) dense[i]).doubleValue())) {
+                return false;
+            }
+        }
+        // Like "a - b", this treats zeroes with different signs as equal
+        Comparator<Object> ascending =
+                (x, y) -> {
+                    double d = ((Number) x).doubleValue() - ((Number) y).doubleValue();
+                    return d < 0 ? -1 : d > 0 ? 1 : 0;
+                };
+        Arrays.sort(dense, 0, len, order > 0 ? ascending : ascending.reversed());
+        return true;
+    }
+
+    /** Stable sort of the first len generic dense elements by the strings in keys. */
+    private void sortDenseByKeys(String[] keys, int len) {
+        Integer[] indices = new Integer[len];
+        for (int i = 0; i < len; i++) {
+            indices[i] = Integer.valueOf(i);
+        }
+        Arrays.sort(indices, (x, y) -> keys[x.intValue()].compareTo(keys[y.intValue()]));
+        Object[] sorted = new Object[len];
+        for (int i = 0; i < len; i++) {
+            sorted[i] = dense[indices[i].intValue()];
+        }
+        System.arraycopy(sorted, 0, dense, 0, len);
+    }
+
+    /**
+     * Return 1 if the function is a script function like "(a, b) =&gt; a - b", -1 if it is like
+     * "(a, b) =&gt; b - a", and 0 for any other function. When all the elements are numbers, these
+     * comparators sort them in ascending or descending order, without any side effects.
+     */
+    private static int getNumericOrder(Callable compareFunction) {
+        if (compareFunction instanceof ArrowFunction) {
+            compareFunction = ((ArrowFunction) compareFunction).getTargetFunction();
+        }
+        if (!(compareFunction instanceof NativeFunction)) {
+            return 0;
+        }
+        String source = ((NativeFunction) compareFunction).getRawSource();
+        if (source == null || source.length() > 100) {
+            return 0;
+        }
+        Matcher m = NUMERIC_COMPARATOR.matcher(source);
+        if (!m.matches()) {
+            return 0;
+        }
+        String a = m.group(1);
+        String b = m.group(2);
+        String x = m.group(3) != null ? m.group(3) : m.group(5);
+        String y = m.group(3) != null ? m.group(4) : m.group(6);
+        if (a.equals(b)) {
+            return 0;
+        }
+        if (x.equals(a) && y.equals(b)) {
+            return 1;
+        }
+        if (x.equals(b) && y.equals(a)) {
+            return -1;
+        }
+        return 0;
+    }
+
     private static Object js_push(Context cx, Scriptable scope, Scriptable thisObj, Object[] args) {
         Scriptable o = ScriptRuntime.toObject(cx, scope, thisObj);
 
@@ -1374,7 +1813,9 @@ public class NativeArray extends IdScriptableObject implements List {
             NativeArray na = (NativeArray) o;
             if (na.denseOnly && na.ensureCapacity((int) na.length + args.length)) {
                 for (Object arg : args) {
-                    na.dense[(int) na.length++] = arg;
+                    int index = (int) na.length;
+                    na.setDense(index, arg);
+                    na.length = index + 1;
                     na.modCount++;
                 }
                 return ScriptRuntime.wrapNumber((double) na.length);
@@ -1406,10 +1847,13 @@ public class NativeArray extends IdScriptableObject implements List {
         if (o instanceof NativeArray) {
             NativeArray na = (NativeArray) o;
             if (na.denseOnly && na.length > 0) {
-                na.length--;
+                int index = (int) na.length - 1;
+                result = na.getDense(index);
+                na.length = index;
                 na.modCount++;
-                result = na.dense[(int) na.length];
-                na.dense[(int) na.length] = NOT_FOUND;
+                if (na.elementKind == ELEMENTS_GENERIC) {
+                    na.dense[index] = NOT_FOUND;
+                }
                 return result;
             }
         }
@@ -1440,11 +1884,14 @@ public class NativeArray extends IdScriptableObject implements List {
         if (o instanceof NativeArray) {
             NativeArray na = (NativeArray) o;
             if (na.denseOnly && na.length > 0) {
+                Object result = na.getDense(0);
                 na.length--;
                 na.modCount++;
-                Object result = na.dense[0];
-                System.arraycopy(na.dense, 1, na.dense, 0, (int) na.length);
-                na.dense[(int) na.length] = NOT_FOUND;
+                Object storage = na.denseStorage();
+                System.arraycopy(storage, 1, storage, 0, (int) na.length);
+                if (na.elementKind == ELEMENTS_GENERIC) {
+                    na.dense[(int) na.length] = NOT_FOUND;
+                }
                 return result == NOT_FOUND ? Undefined.instance : result;
             }
         }
@@ -1484,9 +1931,12 @@ public class NativeArray extends IdScriptableObject implements List {
         if (o instanceof NativeArray) {
             NativeArray na = (NativeArray) o;
             if (na.denseOnly && na.ensureCapacity((int) na.length + args.length)) {
-                System.arraycopy(na.dense, 0, na.dense, args.length, (int) na.length);
-                System.arraycopy(args, 0, na.dense, 0, args.length);
+                Object storage = na.denseStorage();
+                System.arraycopy(storage, 0, storage, args.length, (int) na.length);
                 na.length += args.length;
+                for (int i = 0; i < args.length; i++) {
+                    na.setDense(i, args[i]);
+                }
                 na.modCount++;
                 return ScriptRuntime.wrapNumber((double) na.length);
             }
@@ -1585,7 +2035,9 @@ public class NativeArray extends IdScriptableObject implements List {
                 if (denseMode) {
                     int intLen = (int) (end - begin);
                     Object[] copy = new Object[intLen];
-                    System.arraycopy(na.dense, (int) begin, copy, 0, intLen);
+                    for (int i = 0; i < intLen; i++) {
+                        copy[i] = na.getDense((int) begin + i);
+                    }
                     result = cx.newArray(scope, copy);
                 } else {
                     Scriptable resultArray = cx.newArray(scope, 0);
@@ -1613,15 +2065,16 @@ public class NativeArray extends IdScriptableObject implements List {
         if (denseMode
                 && length + delta < Integer.MAX_VALUE
                 && na.ensureCapacity((int) (length + delta))) {
+            Object storage = na.denseStorage();
             System.arraycopy(
-                    na.dense, (int) end, na.dense, (int) (begin + argc), (int) (length - end));
-            if (argc > 0) {
-                System.arraycopy(args, 2, na.dense, (int) begin, argc);
+                    storage, (int) end, storage, (int) (begin + argc), (int) (length - end));
+            na.length = length + delta;
+            for (int i = 0; i < argc; i++) {
+                na.setDense((int) begin + i, args[i + 2]);
             }
-            if (delta < 0) {
+            if (delta < 0 && na.elementKind == ELEMENTS_GENERIC) {
                 Arrays.fill(na.dense, (int) (length + delta), (int) length, NOT_FOUND);
             }
-            na.length = length + delta;
             na.modCount++;
             return result;
         }
@@ -1699,11 +2152,21 @@ public class NativeArray extends IdScriptableObject implements List {
             final NativeArray denseResult = (NativeArray) result;
             if (denseResult.denseOnly && (arg instanceof NativeArray)) {
                 final NativeArray denseArg = (NativeArray) arg;
-                if (denseArg.denseOnly) {
+                if (denseArg.denseOnly && denseResult.ensureCapacity((int) newlen)) {
                     // Now we can optimize
-                    denseResult.ensureCapacity((int) newlen);
-                    System.arraycopy(
-                            denseArg.dense, 0, denseResult.dense, (int) offset, (int) srclen);
+                    if (denseResult.elementKind == ELEMENTS_GENERIC
+                            && denseArg.elementKind == ELEMENTS_GENERIC) {
+                        System.arraycopy(
+                                denseArg.dense, 0, denseResult.dense, (int) offset, (int) srclen);
+                    } else {
+                        for (int i = 0; i < srclen; i++) {
+                            int index = (int) offset + i;
+                            denseResult.setDense(index, denseArg.getDense(i));
+                            if (denseResult.length <= index) {
+                                denseResult.length = index + 1;
+                            }
+                        }
+                    }
                     return newlen;
                 }
                 // We could also optimize here if we are copying to a dense target from a non-dense
@@ -1837,7 +2300,7 @@ public class NativeArray extends IdScriptableObject implements List {
             if (na.denseOnly) {
                 Scriptable proto = na.getPrototype();
                 for (int i = (int) start; i < length; i++) {
-                    Object val = na.dense[i];
+                    Object val = na.getDense(i);
                     if (val == NOT_FOUND && proto != null) {
                         val = ScriptableObject.getProperty(proto, i);
                     }
@@ -1889,7 +2352,7 @@ public class NativeArray extends IdScriptableObject implements List {
             if (na.denseOnly) {
                 Scriptable proto = na.getPrototype();
                 for (int i = (int) start; i >= 0; i--) {
-                    Object val = na.dense[i];
+                    Object val = na.getDense(i);
                     if (val == NOT_FOUND && proto != null) {
                         val = ScriptableObject.getProperty(proto, i);
                     }
@@ -1936,7 +2399,7 @@ public class NativeArray extends IdScriptableObject implements List {
             if (na.denseOnly) {
                 Scriptable proto = na.getPrototype();
                 for (int i = (int) k; i < len; i++) {
-                    Object elementK = na.dense[i];
+                    Object elementK = na.getDense(i);
                     if (elementK == NOT_FOUND && proto != null) {
                         elementK = ScriptableObject.getProperty(proto, i);
                     }
@@ -2044,7 +2507,7 @@ public class NativeArray extends IdScriptableObject implements List {
             NativeArray na = (NativeArray) o;
             if (na.denseOnly) {
                 for (; count > 0; count--) {
-                    na.dense[(int) to] = na.dense[(int) from];
+                    na.setDense((int) to, na.getDense((int) from));
                     from += direction;
                     to += direction;
                 }
@@ -2580,6 +3043,14 @@ public class NativeArray extends IdScriptableObject implements List {
     private static final Comparator<Object> STRING_COMPARATOR = new StringLikeComparator();
     private static final Comparator<Object> DEFAULT_COMPARATOR = new ElementComparator();
 
+    // Matches "function (a, b) { return a - b; }" and "(a, b) => a - b" and their variants
+    private static final Pattern NUMERIC_COMPARATOR =
+            Pattern.compile(
+                    "(?:function\\s*[\\w$]*\\s*)?"
+                            + "\\(\\s*([\\w$]+)\\s*,\\s*([\\w$]+)\\s*\\)\\s*(?:=>)?\\s*"
+                            + "(?:\\{\\s*return\\s+([\\w$]+)\\s*-\\s*([\\w$]+)\\s*;?\\s*\\}"
+                            + "|([\\w$]+)\\s*-\\s*([\\w$]+))");
+
     public static final class StringLikeComparator implements Comparator<Object>, Serializable {
 
         private static final long serialVersionUID = 5299017659728190979L;
@@ -2821,6 +3292,27 @@ public class NativeArray extends IdScriptableObject implements List {
      */
     private Object[] dense;
 
+    /** Unboxed storage for dense arrays whose elements are all Integers. */
+    private int[] denseInts;
+
+    /** Unboxed storage for dense arrays whose elements are all Doubles. */
+    private double[] denseDoubles;
+
+    /*
+     * The kind of storage that is used for dense elements. A new array that is created by
+     * interpreted code, and is empty or only holds Integers or only Doubles, starts out with
+     * ELEMENTS_INT or ELEMENTS_DOUBLE (see pickElementKind), and otherwise with ELEMENTS_GENERIC.
+     * While it is empty, it switches between the unboxed kinds to fit the number that is stored,
+     * and otherwise to ELEMENTS_GENERIC when anything else is stored or when an element would be
+     * missing. It never switches back. The unboxed kinds are only used while denseOnly is true,
+     * and then every element below length is present, and the storage past length is unused.
+     */
+    private static final int ELEMENTS_GENERIC = 0;
+    private static final int ELEMENTS_INT = 1;
+    private static final int ELEMENTS_DOUBLE = 2;
+
+    private int elementKind = ELEMENTS_GENERIC;
+
     /** True if all numeric properties are stored in <code>dense</code>. */
     private boolean denseOnly;
 
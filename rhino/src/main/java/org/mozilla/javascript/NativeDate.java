@@ -15,6 +15,7 @@ import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.TimeZone;
 
 /**
  * This class implements the Date native object. See ECMA 15.9.
@@ -742,9 +743,16 @@ final class NativeDate extends IdScriptableObject {
             double day = MakeDay(year, MonthFromTime(t), DateFromTime(t));
             t = MakeDate(day, TimeWithinDay(t));
         }
-        Date date = new Date((long) t);
-        if (cx.getTimeZone().inDaylightTime(date)) return msPerHour;
-        return 0;
+        TimeZone tz = cx.getTimeZone();
+        if (cx.daylightSavingZone != tz) {
+            cx.daylightSavingTransitions = DaylightSavingTransitions.forTimeZone(tz);
+            cx.daylightSavingZone = tz;
+        }
+        int daylight = cx.daylightSavingTransitions.isDaylightTime((long) t);
+        if (daylight < 0) {
+            daylight = tz.inDaylightTime(new Date((long) t)) ? 1 : 0;
+        }
+        return daylight != 0 ? msPerHour : 0;
     }
 
     /*
@@ -1089,8 +1097,118 @@ final class NativeDate extends IdScriptableObject {
         return ScriptRuntime.NaN;
     }
 
+    /*
+     * Parse YYYY-MM-DDTHH:mm:ss.sssZ, the format of toISOString and of most dates in JSON,
+     * without going through the state machine of parseISOString. Return NaN for any other
+     * string, which is then left to parseISOString.
+     */
+    private static double parseISOStringUTC(String s) {
+        if (s.length() != 24
+                || s.charAt(4) != '-'
+                || s.charAt(7) != '-'
+                || s.charAt(10) != 'T'
+                || s.charAt(13) != ':'
+                || s.charAt(16) != ':'
+                || s.charAt(19) != '.'
+                || s.charAt(23) != 'Z') {
+            return ScriptRuntime.NaN;
+        }
+        int year = parseDigits(s, 0, 4);
+        int month = parseDigits(s, 5, 2);
+        int day = parseDigits(s, 8, 2);
+        int hour = parseDigits(s, 11, 2);
+        int min = parseDigits(s, 14, 2);
+        int sec = parseDigits(s, 17, 2);
+        int msec = parseDigits(s, 20, 3);
+        if (year < 0
+                || month < 1
+                || month > 12
+                || day < 1
+                || day > DaysInMonth(year, month)
+                || hour < 0
+                || hour > 23
+                || min < 0
+                || min > 59
+                || sec < 0
+                || sec > 59
+                || msec < 0) {
+            return ScriptRuntime.NaN;
+        }
+        return date_msecFromDate(year, month - 1, day, hour, min, sec, msec);
+    }
+
+    /*
+     * Parse the RFC 1123 format of toUTCString and of HTTP headers, like
+     * Tue, 31 Oct 2000 09:41:40 GMT, without looking up each word as the general parser does.
+     * Return NaN for any other string, and for the values for which the general parser does
+     * something special, like two digit years, so that the result is the same as with it.
+     */
+    private static double parseRFC1123String(String s) {
+        if (s.length() != 29
+                || s.charAt(3) != ','
+                || s.charAt(4) != ' '
+                || s.charAt(7) != ' '
+                || s.charAt(11) != ' '
+                || s.charAt(16) != ' '
+                || s.charAt(19) != ':'
+                || s.charAt(22) != ':'
+                || s.charAt(25) != ' '
+                || !s.startsWith("GMT", 26)
+                || findName(WEEK_DAY_NAMES, s, 0) < 0) {
+            return ScriptRuntime.NaN;
+        }
+        int day = parseDigits(s, 5, 2);
+        int month = findName(MONTH_NAMES, s, 8);
+        int year = parseDigits(s, 12, 4);
+        int hour = parseDigits(s, 17, 2);
+        int min = parseDigits(s, 20, 2);
+        int sec = parseDigits(s, 23, 2);
+        if (day < 1
+                || day > 31
+                || month < 0
+                || year < 100
+                || hour < 0
+                || hour > 23
+                || min < 0
+                || min > 59
+                || sec < 0
+                || sec > 59) {
+            return ScriptRuntime.NaN;
+        }
+        return date_msecFromDate(year, month, day, hour, min, sec, 0);
+    }
+
+    /* Return the value of count decimal digits at start, or -1 if they are not all digits */
+    private static int parseDigits(String s, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = 10 * value + (c - '0');
+        }
+        return value;
+    }
+
+    /* Return the index of the three letter name at start among the names, or -1 */
+    private static int findName(String names, String s, int start) {
+        for (int i = 0; i < names.length(); i += 3) {
+            if (names.regionMatches(i, s, start, 3)) {
+                return i / 3;
+            }
+        }
+        return -1;
+    }
+
     private static double date_parseString(Context cx, String s) {
-        double d = parseISOString(cx, s);
+        double d = parseISOStringUTC(s);
+        if (Double.isNaN(d)) {
+            d = parseISOString(cx, s);
+        }
+        if (Double.isNaN(d)) {
+            d = parseRFC1123String(s);
+        }
         if (!Double.isNaN(d)) {
             return d;
         }
@@ -1457,58 +1575,113 @@ final class NativeDate extends IdScriptableObject {
         return formatted.replace("\u202f", " ");
     }
 
+    /*
+     * toUTCString and toISOString work on the time value as a long and find the year, month and
+     * day at once with civilFromDays, instead of searching for the year in each of YearFromTime,
+     * MonthFromTime and DateFromTime, and write into a char array of the final size.
+     */
     private static String js_toUTCString(double date) {
-        StringBuilder result = new StringBuilder(60);
-
-        appendWeekDayName(result, WeekDay(date));
-        result.append(", ");
-        append0PaddedUint(result, DateFromTime(date), 2);
-        result.append(' ');
-        appendMonthName(result, MonthFromTime(date));
-        result.append(' ');
-        int year = YearFromTime(date);
+        long t = (long) date;
+        long day = Math.floorDiv(t, (long) msPerDay);
+        int ymd = civilFromDays(day);
+        int year = ymd >> 9;
+        char[] buf = new char[32];
+
+        // Tue, 31 Oct 2000 09:41:40 GMT
+        int weekDay = (int) Math.floorMod(day + 4, 7L) * 3;
+        buf[0] = WEEK_DAY_NAMES.charAt(weekDay);
+        buf[1] = WEEK_DAY_NAMES.charAt(weekDay + 1);
+        buf[2] = WEEK_DAY_NAMES.charAt(weekDay + 2);
+        buf[3] = ',';
+        buf[4] = ' ';
+        putDigits(buf, 5, ymd & 31, 2);
+        buf[7] = ' ';
+        int month = ((ymd >> 5) & 15) * 3 - 3;
+        buf[8] = MONTH_NAMES.charAt(month);
+        buf[9] = MONTH_NAMES.charAt(month + 1);
+        buf[10] = MONTH_NAMES.charAt(month + 2);
+        buf[11] = ' ';
+        int pos = 12;
         if (year < 0) {
-            result.append('-');
+            buf[pos++] = '-';
             year = -year;
         }
-        append0PaddedUint(result, year, 4);
-        result.append(' ');
-        append0PaddedUint(result, HourFromTime(date), 2);
-        result.append(':');
-        append0PaddedUint(result, MinFromTime(date), 2);
-        result.append(':');
-        append0PaddedUint(result, SecFromTime(date), 2);
-        result.append(" GMT");
-        return result.toString();
+        pos = putDigits(buf, pos, year, year < 10000 ? 4 : year < 100000 ? 5 : 6);
+        buf[pos++] = ' ';
+        pos = putTimeOfDay(buf, pos, (int) Math.floorMod(t, (long) msPerDay));
+        buf[pos++] = ' ';
+        buf[pos++] = 'G';
+        buf[pos++] = 'M';
+        buf[pos++] = 'T';
+        return new String(buf, 0, pos);
     }
 
-    private static String js_toISOString(double t) {
-        StringBuilder result = new StringBuilder(27);
+    private static String js_toISOString(double date) {
+        long t = (long) date;
+        int ymd = civilFromDays(Math.floorDiv(t, (long) msPerDay));
+        int year = ymd >> 9;
+        char[] buf = new char[27];
 
-        int year = YearFromTime(t);
+        // 2000-10-31T09:41:40.000Z
+        int pos = 0;
         if (year < 0) {
-            result.append('-');
-            append0PaddedUint(result, -year, 6);
+            buf[pos++] = '-';
+            pos = putDigits(buf, pos, -year, 6);
         } else if (year > 9999) {
-            result.append('+');
-            append0PaddedUint(result, year, 6);
+            buf[pos++] = '+';
+            pos = putDigits(buf, pos, year, 6);
         } else {
-            append0PaddedUint(result, year, 4);
+            pos = putDigits(buf, pos, year, 4);
         }
-        result.append('-');
-        append0PaddedUint(result, MonthFromTime(t) + 1, 2);
-        result.append('-');
-        append0PaddedUint(result, DateFromTime(t), 2);
-        result.append('T');
-        append0PaddedUint(result, HourFromTime(t), 2);
-        result.append(':');
-        append0PaddedUint(result, MinFromTime(t), 2);
-        result.append(':');
-        append0PaddedUint(result, SecFromTime(t), 2);
-        result.append('.');
-        append0PaddedUint(result, msFromTime(t), 3);
-        result.append('Z');
-        return result.toString();
+        buf[pos++] = '-';
+        pos = putDigits(buf, pos, (ymd >> 5) & 15, 2);
+        buf[pos++] = '-';
+        pos = putDigits(buf, pos, ymd & 31, 2);
+        buf[pos++] = 'T';
+        int time = (int) Math.floorMod(t, (long) msPerDay);
+        pos = putTimeOfDay(buf, pos, time);
+        buf[pos++] = '.';
+        pos = putDigits(buf, pos, time % 1000, 3);
+        buf[pos++] = 'Z';
+        return new String(buf, 0, pos);
+    }
+
+    /*
+     * Return the year, the month from 1 to 12 and the day of the month of a number of days since
+     * the epoch as year << 9 | month << 5 | day, following
+     * http://howardhinnant.github.io/date_algorithms.html#civil_from_days
+     */
+    private static int civilFromDays(long day) {
+        long z = day + 719468;
+        long era = Math.floorDiv(z, 146097L);
+        int dayOfEra = (int) (z - era * 146097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153; // from March
+        int mday = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        int year = (int) (era * 400) + yearOfEra + (month <= 2 ? 1 : 0);
+        return (year << 9) | (month << 5) | mday;
+    }
+
+    /* Write HH:mm:ss for the milliseconds within a day and return the position after it */
+    private static int putTimeOfDay(char[] buf, int pos, int time) {
+        int seconds = time / 1000;
+        pos = putDigits(buf, pos, seconds / 3600, 2);
+        buf[pos++] = ':';
+        pos = putDigits(buf, pos, seconds / 60 % 60, 2);
+        buf[pos++] = ':';
+        return putDigits(buf, pos, seconds % 60, 2);
+    }
+
+    /* Write a non-negative number below 10^width as exactly width digits */
+    private static int putDigits(char[] buf, int pos, int i, int width) {
+        int end = pos + width;
+        for (int p = end - 1; p >= pos; p--) {
+            buf[p] = (char) ('0' + i % 10);
+            i /= 10;
+        }
+        return end;
     }
 
     private static void append0PaddedUint(StringBuilder sb, int i, int minWidth) {
@@ -1543,24 +1716,26 @@ final class NativeDate extends IdScriptableObject {
         sb.append((char) ('0' + i));
     }
 
+    // Take advantage of the fact that all month and week day abbreviations
+    // have the same length to minimize amount of strings runtime has
+    // to keep in memory
+    private static final String MONTH_NAMES =
+            "Jan" + "Feb" + "Mar" + "Apr" + "May" + "Jun" + "Jul" + "Aug" + "Sep" + "Oct" + "Nov"
+                    + "Dec";
+    private static final String WEEK_DAY_NAMES =
+            "Sun" + "Mon" + "Tue" + "Wed" + "Thu" + "Fri" + "Sat";
+
     private static void appendMonthName(StringBuilder sb, int index) {
-        // Take advantage of the fact that all month abbreviations
-        // have the same length to minimize amount of strings runtime has
-        // to keep in memory
-        String months =
-                "Jan" + "Feb" + "Mar" + "Apr" + "May" + "Jun" + "Jul" + "Aug" + "Sep" + "Oct"
-                        + "Nov" + "Dec";
         index *= 3;
         for (int i = 0; i != 3; ++i) {
-            sb.append(months.charAt(index + i));
+            sb.append(MONTH_NAMES.charAt(index + i));
         }
     }
 
     private static void appendWeekDayName(StringBuilder sb, int index) {
-        String days = "Sun" + "Mon" + "Tue" + "Wed" + "Thu" + "Fri" + "Sat";
         index *= 3;
         for (int i = 0; i != 3; ++i) {
-            sb.append(days.charAt(index + i));
+            sb.append(WEEK_DAY_NAMES.charAt(index + i));
         }
     }
 
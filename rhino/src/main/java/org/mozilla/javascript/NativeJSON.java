@@ -6,15 +6,22 @@
 
 package org.mozilla.javascript;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.lang.reflect.Array;
 import java.math.BigInteger;
-import java.util.ArrayDeque;
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 import org.mozilla.javascript.json.JsonParser;
 import org.mozilla.javascript.xml.XMLObject;
 
@@ -30,6 +37,9 @@ public final class NativeJSON extends ScriptableObject {
 
     private static final int MAX_STRINGIFY_GAP_LENGTH = 10;
 
+    /* The number of chars after which stringify passes its output on to the writer */
+    private static final int FLUSH_SIZE = 8192;
+
     static void init(Scriptable scope, boolean sealed) {
         NativeJSON json = new NativeJSON();
         json.setPrototype(getObjectPrototype(scope));
@@ -92,6 +102,21 @@ public final class NativeJSON extends ScriptableObject {
         }
     }
 
+    /**
+     * Parse the JSON text that the reader returns into JavaScript values in the scope, without
+     * reading all of the text into memory first. A syntax error in the text, or an I/O error of
+     * the reader, is thrown as a JavaScript SyntaxError.
+     *
+     * @since 1.7 Release 16
+     */
+    public static Object parse(Context cx, Scriptable scope, Reader json) {
+        try {
+            return new JsonParser(cx, scope).parseReader(json);
+        } catch (JsonParser.ParseException ex) {
+            throw ScriptRuntime.constructError("SyntaxError", ex.getMessage());
+        }
+    }
+
     public static Object parse(Context cx, Scriptable scope, String jtext, Callable reviver) {
         Object unfiltered = parse(cx, scope, jtext);
         Scriptable root = cx.newObject(scope);
@@ -163,7 +188,8 @@ public final class NativeJSON extends ScriptableObject {
                 String indent,
                 String gap,
                 Callable replacer,
-                Object[] propertyList) {
+                Object[] propertyList,
+                Writer writer) {
             this.cx = cx;
             this.scope = scope;
 
@@ -171,9 +197,10 @@ public final class NativeJSON extends ScriptableObject {
             this.gap = gap;
             this.replacer = replacer;
             this.propertyList = propertyList;
+            this.writer = writer;
         }
 
-        ArrayDeque<Object> stack = new ArrayDeque<>();
+        Set<Object> stack = Collections.newSetFromMap(new IdentityHashMap<>());
         String indent;
         String gap;
         Callable replacer;
@@ -181,10 +208,109 @@ public final class NativeJSON extends ScriptableObject {
 
         Context cx;
         Scriptable scope;
+
+        /* The text written so far, or since the last flush if there is a writer */
+        StringBuilder out = new StringBuilder();
+        Writer writer;
+        char[] chunk;
+
+        void flushIfFull() {
+            if (writer != null && out.length() >= FLUSH_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            int length = out.length();
+            if (chunk == null || chunk.length < length) {
+                chunk = new char[Math.max(length, FLUSH_SIZE * 2)];
+            }
+            out.getChars(0, length, chunk, 0);
+            try {
+                writer.write(chunk, 0, length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            out.setLength(0);
+        }
     }
 
     public static Object stringify(
             Context cx, Scriptable scope, Object value, Object replacer, Object space) {
+        StringifyState state = createState(cx, scope, replacer, space, null);
+        if (!stringify(value, state)) {
+            return Undefined.instance;
+        }
+        return state.out.toString();
+    }
+
+    /**
+     * Serialize the value to JSON and write the text to the writer. See {@link
+     * #stringify(Context, Scriptable, Object, Object, Object, Writer)}.
+     *
+     * @since 1.7 Release 16
+     */
+    public static boolean stringify(Context cx, Scriptable scope, Object value, Writer writer)
+            throws IOException {
+        return stringify(cx, scope, value, null, null, writer);
+    }
+
+    /**
+     * Serialize the value to JSON like {@code JSON.stringify(value, replacer, space)} does, but
+     * write the text to the writer while it is produced, so that it is never held in memory as a
+     * whole. Nothing is written if the value has no JSON representation, like undefined or a
+     * function. The writer is neither flushed nor closed.
+     *
+     * <p>If the serialization throws, for example because of a cyclic value or an exception in a
+     * toJSON method or the replacer, the text produced until then has already been written to
+     * the writer, which is left with incomplete JSON.
+     *
+     * @return false if nothing was written because the value has no JSON representation
+     * @since 1.7 Release 16
+     */
+    public static boolean stringify(
+            Context cx,
+            Scriptable scope,
+            Object value,
+            Object replacer,
+            Object space,
+            Writer writer)
+            throws IOException {
+        StringifyState state = createState(cx, scope, replacer, space, writer);
+        try {
+            boolean written = stringify(value, state);
+            state.flush();
+            return written;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Serialize the value to JSON like {@link #stringify(Context, Scriptable, Object, Object,
+     * Object, Writer)} does and write the text to the stream encoded in UTF-8. The stream is
+     * flushed but not closed. As with the writer, a serialization that throws may leave incomplete
+     * JSON in the stream.
+     *
+     * @return false if nothing was written because the value has no JSON representation
+     * @since 1.7 Release 16
+     */
+    public static boolean stringify(
+            Context cx,
+            Scriptable scope,
+            Object value,
+            Object replacer,
+            Object space,
+            OutputStream out)
+            throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        boolean written = stringify(cx, scope, value, replacer, space, writer);
+        writer.flush();
+        return written;
+    }
+
+    private static StringifyState createState(
+            Context cx, Scriptable scope, Object replacer, Object space, Writer writer) {
         String indent = "";
         String gap = "";
 
@@ -237,17 +363,27 @@ public final class NativeJSON extends ScriptableObject {
             }
         }
 
-        StringifyState state =
-                new StringifyState(cx, scope, indent, gap, replacerFunction, propertyList);
+        return new StringifyState(cx, scope, indent, gap, replacerFunction, propertyList, writer);
+    }
 
+    private static boolean stringify(Object value, StringifyState state) {
         ScriptableObject wrapper = new NativeObject();
-        wrapper.setParentScope(scope);
-        wrapper.setPrototype(ScriptableObject.getObjectPrototype(scope));
+        wrapper.setParentScope(state.scope);
+        wrapper.setPrototype(ScriptableObject.getObjectPrototype(state.scope));
         wrapper.defineProperty("", value, 0);
-        return str("", wrapper, state);
+        Object prepared = prepare("", wrapper, state);
+        if (prepared == Undefined.instance) {
+            return false;
+        }
+        write(prepared, state);
+        return true;
     }
 
-    private static Object str(Object key, Scriptable holder, StringifyState state) {
+    /*
+     * Get the value of the property and apply toJSON, the replacer and the unwrapping of Java
+     * values to it. Return the value to write, or undefined if the property is to be left out.
+     */
+    private static Object prepare(Object key, Scriptable holder, StringifyState state) {
         Object value = null;
         Object unwrappedJavaValue = null;
 
@@ -319,25 +455,14 @@ public final class NativeJSON extends ScriptableObject {
             value = value.toString();
         }
 
-        if (value == null) return "null";
-        if (value.equals(Boolean.TRUE)) return "true";
-        if (value.equals(Boolean.FALSE)) return "false";
-
-        if (value instanceof CharSequence) {
-            return quote(value.toString());
-        }
-
-        if (value instanceof Number) {
+        if (value == null
+                || value instanceof Boolean
+                || value instanceof CharSequence
+                || value instanceof Number) {
             if (value instanceof BigInteger) {
                 throw ScriptRuntime.typeErrorById("msg.json.cant.serialize", "BigInt");
             }
-            double d = ((Number) value).doubleValue();
-            if (!Double.isNaN(d)
-                    && d != Double.POSITIVE_INFINITY
-                    && d != Double.NEGATIVE_INFINITY) {
-                return ScriptRuntime.toString(value);
-            }
-            return "null";
+            return value;
         }
 
         if (unwrappedJavaValue != null) {
@@ -345,37 +470,45 @@ public final class NativeJSON extends ScriptableObject {
         }
 
         if ((value instanceof Scriptable) && !(value instanceof Callable)) {
-            if (isObjectArrayLike(value)) {
-                return ja((Scriptable) value, state);
-            }
-            return jo((Scriptable) value, state);
+            return value;
         }
         return Undefined.instance;
     }
 
-    private static String join(Collection<Object> objs, String delimiter) {
-        if (objs == null || objs.isEmpty()) {
-            return "";
-        }
-        Iterator<Object> iter = objs.iterator();
-        if (!iter.hasNext()) return "";
-        StringBuilder builder = new StringBuilder(iter.next().toString());
-        while (iter.hasNext()) {
-            builder.append(delimiter).append(iter.next());
+    private static void write(Object value, StringifyState state) {
+        StringBuilder out = state.out;
+        if (value == null) {
+            out.append("null");
+        } else if (value instanceof Boolean) {
+            out.append(((Boolean) value).booleanValue() ? "true" : "false");
+        } else if (value instanceof CharSequence) {
+            quote(value.toString(), out);
+        } else if (value instanceof Number) {
+            double d = ((Number) value).doubleValue();
+            if (!Double.isNaN(d)
+                    && d != Double.POSITIVE_INFINITY
+                    && d != Double.NEGATIVE_INFINITY) {
+                out.append(ScriptRuntime.toString(value));
+            } else {
+                out.append("null");
+            }
+        } else if (isObjectArrayLike(value)) {
+            ja((Scriptable) value, state);
+        } else {
+            jo((Scriptable) value, state);
         }
-        return builder.toString();
+        state.flushIfFull();
     }
 
-    private static String jo(Scriptable value, StringifyState state) {
+    private static void jo(Scriptable value, StringifyState state) {
         Object trackValue = value, unwrapped = null;
         if (value instanceof Wrapper) {
             trackValue = unwrapped = ((Wrapper) value).unwrap();
         }
 
-        if (state.stack.contains(trackValue)) {
+        if (!state.stack.add(trackValue)) {
             throw ScriptRuntime.typeErrorById("msg.cyclic.value", trackValue.getClass().getName());
         }
-        state.stack.push(trackValue);
 
         if (unwrapped instanceof Map) {
             Map<?, ?> map = (Map<?, ?>) unwrapped;
@@ -415,52 +548,45 @@ public final class NativeJSON extends ScriptableObject {
             k = value.getIds();
         }
 
-        ArrayList<Object> partial = new ArrayList<>();
-
+        boolean hasGap = state.gap.length() > 0;
+        boolean empty = true;
+        state.out.append('{');
         for (Object p : k) {
-            Object strP = str(p, value, state);
-            if (strP != Undefined.instance) {
-                String member = quote(p.toString()) + ":";
-                if (state.gap.length() > 0) {
-                    member = member + " ";
-                }
-                member = member + strP;
-                partial.add(member);
+            Object v = prepare(p, value, state);
+            if (v == Undefined.instance) {
+                continue;
             }
-        }
-
-        final String finalValue;
-
-        if (partial.isEmpty()) {
-            finalValue = "{}";
-        } else {
-            if (state.gap.length() == 0) {
-                finalValue = '{' + join(partial, ",") + '}';
-            } else {
-                String separator = ",\n" + state.indent;
-                String properties = join(partial, separator);
-                finalValue = "{\n" + state.indent + properties + '\n' + stepback + '}';
+            if (!empty) {
+                state.out.append(',');
             }
+            empty = false;
+            if (hasGap) {
+                state.out.append('\n').append(state.indent);
+            }
+            quote(p.toString(), state.out);
+            state.out.append(hasGap ? ": " : ":");
+            write(v, state);
+        }
+        if (!empty && hasGap) {
+            state.out.append('\n').append(stepback);
         }
+        state.out.append('}');
 
-        state.stack.pop();
+        state.stack.remove(trackValue);
         state.indent = stepback;
-        return finalValue;
     }
 
-    private static String ja(Scriptable value, StringifyState state) {
+    private static void ja(Scriptable value, StringifyState state) {
         Object trackValue = value, unwrapped = null;
         if (value instanceof Wrapper) {
             trackValue = unwrapped = ((Wrapper) value).unwrap();
         }
-        if (state.stack.contains(trackValue)) {
+        if (!state.stack.add(trackValue)) {
             throw ScriptRuntime.typeErrorById("msg.cyclic.value", trackValue.getClass().getName());
         }
-        state.stack.push(trackValue);
 
         String stepback = state.indent;
         state.indent = state.indent + state.gap;
-        ArrayList<Object> partial = new ArrayList<>();
 
         if (unwrapped != null) {
             Object[] elements = null;
@@ -485,46 +611,48 @@ public final class NativeJSON extends ScriptableObject {
 
         long len = ((NativeArray) value).getLength();
 
+        boolean hasGap = state.gap.length() > 0;
+        state.out.append('[');
         for (long index = 0; index < len; index++) {
-            Object strP;
+            Object v;
             if (index > Integer.MAX_VALUE) {
-                strP = str(Long.toString(index), value, state);
+                v = prepare(Long.toString(index), value, state);
             } else {
-                strP = str(Integer.valueOf((int) index), value, state);
+                v = prepare(Integer.valueOf((int) index), value, state);
             }
-            if (strP == Undefined.instance) {
-                partial.add("null");
-            } else {
-                partial.add(strP);
+            if (index > 0) {
+                state.out.append(',');
             }
-        }
-
-        final String finalValue;
-
-        if (partial.isEmpty()) {
-            finalValue = "[]";
-        } else {
-            if (state.gap.length() == 0) {
-                finalValue = '[' + join(partial, ",") + ']';
+            if (hasGap) {
+                state.out.append('\n').append(state.indent);
+            }
+            if (v == Undefined.instance) {
+                state.out.append("null");
             } else {
-                String separator = ",\n" + state.indent;
-                String properties = join(partial, separator);
-                finalValue = "[\n" + state.indent + properties + '\n' + stepback + ']';
+                write(v, state);
             }
         }
+        if (len > 0 && hasGap) {
+            state.out.append('\n').append(stepback);
+        }
+        state.out.append(']');
 
-        state.stack.pop();
+        state.stack.remove(trackValue);
         state.indent = stepback;
-        return finalValue;
     }
 
-    private static String quote(String string) {
-        StringBuilder product =
-                new StringBuilder(string.length() + 2); // two extra chars for " on either side
+    private static void quote(String string, StringBuilder product) {
         product.append('"');
         int length = string.length();
+        // append the runs of chars that need no escaping in one go
+        int start = 0;
         for (int i = 0; i < length; i++) {
             char c = string.charAt(i);
+            if (c >= ' ' && c != '"' && c != '\\') {
+                continue;
+            }
+            product.append(string, start, i);
+            start = i + 1;
             switch (c) {
                 case '"':
                     product.append("\\\"");
@@ -548,18 +676,14 @@ public final class NativeJSON extends ScriptableObject {
                     product.append("\\t");
                     break;
                 default:
-                    if (c < ' ') {
-                        product.append("\\u");
-                        String hex = String.format("%04x", Integer.valueOf(c));
-                        product.append(hex);
-                    } else {
-                        product.append(c);
-                    }
+                    product.append("\\u00")
+                            .append(Character.forDigit(c >> 4, 16))
+                            .append(Character.forDigit(c & 0xF, 16));
                     break;
             }
         }
+        product.append(string, start, length);
         product.append('"');
-        return product.toString();
     }
 
     private static Object javaToJSON(Object value, StringifyState state) {
@@ -570,7 +694,7 @@ public final class NativeJSON extends ScriptableObject {
         wrapper.setParentScope(state.scope);
         wrapper.setPrototype(ScriptableObject.getObjectPrototype(state.scope));
         wrapper.defineProperty("", value, 0);
-        return str("", wrapper, state);
+        return prepare("", wrapper, state);
     }
 
     private static boolean isObjectArrayLike(Object o) {
@@ -10,7 +10,6 @@ import java.lang.reflect.Array;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.EnumSet;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * This class reflects Java methods into the JavaScript environment and handles overloading of
@@ -241,21 +240,61 @@ public class NativeJavaMethod extends BaseFunction {
 
     int findCachedFunction(Context cx, Object[] args) {
         if (methods.length > 1) {
-            for (ResolvedOverload ovl : overloadCache) {
-                if (ovl.matches(args)) {
-                    return ovl.index;
+            int arity = args.length;
+            int signature = ResolvedOverload.signatureHash(args);
+            ResolvedOverload[][] cache = overloadCache;
+            if (cache != null && arity < cache.length && cache[arity] != null) {
+                for (ResolvedOverload ovl : cache[arity]) {
+                    if (ovl.signature == signature && ovl.matches(args)) {
+                        return ovl.index;
+                    }
                 }
             }
             int index = findFunction(cx, methods, args);
+            cacheOverload(new ResolvedOverload(args, signature, index));
+            return index;
+        }
+        return findFunction(cx, methods, args);
+    }
+
+    /*
+     * Add a resolved overload to the cache, which is copied on write, so that it can be read
+     * without locking.
+     */
+    private synchronized void cacheOverload(ResolvedOverload ovl) {
+        int arity = ovl.types.length;
+        if (arity > MAX_CACHED_ARITY) {
+            return;
+        }
+        ResolvedOverload[][] cache = overloadCache;
+        if (cache == null) {
+            // The cache is not serialized
+            cache = EMPTY_OVERLOAD_CACHE;
+        }
+        if (arity >= cache.length) {
+            cache = Arrays.copyOf(cache, arity + 1);
+        } else {
+            cache = cache.clone();
+        }
+        ResolvedOverload[] bucket = cache[arity];
+        if (bucket == null) {
+            bucket = new ResolvedOverload[] {ovl};
+        } else {
             // As a sanity measure, don't let the lookup cache grow longer
             // than twice the number of overloaded methods
-            if (overloadCache.size() < methods.length * 2) {
-                ResolvedOverload ovl = new ResolvedOverload(args, index);
-                overloadCache.addIfAbsent(ovl);
+            if (bucket.length >= methods.length * 2) {
+                return;
             }
-            return index;
+            for (ResolvedOverload other : bucket) {
+                if (other.equals(ovl)) {
+                    return;
+                }
+            }
+            bucket = Arrays.copyOf(bucket, bucket.length + 1);
+            bucket[bucket.length - 1] = ovl;
         }
-        return findFunction(cx, methods, args);
+        cache[arity] = bucket;
+        overloadCache = cache;
     }
 
     /**
@@ -523,22 +562,40 @@ public class NativeJavaMethod extends BaseFunction {
 
     MemberBox[] methods;
     private String functionName;
-    private final transient CopyOnWriteArrayList<ResolvedOverload> overloadCache =
-            new CopyOnWriteArrayList<>();
+
+    /* The overloads that were chosen for the argument types of earlier calls, by arity */
+    private transient volatile ResolvedOverload[][] overloadCache = EMPTY_OVERLOAD_CACHE;
+
+    private static final ResolvedOverload[][] EMPTY_OVERLOAD_CACHE = new ResolvedOverload[0][];
+    private static final int MAX_CACHED_ARITY = 32;
 }
 
 class ResolvedOverload {
     final Class<?>[] types;
+    final int signature;
     final int index;
 
-    ResolvedOverload(Object[] args, int index) {
+    ResolvedOverload(Object[] args, int signature, int index) {
         this.index = index;
+        this.signature = signature;
         types = new Class<?>[args.length];
         for (int i = 0, l = args.length; i < l; i++) {
-            Object arg = args[i];
-            if (arg instanceof Wrapper) arg = ((Wrapper) arg).unwrap();
-            types[i] = arg == null ? null : arg.getClass();
+            types[i] = argType(args[i]);
+        }
+    }
+
+    private static Class<?> argType(Object arg) {
+        if (arg instanceof Wrapper) arg = ((Wrapper) arg).unwrap();
+        return arg == null ? null : arg.getClass();
+    }
+
+    /** Hash the classes of the arguments, which is used to skip most overloads quickly. */
+    static int signatureHash(Object[] args) {
+        int hash = args.length;
+        for (Object arg : args) {
+            hash = hash * 31 + System.identityHashCode(argType(arg));
         }
+        return hash;
     }
 
     boolean matches(Object[] args) {
@@ -546,11 +603,7 @@ class ResolvedOverload {
             return false;
         }
         for (int i = 0, l = args.length; i < l; i++) {
-            Object arg = args[i];
-            if (arg instanceof Wrapper) arg = ((Wrapper) arg).unwrap();
-            if (arg == null) {
-                if (types[i] != null) return false;
-            } else if (arg.getClass() != types[i]) {
+            if (argType(args[i]) != types[i]) {
                 return false;
             }
         }
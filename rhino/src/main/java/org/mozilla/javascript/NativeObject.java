@@ -28,6 +28,12 @@ public class NativeObject extends IdScriptableObject implements Map {
 
     private static final Object OBJECT_TAG = "Object";
 
+    public NativeObject() {
+        // Plain objects are the ones that benefit from shared layouts and
+        // property caches in compiled code.
+        useShapes();
+    }
+
     static void init(Scriptable scope, boolean sealed) {
         NativeObject obj = new NativeObject();
         obj.exportAsJSClass(MAX_PROTOTYPE_ID, scope, sealed);
@@ -6,8 +6,8 @@
 
 package org.mozilla.javascript;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This is an implementation of the standard "Symbol" type that implements all of its weird
@@ -81,6 +81,18 @@ public class NativeSymbol extends IdScriptableObject implements Symbol {
      * Use this when we need to create symbols internally because of the convoluted way we have to
      * construct them.
      */
+    /**
+     * Give a scope its own registry of the symbols that Symbol.for creates. Scripts that run in
+     * the scope, or in a scope that has it in its prototype chain, use it instead of the registry
+     * of the scope that holds the standard objects. This allows scopes that share sealed standard
+     * objects, which may be used by many threads, not to share the symbols that they register.
+     *
+     * @param scope the top-level scope that gets the registry
+     */
+    public static void initRegistry(ScriptableObject scope) {
+        scope.associateValue(GLOBAL_TABLE_KEY, new ConcurrentHashMap<String, NativeSymbol>());
+    }
+
     public static NativeSymbol construct(Context cx, Scriptable scope, Object[] args) {
         cx.putThreadLocal(CONSTRUCTOR_SLOT, Boolean.TRUE);
         try {
@@ -244,12 +256,15 @@ public class NativeSymbol extends IdScriptableObject implements Symbol {
                         ? ScriptRuntime.toString(args[0])
                         : ScriptRuntime.toString(Undefined.instance));
 
-        Map<String, NativeSymbol> table = getGlobalMap();
+        Map<String, NativeSymbol> table = getGlobalMap(scope);
         NativeSymbol ret = table.get(name);
 
         if (ret == null) {
             ret = construct(cx, scope, new Object[] {name});
-            table.put(name, ret);
+            NativeSymbol existing = table.putIfAbsent(name, ret);
+            if (existing != null) {
+                ret = existing;
+            }
         }
         return ret;
     }
@@ -262,7 +277,7 @@ public class NativeSymbol extends IdScriptableObject implements Symbol {
         }
         NativeSymbol sym = (NativeSymbol) s;
 
-        Map<String, NativeSymbol> table = getGlobalMap();
+        Map<String, NativeSymbol> table = getGlobalMap(scope);
         for (Map.Entry<String, NativeSymbol> e : table.entrySet()) {
             if (e.getValue().key == sym.key) {
                 return e.getKey();
@@ -341,13 +356,18 @@ public class NativeSymbol extends IdScriptableObject implements Symbol {
     }
 
     @SuppressWarnings("unchecked")
-    private Map<String, NativeSymbol> getGlobalMap() {
-        ScriptableObject top = (ScriptableObject) getTopLevelScope(this);
+    private Map<String, NativeSymbol> getGlobalMap(Scriptable scope) {
+        // Use the registry of the calling scope (see initRegistry), if there is one
         Map<String, NativeSymbol> map =
-                (Map<String, NativeSymbol>) top.getAssociatedValue(GLOBAL_TABLE_KEY);
+                (Map<String, NativeSymbol>) getTopScopeValue(scope, GLOBAL_TABLE_KEY);
         if (map == null) {
-            map = new HashMap<>();
-            top.associateValue(GLOBAL_TABLE_KEY, map);
+            ScriptableObject top = (ScriptableObject) getTopLevelScope(this);
+            map = (Map<String, NativeSymbol>) top.getAssociatedValue(GLOBAL_TABLE_KEY);
+            if (map == null) {
+                map =
+                        (Map<String, NativeSymbol>)
+                                top.associateValue(GLOBAL_TABLE_KEY, new ConcurrentHashMap<>());
+            }
         }
         return map;
     }
@@ -0,0 +1,96 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+/**
+ * An inline cache for a single named property access site in compiled code, such as "obj.x". The
+ * class compiler allocates one of these per site in a static field of the generated class.
+ *
+ * <p>The cache remembers the {@link Shape} of the last plain object that was seen at the site and
+ * the position of the property in it. When the next object has the same shape, the property is
+ * found with an identity comparison and an array load. Everything else, including inherited
+ * properties, getters and setters and objects that are not tracked by shape, goes through the
+ * regular ScriptRuntime path. Sites that keep seeing different shapes stop caching.
+ *
+ * <p>This class is public only so that generated code can use it.
+ */
+public final class PropertyCache {
+
+    /** After this many shape changes the site is considered megamorphic and is not cached. */
+    private static final int MAX_MISSES = 8;
+
+    private static final class Entry {
+        final Shape shape;
+        final int index;
+
+        Entry(Shape shape, int index) {
+            this.shape = shape;
+            this.index = index;
+        }
+    }
+
+    // Replaced as a whole, so that the shape and index are always consistent
+    private Entry entry;
+    private int misses;
+
+    /** Equivalent to {@link ScriptRuntime#getObjectProp(Object, String, Context, Scriptable)}. */
+    public Object getObjectProp(Object obj, String property, Context cx, Scriptable scope) {
+        if (obj != null && obj.getClass() == NativeObject.class) {
+            Slot slot = findSlot((NativeObject) obj, property);
+            if (slot != null && slot.getClass() == Slot.class) {
+                return slot.value;
+            }
+        }
+        return ScriptRuntime.getObjectProp(obj, property, cx, scope);
+    }
+
+    /**
+     * Equivalent to {@link ScriptRuntime#setObjectProp(Object, String, Object, Context,
+     * Scriptable)}.
+     */
+    public Object setObjectProp(
+            Object obj, String property, Object value, Context cx, Scriptable scope) {
+        if (obj != null && obj.getClass() == NativeObject.class) {
+            NativeObject nobj = (NativeObject) obj;
+            if (!nobj.isSealed() && !nobj.hasPrototypeMap()) {
+                Slot slot = findSlot(nobj, property);
+                if (slot != null
+                        && slot.getClass() == Slot.class
+                        && (slot.getAttributes() & ScriptableObject.READONLY) == 0) {
+                    slot.value = value;
+                    return value;
+                }
+            }
+        }
+        return ScriptRuntime.setObjectProp(obj, property, value, cx, scope);
+    }
+
+    /** Return the own slot for the property if the object is tracked by shape. */
+    private Slot findSlot(NativeObject obj, String property) {
+        ShapedSlotMap map = obj.getShapedSlotMap();
+        if (map == null) {
+            return null;
+        }
+        Shape shape = map.shape;
+        Entry e = entry;
+        if (e != null && e.shape == shape) {
+            return map.slots[e.index];
+        }
+        if (misses > MAX_MISSES) {
+            return null;
+        }
+        int index = shape.indexOf(property);
+        if (index < 0) {
+            return null;
+        }
+        if (e != null) {
+            misses++;
+        }
+        entry = new Entry(shape, index);
+        return map.slots[index];
+    }
+}
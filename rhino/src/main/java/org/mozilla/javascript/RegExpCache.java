@@ -0,0 +1,162 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A bounded cache of compiled regular expression programs, so that a RegExp that is constructed
+ * again and again from the same pattern, like "new RegExp(key, 'g')" in a loop, is only parsed
+ * once. Entries are keyed by the pattern, the flags and the language version, and the least
+ * recently used entry is dropped when the cache is full.
+ *
+ * <p>Every {@link ContextFactory} has a cache of {@link #DEFAULT_SIZE} entries that is shared by
+ * its Contexts, see {@link ContextFactory#setRegExpCache}. A Context can use a different cache, or
+ * none, with {@link Context#setRegExpCache}. The cache is not used while {@link
+ * Context#FEATURE_STRICT_MODE} is enabled, so that warnings about the pattern are reported every
+ * time.
+ *
+ * <p>A single instance may be shared by any number of Contexts and threads. The cached programs
+ * are shared too, and they are not immutable: matching compiles them further and keeps counters
+ * in them, so that state has to tolerate concurrent updates.
+ */
+public class RegExpCache {
+
+    /** The size of the cache that a ContextFactory uses unless it is given another one. */
+    public static final int DEFAULT_SIZE = 64;
+
+    private static final class Key {
+        final String source;
+        final String flags;
+        final boolean flat;
+        final int languageVersion;
+
+        Key(String source, String flags, boolean flat, int languageVersion) {
+            this.source = source;
+            this.flags = flags;
+            this.flat = flat;
+            this.languageVersion = languageVersion;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return source.equals(k.source)
+                    && Objects.equals(flags, k.flags)
+                    && flat == k.flat
+                    && languageVersion == k.languageVersion;
+        }
+
+        @Override
+        public int hashCode() {
+            return (source.hashCode() * 31 + Objects.hashCode(flags)) * 31
+                    + languageVersion
+                    + (flat ? 1 : 0);
+        }
+    }
+
+    private final int maxSize;
+    private final LinkedHashMap<Key, Object> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Create a cache for the given number of compiled programs.
+     *
+     * @param maxSize the number of entries, which must not be negative. A cache of size 0 never
+     *     keeps anything.
+     */
+    public RegExpCache(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.entries =
+                new LinkedHashMap<Key, Object>(16, 0.75f, true) {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                        if (size() > RegExpCache.this.maxSize) {
+                            evictions++;
+                            return true;
+                        }
+                        return false;
+                    }
+                };
+    }
+
+    /**
+     * Return the compiled program for a pattern from the cache, or compile it using the supplier
+     * and add it. This is used by the RegExp implementation, and the compiled program is opaque to
+     * everybody else. The supplier is called without holding any lock, and may throw an exception
+     * for an invalid pattern, which is then not cached.
+     */
+    public Object get(
+            String source,
+            String flags,
+            boolean flat,
+            int languageVersion,
+            Supplier<Object> compiler) {
+        Key key = new Key(source, flags, flat, languageVersion);
+        synchronized (this) {
+            Object compiled = entries.get(key);
+            if (compiled != null) {
+                hits++;
+                return compiled;
+            }
+            misses++;
+        }
+        Object compiled = compiler.get();
+        if (compiled != null && maxSize > 0) {
+            synchronized (this) {
+                entries.put(key, compiled);
+            }
+        }
+        return compiled;
+    }
+
+    /** Return the maximum number of entries. */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /** Return the number of entries in the cache. */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** Return the number of times that a compiled program was found in the cache. */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /** Return the number of times that a pattern had to be compiled. */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /** Return the number of entries that were dropped because the cache was full. */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /** Remove all entries, and reset the counters. */
+    public synchronized void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+}
@@ -3514,12 +3514,16 @@ public class ScriptRuntime {
         if (!typeof(x).equals(typeof(y))) {
             return false;
         }
-        if (x instanceof Number) {
-            if (isNaN(x) && isNaN(y)) {
-                return true;
-            }
+        if (x instanceof BigInteger) {
             return x.equals(y);
         }
+        if (x instanceof Number) {
+            // Compare the values rather than the boxes, which may be an Integer and a Double,
+            // but tell zeroes with different signs apart
+            double dx = ((Number) x).doubleValue();
+            double dy = ((Number) y).doubleValue();
+            return Double.doubleToLongBits(dx) == Double.doubleToLongBits(dy);
+        }
         return eq(x, y);
     }
 
@@ -159,6 +159,9 @@ public abstract class ScriptableObject
     private static SlotMapContainer createSlotMap(int initialSize) {
         Context cx = Context.getCurrentContext();
         if ((cx != null) && cx.hasFeature(Context.FEATURE_THREAD_SAFE_OBJECTS)) {
+            if (cx.hasFeature(Context.FEATURE_CONCURRENT_OBJECTS)) {
+                return new ConcurrentSlotMapContainer(initialSize);
+            }
             return new ThreadSafeSlotMapContainer(initialSize);
         }
         return new SlotMapContainer(initialSize);
@@ -176,6 +179,20 @@ public abstract class ScriptableObject
         slotMap = createSlotMap(0);
     }
 
+    /**
+     * Have this object track its property layout with a {@link Shape} that is shared with other
+     * objects built the same way. This must be called before any properties are added.
+     */
+    final void useShapes() {
+        slotMap.useShapes();
+    }
+
+    /** Return the slot map if this object is tracked by shape, or null otherwise. */
+    final ShapedSlotMap getShapedSlotMap() {
+        SlotMap map = slotMap.map;
+        return (map instanceof ShapedSlotMap) ? (ShapedSlotMap) map : null;
+    }
+
     /**
      * Gets the value that will be returned by calling the typeof operator on this object.
      *
@@ -2624,33 +2641,37 @@ public abstract class ScriptableObject
             return a;
         }
 
-        int c = externalLen;
-        final long stamp = slotMap.readLock();
-        try {
-            for (Slot slot : slotMap) {
-                if ((getNonEnumerable || (slot.getAttributes() & DONTENUM) == 0)
-                        && (getSymbols || !(slot.name instanceof Symbol))) {
-                    if (c == externalLen) {
-                        // Special handling to combine external array with additional properties
-                        Object[] oldA = a;
-                        a = new Object[slotMap.dirtySize() + externalLen];
-                        if (oldA != null) {
-                            System.arraycopy(oldA, 0, a, 0, externalLen);
+        Object[] result;
+        if (slotMap instanceof ConcurrentSlotMapContainer) {
+            result = getConcurrentIds(a, externalLen, getNonEnumerable, getSymbols);
+        } else {
+            int c = externalLen;
+            final long stamp = slotMap.readLock();
+            try {
+                for (Slot slot : slotMap) {
+                    if ((getNonEnumerable || (slot.getAttributes() & DONTENUM) == 0)
+                            && (getSymbols || !(slot.name instanceof Symbol))) {
+                        if (c == externalLen) {
+                            // Special handling to combine external array with additional properties
+                            Object[] oldA = a;
+                            a = new Object[slotMap.dirtySize() + externalLen];
+                            if (oldA != null) {
+                                System.arraycopy(oldA, 0, a, 0, externalLen);
+                            }
                         }
+                        a[c++] = slot.name != null ? slot.name : Integer.valueOf(slot.indexOrHash);
                     }
-                    a[c++] = slot.name != null ? slot.name : Integer.valueOf(slot.indexOrHash);
                 }
+            } finally {
+                slotMap.unlockRead(stamp);
             }
-        } finally {
-            slotMap.unlockRead(stamp);
-        }
 
-        Object[] result;
-        if (c == (a.length + externalLen)) {
-            result = a;
-        } else {
-            result = new Object[c];
-            System.arraycopy(a, 0, result, 0, c);
+            if (c == (a.length + externalLen)) {
+                result = a;
+            } else {
+                result = new Object[c];
+                System.arraycopy(a, 0, result, 0, c);
+            }
         }
 
         Context cx = Context.getCurrentContext();
@@ -2662,6 +2683,26 @@ public abstract class ScriptableObject
         return result;
     }
 
+    /*
+     * The ids of an object with a concurrent map, which may have more or fewer slots than its
+     * size said by the time we iterate over it, so they are collected in a growable list. The
+     * array holds the external array indices.
+     */
+    private Object[] getConcurrentIds(
+            Object[] a, int externalLen, boolean getNonEnumerable, boolean getSymbols) {
+        ArrayList<Object> ids = new ArrayList<>(externalLen + slotMap.dirtySize());
+        for (int i = 0; i < externalLen; i++) {
+            ids.add(a[i]);
+        }
+        for (Slot slot : slotMap) {
+            if ((getNonEnumerable || (slot.getAttributes() & DONTENUM) == 0)
+                    && (getSymbols || !(slot.name instanceof Symbol))) {
+                ids.add(slot.name != null ? slot.name : Integer.valueOf(slot.indexOrHash));
+            }
+        }
+        return ids.toArray();
+    }
+
     /*
      * These are handy for changing slot types in one "compute" operation.
      */
@@ -2699,14 +2740,14 @@ public abstract class ScriptableObject
         out.defaultWriteObject();
         final long stamp = slotMap.readLock();
         try {
-            int objectsCount = slotMap.dirtySize();
-            if (objectsCount == 0) {
-                out.writeInt(0);
-            } else {
-                out.writeInt(objectsCount);
-                for (Slot slot : slotMap) {
-                    out.writeObject(slot);
-                }
+            // Copy the slots first, in case the map changes while we iterate over it
+            ArrayList<Slot> slots = new ArrayList<>(slotMap.dirtySize());
+            for (Slot slot : slotMap) {
+                slots.add(slot);
+            }
+            out.writeInt(slots.size());
+            for (Slot slot : slots) {
+                out.writeObject(slot);
             }
         } finally {
             slotMap.unlockRead(stamp);
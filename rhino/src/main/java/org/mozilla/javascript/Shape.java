@@ -0,0 +1,172 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A Shape describes the property layout of an object: which keys it has, and at which position in
+ * its slot array each one lives. Shapes form a tree rooted at {@link #EMPTY}. Adding a property to
+ * an object moves it to a child shape, and objects that gain the same properties in the same order
+ * (such as objects created from the same literal or by the same constructor) end up sharing a
+ * single Shape instance. That lets a property access site remember "shape S has property x at
+ * position N" and later resolve the same access with an identity comparison instead of a hash
+ * lookup.
+ *
+ * <p>Shapes are immutable once created, apart from their transition table, and are shared across
+ * threads. Children are only weakly referenced by their parent so that layouts nobody uses any
+ * more can be collected.
+ */
+final class Shape {
+
+    /**
+     * Objects with more properties than this are no longer tracked by shape, and go back to an
+     * ordinary hash table. Large objects are typically used as dictionaries, which would otherwise
+     * produce long chains of shapes that are never shared.
+     */
+    static final int MAX_PROPERTIES = 64;
+
+    /**
+     * The maximum number of distinct children of a single shape. Beyond this, new layouts are
+     * still created but are not registered for sharing, which bounds the size of the tree when
+     * objects are populated with arbitrary keys.
+     */
+    private static final int MAX_TRANSITIONS = 32;
+
+    /** Below this size, a linear scan of the keys is faster than hashing. */
+    private static final int LINEAR_SEARCH_SIZE = 8;
+
+    static final Shape EMPTY = new Shape(null, null);
+
+    private final Shape parent;
+    private final Object key;
+    private final int size;
+
+    // Built on first lookup. The Layout is immutable so a racy publication is fine.
+    private Layout layout;
+
+    // Guarded by "this"
+    private Map<Object, WeakReference<Shape>> transitions;
+
+    private Shape(Shape parent, Object key) {
+        this.parent = parent;
+        this.key = key;
+        this.size = (parent == null ? 0 : parent.size + 1);
+    }
+
+    /** Return the number of properties described by this shape. */
+    int size() {
+        return size;
+    }
+
+    /** Return the position of the property with the given key, or -1 if there is none. */
+    int indexOf(Object k) {
+        Layout l = layout;
+        if (l == null) {
+            l = new Layout(this);
+            layout = l;
+        }
+        return l.indexOf(k);
+    }
+
+    /**
+     * Return the shape that results from adding a property with the given key to an object of
+     * this shape. The key must not already be part of this shape.
+     */
+    Shape addProperty(Object k) {
+        synchronized (this) {
+            if (transitions == null) {
+                transitions = new HashMap<>();
+            } else {
+                WeakReference<Shape> ref = transitions.get(k);
+                Shape existing = (ref == null ? null : ref.get());
+                if (existing != null) {
+                    return existing;
+                }
+            }
+            Shape child = new Shape(this, k);
+            if (transitions.size() >= MAX_TRANSITIONS) {
+                expungeStaleTransitions();
+            }
+            if (transitions.size() < MAX_TRANSITIONS) {
+                transitions.put(k, new WeakReference<>(child));
+            }
+            return child;
+        }
+    }
+
+    private void expungeStaleTransitions() {
+        Iterator<WeakReference<Shape>> it = transitions.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().get() == null) {
+                it.remove();
+            }
+        }
+    }
+
+    private static final class Layout {
+        final Object[] keys;
+        final int[] hashes;
+        // Open-addressing table of (position + 1), or null for small shapes
+        final int[] table;
+
+        Layout(Shape shape) {
+            int n = shape.size;
+            keys = new Object[n];
+            hashes = new int[n];
+            for (Shape s = shape; s.parent != null; s = s.parent) {
+                keys[s.size - 1] = s.key;
+                hashes[s.size - 1] = s.key.hashCode();
+            }
+            if (n > LINEAR_SEARCH_SIZE) {
+                // Keep the table at most half full
+                int[] t = new int[Integer.highestOneBit(n) << 2];
+                int mask = t.length - 1;
+                for (int i = 0; i < n; i++) {
+                    int pos = spread(hashes[i]) & mask;
+                    while (t[pos] != 0) {
+                        pos = (pos + 1) & mask;
+                    }
+                    t[pos] = i + 1;
+                }
+                table = t;
+            } else {
+                table = null;
+            }
+        }
+
+        int indexOf(Object k) {
+            int hash = k.hashCode();
+            if (table == null) {
+                for (int i = 0; i < hashes.length; i++) {
+                    if (hashes[i] == hash && k.equals(keys[i])) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+            int mask = table.length - 1;
+            for (int pos = spread(hash) & mask; ; pos = (pos + 1) & mask) {
+                int e = table[pos];
+                if (e == 0) {
+                    return -1;
+                }
+                e--;
+                if (hashes[e] == hash && k.equals(keys[e])) {
+                    return e;
+                }
+            }
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
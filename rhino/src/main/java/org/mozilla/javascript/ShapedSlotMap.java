@@ -0,0 +1,140 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class implements the SlotMap interface using a {@link Shape} that is shared with other
+ * objects that have the same property layout, plus a plain array of slots in definition order.
+ * Looking up a key means asking the shape for its position, which is what allows compiled code to
+ * cache that position per shape in a {@link PropertyCache}.
+ *
+ * <p>This map only supports String and Symbol keys and a limited number of properties.
+ * SlotMapContainer replaces it with an EmbeddedSlotMap before anything else is added.
+ */
+final class ShapedSlotMap implements SlotMap {
+
+    private static final Slot[] EMPTY_SLOTS = new Slot[0];
+
+    // These are read directly by PropertyCache
+    Shape shape = Shape.EMPTY;
+    Slot[] slots = EMPTY_SLOTS;
+
+    private static final class Iter implements Iterator<Slot> {
+        private final Slot[] slots;
+        private final int size;
+        private int pos;
+
+        Iter(Slot[] slots, int size) {
+            this.slots = slots;
+            this.size = size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pos < size;
+        }
+
+        @Override
+        public Slot next() {
+            if (pos >= size) {
+                throw new NoSuchElementException();
+            }
+            return slots[pos++];
+        }
+    }
+
+    /** Return whether a property with this key may be added without leaving shape mode. */
+    boolean canAdd(Object key) {
+        return key != null && (shape.size() < Shape.MAX_PROPERTIES || shape.indexOf(key) >= 0);
+    }
+
+    @Override
+    public int size() {
+        return shape.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return shape.size() == 0;
+    }
+
+    @Override
+    public Iterator<Slot> iterator() {
+        return new Iter(slots, shape.size());
+    }
+
+    @Override
+    public Slot query(Object key, int index) {
+        if (key == null) {
+            return null;
+        }
+        int pos = shape.indexOf(key);
+        return pos < 0 ? null : slots[pos];
+    }
+
+    @Override
+    public Slot modify(Object key, int index, int attributes) {
+        Slot slot = query(key, index);
+        if (slot != null) {
+            return slot;
+        }
+        Slot newSlot = new Slot(key, index, attributes);
+        add(newSlot);
+        return newSlot;
+    }
+
+    @Override
+    public <S extends Slot> S compute(Object key, int index, SlotComputer<S> c) {
+        int pos = (key == null ? -1 : shape.indexOf(key));
+        if (pos >= 0) {
+            S newSlot = c.compute(key, index, slots[pos]);
+            if (newSlot == null) {
+                removeSlot(pos);
+            } else {
+                // Replacing a slot does not change the layout
+                slots[pos] = newSlot;
+            }
+            return newSlot;
+        }
+
+        S newSlot = c.compute(key, index, null);
+        if (newSlot != null) {
+            add(newSlot);
+        }
+        return newSlot;
+    }
+
+    @Override
+    public void add(Slot newSlot) {
+        assert newSlot.name != null;
+        int size = shape.size();
+        if (size == slots.length) {
+            Slot[] newSlots = new Slot[size == 0 ? 4 : size * 2];
+            System.arraycopy(slots, 0, newSlots, 0, size);
+            slots = newSlots;
+        }
+        slots[size] = newSlot;
+        shape = shape.addProperty(newSlot.name);
+    }
+
+    private void removeSlot(int pos) {
+        // Shapes only ever grow, so find the shape of the remaining properties
+        // starting from the root again. This is still shared with any other object
+        // that ends up with the same keys in the same order.
+        int size = shape.size();
+        System.arraycopy(slots, pos + 1, slots, pos, size - pos - 1);
+        slots[size - 1] = null;
+        Shape newShape = Shape.EMPTY;
+        for (int i = 0; i < size - 1; i++) {
+            newShape = newShape.addProperty(slots[i].name);
+        }
+        shape = newShape;
+    }
+}
@@ -16,8 +16,6 @@ public class Slot implements Serializable {
     int indexOrHash;
     private short attributes;
     Object value;
-    transient Slot next; // next in hash table bucket
-    transient Slot orderedNext; // next in linked list
 
     Slot(Object name, int index, int attributes) {
         this.name = name;
@@ -45,8 +43,6 @@ public class Slot implements Serializable {
         indexOrHash = oldSlot.indexOrHash;
         attributes = oldSlot.attributes;
         value = oldSlot.value;
-        next = oldSlot.next;
-        orderedNext = oldSlot.orderedNext;
     }
 
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
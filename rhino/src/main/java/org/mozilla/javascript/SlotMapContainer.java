@@ -14,13 +14,6 @@ import java.util.Iterator;
  */
 class SlotMapContainer implements SlotMap {
 
-    /**
-     * Once the object has this many properties in it, we will replace the EmbeddedSlotMap with
-     * HashSlotMap. We can adjust this parameter to balance performance for typical objects versus
-     * performance for huge objects with many collisions.
-     */
-    private static final int LARGE_HASH_SIZE = 2000;
-
     private static final int DEFAULT_SIZE = 10;
 
     protected SlotMap map;
@@ -30,13 +23,18 @@ class SlotMapContainer implements SlotMap {
     }
 
     SlotMapContainer(int initialSize) {
-        if (initialSize > LARGE_HASH_SIZE) {
-            map = new HashSlotMap();
+        if (initialSize > DEFAULT_SIZE) {
+            map = new EmbeddedSlotMap(initialSize);
         } else {
             map = new EmbeddedSlotMap();
         }
     }
 
+    /** Create a container that uses the given map and never replaces it. */
+    SlotMapContainer(SlotMap map) {
+        this.map = map;
+    }
+
     @Override
     public int size() {
         return map.size();
@@ -53,12 +51,15 @@ class SlotMapContainer implements SlotMap {
 
     @Override
     public Slot modify(Object key, int index, int attributes) {
+        checkMapShape(key);
         checkMapSize();
         return map.modify(key, index, attributes);
     }
 
     @Override
     public <S extends Slot> S compute(Object key, int index, SlotComputer<S> c) {
+        checkMapShape(key);
+        checkMapSize();
         return map.compute(key, index, c);
     }
 
@@ -69,6 +70,7 @@ class SlotMapContainer implements SlotMap {
 
     @Override
     public void add(Slot newSlot) {
+        checkMapShape(newSlot.name);
         checkMapSize();
         map.add(newSlot);
     }
@@ -88,11 +90,37 @@ class SlotMapContainer implements SlotMap {
     }
 
     /**
-     * Before inserting a new item in the map, check and see if we need to expand from the embedded
-     * map to a HashMap that is more robust against large numbers of hash collisions.
+     * Switch an empty map to a ShapedSlotMap, so that the object shares its property layout with
+     * other objects that are built the same way.
+     */
+    void useShapes() {
+        if (map.isEmpty() && (map instanceof EmbeddedSlotMap)) {
+            map = new ShapedSlotMap();
+        }
+    }
+
+    /**
+     * Before inserting a new item in the map, check whether a ShapedSlotMap can still hold it, and
+     * fall back to the embedded map if not.
+     */
+    private void checkMapShape(Object key) {
+        if ((map instanceof ShapedSlotMap) && !((ShapedSlotMap) map).canAdd(key)) {
+            SlotMap newMap = new EmbeddedSlotMap();
+            for (Slot s : map) {
+                newMap.add(s);
+            }
+            map = newMap;
+        }
+    }
+
+    /**
+     * Before inserting a new item in the map, check and see if we need to switch from the embedded
+     * map to a HashMap that is more robust against large numbers of hash collisions. The embedded
+     * map handles any number of properties well, as long as the hash codes of their keys do not
+     * pile up in the same part of its table, which makes its searches long.
      */
     protected void checkMapSize() {
-        if ((map instanceof EmbeddedSlotMap) && map.size() >= LARGE_HASH_SIZE) {
+        if ((map instanceof EmbeddedSlotMap) && ((EmbeddedSlotMap) map).hasLongClusters()) {
             SlotMap newMap = new HashSlotMap();
             for (Slot s : map) {
                 newMap.add(s);
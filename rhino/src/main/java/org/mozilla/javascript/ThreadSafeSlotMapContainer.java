@@ -76,6 +76,7 @@ class ThreadSafeSlotMapContainer extends SlotMapContainer {
     public <S extends Slot> S compute(Object key, int index, SlotComputer<S> c) {
         final long stamp = lock.writeLock();
         try {
+            checkMapSize();
             return map.compute(key, index, c);
         } finally {
             lock.unlockWrite(stamp);
@@ -109,6 +110,13 @@ class ThreadSafeSlotMapContainer extends SlotMapContainer {
         }
     }
 
+    /**
+     * Shapes are never used here, because compiled code reads a ShapedSlotMap without taking the
+     * lock.
+     */
+    @Override
+    void useShapes() {}
+
     /**
      * Take out a read lock on the slot map, if locking is implemented. The caller MUST call this
      * method before using the iterator, and MUST NOT call this method otherwise.
@@ -63,6 +63,10 @@ public class UnhandledRejectionTracker {
         this.enabled = enabled;
     }
 
+    boolean isEnabled() {
+        return enabled;
+    }
+
     void promiseRejected(NativePromise p) {
         if (enabled) {
             unhandled.put(p, p);
@@ -10,6 +10,7 @@ package org.mozilla.javascript;
 
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Method;
+import java.util.function.Supplier;
 
 public abstract class VMBridge {
 
@@ -17,7 +18,9 @@ public abstract class VMBridge {
 
     private static VMBridge makeInstance() {
         String[] classNames = {
-            "org.mozilla.javascript.VMBridge_custom", "org.mozilla.javascript.jdk18.VMBridge_jdk18",
+            "org.mozilla.javascript.VMBridge_custom",
+            "org.mozilla.javascript.jdk25.VMBridge_jdk25",
+            "org.mozilla.javascript.jdk18.VMBridge_jdk18",
         };
         for (int i = 0; i != classNames.length; ++i) {
             String className = classNames[i];
@@ -59,6 +62,19 @@ public abstract class VMBridge {
      */
     protected abstract void setContext(Object contextHelper, Context cx);
 
+    /**
+     * Call the supplier, which enters a {@link Context} and exits it again before it returns.
+     *
+     * <p>The runtime calls this method from {@link ContextFactory#call(ContextAction)}, where the
+     * association of the current thread with a {@link Context} is known to last no longer than
+     * the call. An implementation can use this to bind the storage of the current {@link Context}
+     * to the dynamic scope of the call instead of to the thread, which is cheaper for short-lived
+     * threads. The default implementation just calls the supplier.
+     */
+    protected <T> T callInContextScope(Supplier<T> call) {
+        return call.get();
+    }
+
     /**
      * In many JVMSs, public methods in private classes are not accessible by default (Sun Bug
      * #4071593). VMBridge instance should try to workaround that via, for example, calling
@@ -72,7 +72,7 @@ public class WrapFactory {
         if (cls.isArray()) {
             return NativeJavaArray.wrap(scope, obj);
         }
-        return wrapAsJavaObject(cx, scope, obj, staticType);
+        return wrapAsCachedJavaObject(cx, scope, obj, staticType, false);
     }
 
     /**
@@ -91,7 +91,33 @@ public class WrapFactory {
         if (cls.isArray()) {
             return NativeJavaArray.wrap(scope, obj);
         }
-        return wrapAsJavaObject(cx, scope, obj, null);
+        return wrapAsCachedJavaObject(cx, scope, obj, null, true);
+    }
+
+    /*
+     * Wrap the object with wrapAsJavaObject, unless the wrapper cache is enabled and has a wrapper
+     * for it. A new object cannot be in the cache, but its wrapper is added to it. The cache only
+     * holds wrappers made without a static type, or with the class of the object as static type,
+     * which are the same. Any other static type gets a wrapper of its own.
+     */
+    private Scriptable wrapAsCachedJavaObject(
+            Context cx, Scriptable scope, Object obj, Class<?> staticType, boolean isNew) {
+        int size = wrapperCacheSize;
+        JavaWrapperCache cache =
+                size == 0 || (staticType != null && staticType != obj.getClass())
+                        ? null
+                        : JavaWrapperCache.get(scope, size);
+        if (cache == null) {
+            return wrapAsJavaObject(cx, scope, obj, staticType);
+        }
+        Scriptable wrapper = isNew ? null : cache.find(obj);
+        if (wrapper == null) {
+            wrapper = wrapAsJavaObject(cx, scope, obj, staticType);
+            if (wrapper instanceof Wrapper && ((Wrapper) wrapper).unwrap() == obj) {
+                cache.add(obj, wrapper);
+            }
+        }
+        return wrapper;
     }
 
     /**
@@ -158,5 +184,41 @@ public class WrapFactory {
         javaPrimitiveWrap = value;
     }
 
+    /**
+     * Return the number of wrappers of Java objects that are cached in each top-level scope, or 0
+     * if they are not cached.
+     *
+     * @see #setWrapperCacheSize(int)
+     * @since 1.7 Release 16
+     */
+    public final int getWrapperCacheSize() {
+        return wrapperCacheSize;
+    }
+
+    /**
+     * Set the number of wrappers of Java objects that are cached in each top-level scope. When it
+     * is not 0, wrapping a Java object that was already wrapped in the same top-level scope
+     * returns the same wrapper, as long as it is still in the cache. This saves creating a new
+     * wrapper each time a script gets the same Java object. Whether the wrappers of the same
+     * object are equal with <code>===</code> does not depend on the cache, as they are compared
+     * by the Java object they wrap.
+     *
+     * <p>The wrappers are found by the identity of the Java object alone, so a subclass that wraps
+     * the same object differently depending on the static type should not enable the cache. The
+     * cache only keeps the Java objects alive until memory runs low. The default size is 0.
+     *
+     * @param size the number of wrappers to cache in each top-level scope, or 0
+     * @since 1.7 Release 16
+     */
+    public final void setWrapperCacheSize(int size) {
+        if (size < 0) throw new IllegalArgumentException();
+        Context cx = Context.getCurrentContext();
+        if (cx != null && cx.isSealed()) {
+            Context.onSealedMutation();
+        }
+        wrapperCacheSize = size;
+    }
+
     private boolean javaPrimitiveWrap = true;
+    private int wrapperCacheSize;
 }
@@ -0,0 +1,190 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.jdk25;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Kit;
+import org.mozilla.javascript.jdk18.VMBridge_jdk18;
+
+/**
+ * A VMBridge that binds the current {@link Context} with a java.lang.ScopedValue during calls to
+ * {@link org.mozilla.javascript.ContextFactory#call}, so that a thread that only ever runs scripts
+ * that way, such as a short-lived virtual thread, never needs a thread local map. A {@link
+ * Context} entered outside of such a call is associated with the thread through a ThreadLocal as
+ * before.
+ *
+ * <p>ScopedValue is final from Java 25. Its methods are looked up reflectively, and the bridge
+ * can not be created on earlier versions, where {@link VMBridge_jdk18} is used instead.
+ */
+public class VMBridge_jdk25 extends VMBridge_jdk18 {
+
+    private static final ThreadLocal<Object[]> contextLocal = new ThreadLocal<>();
+
+    /*
+     * The ids of the threads that have a Context in contextLocal. Calling contextLocal.get()
+     * would create a thread local map in every thread that calls ContextFactory.call, so
+     * callInContextScope only looks there if the id of its thread is in this set. It is only
+     * updated when a Context is entered or exited outside of a call, which uses contextLocal
+     * anyway. It does not refer to the threads, so a thread that ends without exiting its
+     * Context can still be collected with its thread local map and Context, and only leaves
+     * its id behind.
+     */
+    private static final Set<Long> threadLocalContexts = ConcurrentHashMap.newKeySet();
+
+    /* What ORELSE returns if the scoped value is not bound */
+    private static final Object[] UNBOUND = new Object[0];
+
+    private static final Object SCOPED_CONTEXT;
+    private static final MethodHandle ORELSE; // (ScopedValue, Object) -> Object
+    private static final MethodHandle WHERE; // (ScopedValue, Object) -> Carrier
+    private static final MethodHandle RUN; // (Carrier, Runnable) -> void
+
+    static {
+        Object scopedContext = null;
+        MethodHandle orElse = null, where = null, run = null;
+        Class<?> scopedValueClass = Kit.classOrNull("java.lang.ScopedValue");
+        Class<?> carrierClass = Kit.classOrNull("java.lang.ScopedValue$Carrier");
+        if (Runtime.version().feature() >= 25 && scopedValueClass != null && carrierClass != null) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                scopedContext =
+                        lookup.findStatic(
+                                        scopedValueClass,
+                                        "newInstance",
+                                        MethodType.methodType(scopedValueClass))
+                                .invoke();
+                orElse =
+                        lookup.findVirtual(
+                                        scopedValueClass,
+                                        "orElse",
+                                        MethodType.methodType(Object.class, Object.class))
+                                .asType(
+                                        MethodType.methodType(
+                                                Object.class, Object.class, Object.class));
+                where =
+                        lookup.findStatic(
+                                        scopedValueClass,
+                                        "where",
+                                        MethodType.methodType(
+                                                carrierClass, scopedValueClass, Object.class))
+                                .asType(
+                                        MethodType.methodType(
+                                                Object.class, Object.class, Object.class));
+                run =
+                        lookup.findVirtual(
+                                        carrierClass,
+                                        "run",
+                                        MethodType.methodType(void.class, Runnable.class))
+                                .asType(
+                                        MethodType.methodType(
+                                                void.class, Object.class, Runnable.class));
+            } catch (Throwable t) {
+                scopedContext = null;
+            }
+        }
+        SCOPED_CONTEXT = scopedContext;
+        ORELSE = orElse;
+        WHERE = where;
+        RUN = run;
+    }
+
+    public VMBridge_jdk25() {
+        if (SCOPED_CONTEXT == null) {
+            throw new IllegalStateException("java.lang.ScopedValue is not available");
+        }
+    }
+
+    @Override
+    protected Object getThreadContextHelper() {
+        // Inside a call, the storage is the array bound to SCOPED_CONTEXT, which
+        // holds the Context and the thread that made the call. Threads that
+        // inherit the binding, like those forked in a StructuredTaskScope, must
+        // not see the Context of that thread, so they use contextLocal instead.
+        Object[] storage = scopedStorage();
+        if (storage != null) {
+            return storage;
+        }
+        storage = contextLocal.get();
+        if (storage == null) {
+            storage = new Object[1];
+            contextLocal.set(storage);
+        }
+        return storage;
+    }
+
+    @Override
+    protected Context getContext(Object contextHelper) {
+        Object[] storage = (Object[]) contextHelper;
+        return (Context) storage[0];
+    }
+
+    @Override
+    protected void setContext(Object contextHelper, Context cx) {
+        Object[] storage = (Object[]) contextHelper;
+        if (storage.length == 1 && (storage[0] == null) != (cx == null)) {
+            // The storage of contextLocal, as the bound storage has three elements
+            if (cx != null) {
+                threadLocalContexts.add(currentThreadId());
+            } else {
+                threadLocalContexts.remove(currentThreadId());
+            }
+        }
+        storage[0] = cx;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected <T> T callInContextScope(Supplier<T> call) {
+        if (scopedStorage() != null) {
+            return call.get();
+        }
+        if (!threadLocalContexts.isEmpty() && threadLocalContexts.contains(currentThreadId())) {
+            Object[] storage = contextLocal.get();
+            if (storage != null && storage[0] != null) {
+                // Keep using a Context that was entered outside of any call
+                return call.get();
+            }
+        }
+        // storage[2] takes the result of the call
+        Object[] storage = {null, Thread.currentThread(), null};
+        try {
+            Object carrier = (Object) WHERE.invokeExact(SCOPED_CONTEXT, (Object) storage);
+            RUN.invokeExact(carrier, (Runnable) () -> storage[2] = call.get());
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+        return (T) storage[2];
+    }
+
+    @SuppressWarnings("deprecation") // Thread.threadId() is only available from Java 19
+    private static Long currentThreadId() {
+        return Thread.currentThread().getId();
+    }
+
+    private static Object[] scopedStorage() {
+        Object[] storage;
+        try {
+            storage = (Object[]) (Object) ORELSE.invokeExact(SCOPED_CONTEXT, (Object) UNBOUND);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+        if (storage != UNBOUND && storage[1] == Thread.currentThread()) {
+            return storage;
+        }
+        return null;
+    }
+}
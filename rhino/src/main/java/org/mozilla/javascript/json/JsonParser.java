@@ -6,7 +6,15 @@
 
 package org.mozilla.javascript.json;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.ScriptRuntime;
@@ -16,6 +24,11 @@ import org.mozilla.javascript.Scriptable;
 /**
  * This class converts a stream of JSON tokens into a JSON value.
  *
+ * <p>The text is read in chunks into a buffer, so that a document from a {@link Reader} or a
+ * {@link ByteBuffer} is parsed without reading all of it into memory first. Each call to one of
+ * the parse methods uses its own state, so a parser can be used by several threads at the same
+ * time, given that each of them uses its own {@link Context}.
+ *
  * <p>See ECMA 15.12.
  *
  * @author Raphael Speyer
@@ -23,37 +36,177 @@ import org.mozilla.javascript.Scriptable;
  */
 public class JsonParser {
 
-    private Context cx;
-    private Scriptable scope;
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MIN_BUFFER_SIZE = 16;
+
+    private final Context cx;
+    private final Scriptable scope;
 
+    /* The chars of the text from offset base of the input, valid up to length */
+    private char[] buf;
+    private int base;
     private int pos;
     private int length;
-    private String src;
+
+    /* The start of the token being read, which must stay in the buffer, or -1 */
+    private int mark = -1;
+
+    /* The input, one of text, reader or bytes */
+    private CharSequence text;
+    private int textPos;
+    private Reader reader;
+    private ByteBuffer bytes;
+    private CharsetDecoder decoder;
+    private boolean eof;
 
     public JsonParser(Context cx, Scriptable scope) {
         this.cx = cx;
         this.scope = scope;
     }
 
-    public synchronized Object parseValue(String json) throws ParseException {
+    public Object parseValue(String json) throws ParseException {
+        return parseValue((CharSequence) json);
+    }
+
+    /**
+     * Parse the JSON text of the char sequence.
+     *
+     * @since 1.7 Release 16
+     */
+    public Object parseValue(CharSequence json) throws ParseException {
         if (json == null) {
             throw new ParseException("Input string may not be null");
         }
-        pos = 0;
-        length = json.length();
-        src = json;
+        JsonParser parser = new JsonParser(cx, scope);
+        parser.text = json;
+        parser.buf = new char[Math.max(MIN_BUFFER_SIZE, Math.min(json.length(), BUFFER_SIZE))];
+        return parser.parse();
+    }
+
+    /**
+     * Parse the JSON text that the reader returns, reading it up to its end. The reader is not
+     * closed.
+     *
+     * @since 1.7 Release 16
+     */
+    public Object parseReader(Reader json) throws ParseException {
+        if (json == null) {
+            throw new ParseException("Input reader may not be null");
+        }
+        JsonParser parser = new JsonParser(cx, scope);
+        parser.reader = json;
+        parser.buf = new char[BUFFER_SIZE];
+        return parser.parse();
+    }
+
+    /**
+     * Parse the JSON text that is encoded in UTF-8 in the remaining bytes of the buffer. The
+     * position of the buffer does not change.
+     *
+     * @since 1.7 Release 16
+     */
+    public Object parseUtf8(ByteBuffer json) throws ParseException {
+        if (json == null) {
+            throw new ParseException("Input buffer may not be null");
+        }
+        JsonParser parser = new JsonParser(cx, scope);
+        parser.bytes = json.duplicate();
+        parser.decoder = StandardCharsets.UTF_8.newDecoder();
+        parser.buf = new char[Math.max(MIN_BUFFER_SIZE, Math.min(json.remaining(), BUFFER_SIZE))];
+        return parser.parse();
+    }
+
+    private Object parse() throws ParseException {
         Object value = readValue();
         consumeWhitespace();
-        if (pos < length) {
-            throw new ParseException("Expected end of stream at char " + pos);
+        if (more()) {
+            throw new ParseException("Expected end of stream at char " + (base + pos));
         }
         return value;
     }
 
+    /* Return whether there is a char at pos, reading more of the input if needed */
+    private boolean more() throws ParseException {
+        return pos < length || fill();
+    }
+
+    /* Return whether there are count chars from pos, reading more of the input if needed */
+    private boolean require(int count) throws ParseException {
+        while (length - pos < count) {
+            if (!fill()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Read more of the input into the buffer. The chars before the mark, or before pos if there
+     * is no mark, are dropped to make room, and the buffer grows if that is not enough.
+     */
+    private boolean fill() throws ParseException {
+        if (eof) {
+            return false;
+        }
+        int keep = mark >= 0 ? mark : pos;
+        if (keep > 0) {
+            System.arraycopy(buf, keep, buf, 0, length - keep);
+            base += keep;
+            pos -= keep;
+            length -= keep;
+            if (mark >= 0) {
+                mark -= keep;
+            }
+        }
+        // leave room for a surrogate pair
+        if (buf.length - length < 2) {
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        int count = read(buf, length, buf.length - length);
+        if (count <= 0) {
+            eof = true;
+            return false;
+        }
+        length += count;
+        return true;
+    }
+
+    private int read(char[] dest, int offset, int count) throws ParseException {
+        if (text != null) {
+            count = Math.min(count, text.length() - textPos);
+            if (count <= 0) {
+                return -1;
+            }
+            if (text instanceof String) {
+                ((String) text).getChars(textPos, textPos + count, dest, offset);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    dest[offset + i] = text.charAt(textPos + i);
+                }
+            }
+            textPos += count;
+            return count;
+        }
+        if (reader != null) {
+            try {
+                return reader.read(dest, offset, count);
+            } catch (IOException e) {
+                throw new ParseException(e);
+            }
+        }
+        CharBuffer out = CharBuffer.wrap(dest, offset, count);
+        CoderResult result = decoder.decode(bytes, out, true);
+        if (result.isError()) {
+            throw new ParseException("Malformed UTF-8 input at byte " + bytes.position());
+        }
+        int decoded = out.position() - offset;
+        return decoded > 0 ? decoded : -1;
+    }
+
     private Object readValue() throws ParseException {
         consumeWhitespace();
-        while (pos < length) {
-            char c = src.charAt(pos++);
+        while (more()) {
+            char c = buf[pos++];
             switch (c) {
                 case '{':
                     return readObject();
@@ -90,15 +243,15 @@ public class JsonParser {
         consumeWhitespace();
         Scriptable object = cx.newObject(scope);
         // handle empty object literal case early
-        if (pos < length && src.charAt(pos) == '}') {
+        if (more() && buf[pos] == '}') {
             pos += 1;
             return object;
         }
         String id;
         Object value;
         boolean needsComma = false;
-        while (pos < length) {
-            char c = src.charAt(pos++);
+        while (more()) {
+            char c = buf[pos++];
             switch (c) {
                 case '}':
                     if (!needsComma) {
@@ -138,14 +291,14 @@ public class JsonParser {
     private Object readArray() throws ParseException {
         consumeWhitespace();
         // handle empty array literal case early
-        if (pos < length && src.charAt(pos) == ']') {
+        if (more() && buf[pos] == ']') {
             pos += 1;
             return cx.newArray(scope, 0);
         }
         List<Object> list = new ArrayList<>();
         boolean needsComma = false;
-        while (pos < length) {
-            char c = src.charAt(pos);
+        while (more()) {
+            char c = buf[pos];
             switch (c) {
                 case ']':
                     if (!needsComma) {
@@ -175,17 +328,19 @@ public class JsonParser {
     private String readString() throws ParseException {
         /*
          * Optimization: if the source contains no escaped characters, create the
-         * string directly from the source text.
+         * string directly from the buffer.
          */
-        int stringStart = pos;
-        while (pos < length) {
-            char c = src.charAt(pos++);
+        mark = pos;
+        while (more()) {
+            char c = buf[pos++];
             if (c <= '\u001F') {
                 throw new ParseException("String contains control character");
             } else if (c == '\\') {
                 break;
             } else if (c == '"') {
-                return src.substring(stringStart, pos - 1);
+                String str = new String(buf, mark, pos - 1 - mark);
+                mark = -1;
+                return str;
             }
         }
 
@@ -195,13 +350,13 @@ public class JsonParser {
          * character, and repeat until the entire string is consumed.
          */
         StringBuilder b = new StringBuilder();
-        while (pos < length) {
-            assert src.charAt(pos - 1) == '\\';
-            b.append(src, stringStart, pos - 1);
-            if (pos >= length) {
+        while (more()) {
+            assert buf[pos - 1] == '\\';
+            b.append(buf, mark, pos - 1 - mark);
+            if (!more()) {
                 throw new ParseException("Unterminated string");
             }
-            char c = src.charAt(pos++);
+            char c = buf[pos++];
             switch (c) {
                 case '"':
                     b.append('"');
@@ -228,18 +383,19 @@ public class JsonParser {
                     b.append('\t');
                     break;
                 case 'u':
-                    if (length - pos < 5) {
+                    if (!require(5)) {
                         throw new ParseException(
-                                "Invalid character code: \\u" + src.substring(pos));
+                                "Invalid character code: \\u"
+                                        + new String(buf, pos, length - pos));
                     }
                     int code =
-                            fromHex(src.charAt(pos + 0)) << 12
-                                    | fromHex(src.charAt(pos + 1)) << 8
-                                    | fromHex(src.charAt(pos + 2)) << 4
-                                    | fromHex(src.charAt(pos + 3));
+                            fromHex(buf[pos + 0]) << 12
+                                    | fromHex(buf[pos + 1]) << 8
+                                    | fromHex(buf[pos + 2]) << 4
+                                    | fromHex(buf[pos + 3]);
                     if (code < 0) {
                         throw new ParseException(
-                                "Invalid character code: " + src.substring(pos, pos + 4));
+                                "Invalid character code: " + new String(buf, pos, 4));
                     }
                     pos += 4;
                     b.append((char) code);
@@ -247,15 +403,16 @@ public class JsonParser {
                 default:
                     throw new ParseException("Unexpected character in string: '\\" + c + "'");
             }
-            stringStart = pos;
-            while (pos < length) {
-                c = src.charAt(pos++);
+            mark = pos;
+            while (more()) {
+                c = buf[pos++];
                 if (c <= '\u001F') {
                     throw new ParseException("String contains control character");
                 } else if (c == '\\') {
                     break;
                 } else if (c == '"') {
-                    b.append(src, stringStart, pos - 1);
+                    b.append(buf, mark, pos - 1 - mark);
+                    mark = -1;
                     return b.toString();
                 }
             }
@@ -271,44 +428,45 @@ public class JsonParser {
 
     private Number readNumber(char c) throws ParseException {
         assert c == '-' || (c >= '0' && c <= '9');
-        final int numberStart = pos - 1;
+        mark = pos - 1;
         if (c == '-') {
-            c = nextOrNumberError(numberStart);
+            c = nextOrNumberError();
             if (!(c >= '0' && c <= '9')) {
-                throw numberError(numberStart, pos);
+                throw numberError();
             }
         }
         if (c != '0') {
             readDigits();
         }
         // read optional fraction part
-        if (pos < length) {
-            c = src.charAt(pos);
+        if (more()) {
+            c = buf[pos];
             if (c == '.') {
                 pos += 1;
-                c = nextOrNumberError(numberStart);
+                c = nextOrNumberError();
                 if (!(c >= '0' && c <= '9')) {
-                    throw numberError(numberStart, pos);
+                    throw numberError();
                 }
                 readDigits();
             }
         }
         // read optional exponent part
-        if (pos < length) {
-            c = src.charAt(pos);
+        if (more()) {
+            c = buf[pos];
             if (c == 'e' || c == 'E') {
                 pos += 1;
-                c = nextOrNumberError(numberStart);
+                c = nextOrNumberError();
                 if (c == '-' || c == '+') {
-                    c = nextOrNumberError(numberStart);
+                    c = nextOrNumberError();
                 }
                 if (!(c >= '0' && c <= '9')) {
-                    throw numberError(numberStart, pos);
+                    throw numberError();
                 }
                 readDigits();
             }
         }
-        String num = src.substring(numberStart, pos);
+        String num = new String(buf, mark, pos - mark);
+        mark = -1;
         final double dval = Double.parseDouble(num);
         final int ival = (int) dval;
         if (ival == dval) {
@@ -317,20 +475,21 @@ public class JsonParser {
         return Double.valueOf(dval);
     }
 
-    private ParseException numberError(int start, int end) {
-        return new ParseException("Unsupported number format: " + src.substring(start, end));
+    private ParseException numberError() {
+        return new ParseException(
+                "Unsupported number format: " + new String(buf, mark, pos - mark));
     }
 
-    private char nextOrNumberError(int numberStart) throws ParseException {
-        if (pos >= length) {
-            throw numberError(numberStart, length);
+    private char nextOrNumberError() throws ParseException {
+        if (!more()) {
+            throw numberError();
         }
-        return src.charAt(pos++);
+        return buf[pos++];
     }
 
-    private void readDigits() {
-        for (; pos < length; ++pos) {
-            char c = src.charAt(pos);
+    private void readDigits() throws ParseException {
+        for (; more(); ++pos) {
+            char c = buf[pos];
             if (!(c >= '0' && c <= '9')) {
                 break;
             }
@@ -338,10 +497,7 @@ public class JsonParser {
     }
 
     private Boolean readTrue() throws ParseException {
-        if (length - pos < 3
-                || src.charAt(pos) != 'r'
-                || src.charAt(pos + 1) != 'u'
-                || src.charAt(pos + 2) != 'e') {
+        if (!require(3) || buf[pos] != 'r' || buf[pos + 1] != 'u' || buf[pos + 2] != 'e') {
             throw new ParseException("Unexpected token: t");
         }
         pos += 3;
@@ -349,11 +505,11 @@ public class JsonParser {
     }
 
     private Boolean readFalse() throws ParseException {
-        if (length - pos < 4
-                || src.charAt(pos) != 'a'
-                || src.charAt(pos + 1) != 'l'
-                || src.charAt(pos + 2) != 's'
-                || src.charAt(pos + 3) != 'e') {
+        if (!require(4)
+                || buf[pos] != 'a'
+                || buf[pos + 1] != 'l'
+                || buf[pos + 2] != 's'
+                || buf[pos + 3] != 'e') {
             throw new ParseException("Unexpected token: f");
         }
         pos += 4;
@@ -361,19 +517,16 @@ public class JsonParser {
     }
 
     private Object readNull() throws ParseException {
-        if (length - pos < 3
-                || src.charAt(pos) != 'u'
-                || src.charAt(pos + 1) != 'l'
-                || src.charAt(pos + 2) != 'l') {
+        if (!require(3) || buf[pos] != 'u' || buf[pos + 1] != 'l' || buf[pos + 2] != 'l') {
             throw new ParseException("Unexpected token: n");
         }
         pos += 3;
         return null;
     }
 
-    private void consumeWhitespace() {
-        while (pos < length) {
-            char c = src.charAt(pos);
+    private void consumeWhitespace() throws ParseException {
+        while (more()) {
+            char c = buf[pos];
             switch (c) {
                 case ' ':
                 case '\t':
@@ -389,10 +542,10 @@ public class JsonParser {
 
     private void consume(char token) throws ParseException {
         consumeWhitespace();
-        if (pos >= length) {
+        if (!more()) {
             throw new ParseException("Expected " + token + " but reached end of stream");
         }
-        char c = src.charAt(pos++);
+        char c = buf[pos++];
         if (c == token) {
             return;
         }
@@ -2021,6 +2021,7 @@ class BodyCodegen {
             String methodName =
                     codegen.getBodyMethodName(scriptOrFn) + "_literal" + literals.size();
             cfw.addALoad(funObjLocal);
+            cfw.add(ByteCode.CHECKCAST, codegen.mainClassName);
             cfw.addALoad(contextLocal);
             cfw.addALoad(variableObjectLocal);
             cfw.addALoad(thisObjLocal);
@@ -2206,6 +2207,7 @@ class BodyCodegen {
             String methodName =
                     codegen.getBodyMethodName(scriptOrFn) + "_literal" + literals.size();
             cfw.addALoad(funObjLocal);
+            cfw.add(ByteCode.CHECKCAST, codegen.mainClassName);
             cfw.addALoad(contextLocal);
             cfw.addALoad(variableObjectLocal);
             cfw.addALoad(thisObjLocal);
@@ -2331,6 +2333,8 @@ class BodyCodegen {
 
         String methodName;
         String signature;
+        // Whether the function and "this" are on the stack, rather than being looked up by name
+        boolean callsFunction = false;
 
         if (firstArgChild == null) {
             if (childType == Token.NAME) {
@@ -2361,6 +2365,7 @@ class BodyCodegen {
                 throw Kit.codeBug();
             } else {
                 generateFunctionAndThisObj(child, node);
+                callsFunction = true;
                 methodName = "call0";
                 signature =
                         "(Lorg/mozilla/javascript/Callable;"
@@ -2391,6 +2396,7 @@ class BodyCodegen {
                 ++argCount;
             }
             generateFunctionAndThisObj(child, node);
+            callsFunction = true;
             // stack: ... functionObj thisObj
             if (argCount == 1) {
                 generateExpression(firstArgChild, node);
@@ -2429,6 +2435,10 @@ class BodyCodegen {
 
         cfw.addALoad(contextLocal);
         cfw.addALoad(variableObjectLocal);
+        if (callsFunction && compilerEnv.isUseInvokeDynamic()) {
+            cfw.addInvokeDynamic(methodName, signature, Codegen.BOOTSTRAP_CALL);
+            return;
+        }
         addOptRuntimeInvoke(methodName, signature);
     }
 
@@ -4047,6 +4057,21 @@ class BodyCodegen {
     private void visitGetProp(Node node, Node child) {
         generateExpression(child, node); // object
         Node nameChild = child.getNext();
+        if (node.getType() == Token.GETPROP
+                && nameChild.getType() == Token.STRING
+                && useInvokeDynamic(nameChild.getString())) {
+            cfw.addALoad(contextLocal);
+            cfw.addALoad(variableObjectLocal);
+            cfw.addInvokeDynamic(
+                    "getProp",
+                    "(Ljava/lang/Object;"
+                            + "Lorg/mozilla/javascript/Context;"
+                            + "Lorg/mozilla/javascript/Scriptable;"
+                            + ")Ljava/lang/Object;",
+                    Codegen.BOOTSTRAP_PROPERTY,
+                    nameChild.getString());
+            return;
+        }
         generateExpression(nameChild, node); // the name
         if (node.getType() == Token.GETPROPNOWARN) {
             cfw.addALoad(contextLocal);
@@ -4061,11 +4086,17 @@ class BodyCodegen {
             return;
         }
         /*
-            for 'this.foo' we call getObjectProp(Scriptable...) which can
+            Use an inline cache for the site if we can. Otherwise, for
+            'this.foo' we call getObjectProp(Scriptable...) which can
             skip some casting overhead.
         */
         int childType = child.getType();
-        if (childType == Token.THIS && nameChild.getType() == Token.STRING) {
+        String cacheName = codegen.addPropertyCache();
+        if (cacheName != null) {
+            cfw.addALoad(contextLocal);
+            cfw.addALoad(variableObjectLocal);
+            addCachedGetProp(cacheName);
+        } else if (childType == Token.THIS && nameChild.getType() == Token.STRING) {
             cfw.addALoad(contextLocal);
             addScriptRuntimeInvoke(
                     "getObjectProp",
@@ -4090,6 +4121,24 @@ class BodyCodegen {
         Node objectChild = child;
         generateExpression(child, node);
         child = child.getNext();
+        if (type == Token.SETPROP
+                && child.getType() == Token.STRING
+                && useInvokeDynamic(child.getString())) {
+            String property = child.getString();
+            generateExpression(child.getNext(), node);
+            cfw.addALoad(contextLocal);
+            cfw.addALoad(variableObjectLocal);
+            cfw.addInvokeDynamic(
+                    "setProp",
+                    "(Ljava/lang/Object;"
+                            + "Ljava/lang/Object;"
+                            + "Lorg/mozilla/javascript/Context;"
+                            + "Lorg/mozilla/javascript/Scriptable;"
+                            + ")Ljava/lang/Object;",
+                    Codegen.BOOTSTRAP_PROPERTY,
+                    property);
+            return;
+        }
         if (type == Token.SETPROP_OP) {
             cfw.add(ByteCode.DUP);
         }
@@ -4101,7 +4150,13 @@ class BodyCodegen {
             cfw.add(ByteCode.DUP_X1);
             // for 'this.foo += ...' we call thisGet which can skip some
             // casting overhead.
-            if (objectChild.getType() == Token.THIS && nameChild.getType() == Token.STRING) {
+            String getCacheName = codegen.addPropertyCache();
+            if (getCacheName != null) {
+                cfw.addALoad(contextLocal);
+                cfw.addALoad(variableObjectLocal);
+                addCachedGetProp(getCacheName);
+            } else if (objectChild.getType() == Token.THIS
+                    && nameChild.getType() == Token.STRING) {
                 cfw.addALoad(contextLocal);
                 addScriptRuntimeInvoke(
                         "getObjectProp",
@@ -4124,6 +4179,24 @@ class BodyCodegen {
         generateExpression(child, node);
         cfw.addALoad(contextLocal);
         cfw.addALoad(variableObjectLocal);
+        String setCacheName = codegen.addPropertyCache();
+        if (setCacheName != null) {
+            cfw.add(
+                    ByteCode.GETSTATIC,
+                    codegen.mainClassName,
+                    setCacheName,
+                    Codegen.PROPERTY_CACHE_SIGNATURE);
+            addOptRuntimeInvoke(
+                    "setObjectProp",
+                    "(Ljava/lang/Object;"
+                            + "Ljava/lang/String;"
+                            + "Ljava/lang/Object;"
+                            + "Lorg/mozilla/javascript/Context;"
+                            + "Lorg/mozilla/javascript/Scriptable;"
+                            + Codegen.PROPERTY_CACHE_SIGNATURE
+                            + ")Ljava/lang/Object;");
+            return;
+        }
         addScriptRuntimeInvoke(
                 "setObjectProp",
                 "(Ljava/lang/Object;"
@@ -4134,6 +4207,26 @@ class BodyCodegen {
                         + ")Ljava/lang/Object;");
     }
 
+    /**
+     * Generate a property get through the inline cache in the given static field. Expects the
+     * object, name, context and scope on the stack.
+     */
+    private void addCachedGetProp(String cacheName) {
+        cfw.add(
+                ByteCode.GETSTATIC,
+                codegen.mainClassName,
+                cacheName,
+                Codegen.PROPERTY_CACHE_SIGNATURE);
+        addOptRuntimeInvoke(
+                "getObjectProp",
+                "(Ljava/lang/Object;"
+                        + "Ljava/lang/String;"
+                        + "Lorg/mozilla/javascript/Context;"
+                        + "Lorg/mozilla/javascript/Scriptable;"
+                        + Codegen.PROPERTY_CACHE_SIGNATURE
+                        + ")Ljava/lang/Object;");
+    }
+
     private void visitSetElem(int type, Node node, Node child) {
         generateExpression(child, node);
         child = child.getNext();
@@ -4296,6 +4389,11 @@ class BodyCodegen {
         }
     }
 
+    /** Return whether an access to the given name should be linked through invokedynamic. */
+    private boolean useInvokeDynamic(String name) {
+        return compilerEnv.isUseInvokeDynamic() && cfw.isUnderStringSizeLimit(name);
+    }
+
     private void addScriptRuntimeInvoke(String methodName, String methodSignature) {
         cfw.addInvoke(
                 ByteCode.INVOKESTATIC,
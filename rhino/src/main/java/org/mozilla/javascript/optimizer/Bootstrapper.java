@@ -0,0 +1,231 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.optimizer;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.ConstantCallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import org.mozilla.javascript.Callable;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Kit;
+import org.mozilla.javascript.PropertyCache;
+import org.mozilla.javascript.ScriptRuntime;
+import org.mozilla.javascript.Scriptable;
+
+/**
+ * Bootstrap methods for the invokedynamic call sites that the class compiler generates when {@link
+ * Context#FEATURE_INVOKEDYNAMIC} is enabled.
+ *
+ * <p>Property sites are bound to their own {@link PropertyCache}, which checks the shape of the
+ * object on every access. Call sites remember the class of the last function that was called and
+ * invoke its "call" method directly as long as the class stays the same, which lets the JVM inline
+ * through the site. When a different class shows up the site is relinked, and sites that keep
+ * changing fall back to the same OptRuntime methods that are used without invokedynamic.
+ *
+ * <p>Name lookups are not linked through invokedynamic. There is nothing cheap to guard them
+ * with, since global objects hold too many properties to be tracked by shape, and a site that is
+ * just bound to ScriptRuntime.name would only add overhead.
+ *
+ * <p>This class is public only so that generated code can use it.
+ */
+public final class Bootstrapper {
+
+    /** Call sites that were relinked this many times are linked to the generic implementation. */
+    private static final int MAX_RELINKS = 8;
+
+    private static final MethodType CALL_TYPE =
+            MethodType.methodType(
+                    Object.class,
+                    Context.class,
+                    Scriptable.class,
+                    Scriptable.class,
+                    Object[].class);
+
+    private static final MethodHandle GET_PROP;
+    private static final MethodHandle SET_PROP;
+    private static final MethodHandle CHECK_CLASS;
+    private static final MethodHandle CALL_FALLBACK;
+
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            GET_PROP =
+                    lookup.findVirtual(
+                            PropertyCache.class,
+                            "getObjectProp",
+                            MethodType.methodType(
+                                    Object.class,
+                                    Object.class,
+                                    String.class,
+                                    Context.class,
+                                    Scriptable.class));
+            SET_PROP =
+                    lookup.findVirtual(
+                            PropertyCache.class,
+                            "setObjectProp",
+                            MethodType.methodType(
+                                    Object.class,
+                                    Object.class,
+                                    String.class,
+                                    Object.class,
+                                    Context.class,
+                                    Scriptable.class));
+            CHECK_CLASS =
+                    lookup.findStatic(
+                            Bootstrapper.class,
+                            "checkClass",
+                            MethodType.methodType(boolean.class, Class.class, Object.class));
+            CALL_FALLBACK =
+                    lookup.findStatic(
+                            Bootstrapper.class,
+                            "callFallback",
+                            MethodType.methodType(
+                                    Object.class, FunctionCallSite.class, Object[].class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Bootstrapper() {}
+
+    /**
+     * Bootstrap a property access site. The operation is either "getProp", of type
+     * (Object)Object, or "setProp", of type (Object, Object)Object, followed by the Context and
+     * the scope.
+     */
+    public static CallSite bootstrapProperty(
+            MethodHandles.Lookup lookup, String operation, MethodType type, String property) {
+        PropertyCache cache = new PropertyCache();
+        MethodHandle mh;
+        switch (operation) {
+            case "getProp":
+                mh = GET_PROP;
+                break;
+            case "setProp":
+                mh = SET_PROP;
+                break;
+            default:
+                throw Kit.codeBug(operation);
+        }
+        mh = MethodHandles.insertArguments(mh.bindTo(cache), 1, property);
+        return new ConstantCallSite(mh.asType(type));
+    }
+
+    /**
+     * Bootstrap a function call site. The operation and the type are the name and the signature
+     * of one of the OptRuntime methods "call0", "call1", "call2" and "callN".
+     */
+    public static CallSite bootstrapCall(
+            MethodHandles.Lookup lookup, String operation, MethodType type)
+            throws NoSuchMethodException, IllegalAccessException {
+        MethodHandle generic = MethodHandles.lookup().findStatic(OptRuntime.class, operation, type);
+        FunctionCallSite site;
+        switch (operation) {
+            case "call0":
+                site = new FunctionCallSite(type, generic, 0, new int[] {0, 2, 3, 1});
+                break;
+            case "call1":
+                site = new FunctionCallSite(type, generic, 1, new int[] {0, 3, 4, 1, 2});
+                break;
+            case "call2":
+                site = new FunctionCallSite(type, generic, 2, new int[] {0, 4, 5, 1, 2, 3});
+                break;
+            case "callN":
+                site = new FunctionCallSite(type, generic, -1, new int[] {0, 3, 4, 1, 2});
+                break;
+            default:
+                throw Kit.codeBug(operation);
+        }
+        site.setTarget(site.fallback);
+        return site;
+    }
+
+    private static boolean checkClass(Class<?> expected, Object fun) {
+        return fun != null && fun.getClass() == expected;
+    }
+
+    private static Object callFallback(FunctionCallSite site, Object[] args) {
+        Callable fun = (Callable) args[0];
+        site.relink(fun.getClass());
+
+        Scriptable thisObj = (Scriptable) args[1];
+        Context cx = (Context) args[args.length - 2];
+        Scriptable scope = (Scriptable) args[args.length - 1];
+        Object[] callArgs;
+        if (site.argCount < 0) {
+            callArgs = (Object[]) args[2];
+        } else if (site.argCount == 0) {
+            callArgs = ScriptRuntime.emptyArgs;
+        } else {
+            callArgs = new Object[site.argCount];
+            System.arraycopy(args, 2, callArgs, 0, site.argCount);
+        }
+        return fun.call(cx, scope, thisObj, callArgs);
+    }
+
+    /**
+     * A call site that is linked directly to the "call" method of a single class of function,
+     * guarded by a check of the class of the function.
+     */
+    private static final class FunctionCallSite extends MutableCallSite {
+        final MethodHandle generic;
+        final MethodHandle fallback;
+        // The number of arguments passed separately, or -1 if they are passed as an array
+        final int argCount;
+        // How the arguments of the site map to those of Callable.call
+        private final int[] reorder;
+        // Only changed by relink, which is synchronized
+        private int relinks;
+
+        FunctionCallSite(MethodType type, MethodHandle generic, int argCount, int[] reorder) {
+            super(type);
+            this.generic = generic;
+            this.argCount = argCount;
+            this.reorder = reorder;
+            this.fallback =
+                    CALL_FALLBACK
+                            .bindTo(this)
+                            .asCollector(Object[].class, type.parameterCount())
+                            .asType(type);
+        }
+
+        /*
+         * Link the site to the class of function that was just called. Threads that miss at the
+         * same time relink one after the other, so that every miss is counted.
+         */
+        synchronized void relink(Class<?> funClass) {
+            MethodType type = type();
+            if (++relinks > MAX_RELINKS) {
+                setTarget(generic);
+                return;
+            }
+            MethodHandle direct;
+            try {
+                direct = MethodHandles.publicLookup().findVirtual(funClass, "call", CALL_TYPE);
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                // Not a public class, so there is nothing to gain over the generic path
+                setTarget(generic);
+                return;
+            }
+            if (argCount == 0) {
+                direct = MethodHandles.insertArguments(direct, 4, (Object) ScriptRuntime.emptyArgs);
+            } else if (argCount > 0) {
+                direct = direct.asCollector(Object[].class, argCount);
+            }
+            direct =
+                    MethodHandles.permuteArguments(
+                            direct, type.changeParameterType(0, funClass), reorder);
+            MethodHandle test =
+                    MethodHandles.insertArguments(CHECK_CLASS, 0, funClass)
+                            .asType(MethodType.methodType(boolean.class, type.parameterType(0)));
+            setTarget(MethodHandles.guardWithTest(test, direct.asType(type), fallback));
+        }
+    }
+}
@@ -13,6 +13,10 @@ import static org.mozilla.classfile.ClassFileWriter.ACC_PUBLIC;
 import static org.mozilla.classfile.ClassFileWriter.ACC_STATIC;
 import static org.mozilla.classfile.ClassFileWriter.ACC_VOLATILE;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.util.HashMap;
 import java.util.List;
@@ -89,7 +93,13 @@ public class Codegen implements Evaluator {
             }
         }
 
-        String mainClassName = "org.mozilla.javascript.gen." + baseName + "_" + serial;
+        String mainClassName;
+        if (compilerEnv.isUseHiddenClasses() && DEFINE_HIDDEN_CLASS != null) {
+            // Hidden classes have to be in the same package as the lookup
+            mainClassName = HIDDEN_CLASS_PREFIX + baseName + "_" + serial;
+        } else {
+            mainClassName = "org.mozilla.javascript.gen." + baseName + "_" + serial;
+        }
 
         byte[] mainClassBytes =
                 compileToClassFile(compilerEnv, mainClassName, tree, rawSource, returnFunction);
@@ -131,6 +141,13 @@ public class Codegen implements Evaluator {
         String className = (String) nameBytesPair[0];
         byte[] classBytes = (byte[]) nameBytesPair[1];
 
+        if (className.startsWith(HIDDEN_CLASS_PREFIX)
+                && DEFINE_HIDDEN_CLASS != null
+                && staticSecurityDomain == null
+                && !SecurityController.hasGlobal()) {
+            return defineHiddenClass(classBytes);
+        }
+
         // The generated classes in this case refer only to Rhino classes
         // which must be accessible through this class loader
         ClassLoader rhinoLoader = getClass().getClassLoader();
@@ -149,6 +166,46 @@ public class Codegen implements Evaluator {
         throw new RuntimeException("Malformed optimizer package " + e);
     }
 
+    private static Class<?> defineHiddenClass(byte[] classBytes) {
+        try {
+            MethodHandles.Lookup lookup =
+                    (MethodHandles.Lookup)
+                            DEFINE_HIDDEN_CLASS.invokeExact(HIDDEN_CLASS_LOOKUP, classBytes, true);
+            return lookup.lookupClass();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new RuntimeException("Malformed optimizer package " + t);
+        }
+    }
+
+    /**
+     * Find Lookup.defineHiddenClass, which is only available from Java 15, bound to an empty array
+     * of options so that classes are defined as weakly reachable from their defining loader.
+     */
+    private static MethodHandle findDefineHiddenClass() {
+        Class<?> optionClass = Kit.classOrNull("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+        if (optionClass == null) {
+            return null;
+        }
+        Object noOptions = Array.newInstance(optionClass, 0);
+        try {
+            MethodHandle mh =
+                    MethodHandles.publicLookup()
+                            .findVirtual(
+                                    MethodHandles.Lookup.class,
+                                    "defineHiddenClass",
+                                    MethodType.methodType(
+                                            MethodHandles.Lookup.class,
+                                            byte[].class,
+                                            boolean.class,
+                                            noOptions.getClass()));
+            return MethodHandles.insertArguments(mh, 3, noOptions);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
     public byte[] compileToClassFile(
             CompilerEnvirons compilerEnv,
             String mainClassName,
@@ -170,7 +227,13 @@ public class Codegen implements Evaluator {
         initScriptNodesData(scriptOrFn);
 
         this.mainClassName = mainClassName;
-        this.mainClassSignature = ClassFileWriter.classNameToSignature(mainClassName);
+        if (mainClassName.startsWith(HIDDEN_CLASS_PREFIX)) {
+            // The name of a hidden class only resolves to the class itself when it is used
+            // through its constant pool entry, and not when it appears in a descriptor
+            this.mainClassSignature = ClassFileWriter.classNameToSignature(SUPER_CLASS_NAME);
+        } else {
+            this.mainClassSignature = ClassFileWriter.classNameToSignature(mainClassName);
+        }
 
         return generateCode(rawSource);
     }
@@ -1107,10 +1170,19 @@ public class Codegen implements Evaluator {
 
     private void emitConstantDudeInitializers(ClassFileWriter cfw) {
         int N = itsConstantListSize;
-        if (N == 0) return;
+        if (N == 0 && propertyCacheCount == 0) return;
 
         cfw.startMethod("<clinit>", "()V", (short) (ACC_STATIC | ACC_FINAL));
 
+        for (int i = 0; i != propertyCacheCount; ++i) {
+            String cacheName = "_pc" + i;
+            cfw.addField(cacheName, PROPERTY_CACHE_SIGNATURE, (short) (ACC_STATIC | ACC_PRIVATE));
+            cfw.add(ByteCode.NEW, PROPERTY_CACHE_CLASS);
+            cfw.add(ByteCode.DUP);
+            cfw.addInvoke(ByteCode.INVOKESPECIAL, PROPERTY_CACHE_CLASS, "<init>", "()V");
+            cfw.add(ByteCode.PUTSTATIC, mainClassName, cacheName, PROPERTY_CACHE_SIGNATURE);
+        }
+
         double[] array = itsConstantList;
         for (int i = 0; i != N; ++i) {
             double num = array[i];
@@ -1136,6 +1208,19 @@ public class Codegen implements Evaluator {
         cfw.stopMethod((short) 0);
     }
 
+    /**
+     * Allocate a new PropertyCache for a property access site, and return the name of the static
+     * field that holds it, or null if the class already has too many of them.
+     */
+    String addPropertyCache() {
+        // Stay well clear of the limits on static fields and initializer size,
+        // see pushNumberAsObject
+        if (propertyCacheCount >= 2000) {
+            return null;
+        }
+        return "_pc" + propertyCacheCount++;
+    }
+
     void pushNumberAsObject(ClassFileWriter cfw, double num) {
         if (num == 0.0) {
             if (1 / num > 0) {
@@ -1311,6 +1396,32 @@ public class Codegen implements Evaluator {
     static final String TEMPLATE_LITERAL_INIT_METHOD_NAME = "_qInit";
     static final String TEMPLATE_LITERAL_INIT_METHOD_SIGNATURE = "()V";
 
+    private static final String HIDDEN_CLASS_PREFIX = "org.mozilla.javascript.optimizer.gen_";
+    private static final MethodHandles.Lookup HIDDEN_CLASS_LOOKUP = MethodHandles.lookup();
+    private static final MethodHandle DEFINE_HIDDEN_CLASS = findDefineHiddenClass();
+
+    static final String PROPERTY_CACHE_CLASS = "org/mozilla/javascript/PropertyCache";
+    static final String PROPERTY_CACHE_SIGNATURE = "Lorg/mozilla/javascript/PropertyCache;";
+
+    private static final String BOOTSTRAP_CLASS = "org/mozilla/javascript/optimizer/Bootstrapper";
+    private static final String BOOTSTRAP_PREFIX =
+            "(Ljava/lang/invoke/MethodHandles$Lookup;"
+                    + "Ljava/lang/String;"
+                    + "Ljava/lang/invoke/MethodType;";
+
+    static final ClassFileWriter.MHandle BOOTSTRAP_PROPERTY =
+            new ClassFileWriter.MHandle(
+                    ByteCode.MH_INVOKESTATIC,
+                    BOOTSTRAP_CLASS,
+                    "bootstrapProperty",
+                    BOOTSTRAP_PREFIX + "Ljava/lang/String;)Ljava/lang/invoke/CallSite;");
+    static final ClassFileWriter.MHandle BOOTSTRAP_CALL =
+            new ClassFileWriter.MHandle(
+                    ByteCode.MH_INVOKESTATIC,
+                    BOOTSTRAP_CLASS,
+                    "bootstrapCall",
+                    BOOTSTRAP_PREFIX + ")Ljava/lang/invoke/CallSite;");
+
     static final String FUNCTION_INIT_SIGNATURE =
             "(Lorg/mozilla/javascript/Context;" + "Lorg/mozilla/javascript/Scriptable;" + ")V";
 
@@ -1333,4 +1444,6 @@ public class Codegen implements Evaluator {
 
     private double[] itsConstantList;
     private int itsConstantListSize;
+
+    private int propertyCacheCount;
 }
@@ -14,6 +14,7 @@ import org.mozilla.javascript.JavaScriptException;
 import org.mozilla.javascript.NativeFunction;
 import org.mozilla.javascript.NativeGenerator;
 import org.mozilla.javascript.NativeIterator;
+import org.mozilla.javascript.PropertyCache;
 import org.mozilla.javascript.Script;
 import org.mozilla.javascript.ScriptRuntime;
 import org.mozilla.javascript.Scriptable;
@@ -73,6 +74,23 @@ public final class OptRuntime extends ScriptRuntime {
         return f.call(cx, scope, thisObj, ScriptRuntime.emptyArgs);
     }
 
+    /** Implement x.property using the inline cache of the access site. */
+    public static Object getObjectProp(
+            Object obj, String property, Context cx, Scriptable scope, PropertyCache cache) {
+        return cache.getObjectProp(obj, property, cx, scope);
+    }
+
+    /** Implement x.property = value using the inline cache of the access site. */
+    public static Object setObjectProp(
+            Object obj,
+            String property,
+            Object value,
+            Context cx,
+            Scriptable scope,
+            PropertyCache cache) {
+        return cache.setObjectProp(obj, property, value, cx, scope);
+    }
+
     public static Object add(Object val1, double val2, Context cx) {
         if (val1 instanceof Double) {
             return ((Double) val1) + val2;
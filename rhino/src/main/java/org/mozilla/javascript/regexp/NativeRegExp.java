@@ -7,11 +7,13 @@
 package org.mozilla.javascript.regexp;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.IdFunctionObject;
 import org.mozilla.javascript.IdScriptableObject;
 import org.mozilla.javascript.Kit;
 import org.mozilla.javascript.NativeObject;
+import org.mozilla.javascript.RegExpCache;
 import org.mozilla.javascript.ScriptRuntime;
 import org.mozilla.javascript.ScriptRuntimeES6;
 import org.mozilla.javascript.Scriptable;
@@ -51,17 +53,17 @@ public class NativeRegExp extends IdScriptableObject {
 
     private static final byte REOP_SIMPLE_START = 1; /* start of 'simple opcodes' */
     private static final byte REOP_EMPTY = 1; /* match rest of input against rest of r.e. */
-    private static final byte REOP_BOL = 2; /* beginning of input (or line if multiline) */
-    private static final byte REOP_EOL = 3; /* end of input (or line if multiline) */
-    private static final byte REOP_WBDRY = 4; /* match "" at word boundary */
-    private static final byte REOP_WNONBDRY = 5; /* match "" at word non-boundary */
-    private static final byte REOP_DOT = 6; /* stands for any character */
-    private static final byte REOP_DIGIT = 7; /* match a digit char: [0-9] */
-    private static final byte REOP_NONDIGIT = 8; /* match a non-digit char: [^0-9] */
-    private static final byte REOP_ALNUM = 9; /* match an alphanumeric char: [0-9a-z_A-Z] */
-    private static final byte REOP_NONALNUM = 10; /* match a non-alphanumeric char: [^0-9a-z_A-Z] */
-    private static final byte REOP_SPACE = 11; /* match a whitespace char */
-    private static final byte REOP_NONSPACE = 12; /* match a non-whitespace char */
+    static final byte REOP_BOL = 2; /* beginning of input (or line if multiline) */
+    static final byte REOP_EOL = 3; /* end of input (or line if multiline) */
+    static final byte REOP_WBDRY = 4; /* match "" at word boundary */
+    static final byte REOP_WNONBDRY = 5; /* match "" at word non-boundary */
+    static final byte REOP_DOT = 6; /* stands for any character */
+    static final byte REOP_DIGIT = 7; /* match a digit char: [0-9] */
+    static final byte REOP_NONDIGIT = 8; /* match a non-digit char: [^0-9] */
+    static final byte REOP_ALNUM = 9; /* match an alphanumeric char: [0-9a-z_A-Z] */
+    static final byte REOP_NONALNUM = 10; /* match a non-alphanumeric char: [^0-9a-z_A-Z] */
+    static final byte REOP_SPACE = 11; /* match a whitespace char */
+    static final byte REOP_NONSPACE = 12; /* match a non-whitespace char */
     private static final byte REOP_BACKREF = 13; /* back-reference (e.g., \1) to a parenthetical */
     private static final byte REOP_FLAT = 14; /* match a flat string */
     private static final byte REOP_FLAT1 = 15; /* match a single char */
@@ -271,6 +273,21 @@ public class NativeRegExp extends IdScriptableObject {
     }
 
     static RECompiled compileRE(Context cx, String str, String global, boolean flat) {
+        RegExpCache cache = cx.getRegExpCache();
+        if (cache == null || cx.hasFeature(Context.FEATURE_STRICT_MODE)) {
+            return compileREUncached(cx, str, global, flat);
+        }
+        return (RECompiled)
+                cache.get(
+                        str,
+                        global,
+                        flat,
+                        cx.getLanguageVersion(),
+                        () -> compileREUncached(cx, str, global, flat));
+    }
+
+    private static RECompiled compileREUncached(
+            Context cx, String str, String global, boolean flat) {
         RECompiled regexp = new RECompiled(str);
         int length = str.length();
         int flags = 0;
@@ -377,7 +394,7 @@ public class NativeRegExp extends IdScriptableObject {
         return '0' <= c && c <= '9';
     }
 
-    private static boolean isWord(char c) {
+    static boolean isWord(char c) {
         return ('a' <= c && c <= 'z') || ('A' <= c && c <= 'Z') || isDigit(c) || c == '_';
     }
 
@@ -385,7 +402,7 @@ public class NativeRegExp extends IdScriptableObject {
         return ('a' <= c && c <= 'z') || ('A' <= c && c <= 'Z');
     }
 
-    private static boolean isLineTerm(char c) {
+    static boolean isLineTerm(char c) {
         return ScriptRuntime.isJSLineTerminator(c);
     }
 
@@ -404,7 +421,7 @@ public class NativeRegExp extends IdScriptableObject {
      *    code point value is less than decimal 128, then return ch.
      * 6. Return cu.
      */
-    private static char upcase(char ch) {
+    static char upcase(char ch) {
         if (ch < 128) {
             if ('a' <= ch && ch <= 'z') {
                 return (char) (ch + ('A' - 'a'));
@@ -1435,7 +1452,7 @@ public class NativeRegExp extends IdScriptableObject {
     }
 
     /* Compile the source of the class into a RECharSet */
-    private static void processCharSet(REGlobalData gData, RECharSet charSet) {
+    static void processCharSet(REGlobalData gData, RECharSet charSet) {
         synchronized (charSet) {
             if (!charSet.converted) {
                 processCharSetImpl(gData, charSet);
@@ -2329,6 +2346,28 @@ public class NativeRegExp extends IdScriptableObject {
         gData.multiline = multiline || (re.flags & JSREG_MULTILINE) != 0;
         gData.regexp = re;
 
+        if (cx.isLinearRegExpMatching()) {
+            RELinearProgram linear = getLinearProgram(re);
+            if (linear != null) {
+                return matchLinear(cx, gData, linear, input, start, end);
+            }
+        } else if (cx.getOptimizationLevel() >= 0
+                && cx.getInstructionObserverThreshold() == 0
+                && (re.flags & JSREG_STICKY) == 0
+                && isShorterThanTooDeep(re, end - start)) {
+            RegExpMatcher matcher = getCompiledMatcher(re, end - start);
+            if (matcher != null) {
+                int result = matchCompiled(gData, matcher, input, start, end);
+                if (result != RegExpMatcher.TOO_DEEP) {
+                    return result != 0;
+                }
+                // The generated code backtracks on the Java stack, so inputs that need deeply
+                // nested repetitions, and from now on inputs at least as long, are left to the
+                // interpreter, which keeps its own stack
+                re.tooDeepLength = end - start;
+            }
+        }
+
         int anchorCh = gData.regexp.anchorCh;
         //
         // have to include the position beyond the last character
@@ -2385,6 +2424,566 @@ public class NativeRegExp extends IdScriptableObject {
         return false;
     }
 
+    /*
+     * Return the program for the linear time matcher, compiling it on first use, or null if the
+     * regexp uses back references, lookahead assertions, or optional repetitions of something
+     * that may match the empty string, which can only be matched by backtracking.
+     */
+    private static RELinearProgram getLinearProgram(RECompiled re) {
+        RELinearProgram linear = re.linearProgram;
+        if (linear == null) {
+            linear = new RELinearProgram(re.parenCount);
+            int end = re.program.length - 1;
+            while (re.program[end] != REOP_END) {
+                --end;
+            }
+            if (emitLinear(linear, re, 0, end) != LINEAR_UNSUPPORTED) {
+                linear.emit(RELinearProgram.MATCH, 0, 0);
+                linear.seal();
+            } else {
+                linear = RELinearProgram.UNSUPPORTED;
+            }
+            re.linearProgram = linear;
+        }
+        return linear == RELinearProgram.UNSUPPORTED ? null : linear;
+    }
+
+    /* Results of emitLinear */
+    private static final int LINEAR_UNSUPPORTED = -1;
+    private static final int LINEAR_CONSUMING = 0; /* matches at least one character */
+    private static final int LINEAR_NULLABLE = 1; /* may match the empty string */
+
+    /* The maximum size of a linear program, to limit the unrolling of {min,max} quantifiers */
+    private static final int LINEAR_MAX_LENGTH = 10000;
+
+    /*
+     * Translate the bytecode between pc and end into instructions of a linear program, see
+     * RELinearProgram. The alternatives of ALT, and the ways to continue after a quantified
+     * atom, are emitted as SPLIT instructions with the one that the backtracking matcher would
+     * try first as the preferred one, so that the linear matcher finds the same match, with the
+     * same captures.
+     */
+    private static int emitLinear(RELinearProgram linear, RECompiled re, int pc, int end) {
+        byte[] program = re.program;
+        int result = LINEAR_NULLABLE;
+        while (pc < end) {
+            if (linear.length > LINEAR_MAX_LENGTH) {
+                return LINEAR_UNSUPPORTED;
+            }
+            byte op = program[pc++];
+            switch (op) {
+                case REOP_EMPTY:
+                    break;
+                case REOP_BOL:
+                case REOP_EOL:
+                case REOP_WBDRY:
+                case REOP_WNONBDRY:
+                    linear.emit(RELinearProgram.ASSERT, op, 0);
+                    break;
+                case REOP_DOT:
+                case REOP_DIGIT:
+                case REOP_NONDIGIT:
+                case REOP_ALNUM:
+                case REOP_NONALNUM:
+                case REOP_SPACE:
+                case REOP_NONSPACE:
+                    linear.emit(RELinearProgram.SIMPLE, op, 0);
+                    result = LINEAR_CONSUMING;
+                    break;
+                case REOP_FLAT:
+                case REOP_FLATi:
+                    {
+                        int offset = getIndex(program, pc);
+                        int length = getIndex(program, pc + INDEX_LEN);
+                        pc += 2 * INDEX_LEN;
+                        int charOp =
+                                op == REOP_FLAT ? RELinearProgram.CHAR : RELinearProgram.CHARi;
+                        for (int i = 0; i < length; i++) {
+                            linear.emit(charOp, re.source[offset + i], 0);
+                        }
+                        result = LINEAR_CONSUMING;
+                    }
+                    break;
+                case REOP_FLAT1:
+                case REOP_FLAT1i:
+                    linear.emit(
+                            op == REOP_FLAT1 ? RELinearProgram.CHAR : RELinearProgram.CHARi,
+                            program[pc++] & 0xFF,
+                            0);
+                    result = LINEAR_CONSUMING;
+                    break;
+                case REOP_UCFLAT1:
+                case REOP_UCFLAT1i:
+                    linear.emit(
+                            op == REOP_UCFLAT1 ? RELinearProgram.CHAR : RELinearProgram.CHARi,
+                            getIndex(program, pc),
+                            0);
+                    pc += INDEX_LEN;
+                    result = LINEAR_CONSUMING;
+                    break;
+                case REOP_CLASS:
+                case REOP_NCLASS:
+                    linear.emit(RELinearProgram.CLASS, getIndex(program, pc), 0);
+                    pc += INDEX_LEN;
+                    result = LINEAR_CONSUMING;
+                    break;
+                case REOP_ALTPREREQ:
+                case REOP_ALTPREREQi:
+                case REOP_ALTPREREQ2:
+                    // The prerequisite only makes the ALT fail faster
+                    pc += 2 * INDEX_LEN;
+                    // fall through
+                case REOP_ALT:
+                    {
+                        int nextAlt = pc + getOffset(program, pc);
+                        pc += INDEX_LEN;
+                        // Each alternative ends with a JUMP to the term after the ALT
+                        int jump = nextAlt - 1 - INDEX_LEN;
+                        int next = jump + 1 + getOffset(program, jump + 1);
+                        int split = linear.emit(RELinearProgram.SPLIT, linear.length + 1, 0);
+                        int kid = emitLinear(linear, re, pc, jump);
+                        int exit = linear.emit(RELinearProgram.JUMP, 0, 0);
+                        linear.y[split] = linear.length;
+                        int kid2 = emitLinear(linear, re, nextAlt, next - 1 - INDEX_LEN);
+                        linear.x[exit] = linear.length;
+                        if (kid == LINEAR_UNSUPPORTED || kid2 == LINEAR_UNSUPPORTED) {
+                            return LINEAR_UNSUPPORTED;
+                        }
+                        if (result == LINEAR_NULLABLE
+                                && kid == LINEAR_CONSUMING
+                                && kid2 == LINEAR_CONSUMING) {
+                            result = LINEAR_CONSUMING;
+                        }
+                        pc = next;
+                    }
+                    break;
+                case REOP_LPAREN:
+                    linear.emit(RELinearProgram.SAVE, 2 + 2 * getIndex(program, pc), 0);
+                    pc += INDEX_LEN;
+                    break;
+                case REOP_RPAREN:
+                    linear.emit(RELinearProgram.SAVE, 3 + 2 * getIndex(program, pc), 0);
+                    pc += INDEX_LEN;
+                    break;
+                case REOP_STAR:
+                case REOP_PLUS:
+                case REOP_OPT:
+                case REOP_QUANT:
+                case REOP_MINIMALSTAR:
+                case REOP_MINIMALPLUS:
+                case REOP_MINIMALOPT:
+                case REOP_MINIMALQUANT:
+                    {
+                        int min, max;
+                        boolean greedy = op == REOP_STAR || op == REOP_PLUS;
+                        switch (op) {
+                            case REOP_STAR:
+                            case REOP_MINIMALSTAR:
+                                min = 0;
+                                max = -1;
+                                break;
+                            case REOP_PLUS:
+                            case REOP_MINIMALPLUS:
+                                min = 1;
+                                max = -1;
+                                break;
+                            case REOP_OPT:
+                            case REOP_MINIMALOPT:
+                                greedy = op == REOP_OPT;
+                                min = 0;
+                                max = 1;
+                                break;
+                            default:
+                                greedy = op == REOP_QUANT;
+                                min = getOffset(program, pc);
+                                pc += INDEX_LEN;
+                                max = getOffset(program, pc) - 1;
+                                pc += INDEX_LEN;
+                                break;
+                        }
+                        int parenCount = getIndex(program, pc);
+                        int parenIndex = getIndex(program, pc + INDEX_LEN);
+                        pc += 2 * INDEX_LEN;
+                        int next = pc + getOffset(program, pc);
+                        pc += INDEX_LEN;
+                        int kid =
+                                emitLinearQuantifier(
+                                        linear,
+                                        re,
+                                        pc,
+                                        next - 1,
+                                        min,
+                                        max,
+                                        greedy,
+                                        parenIndex,
+                                        parenCount);
+                        if (kid == LINEAR_UNSUPPORTED) {
+                            return LINEAR_UNSUPPORTED;
+                        }
+                        if (kid == LINEAR_CONSUMING) {
+                            result = LINEAR_CONSUMING;
+                        }
+                        pc = next;
+                    }
+                    break;
+                default:
+                    // Back references and lookahead assertions
+                    return LINEAR_UNSUPPORTED;
+            }
+        }
+        return result;
+    }
+
+    /*
+     * Emit the instructions for the child between pc and end quantified by {min,max}. The
+     * mandatory iterations, and the optional ones up to a finite max, are unrolled, and an
+     * unlimited number of further iterations becomes a loop.
+     *
+     * This has to reproduce two details of the backtracking matcher. An optional iteration that
+     * matches the empty string fails, which the linear matcher cannot do without knowing where
+     * the iteration started; and in a loop, a thread that comes back to the start of the loop
+     * without consuming anything would make the matcher drop threads that the backtracking
+     * matcher would prefer. So only mandatory iterations may match the empty string. And the
+     * captures inside the child are reset before an iteration, except before the first one, and
+     * before the mandatory ones of a greedy quantifier.
+     */
+    private static int emitLinearQuantifier(
+            RELinearProgram linear,
+            RECompiled re,
+            int pc,
+            int end,
+            int min,
+            int max,
+            boolean greedy,
+            int parenIndex,
+            int parenCount) {
+        // Iterations after this one are all the same, and can be a loop
+        int unrolled = min;
+        if (greedy && min == 0 && max != 0 && parenCount != 0) {
+            unrolled = 1;
+        }
+        if (max != -1) {
+            unrolled = max;
+        }
+        int kid = LINEAR_CONSUMING;
+        int[] exits = new int[Math.max(unrolled - min, 0)];
+        for (int i = 1; i <= unrolled; i++) {
+            if (i > min) {
+                exits[i - min - 1] = linear.emitSplit(greedy);
+            }
+            boolean reset = greedy ? i > 1 && i > min : i > 1 || min == 0;
+            if (reset && parenCount != 0) {
+                linear.emit(RELinearProgram.RESET, parenIndex, parenCount);
+            }
+            kid = emitLinear(linear, re, pc, end);
+            if (kid == LINEAR_UNSUPPORTED
+                    || (kid == LINEAR_NULLABLE && i > min)
+                    || linear.length > LINEAR_MAX_LENGTH) {
+                return LINEAR_UNSUPPORTED;
+            }
+        }
+        if (max == -1) {
+            int loop = linear.emitSplit(greedy);
+            if (parenCount != 0) {
+                linear.emit(RELinearProgram.RESET, parenIndex, parenCount);
+            }
+            kid = emitLinear(linear, re, pc, end);
+            if (kid != LINEAR_CONSUMING) {
+                return LINEAR_UNSUPPORTED;
+            }
+            linear.emit(RELinearProgram.JUMP, loop, 0);
+            linear.setSplitExit(loop, greedy, linear.length);
+        }
+        for (int exit : exits) {
+            linear.setSplitExit(exit, greedy, linear.length);
+        }
+        if (min == 0) {
+            return LINEAR_NULLABLE;
+        }
+        return kid;
+    }
+
+    /*
+     * Match the linear program against the input, with the algorithm of Pike's regexp matcher.
+     * All the threads of a match, that is all the ways in which the program could match the
+     * input read so far, advance through the input together, one character at a time. Threads
+     * that arrive at the same instruction at the same position would do the same from then on,
+     * so only the one that the backtracking matcher would have tried first is kept. Thus there
+     * are at most as many threads as there are instructions, and the time to match is linear in
+     * the length of the input.
+     */
+    private static boolean matchLinear(
+            Context cx,
+            REGlobalData gData,
+            RELinearProgram linear,
+            String input,
+            int start,
+            int end) {
+        RECompiled re = gData.regexp;
+        RELinearThreads threads = new RELinearThreads(linear.length);
+        RELinearThreads nextThreads = new RELinearThreads(linear.length);
+        RELinearThreads stack = new RELinearThreads(2 * linear.length + 1);
+        int[] matched = null;
+        int anchorCh = re.anchorCh;
+        boolean fold = (re.flags & JSREG_FOLD) != 0;
+        boolean sticky = (re.flags & JSREG_STICKY) != 0;
+        boolean anchored = sticky || (anchorCh == ANCHOR_BOL && !gData.multiline);
+        final boolean instructionCounting = cx.getInstructionObserverThreshold() != 0;
+
+        for (int cp = start; ; cp++) {
+            if (matched == null && (cp == start || !anchored)) {
+                if (threads.count == 0 && anchorCh >= 0) {
+                    // Skip to the literal that the regexp starts with
+                    while (cp != end) {
+                        char c = input.charAt(cp);
+                        if (c == anchorCh || (fold && upcase(c) == upcase((char) anchorCh))) {
+                            break;
+                        }
+                        if (sticky) {
+                            return false;
+                        }
+                        cp++;
+                    }
+                    if (cp == end) {
+                        return false;
+                    }
+                }
+                int[] slots = new int[linear.slotCount];
+                Arrays.fill(slots, -1);
+                slots[0] = cp;
+                addLinearThread(gData, linear, input, end, cp, 0, slots, threads, stack);
+            }
+            if (threads.count == 0 && (matched != null || anchored || cp == end)) {
+                break;
+            }
+            if (instructionCounting) {
+                ScriptRuntime.addInstructionCount(cx, 5 * threads.count);
+            }
+            nextThreads.clear();
+            for (int i = 0; i < threads.count; i++) {
+                int pc = threads.pcs[i];
+                if (linear.op[pc] == RELinearProgram.MATCH) {
+                    // The threads after this one could only find less preferred matches
+                    matched = threads.slots[i].clone();
+                    matched[1] = cp;
+                    break;
+                }
+                if (cp != end && linearCharMatcher(gData, linear, pc, input.charAt(cp))) {
+                    addLinearThread(
+                            gData,
+                            linear,
+                            input,
+                            end,
+                            cp + 1,
+                            pc + 1,
+                            threads.slots[i],
+                            nextThreads,
+                            stack);
+                }
+            }
+            if (cp == end) {
+                break;
+            }
+            RELinearThreads t = threads;
+            threads = nextThreads;
+            nextThreads = t;
+        }
+
+        if (matched == null) {
+            return false;
+        }
+        gData.cp = matched[1];
+        gData.skipped = matched[0] - start;
+        for (int i = 0; i < re.parenCount; i++) {
+            int index = matched[2 + 2 * i];
+            int last = matched[3 + 2 * i];
+            if (index == -1 || last == -1) {
+                gData.parens[i] = -1L;
+            } else {
+                gData.setParens(i, index, last - index);
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Add a thread at the instruction pc to the list, after following all the instructions that
+     * do not consume a character, in the order of preference. The slots of the thread are copied
+     * before they are modified, as they may be shared with other threads.
+     */
+    private static void addLinearThread(
+            REGlobalData gData,
+            RELinearProgram linear,
+            String input,
+            int end,
+            int cp,
+            int pc,
+            int[] slots,
+            RELinearThreads list,
+            RELinearThreads stack) {
+        stack.count = 0;
+        stack.push(pc, slots);
+        while (stack.count != 0) {
+            --stack.count;
+            pc = stack.pcs[stack.count];
+            slots = stack.slots[stack.count];
+            stack.slots[stack.count] = null;
+            for (; ; ) {
+                if (!list.mark(pc)) {
+                    // A more preferred thread got here first
+                    break;
+                }
+                int op = linear.op[pc];
+                if (op == RELinearProgram.JUMP) {
+                    pc = linear.x[pc];
+                } else if (op == RELinearProgram.SPLIT) {
+                    stack.push(linear.y[pc], slots);
+                    pc = linear.x[pc];
+                } else if (op == RELinearProgram.SAVE) {
+                    slots = slots.clone();
+                    slots[linear.x[pc]] = cp;
+                    pc++;
+                } else if (op == RELinearProgram.RESET) {
+                    int first = linear.x[pc];
+                    slots = slots.clone();
+                    Arrays.fill(slots, 2 + 2 * first, 2 + 2 * (first + linear.y[pc]), -1);
+                    pc++;
+                } else if (op == RELinearProgram.ASSERT) {
+                    gData.cp = cp;
+                    if (simpleMatch(gData, input, linear.x[pc], null, 0, end, false) < 0) {
+                        break;
+                    }
+                    pc++;
+                } else {
+                    list.add(pc, slots);
+                    break;
+                }
+            }
+        }
+    }
+
+    /* Return true if the instruction pc of the linear program matches the character */
+    private static boolean linearCharMatcher(
+            REGlobalData gData, RELinearProgram linear, int pc, char c) {
+        int x = linear.x[pc];
+        switch (linear.op[pc]) {
+            case RELinearProgram.CHAR:
+                return c == x;
+            case RELinearProgram.CHARi:
+                return c == x || upcase(c) == upcase((char) x);
+            case RELinearProgram.CLASS:
+                return classMatcher(gData, gData.regexp.classList[x], c);
+            case RELinearProgram.SIMPLE:
+                switch (x) {
+                    case REOP_DOT:
+                        return (gData.regexp.flags & JSREG_DOTALL) != 0 || !isLineTerm(c);
+                    case REOP_DIGIT:
+                        return isDigit(c);
+                    case REOP_NONDIGIT:
+                        return !isDigit(c);
+                    case REOP_ALNUM:
+                        return isWord(c);
+                    case REOP_NONALNUM:
+                        return !isWord(c);
+                    case REOP_SPACE:
+                        return isREWhiteSpace(c);
+                    case REOP_NONSPACE:
+                        return !isREWhiteSpace(c);
+                    default:
+                        throw Kit.codeBug();
+                }
+            default:
+                throw Kit.codeBug();
+        }
+    }
+
+    /*
+     * The number of executions after which a regexp is compiled to a Java class. A match in a
+     * long string counts as more than one, so that a regexp that only scans a large string a few
+     * times is compiled too.
+     */
+    private static final int COMPILE_THRESHOLD = 100;
+    private static final int COMPILE_CHARS_PER_EXECUTION = 1024;
+
+    /* The maximum size of a linear program that is compiled, to keep the methods small */
+    private static final int COMPILE_MAX_LENGTH = 1000;
+
+    /* Return true if inputs of this length have not been found too long for the generated class */
+    private static boolean isShorterThanTooDeep(RECompiled re, int length) {
+        int tooDeepLength = re.tooDeepLength;
+        return tooDeepLength == 0 || length < tooDeepLength;
+    }
+
+    /*
+     * Return the class that the regexp was compiled to, compiling it when it has been executed
+     * often enough, or null if it was not compiled. Only the regexps that the linear time
+     * matcher supports are compiled, as its program is what the class runs.
+     */
+    private static RegExpMatcher getCompiledMatcher(RECompiled re, int length) {
+        RegExpMatcher matcher = re.matcher;
+        int hotness = re.hotness;
+        if (matcher == null && hotness < COMPILE_THRESHOLD) {
+            hotness += 1 + Math.min(length / COMPILE_CHARS_PER_EXECUTION, COMPILE_THRESHOLD);
+            re.hotness = hotness;
+            if (hotness < COMPILE_THRESHOLD) {
+                return null;
+            }
+            RELinearProgram linear = getLinearProgram(re);
+            if (linear != null && linear.length <= COMPILE_MAX_LENGTH) {
+                matcher = REMatcherCompiler.compile(re, linear);
+                re.matcher = matcher;
+            }
+        }
+        return matcher;
+    }
+
+    /* Return 1 if the regexp matches, 0 if it does not, or RegExpMatcher.TOO_DEEP */
+    private static int matchCompiled(
+            REGlobalData gData, RegExpMatcher matcher, String input, int start, int end) {
+        RECompiled re = gData.regexp;
+        int anchorCh = re.anchorCh;
+        boolean fold = (re.flags & JSREG_FOLD) != 0;
+        int[] slots = new int[2 + 2 * re.parenCount];
+        Arrays.fill(slots, -1);
+        for (int i = start; i <= end; ++i) {
+            if (anchorCh >= 0) {
+                for (; ; ) {
+                    if (i == end) {
+                        return 0;
+                    }
+                    char matchCh = input.charAt(i);
+                    if (matchCh == anchorCh
+                            || (fold && upcase(matchCh) == upcase((char) anchorCh))) {
+                        break;
+                    }
+                    ++i;
+                }
+            }
+            int cp = matcher.match(input, i, end, gData.multiline, slots);
+            if (cp == RegExpMatcher.TOO_DEEP) {
+                return cp;
+            }
+            if (cp >= 0) {
+                gData.cp = cp;
+                gData.skipped = i - start;
+                for (int j = 0; j < re.parenCount; j++) {
+                    int index = slots[2 + 2 * j];
+                    int last = slots[3 + 2 * j];
+                    if (index == -1 || last == -1) {
+                        gData.parens[j] = -1L;
+                    } else {
+                        gData.setParens(j, index, last - index);
+                    }
+                }
+                return 1;
+            }
+            if (anchorCh == ANCHOR_BOL && !gData.multiline) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
     /*
      * indexp is assumed to be an array of length 1
      */
@@ -2429,27 +3028,15 @@ public class NativeRegExp extends IdScriptableObject {
 
             String matchstr = str.substring(index, index + matchlen);
             obj.put(0, obj, matchstr);
-        }
-
-        if (re.parenCount == 0) {
-            res.parens = null;
-            res.lastParen = new SubString();
-        } else {
-            SubString parsub = null;
-            int num;
-            res.parens = new SubString[re.parenCount];
-            for (num = 0; num < re.parenCount; num++) {
+            for (int num = 0; num < re.parenCount; num++) {
                 int cap_index = gData.parensIndex(num);
                 if (cap_index != -1) {
                     int cap_length = gData.parensLength(num);
-                    parsub = new SubString(str, cap_index, cap_length);
-                    res.parens[num] = parsub;
-                    if (matchType != TEST) obj.put(num + 1, obj, parsub.toString());
+                    obj.put(num + 1, obj, str.substring(cap_index, cap_index + cap_length));
                 } else {
-                    if (matchType != TEST) obj.put(num + 1, obj, Undefined.instance);
+                    obj.put(num + 1, obj, Undefined.instance);
                 }
             }
-            res.lastParen = parsub;
         }
 
         if (!(matchType == TEST)) {
@@ -2461,16 +3048,8 @@ public class NativeRegExp extends IdScriptableObject {
             obj.put("input", obj, str);
         }
 
-        if (res.lastMatch == null) {
-            res.lastMatch = new SubString();
-            res.leftContext = new SubString();
-            res.rightContext = new SubString();
-        }
-        res.lastMatch.str = str;
-        res.lastMatch.index = index;
-        res.lastMatch.length = matchlen;
-
-        res.leftContext.str = str;
+        int leftIndex;
+        int leftLength;
         if (cx.getLanguageVersion() == Context.VERSION_1_2) {
             /*
              * JS1.2 emulated Perl4.0.1.8 (patch level 36) for global regexps used
@@ -2485,21 +3064,25 @@ public class NativeRegExp extends IdScriptableObject {
              * Insofar as JS1.2 always defined $` as "left context from the last
              * match" for global regexps, it was more consistent than perl4.
              */
-            res.leftContext.index = start;
-            res.leftContext.length = gData.skipped;
+            leftIndex = start;
+            leftLength = gData.skipped;
         } else {
             /*
              * For JS1.3 and ECMAv2, emulate Perl5 exactly:
              *
              * js1.3        "hi", "hi there"            "hihitherehi therebye"
              */
-            res.leftContext.index = 0;
-            res.leftContext.length = start + gData.skipped;
-        }
-
-        res.rightContext.str = str;
-        res.rightContext.index = ep;
-        res.rightContext.length = end - ep;
+            leftIndex = 0;
+            leftLength = start + gData.skipped;
+        }
+        res.setLastMatch(
+                str,
+                index,
+                matchlen,
+                leftIndex,
+                leftLength,
+                re.parenCount == 0 ? null : gData.parens,
+                re.parenCount);
 
         return result;
     }
@@ -2837,12 +3420,126 @@ class RECompiled implements Serializable {
     int classCount; /* count [...] bitmaps */
     RECharSet[] classList; /* list of [...] bitmaps */
     int anchorCh = -1; /* if >= 0, then re starts with this literal char */
+    transient volatile RELinearProgram linearProgram; /* for the linear time matcher, see below */
+    transient volatile RegExpMatcher matcher; /* the generated class, see REMatcherCompiler */
+
+    /*
+     * The tuning state of the generated class. Programs are shared between threads through
+     * RegExpCache, and these are updated without locking, so concurrent matches may lose
+     * updates. That is harmless: a lost hotness increment only delays compiling, two threads
+     * that compile at once store equivalent classes, and a lost tooDeepLength only means that
+     * the class is tried again and gives up again on an input that is too long.
+     */
+    transient volatile int hotness; /* to find the regexps that are worth compiling */
+    transient volatile int tooDeepLength; /* inputs at least this long are too long, or 0 */
 
     RECompiled(String str) {
         this.source = str.toCharArray();
     }
 }
 
+/*
+ * A program for the linear time matcher, see NativeRegExp.matchLinear. This is a nondeterministic
+ * automaton in the form of instructions, which are either consuming, that is they match a single
+ * character, or not. The slots of a thread hold the start and end of the match, and of each of
+ * the captures, or -1 if they are not set.
+ */
+final class RELinearProgram {
+    static final int CHAR = 1; /* match the character x */
+    static final int CHARi = 2; /* match the character x ignoring case */
+    static final int CLASS = 3; /* match the class with index x */
+    static final int SIMPLE = 4; /* match a character with the simple opcode x, like REOP_DIGIT */
+    static final int ASSERT = 5; /* check the assertion with the opcode x, like REOP_BOL */
+    static final int SPLIT = 6; /* continue at x, and with lower preference at y */
+    static final int JUMP = 7; /* continue at x */
+    static final int SAVE = 8; /* store the position in the slot x */
+    static final int RESET = 9; /* clear y captures starting with the capture x */
+    static final int MATCH = 10;
+
+    /* A program that is never used, for regexps that the linear matcher does not support */
+    static final RELinearProgram UNSUPPORTED = new RELinearProgram(0);
+
+    final int slotCount;
+    int[] op = new int[16];
+    int[] x = new int[16];
+    int[] y = new int[16];
+    int length;
+
+    RELinearProgram(int parenCount) {
+        this.slotCount = 2 + 2 * parenCount;
+    }
+
+    int emit(int op, int x, int y) {
+        if (length == this.op.length) {
+            this.op = Arrays.copyOf(this.op, length * 2);
+            this.x = Arrays.copyOf(this.x, length * 2);
+            this.y = Arrays.copyOf(this.y, length * 2);
+        }
+        this.op[length] = op;
+        this.x[length] = x;
+        this.y[length] = y;
+        return length++;
+    }
+
+    /* Emit a SPLIT that prefers the next instruction if greedy, and the exit otherwise */
+    int emitSplit(boolean greedy) {
+        return greedy ? emit(SPLIT, length + 1, 0) : emit(SPLIT, 0, length + 1);
+    }
+
+    void setSplitExit(int split, boolean greedy, int exit) {
+        if (greedy) {
+            y[split] = exit;
+        } else {
+            x[split] = exit;
+        }
+    }
+
+    void seal() {
+        op = Arrays.copyOf(op, length);
+        x = Arrays.copyOf(x, length);
+        y = Arrays.copyOf(y, length);
+    }
+}
+
+/* A list of threads of the linear matcher, in the order of preference */
+final class RELinearThreads {
+    final int[] pcs;
+    final int[][] slots;
+    int count;
+    private final int[] marks;
+    private int generation = 1;
+
+    RELinearThreads(int length) {
+        pcs = new int[length];
+        slots = new int[length][];
+        marks = new int[length];
+    }
+
+    void add(int pc, int[] threadSlots) {
+        pcs[count] = pc;
+        slots[count++] = threadSlots;
+    }
+
+    void push(int pc, int[] threadSlots) {
+        add(pc, threadSlots);
+    }
+
+    void clear() {
+        Arrays.fill(slots, 0, count, null);
+        count = 0;
+        generation++;
+    }
+
+    /* Return true if pc was not marked since the last clear(), and mark it */
+    boolean mark(int pc) {
+        if (marks[pc] == generation) {
+            return false;
+        }
+        marks[pc] = generation;
+        return true;
+    }
+}
+
 class RENode {
 
     RENode(byte op) {
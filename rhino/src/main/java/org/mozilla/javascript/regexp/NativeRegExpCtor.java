@@ -252,22 +252,22 @@ class NativeRegExpCtor extends BaseFunction {
 
                 case Id_lastMatch:
                 case Id_AMPERSAND:
-                    stringResult = impl.lastMatch;
+                    stringResult = impl.getLastMatch();
                     break;
 
                 case Id_lastParen:
                 case Id_PLUS:
-                    stringResult = impl.lastParen;
+                    stringResult = impl.getLastParen();
                     break;
 
                 case Id_leftContext:
                 case Id_BACK_QUOTE:
-                    stringResult = impl.leftContext;
+                    stringResult = impl.getLeftContext();
                     break;
 
                 case Id_rightContext:
                 case Id_QUOTE:
-                    stringResult = impl.rightContext;
+                    stringResult = impl.getRightContext();
                     break;
 
                 default:
@@ -0,0 +1,628 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.regexp;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import org.mozilla.classfile.ByteCode;
+import org.mozilla.classfile.ClassFileWriter;
+import org.mozilla.javascript.GeneratedClassLoader;
+import org.mozilla.javascript.SecurityController;
+
+/**
+ * Generates a Java class for a regular expression that is executed often, see
+ * NativeRegExp.getCompiledMatcher. The class runs the program of the linear time matcher, see
+ * RELinearProgram, but by backtracking like the interpreter: for a SPLIT, it calls the method for
+ * the preferred instruction, and if that fails it continues with the other one. Only loops whose
+ * body consumes a character are in the program, so this always ends, and as the alternatives are
+ * already in the order of preference, the result is the same as that of the interpreter.
+ *
+ * <p>Each method matches a straight sequence of instructions, up to one that is the target of a
+ * SPLIT or that can be reached in more than one way, which has a method of its own. Characters
+ * are matched inline, with small character classes turned into range checks, and a loop over
+ * a few characters, like .* or [a-z]+?, becomes a counting loop instead of a call per iteration.
+ * A method that sets captures restores them before it returns -1, so the slots are clean again
+ * after a failed match.
+ *
+ * <p>As each SPLIT that is not a counting loop calls a method, the depth of the calls grows with
+ * the length of the input. Each method gets the depth of its call, and returns TOO_DEEP from
+ * MAX_DEPTH on, so that the match is left to the interpreter before the Java stack runs out.
+ */
+final class REMatcherCompiler {
+
+    private static final String SUPER_CLASS = "org.mozilla.javascript.regexp.RegExpMatcher";
+    private static final String MATCH_SIGNATURE = "(Ljava/lang/String;IIZ[I)I";
+    private static final String STEP_SIGNATURE = "(Ljava/lang/String;IIZ[II)I";
+
+    /* The depth of the calls at which the generated code gives up */
+    static final int MAX_DEPTH = 1000;
+
+    /* The local variables of the generated methods */
+    private static final int INPUT_LOCAL = 1,
+            CP_LOCAL = 2,
+            END_LOCAL = 3,
+            MULTILINE_LOCAL = 4,
+            SLOTS_LOCAL = 5,
+            DEPTH_LOCAL = 6,
+            RESULT_LOCAL = 7,
+            CHAR_LOCAL = 8,
+            FIRST_FREE_LOCAL = 9;
+
+    /* Character classes with up to this many ranges are matched with comparisons */
+    private static final int MAX_INLINE_RANGES = 4;
+
+    private static final int[] DIGIT_RANGES = {'0', '9'};
+    private static final int[] WORD_RANGES = {'0', '9', 'A', 'Z', '_', '_', 'a', 'z'};
+
+    private static final Object globalLock = new Object();
+    private static int globalSerialClassCounter;
+
+    private final RECompiled re;
+    private final RELinearProgram linear;
+    private final String className;
+    private final ClassFileWriter cfw;
+    private final boolean[] entries; /* instructions that start a method */
+    private final int[] loops; /* for a SPLIT of a counting loop, the length of the body */
+
+    /* The state of the method that is generated */
+    private int failLabel;
+    private int returnLabel;
+    private int localsTop;
+    private final ArrayList<int[]> restores = new ArrayList<>();
+    private final BitSet usedLabels = new BitSet();
+    private boolean unsupported;
+
+    private REMatcherCompiler(RECompiled re, RELinearProgram linear, String className) {
+        this.re = re;
+        this.linear = linear;
+        this.className = className;
+        this.cfw = new ClassFileWriter(className, SUPER_CLASS, null);
+        this.entries = new boolean[linear.length];
+        this.loops = new int[linear.length];
+    }
+
+    /* Return an instance of the class for the linear program, or null if it cannot be compiled */
+    static RegExpMatcher compile(RECompiled re, RELinearProgram linear) {
+        REGlobalData gData = new REGlobalData();
+        gData.regexp = re;
+        byte[][] classBits = new byte[re.classCount][];
+        for (int i = 0; i < re.classCount; i++) {
+            NativeRegExp.processCharSet(gData, re.classList[i]);
+            classBits[i] = re.classList[i].bits;
+        }
+
+        int serial;
+        synchronized (globalLock) {
+            serial = ++globalSerialClassCounter;
+        }
+        String className = "org.mozilla.javascript.gen.RegExp_" + serial;
+        byte[] classBytes = new REMatcherCompiler(re, linear, className).generate();
+        if (classBytes == null) {
+            return null;
+        }
+
+        ClassLoader rhinoLoader = REMatcherCompiler.class.getClassLoader();
+        GeneratedClassLoader loader = SecurityController.createLoader(rhinoLoader, null);
+        Class<?> cl = loader.defineClass(className, classBytes);
+        loader.linkClass(cl);
+        try {
+            return (RegExpMatcher)
+                    cl.getConstructor(byte[][].class).newInstance((Object) classBits);
+        } catch (Exception ex) {
+            throw new RuntimeException("Unable to instantiate compiled class:" + ex.toString());
+        }
+    }
+
+    private byte[] generate() {
+        findEntries();
+
+        cfw.startMethod("<init>", "([[B)V", ClassFileWriter.ACC_PUBLIC);
+        cfw.addALoad(0);
+        cfw.addALoad(1);
+        cfw.addInvoke(ByteCode.INVOKESPECIAL, SUPER_CLASS, "<init>", "([[B)V");
+        cfw.add(ByteCode.RETURN);
+        cfw.stopMethod(2);
+
+        cfw.startMethod("match", MATCH_SIGNATURE, ClassFileWriter.ACC_PUBLIC);
+        cfw.addALoad(0);
+        cfw.addALoad(INPUT_LOCAL);
+        cfw.addILoad(CP_LOCAL);
+        cfw.addILoad(END_LOCAL);
+        cfw.addILoad(MULTILINE_LOCAL);
+        cfw.addALoad(SLOTS_LOCAL);
+        cfw.addPush(0);
+        cfw.addInvoke(ByteCode.INVOKESPECIAL, className, getMethodName(0), STEP_SIGNATURE);
+        cfw.add(ByteCode.IRETURN);
+        cfw.stopMethod(DEPTH_LOCAL);
+
+        for (int pc = 0; pc < linear.length; pc++) {
+            if (entries[pc]) {
+                generateMethod(pc);
+                if (unsupported) {
+                    return null;
+                }
+            }
+        }
+        return cfw.toByteArray();
+    }
+
+    private static boolean isConsuming(int op) {
+        return op == RELinearProgram.CHAR
+                || op == RELinearProgram.CHARi
+                || op == RELinearProgram.CLASS
+                || op == RELinearProgram.SIMPLE;
+    }
+
+    /*
+     * Return the length of the body if the SPLIT at pc starts a loop over instructions that
+     * only consume characters, or 0 otherwise.
+     */
+    private int getCountingLoop(int pc) {
+        int jump = pc + 1;
+        while (jump < linear.length && isConsuming(linear.op[jump])) {
+            jump++;
+        }
+        if (jump == pc + 1
+                || jump == linear.length
+                || linear.op[jump] != RELinearProgram.JUMP
+                || linear.x[jump] != pc) {
+            return 0;
+        }
+        int exit = jump + 1;
+        if ((linear.x[pc] == pc + 1 && linear.y[pc] == exit)
+                || (linear.y[pc] == pc + 1 && linear.x[pc] == exit)) {
+            return jump - pc - 1;
+        }
+        return 0;
+    }
+
+    private void findEntries() {
+        int[] predecessors = new int[linear.length];
+        entries[0] = true;
+        for (int pc = 0; pc < linear.length; pc++) {
+            int op = linear.op[pc];
+            if (op == RELinearProgram.SPLIT) {
+                int length = getCountingLoop(pc);
+                if (length != 0) {
+                    loops[pc] = length;
+                    // The exit is called after each iteration
+                    entries[pc + length + 2] = true;
+                    pc += length + 1;
+                } else {
+                    entries[linear.x[pc]] = true;
+                    predecessors[linear.y[pc]]++;
+                }
+            } else if (op == RELinearProgram.JUMP) {
+                predecessors[linear.x[pc]]++;
+            } else if (op != RELinearProgram.MATCH) {
+                predecessors[pc + 1]++;
+            }
+        }
+        for (int pc = 0; pc < linear.length; pc++) {
+            if (predecessors[pc] > 1) {
+                entries[pc] = true;
+            }
+        }
+    }
+
+    private static String getMethodName(int pc) {
+        return "match" + pc;
+    }
+
+    private void generateMethod(int start) {
+        cfw.startMethod(getMethodName(start), STEP_SIGNATURE, ClassFileWriter.ACC_PRIVATE);
+        int tooDeepLabel = cfw.acquireLabel();
+        cfw.addILoad(DEPTH_LOCAL);
+        cfw.addPush(MAX_DEPTH);
+        cfw.add(ByteCode.IF_ICMPGE, tooDeepLabel);
+        int firstFailLabel = cfw.acquireLabel();
+        failLabel = firstFailLabel;
+        returnLabel = cfw.acquireLabel();
+        localsTop = FIRST_FREE_LOCAL;
+        restores.clear();
+        usedLabels.clear();
+
+        int pc = start;
+        boolean done = false;
+        for (boolean first = true; !done; first = false) {
+            // A loop may lead back to the start, which is called like the other entries
+            if (!first && entries[pc]) {
+                addCall(pc);
+                addJump(ByteCode.GOTO, failLabel);
+                break;
+            }
+            int x = linear.x[pc];
+            switch (linear.op[pc]) {
+                case RELinearProgram.CHAR:
+                case RELinearProgram.CHARi:
+                case RELinearProgram.CLASS:
+                case RELinearProgram.SIMPLE:
+                    addConsume(pc, failLabel);
+                    pc++;
+                    break;
+                case RELinearProgram.ASSERT:
+                    addAssertion(x);
+                    pc++;
+                    break;
+                case RELinearProgram.SAVE:
+                    addSaveSlots(x, 1, true);
+                    pc++;
+                    break;
+                case RELinearProgram.RESET:
+                    addSaveSlots(2 + 2 * x, 2 * linear.y[pc], false);
+                    pc++;
+                    break;
+                case RELinearProgram.JUMP:
+                    pc = x;
+                    break;
+                case RELinearProgram.SPLIT:
+                    if (loops[pc] != 0) {
+                        addCountingLoop(pc, loops[pc]);
+                        done = true;
+                    } else {
+                        addCall(x);
+                        pc = linear.y[pc];
+                    }
+                    break;
+                case RELinearProgram.MATCH:
+                    cfw.addILoad(CP_LOCAL);
+                    cfw.add(ByteCode.IRETURN);
+                    done = true;
+                    break;
+                default:
+                    throw new IllegalStateException();
+            }
+        }
+
+        // Only code that is reached can be added, as there is no stack map frame for the rest
+        if (usedLabels.get(returnLabel & 0x7FFFFFFF)) {
+            cfw.markLabel(returnLabel);
+            cfw.addILoad(RESULT_LOCAL);
+            cfw.add(ByteCode.IRETURN);
+        }
+        for (int i = restores.size() - 1; i >= 0; i--) {
+            int[] restore = restores.get(i);
+            if (usedLabels.get(restore[0] & 0x7FFFFFFF)) {
+                cfw.markLabel(restore[0]);
+                for (int j = 2; j < restore.length; j += 2) {
+                    cfw.addALoad(SLOTS_LOCAL);
+                    cfw.addPush(restore[j]);
+                    cfw.addILoad(restore[j + 1]);
+                    cfw.add(ByteCode.IASTORE);
+                }
+                addJump(ByteCode.GOTO, restore[1]);
+            }
+        }
+        if (usedLabels.get(firstFailLabel & 0x7FFFFFFF)) {
+            cfw.markLabel(firstFailLabel);
+            cfw.addPush(-1);
+            cfw.add(ByteCode.IRETURN);
+        }
+        cfw.markLabel(tooDeepLabel);
+        cfw.addPush(RegExpMatcher.TOO_DEEP);
+        cfw.add(ByteCode.IRETURN);
+        cfw.stopMethod(localsTop);
+    }
+
+    private void addJump(int opcode, int label) {
+        cfw.add(opcode, label);
+        usedLabels.set(label & 0x7FFFFFFF);
+    }
+
+    /*
+     * Call the method for the instruction pc, and return its result if it matched or went too
+     * deep. The slots are not restored in the latter case, as the whole match is abandoned.
+     */
+    private void addCall(int pc) {
+        cfw.addALoad(0);
+        cfw.addALoad(INPUT_LOCAL);
+        cfw.addILoad(CP_LOCAL);
+        cfw.addILoad(END_LOCAL);
+        cfw.addILoad(MULTILINE_LOCAL);
+        cfw.addALoad(SLOTS_LOCAL);
+        cfw.addILoad(DEPTH_LOCAL);
+        cfw.addPush(1);
+        cfw.add(ByteCode.IADD);
+        cfw.addInvoke(ByteCode.INVOKESPECIAL, className, getMethodName(pc), STEP_SIGNATURE);
+        cfw.addIStore(RESULT_LOCAL);
+        cfw.addILoad(RESULT_LOCAL);
+        addJump(ByteCode.IFGE, returnLabel);
+        cfw.addILoad(RESULT_LOCAL);
+        cfw.addPush(RegExpMatcher.TOO_DEEP);
+        addJump(ByteCode.IF_ICMPEQ, returnLabel);
+    }
+
+    /*
+     * Store the position, or -1, in count slots starting with first, after saving their old
+     * values so that they can be restored if the rest of the method fails.
+     */
+    private void addSaveSlots(int first, int count, boolean position) {
+        int[] restore = new int[2 + 2 * count];
+        restore[0] = cfw.acquireLabel();
+        restore[1] = failLabel;
+        for (int i = 0; i < count; i++) {
+            int local = localsTop++;
+            cfw.addALoad(SLOTS_LOCAL);
+            cfw.addPush(first + i);
+            cfw.add(ByteCode.IALOAD);
+            cfw.addIStore(local);
+            cfw.addALoad(SLOTS_LOCAL);
+            cfw.addPush(first + i);
+            if (position) {
+                cfw.addILoad(CP_LOCAL);
+            } else {
+                cfw.addPush(-1);
+            }
+            cfw.add(ByteCode.IASTORE);
+            restore[2 + 2 * i] = first + i;
+            restore[3 + 2 * i] = local;
+        }
+        restores.add(restore);
+        failLabel = restore[0];
+    }
+
+    private void addAssertion(int op) {
+        cfw.addALoad(INPUT_LOCAL);
+        cfw.addILoad(CP_LOCAL);
+        switch (op) {
+            case NativeRegExp.REOP_BOL:
+                cfw.addILoad(MULTILINE_LOCAL);
+                cfw.addInvoke(
+                        ByteCode.INVOKESTATIC,
+                        SUPER_CLASS,
+                        "isLineStart",
+                        "(Ljava/lang/String;IZ)Z");
+                addJump(ByteCode.IFEQ, failLabel);
+                break;
+            case NativeRegExp.REOP_EOL:
+                cfw.addILoad(END_LOCAL);
+                cfw.addILoad(MULTILINE_LOCAL);
+                cfw.addInvoke(
+                        ByteCode.INVOKESTATIC,
+                        SUPER_CLASS,
+                        "isLineEnd",
+                        "(Ljava/lang/String;IIZ)Z");
+                addJump(ByteCode.IFEQ, failLabel);
+                break;
+            case NativeRegExp.REOP_WBDRY:
+            case NativeRegExp.REOP_WNONBDRY:
+                cfw.addILoad(END_LOCAL);
+                cfw.addInvoke(
+                        ByteCode.INVOKESTATIC,
+                        SUPER_CLASS,
+                        "isWordBoundary",
+                        "(Ljava/lang/String;II)Z");
+                addJump(op == NativeRegExp.REOP_WBDRY ? ByteCode.IFEQ : ByteCode.IFNE, failLabel);
+                break;
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    /* Match the character at the current position with the instruction pc, and advance */
+    private void addConsume(int pc, int fail) {
+        cfw.addILoad(CP_LOCAL);
+        cfw.addILoad(END_LOCAL);
+        addJump(ByteCode.IF_ICMPGE, fail);
+        cfw.addALoad(INPUT_LOCAL);
+        cfw.addILoad(CP_LOCAL);
+        cfw.addInvoke(ByteCode.INVOKEVIRTUAL, "java/lang/String", "charAt", "(I)C");
+        cfw.addIStore(CHAR_LOCAL);
+
+        int x = linear.x[pc];
+        switch (linear.op[pc]) {
+            case RELinearProgram.CHAR:
+                addRanges(new int[] {x, x}, false, fail);
+                break;
+            case RELinearProgram.CHARi:
+                addCharIgnoringCase((char) x, fail);
+                break;
+            case RELinearProgram.CLASS:
+                addClass(x, fail);
+                break;
+            case RELinearProgram.SIMPLE:
+                addSimple(x, fail);
+                break;
+            default:
+                throw new IllegalStateException();
+        }
+        cfw.add(ByteCode.IINC, CP_LOCAL, 1);
+    }
+
+    private void addCharIgnoringCase(char c, int fail) {
+        char upper = NativeRegExp.upcase(c);
+        if (c < 128) {
+            if (upper != c) {
+                addRanges(new int[] {upper, upper, c, c}, false, fail);
+            } else if ('A' <= c && c <= 'Z') {
+                addRanges(new int[] {c, c, c + ('a' - 'A'), c + ('a' - 'A')}, false, fail);
+            } else {
+                addRanges(new int[] {c, c}, false, fail);
+            }
+            return;
+        }
+        int matched = cfw.acquireLabel();
+        cfw.addILoad(CHAR_LOCAL);
+        cfw.addPush(c);
+        cfw.add(ByteCode.IF_ICMPEQ, matched);
+        cfw.addILoad(CHAR_LOCAL);
+        cfw.addInvoke(ByteCode.INVOKESTATIC, SUPER_CLASS, "upcase", "(C)C");
+        cfw.addPush(upper);
+        addJump(ByteCode.IF_ICMPNE, fail);
+        cfw.markLabel(matched);
+    }
+
+    private void addClass(int index, int fail) {
+        RECharSet charSet = re.classList[index];
+        byte[] bits = charSet.bits;
+        // The characters in the bitmap, which match unless the class is negated
+        int[] ranges = new int[2 * MAX_INLINE_RANGES];
+        int rangeCount = 0;
+        for (int c = 0; c < charSet.length && rangeCount <= MAX_INLINE_RANGES; c++) {
+            if ((bits[c >> 3] & (1 << (c & 0x7))) != 0) {
+                int last = c;
+                while (last + 1 < charSet.length
+                        && (bits[(last + 1) >> 3] & (1 << ((last + 1) & 0x7))) != 0) {
+                    last++;
+                }
+                if (rangeCount < MAX_INLINE_RANGES) {
+                    ranges[2 * rangeCount] = c;
+                    ranges[2 * rangeCount + 1] = last;
+                }
+                rangeCount++;
+                c = last;
+            }
+        }
+        if (rangeCount <= MAX_INLINE_RANGES) {
+            if (rangeCount == 0 && charSet.sense) {
+                // A class that never matches would leave unreachable code
+                unsupported = true;
+                return;
+            }
+            int[] used = new int[2 * rangeCount];
+            System.arraycopy(ranges, 0, used, 0, used.length);
+            addRanges(used, !charSet.sense, fail);
+            return;
+        }
+
+        int matched = cfw.acquireLabel();
+        cfw.addILoad(CHAR_LOCAL);
+        cfw.addPush(charSet.length);
+        addJump(ByteCode.IF_ICMPGE, charSet.sense ? fail : matched);
+        cfw.addALoad(0);
+        cfw.add(ByteCode.GETFIELD, SUPER_CLASS, "classBits", "[[B");
+        cfw.addPush(index);
+        cfw.add(ByteCode.AALOAD);
+        cfw.addILoad(CHAR_LOCAL);
+        cfw.addPush(3);
+        cfw.add(ByteCode.ISHR);
+        cfw.add(ByteCode.BALOAD);
+        cfw.addPush(1);
+        cfw.addILoad(CHAR_LOCAL);
+        cfw.addPush(7);
+        cfw.add(ByteCode.IAND);
+        cfw.add(ByteCode.ISHL);
+        cfw.add(ByteCode.IAND);
+        addJump(charSet.sense ? ByteCode.IFEQ : ByteCode.IFNE, fail);
+        cfw.markLabel(matched);
+    }
+
+    private void addSimple(int op, int fail) {
+        switch (op) {
+            case NativeRegExp.REOP_DOT:
+                if ((re.flags & NativeRegExp.JSREG_DOTALL) == 0) {
+                    cfw.addILoad(CHAR_LOCAL);
+                    cfw.addInvoke(
+                            ByteCode.INVOKESTATIC,
+                            "org/mozilla/javascript/ScriptRuntime",
+                            "isJSLineTerminator",
+                            "(I)Z");
+                    addJump(ByteCode.IFNE, fail);
+                }
+                break;
+            case NativeRegExp.REOP_DIGIT:
+            case NativeRegExp.REOP_NONDIGIT:
+                addRanges(DIGIT_RANGES, op == NativeRegExp.REOP_NONDIGIT, fail);
+                break;
+            case NativeRegExp.REOP_ALNUM:
+            case NativeRegExp.REOP_NONALNUM:
+                addRanges(WORD_RANGES, op == NativeRegExp.REOP_NONALNUM, fail);
+                break;
+            case NativeRegExp.REOP_SPACE:
+            case NativeRegExp.REOP_NONSPACE:
+                cfw.addILoad(CHAR_LOCAL);
+                cfw.addInvoke(
+                        ByteCode.INVOKESTATIC,
+                        "org/mozilla/javascript/ScriptRuntime",
+                        "isJSWhitespaceOrLineTerminator",
+                        "(I)Z");
+                addJump(op == NativeRegExp.REOP_SPACE ? ByteCode.IFEQ : ByteCode.IFNE, fail);
+                break;
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    /*
+     * Jump to fail unless the character is in one of the ranges, given as pairs of the first and
+     * the last character, or if negated, if it is in one of them.
+     */
+    private void addRanges(int[] ranges, boolean negated, int fail) {
+        int matched = cfw.acquireLabel();
+        int inRange = negated ? fail : matched;
+        for (int i = 0; i < ranges.length; i += 2) {
+            cfw.addILoad(CHAR_LOCAL);
+            cfw.addPush(ranges[i]);
+            if (ranges[i] == ranges[i + 1]) {
+                addJump(ByteCode.IF_ICMPEQ, inRange);
+            } else {
+                int next = cfw.acquireLabel();
+                cfw.add(ByteCode.IF_ICMPLT, next);
+                cfw.addILoad(CHAR_LOCAL);
+                cfw.addPush(ranges[i + 1]);
+                addJump(ByteCode.IF_ICMPLE, inRange);
+                cfw.markLabel(next);
+            }
+        }
+        if (!negated) {
+            addJump(ByteCode.GOTO, fail);
+        }
+        cfw.markLabel(matched);
+    }
+
+    /*
+     * Add the loop that starts with the SPLIT at pc, whose body of the given length only
+     * consumes characters. A greedy loop matches as many iterations as it can, and then calls
+     * the method for the exit, going back one iteration at a time while that fails. A lazy loop
+     * calls it first, and only matches another iteration if it fails.
+     */
+    private void addCountingLoop(int pc, int length) {
+        int exit = pc + length + 2;
+        int again = cfw.acquireLabel();
+        if (linear.x[pc] == exit) {
+            cfw.markLabel(again);
+            addCall(exit);
+            for (int i = 1; i <= length; i++) {
+                addConsume(pc + i, failLabel);
+            }
+            cfw.add(ByteCode.GOTO, again);
+            return;
+        }
+
+        int startLocal = localsTop++;
+        cfw.addILoad(CP_LOCAL);
+        cfw.addIStore(startLocal);
+        int iteration = cfw.acquireLabel();
+        cfw.markLabel(iteration);
+        if (length == 1) {
+            addConsume(pc + 1, again);
+            cfw.add(ByteCode.GOTO, iteration);
+        } else {
+            int iterationLocal = localsTop++;
+            int partial = cfw.acquireLabel();
+            cfw.addILoad(CP_LOCAL);
+            cfw.addIStore(iterationLocal);
+            for (int i = 1; i <= length; i++) {
+                addConsume(pc + i, partial);
+            }
+            cfw.add(ByteCode.GOTO, iteration);
+            cfw.markLabel(partial);
+            cfw.addILoad(iterationLocal);
+            cfw.addIStore(CP_LOCAL);
+        }
+        cfw.markLabel(again);
+        addCall(exit);
+        cfw.addILoad(CP_LOCAL);
+        cfw.addILoad(startLocal);
+        addJump(ByteCode.IF_ICMPLE, failLabel);
+        cfw.addILoad(CP_LOCAL);
+        cfw.addPush(length);
+        cfw.add(ByteCode.ISUB);
+        cfw.addIStore(CP_LOCAL);
+        cfw.add(ByteCode.GOTO, again);
+    }
+}
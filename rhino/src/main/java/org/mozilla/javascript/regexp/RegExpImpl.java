@@ -114,8 +114,7 @@ public class RegExpImpl implements RegExpProxy {
                                 /* Didn't match even once. */
                                 return data.str;
                             }
-                            SubString lc = this.leftContext;
-                            replace_glob(data, cx, scope, this, lc.index, lc.length);
+                            replace_glob(data, cx, scope, this, leftIndex, leftLength);
                         }
                     } else {
                         final String str = data.str;
@@ -139,13 +138,7 @@ public class RegExpImpl implements RegExpProxy {
                                 break;
                             }
 
-                            this.parens = null;
-                            this.lastParen = null;
-                            this.leftContext = new SubString(str, 0, index);
-                            this.lastMatch = new SubString(str, index, searchLen);
-                            this.rightContext =
-                                    new SubString(
-                                            str, index + searchLen, strLen - index - searchLen);
+                            setLastMatch(str, index, searchLen, 0, index, null, -1);
 
                             replace_glob(data, cx, scope, this, lastIndex, index - lastIndex);
                             lastIndex = index + searchLen;
@@ -156,8 +149,7 @@ public class RegExpImpl implements RegExpProxy {
                         }
                     }
 
-                    SubString rc = this.rightContext;
-                    data.charBuf.append(rc.str, rc.index, rc.index + rc.length);
+                    data.charBuf.append(matchInput, matchIndex + matchLength, matchInput.length());
                     return data.charBuf.toString();
                 }
 
@@ -210,7 +202,7 @@ public class RegExpImpl implements RegExpProxy {
         if (data.mode == RA_SEARCH) {
             result = re.executeRegExp(cx, scope, reImpl, str, indexp, NativeRegExp.TEST);
             if (result != null && result.equals(Boolean.TRUE))
-                result = Integer.valueOf(reImpl.leftContext.length);
+                result = Integer.valueOf(reImpl.leftLength);
             else result = Integer.valueOf(-1);
         } else if (data.global) {
             re.lastIndex = ScriptRuntime.zeroObj;
@@ -221,13 +213,12 @@ public class RegExpImpl implements RegExpProxy {
                     match_glob(data, cx, scope, count, reImpl);
                 } else {
                     if (data.mode != RA_REPLACE && data.mode != RA_REPLACE_ALL) Kit.codeBug();
-                    SubString lastMatch = reImpl.lastMatch;
                     int leftIndex = data.leftIndex;
-                    int leftlen = lastMatch.index - leftIndex;
-                    data.leftIndex = lastMatch.index + lastMatch.length;
+                    int leftlen = reImpl.matchIndex - leftIndex;
+                    data.leftIndex = reImpl.matchIndex + reImpl.matchLength;
                     replace_glob(data, cx, scope, reImpl, leftIndex, leftlen);
                 }
-                if (reImpl.lastMatch.length == 0) {
+                if (reImpl.matchLength == 0) {
                     if (indexp[0] == str.length()) break;
                     indexp[0]++;
                 }
@@ -280,8 +271,7 @@ public class RegExpImpl implements RegExpProxy {
             ip[0] = ipsave;
             matched[0] = true;
 
-            SubString sep = this.lastMatch;
-            matchlen[0] = sep.length;
+            matchlen[0] = matchLength;
             if (matchlen[0] == 0) {
                 /*
                  * Empty string match: never split on an empty
@@ -311,26 +301,95 @@ public class RegExpImpl implements RegExpProxy {
             result = i - matchlen[0];
             break;
         }
-        int size = (parens == null) ? 0 : parens.length;
+        int size = getParenCount();
         parensp[0] = new String[size];
         for (int num = 0; num < size; num++) {
-            SubString parsub = getParenSubString(num);
-            parensp[0][num] = parsub.toString();
+            parensp[0][num] = getParenSubString(num).toString();
         }
         return result;
     }
 
+    /**
+     * Record a successful match. The legacy static properties like RegExp.lastMatch and RegExp.$1
+     * are only computed from it when they are read, so that matching does not allocate them.
+     *
+     * @param parens the captures in the format of REGlobalData.parens, or null if there are none
+     * @param parenCount the number of captures, or -1 if this was a match of a plain string
+     */
+    void setLastMatch(
+            String str,
+            int index,
+            int length,
+            int leftIndex,
+            int leftLength,
+            long[] parens,
+            int parenCount) {
+        this.matchInput = str;
+        this.matchIndex = index;
+        this.matchLength = length;
+        this.leftIndex = leftIndex;
+        this.leftLength = leftLength;
+        this.matchParens = parens;
+        this.matchParenCount = parenCount;
+    }
+
+    /** Return the number of captures of the last match. */
+    int getParenCount() {
+        return Math.max(matchParenCount, 0);
+    }
+
     /** Analog of REGEXP_PAREN_SUBSTRING in C jsregexp.h. Assumes zero-based; i.e., for $3, i==2 */
     SubString getParenSubString(int i) {
-        if (parens != null && i < parens.length) {
-            SubString parsub = parens[i];
-            if (parsub != null) {
-                return parsub;
+        if (matchParens != null && i < matchParenCount) {
+            int index = (int) matchParens[i];
+            if (index != -1) {
+                return new SubString(matchInput, index, (int) (matchParens[i] >>> 32));
             }
         }
         return new SubString();
     }
 
+    /** Return the last match (perl $&amp;), or null if there was none. */
+    SubString getLastMatch() {
+        if (matchInput == null) {
+            return null;
+        }
+        return new SubString(matchInput, matchIndex, matchLength);
+    }
+
+    /** Return the last capture that matched (perl $+), or null if there was none. */
+    SubString getLastParen() {
+        if (matchInput == null || matchParenCount < 0) {
+            return null;
+        }
+        if (matchParenCount == 0) {
+            return new SubString();
+        }
+        for (int i = matchParenCount - 1; i >= 0; i--) {
+            if ((int) matchParens[i] != -1) {
+                return getParenSubString(i);
+            }
+        }
+        return null;
+    }
+
+    /** Return the input to the left of the last match (perl $`), or null if there was none. */
+    SubString getLeftContext() {
+        if (matchInput == null) {
+            return null;
+        }
+        return new SubString(matchInput, leftIndex, leftLength);
+    }
+
+    /** Return the input to the right of the last match (perl $'), or null if there was none. */
+    SubString getRightContext() {
+        if (matchInput == null) {
+            return null;
+        }
+        int rightIndex = matchIndex + matchLength;
+        return new SubString(matchInput, rightIndex, matchInput.length() - rightIndex);
+    }
+
     /*
      * Analog of match_glob() in jsstr.c
      */
@@ -339,8 +398,9 @@ public class RegExpImpl implements RegExpProxy {
         if (mdata.arrayobj == null) {
             mdata.arrayobj = cx.newArray(scope, 0);
         }
-        SubString matchsub = reImpl.lastMatch;
-        String matchstr = matchsub.toString();
+        String matchstr =
+                reImpl.matchInput.substring(
+                        reImpl.matchIndex, reImpl.matchIndex + reImpl.matchLength);
         mdata.arrayobj.put(count, mdata.arrayobj, matchstr);
     }
 
@@ -359,19 +419,20 @@ public class RegExpImpl implements RegExpProxy {
         if (rdata.lambda != null) {
             // invoke lambda function with args lastMatch, $1, $2, ... $n,
             // leftContext.length, whole string.
-            SubString[] parens = reImpl.parens;
-            int parenCount = (parens == null) ? 0 : parens.length;
+            String input = reImpl.matchInput;
+            long[] parens = reImpl.matchParens;
+            int parenCount = reImpl.getParenCount();
             Object[] args = new Object[parenCount + 3];
-            args[0] = reImpl.lastMatch.toString();
+            args[0] = input.substring(reImpl.matchIndex, reImpl.matchIndex + reImpl.matchLength);
             for (int i = 0; i < parenCount; i++) {
-                SubString sub = parens[i];
-                if (sub != null) {
-                    args[i + 1] = sub.toString();
+                int index = (int) parens[i];
+                if (index != -1) {
+                    args[i + 1] = input.substring(index, index + (int) (parens[i] >>> 32));
                 } else {
                     args[i + 1] = Undefined.instance;
                 }
             }
-            args[parenCount + 1] = Integer.valueOf(reImpl.leftContext.length);
+            args[parenCount + 1] = Integer.valueOf(reImpl.leftLength);
             args[parenCount + 2] = rdata.str;
             // This is a hack to prevent expose of reImpl data to
             // JS function which can run new regexps modifing
@@ -409,7 +470,12 @@ public class RegExpImpl implements RegExpProxy {
             }
         }
 
-        int growth = leftlen + replen + reImpl.rightContext.length;
+        int growth =
+                leftlen
+                        + replen
+                        + reImpl.matchInput.length()
+                        - reImpl.matchIndex
+                        - reImpl.matchLength;
         StringBuilder charBuf = rdata.charBuf;
         if (charBuf == null) {
             charBuf = new StringBuilder(growth);
@@ -418,7 +484,7 @@ public class RegExpImpl implements RegExpProxy {
             charBuf.ensureCapacity(rdata.charBuf.length() + growth);
         }
 
-        charBuf.append(reImpl.leftContext.str, leftIndex, leftIndex + leftlen);
+        charBuf.append(reImpl.matchInput, leftIndex, leftIndex + leftlen);
         if (rdata.lambda != null) {
             charBuf.append(lambdaStr);
         } else {
@@ -456,7 +522,7 @@ public class RegExpImpl implements RegExpProxy {
                 }
             } else {
                 /* ECMA 3, 1-9 or 01-99 */
-                int parenCount = (res.parens == null) ? 0 : res.parens.length;
+                int parenCount = res.getParenCount();
                 num = dc - '0';
                 if (num > parenCount) return null;
                 cp = dp + 2;
@@ -483,9 +549,9 @@ public class RegExpImpl implements RegExpProxy {
             case '$':
                 return new SubString("$");
             case '&':
-                return res.lastMatch;
+                return res.getLastMatch();
             case '+':
-                return res.lastParen;
+                return res.getLastParen();
             case '`':
                 if (version == Context.VERSION_1_2) {
                     /*
@@ -495,12 +561,12 @@ public class RegExpImpl implements RegExpProxy {
                      * $` at the beginning of the target string when it is used in a
                      * substitution, so we emulate that special case here.
                      */
-                    res.leftContext.index = 0;
-                    res.leftContext.length = res.lastMatch.index;
+                    res.leftIndex = 0;
+                    res.leftLength = res.matchIndex;
                 }
-                return res.leftContext;
+                return res.getLeftContext();
             case '\'':
-                return res.rightContext;
+                return res.getRightContext();
         }
         return null;
     }
@@ -752,12 +818,15 @@ public class RegExpImpl implements RegExpProxy {
 
     protected String input; /* input string to match (perl $_, GC root) */
     protected boolean multiline; /* whether input contains newlines (perl $*) */
-    protected SubString[]
-            parens; /* Vector of SubString; last set of parens matched (perl $1, $2) */
-    protected SubString lastMatch; /* last string matched (perl $&) */
-    protected SubString lastParen; /* last paren matched (perl $+) */
-    protected SubString leftContext; /* input to left of last match (perl $`) */
-    protected SubString rightContext; /* input to right of last match (perl $') */
+
+    // The last match, from which the other perl variables like $&, $1 and $` are computed
+    private String matchInput; /* input of the last match, or null if there was none */
+    private int matchIndex; /* index of the last string matched (perl $&) */
+    private int matchLength;
+    private int leftIndex; /* index of input to left of last match (perl $`), 0 unless JS1.2 */
+    private int leftLength;
+    private long[] matchParens; /* captures of the last match, see REGlobalData.parens */
+    private int matchParenCount; /* number of captures, or -1 for a match of a plain string */
 }
 
 final class GlobData {
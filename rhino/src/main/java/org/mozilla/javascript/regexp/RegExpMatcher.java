@@ -0,0 +1,52 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.regexp;
+
+/**
+ * The base class of the classes that frequently executed regular expressions are compiled to.
+ * This is only public so that the generated classes, which are defined by their own class loader,
+ * can extend it, and it is not meant to be used by anything else.
+ */
+public abstract class RegExpMatcher {
+
+    /** What {@link #match} returns if the input is too long for the generated code. */
+    public static final int TOO_DEEP = -2;
+
+    /** The bitmaps of the character classes of the regular expression. */
+    protected final byte[][] classBits;
+
+    protected RegExpMatcher(byte[][] classBits) {
+        this.classBits = classBits;
+    }
+
+    /**
+     * Match the regular expression at the position cp of the input, and return the end of the
+     * match, or -1 if it does not match there. The start and the end of the capture i are stored
+     * in the slots 2 + 2 * i and 3 + 2 * i, or -1 if it did not take part in the match. The slots
+     * of the captures must be -1 when this is called, and they are again if there is no match.
+     * If the match would need more nested calls than the generated code allows, return {@link
+     * #TOO_DEEP} and leave the slots as they are.
+     */
+    public abstract int match(String input, int cp, int end, boolean multiline, int[] slots);
+
+    protected static char upcase(char c) {
+        return NativeRegExp.upcase(c);
+    }
+
+    protected static boolean isLineStart(String input, int cp, boolean multiline) {
+        return cp == 0 || (multiline && NativeRegExp.isLineTerm(input.charAt(cp - 1)));
+    }
+
+    protected static boolean isLineEnd(String input, int cp, int end, boolean multiline) {
+        return cp == end || (multiline && NativeRegExp.isLineTerm(input.charAt(cp)));
+    }
+
+    protected static boolean isWordBoundary(String input, int cp, int end) {
+        return (cp == 0 || !NativeRegExp.isWord(input.charAt(cp - 1)))
+                ^ !(cp < end && NativeRegExp.isWord(input.charAt(cp)));
+    }
+}
@@ -0,0 +1,206 @@
+package org.mozilla.javascript;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class ConcurrentSlotMapTest {
+    private static final int THREADS = 4;
+    private static final int KEYS_PER_THREAD = 2000;
+
+    private static void runThreads(ThreadBody body) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                futures.add(
+                        executor.submit(
+                                () -> {
+                                    start.await();
+                                    body.run(thread);
+                                    return null;
+                                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+
+    @Test
+    public void concurrentInserts() throws Exception {
+        ConcurrentSlotMap map = new ConcurrentSlotMap();
+        runThreads(
+                thread -> {
+                    for (int i = 0; i < KEYS_PER_THREAD; i++) {
+                        String key = "k" + thread + '_' + i;
+                        map.modify(key, 0, 0).value = key;
+                        map.modify(null, thread * KEYS_PER_THREAD + i, 0).value = key;
+                        // Every thread also races to create the same keys
+                        map.modify("shared" + i, 0, 0);
+                    }
+                });
+        assertEquals(THREADS * KEYS_PER_THREAD * 2 + KEYS_PER_THREAD, map.size());
+
+        // Each thread's keys are enumerated in the order in which that thread added them
+        int[] lastSeen = new int[THREADS];
+        int count = 0;
+        for (Slot slot : map) {
+            count++;
+            if (slot.name instanceof String && ((String) slot.name).startsWith("k")) {
+                String[] parts = ((String) slot.name).substring(1).split("_");
+                int thread = Integer.parseInt(parts[0]);
+                int i = Integer.parseInt(parts[1]);
+                assertEquals(lastSeen[thread], i);
+                lastSeen[thread] = i + 1;
+                assertEquals(slot.value, map.query(null, thread * KEYS_PER_THREAD + i).value);
+            }
+        }
+        assertEquals(map.size(), count);
+    }
+
+    @Test
+    public void concurrentComputeKeepsOneSlot() throws Exception {
+        ConcurrentSlotMap map = new ConcurrentSlotMap();
+        map.modify("first", 0, 0);
+        runThreads(
+                thread -> {
+                    for (int i = 0; i < KEYS_PER_THREAD; i++) {
+                        map.compute(
+                                "counter",
+                                0,
+                                (k, ix, existing) -> {
+                                    Slot s = existing == null ? new Slot(k, ix, 0) : existing;
+                                    s.value = s.value == null ? 1 : (Integer) s.value + 1;
+                                    return s;
+                                });
+                        map.compute(
+                                "accessor",
+                                0,
+                                (k, ix, existing) -> {
+                                    if (existing instanceof AccessorSlot) {
+                                        return new Slot(existing);
+                                    }
+                                    return existing == null
+                                            ? new AccessorSlot(k, ix)
+                                            : new AccessorSlot(existing);
+                                });
+                    }
+                });
+        assertEquals(THREADS * KEYS_PER_THREAD, map.query("counter", 0).value);
+        assertFalse(map.query("accessor", 0) instanceof AccessorSlot);
+
+        Iterator<Slot> it = map.iterator();
+        assertEquals("first", it.next().name);
+        assertEquals("counter", it.next().name);
+        assertEquals("accessor", it.next().name);
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void iterateWhileModifying() throws Exception {
+        ConcurrentSlotMap map = new ConcurrentSlotMap();
+        for (int i = 0; i < 100; i++) {
+            map.modify("stable" + i, 0, 0);
+        }
+        runThreads(
+                thread -> {
+                    for (int i = 0; i < KEYS_PER_THREAD; i++) {
+                        if (thread == 0) {
+                            int stable = 0;
+                            for (Slot slot : map) {
+                                assertNotNull(slot);
+                                if (((String) slot.name).startsWith("stable")) {
+                                    stable++;
+                                }
+                            }
+                            assertEquals(100, stable);
+                        } else {
+                            String key = "temp" + thread + '_' + i;
+                            map.modify(key, 0, 0);
+                            map.compute(key, 0, (k, ix, existing) -> null);
+                        }
+                    }
+                });
+        assertEquals(100, map.size());
+    }
+
+    private static final ContextFactory concurrentFactory =
+            new ContextFactory() {
+                @Override
+                protected boolean hasFeature(Context cx, int featureIndex) {
+                    if (featureIndex == Context.FEATURE_THREAD_SAFE_OBJECTS
+                            || featureIndex == Context.FEATURE_CONCURRENT_OBJECTS) {
+                        return true;
+                    }
+                    return super.hasFeature(cx, featureIndex);
+                }
+            };
+
+    @Test
+    public void getIdsWhileModifying() throws Exception {
+        NativeObject obj;
+        try (Context cx = concurrentFactory.enterContext()) {
+            obj = new NativeObject();
+        }
+        runThreads(
+                thread -> {
+                    for (int i = 0; i < KEYS_PER_THREAD; i++) {
+                        if (thread == 0) {
+                            for (Object id : obj.getIds()) {
+                                assertTrue(((String) id).startsWith("temp"));
+                            }
+                        } else {
+                            // Grow the object from empty and shrink it back to empty, so that
+                            // its size changes between reading it and iterating over it
+                            for (int j = 0; j < 20; j++) {
+                                obj.put("temp" + thread + '_' + j, obj, j);
+                            }
+                            for (int j = 0; j < 20; j++) {
+                                obj.delete("temp" + thread + '_' + j);
+                            }
+                        }
+                    }
+                });
+        assertEquals(0, obj.getIds().length);
+    }
+
+    @Test
+    public void threadSafeObjects() {
+        try (Context cx = concurrentFactory.enterContext()) {
+            cx.setLanguageVersion(Context.VERSION_ES6);
+            ScriptableObject global = cx.initStandardObjects();
+            Object result =
+                    cx.evaluateString(
+                            global,
+                            "var o = {b: 1, a: 2, 0: 3};\n"
+                                    + "Object.defineProperty(o, 'c', {get() { return 4; },"
+                                    + " enumerable: true});\n"
+                                    + "delete o.b;\n"
+                                    + "o.b = 5;\n"
+                                    + "JSON.stringify(o) + Object.keys(o)",
+                            "test",
+                            1,
+                            null);
+            assertEquals("{\"0\":3,\"a\":2,\"c\":4,\"b\":5}0,a,c,b", result);
+            global.sealObject();
+        }
+    }
+}
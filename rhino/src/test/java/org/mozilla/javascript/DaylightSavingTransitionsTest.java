@@ -0,0 +1,62 @@
+package org.mozilla.javascript;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Date;
+import java.util.Random;
+import java.util.SimpleTimeZone;
+import java.util.TimeZone;
+import org.junit.Test;
+
+public class DaylightSavingTransitionsTest {
+    // Random number generator with fixed seed to ensure repeatable tests
+    private static final Random rand = new Random(0);
+
+    @Test
+    public void agreesWithTimeZone() {
+        for (String id :
+                new String[] {
+                    "UTC",
+                    "Europe/Berlin",
+                    "America/New_York",
+                    "America/Argentina/Buenos_Aires",
+                    "Australia/Lord_Howe",
+                    "Africa/Casablanca",
+                    "Asia/Gaza",
+                    "PST"
+                }) {
+            TimeZone tz = TimeZone.getTimeZone(id);
+            DaylightSavingTransitions transitions = DaylightSavingTransitions.forTimeZone(tz);
+            for (int i = 0; i < 20000; i++) {
+                long t = (long) (rand.nextDouble() * 2.2e12);
+                int daylight = transitions.isDaylightTime(t);
+                if (daylight >= 0) {
+                    assertEquals(
+                            id + " at " + t, tz.inDaylightTime(new Date(t)), daylight == 1);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void timeZonesWithOtherRulesAreNotCovered() {
+        TimeZone custom =
+                new SimpleTimeZone(
+                        -5 * 60 * 60 * 1000,
+                        "America/New_York",
+                        0,
+                        1,
+                        0,
+                        60 * 60 * 1000,
+                        6,
+                        1,
+                        0,
+                        60 * 60 * 1000);
+        assertSame(DaylightSavingTransitions.NONE, DaylightSavingTransitions.forTimeZone(custom));
+        assertSame(
+                DaylightSavingTransitions.NONE,
+                DaylightSavingTransitions.forTimeZone(new SimpleTimeZone(0, "No/Such_Zone")));
+        assertEquals(-1, DaylightSavingTransitions.NONE.isDaylightTime(0));
+    }
+}
@@ -33,9 +33,19 @@ public class SlotMapTest {
                     {HashSlotMap.class},
                     {SlotMapContainer.class},
                     {ThreadSafeSlotMapContainer.class},
+                    {ConcurrentSlotMap.class},
+                    {ConcurrentSlotMapContainer.class},
+                    {ShapedSlotMapContainer.class},
                 });
     }
 
+    /** A container that starts out with a ShapedSlotMap, like the one in NativeObject. */
+    static class ShapedSlotMapContainer extends SlotMapContainer {
+        ShapedSlotMapContainer() {
+            useShapes();
+        }
+    }
+
     @Test
     public void empty() {
         assertEquals(0, map.size());
@@ -214,6 +224,123 @@ public class SlotMapTest {
         }
     }
 
+    @Test
+    public void keysOnlyKeepOrder() {
+        // Only string keys, so that maps that track shapes keep doing so for a while
+        for (String key : KEYS) {
+            Slot newSlot = map.modify(key, 0, 0);
+            newSlot.value = key;
+        }
+        map.compute(KEYS[1], 0, (k, ii, e) -> null);
+        Slot readded = map.modify(KEYS[1], 0, 0);
+        readded.value = KEYS[1];
+        assertEquals(KEYS.length, map.size());
+
+        long lockStamp = 0;
+        if (map instanceof SlotMapContainer) {
+            lockStamp = ((SlotMapContainer) map).readLock();
+        }
+        try {
+            Iterator<Slot> it = map.iterator();
+            for (int i = 0; i < KEYS.length; i++) {
+                if (i == 1) {
+                    continue;
+                }
+                assertTrue(it.hasNext());
+                assertEquals(KEYS[i], it.next().value);
+            }
+            assertTrue(it.hasNext());
+            assertSame(readded, it.next());
+            assertFalse(it.hasNext());
+        } finally {
+            if (map instanceof SlotMapContainer) {
+                ((SlotMapContainer) map).unlockRead(lockStamp);
+            }
+        }
+    }
+
+    @Test
+    public void largeMapKeepsOrder() {
+        final int size = 20000;
+        for (int i = 0; i < size; i++) {
+            map.modify(null, i, 0).value = i;
+            map.modify("key" + i, 0, 0).value = i;
+        }
+        assertEquals(size * 2, map.size());
+
+        // Remove and re-add every third property of each kind, which moves them to the end
+        for (int i = 0; i < size; i += 3) {
+            map.compute(null, i, (k, ii, e) -> null);
+            map.compute("key" + i, 0, (k, ii, e) -> null);
+        }
+        for (int i = 0; i < size; i += 3) {
+            assertNull(map.query(null, i));
+            assertNull(map.query("key" + i, 0));
+            map.modify(null, i, 0).value = -i;
+        }
+        assertEquals(size * 2 - (size + 2) / 3, map.size());
+
+        long lockStamp = 0;
+        if (map instanceof SlotMapContainer) {
+            lockStamp = ((SlotMapContainer) map).readLock();
+        }
+        try {
+            Iterator<Slot> it = map.iterator();
+            for (int i = 0; i < size; i++) {
+                if (i % 3 == 0) {
+                    continue;
+                }
+                Slot slot = it.next();
+                assertNull(slot.name);
+                assertEquals(i, slot.indexOrHash);
+                slot = it.next();
+                assertEquals("key" + i, slot.name);
+                assertSame(slot, map.query("key" + i, 0));
+            }
+            for (int i = 0; i < size; i += 3) {
+                Slot slot = it.next();
+                assertEquals(-i, slot.value);
+                assertSame(slot, map.query(null, i));
+            }
+            assertFalse(it.hasNext());
+        } finally {
+            if (map instanceof SlotMapContainer) {
+                ((SlotMapContainer) map).unlockRead(lockStamp);
+            }
+        }
+    }
+
+    @Test
+    public void collidingKeysSwitchMaps() {
+        // All of the keys have the same hash code
+        for (String key : KEYS) {
+            map.modify(key, 0, 0).value = key;
+        }
+        for (String key : KEYS) {
+            assertEquals(key, map.query(key, 0).value);
+        }
+        if (map.getClass() == SlotMapContainer.class) {
+            assertTrue(((SlotMapContainer) map).map instanceof HashSlotMap);
+        }
+    }
+
+    @Test
+    public void clusteredKeysSwitchMaps() {
+        // The keys have different hash codes that all fall into the first bucket of the table,
+        // because multiplying them by the golden ratio constant of EmbeddedSlotMap gives i
+        final int inverse = 0x144cbc89;
+        final int size = 2000;
+        for (int i = 0; i < size; i++) {
+            map.modify(null, i * inverse, 0).value = i;
+        }
+        for (int i = 0; i < size; i++) {
+            assertEquals(i, map.query(null, i * inverse).value);
+        }
+        if (map.getClass() == SlotMapContainer.class) {
+            assertTrue(((SlotMapContainer) map).map instanceof HashSlotMap);
+        }
+    }
+
     private void verifyIndicesAndKeys() {
         long lockStamp = 0;
         if (map instanceof SlotMapContainer) {
@@ -0,0 +1,134 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assume.assumeNoException;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+
+/** Check how ContextFactory.call associates a Context with the thread, whatever the VMBridge. */
+public class ContextCallTest {
+
+    private final ContextFactory factory = new ContextFactory();
+
+    @Test
+    public void callAssociatesContextForItsDurationOnly() {
+        Context cx =
+                factory.call(
+                        c -> {
+                            assertSame(c, Context.getCurrentContext());
+                            assertSame(c, factory.enterContext());
+                            Context.exit();
+                            assertSame(c, factory.call(inner -> inner));
+                            assertSame(c, Context.getCurrentContext());
+                            return c;
+                        });
+        assertNull(Context.getCurrentContext());
+        // the Context is no longer entered, so it can be entered again
+        try (Context entered = factory.enterContext(cx)) {
+            assertSame(cx, entered);
+        }
+    }
+
+    @Test
+    public void callUsesContextEnteredBefore() {
+        try (Context cx = factory.enterContext()) {
+            assertSame(cx, factory.call(c -> c));
+            assertSame(cx, Context.getCurrentContext());
+        }
+        assertNull(Context.getCurrentContext());
+    }
+
+    @Test
+    public void callReleasesContextOnException() {
+        try {
+            factory.call(
+                    c -> {
+                        throw new IllegalArgumentException();
+                    });
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertNull(Context.getCurrentContext());
+    }
+
+    @Test
+    public void callOnManyThreads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                String source = i + " + 1";
+                results.add(
+                        executor.submit(
+                                () ->
+                                        factory.call(
+                                                c ->
+                                                        c.evaluateString(
+                                                                c.initSafeStandardObjects(),
+                                                                source,
+                                                                "call.js",
+                                                                1,
+                                                                null))));
+            }
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i + 1, ((Number) results.get(i).get()).intValue());
+            }
+            assertNull(executor.submit(Context::getCurrentContext).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void callCreatesNoThreadLocalMap() throws Exception {
+        // From Java 25, the Context is bound with a ScopedValue instead of a ThreadLocal
+        assumeTrue(Runtime.version().feature() >= 25);
+        Field threadLocals = null;
+        try {
+            threadLocals = Thread.class.getDeclaredField("threadLocals");
+            threadLocals.setAccessible(true);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            assumeNoException(e);
+        }
+        // A Context entered on another thread must not make call look for one in this thread
+        try (Context other = factory.enterContext()) {
+            Object[] map = new Object[1];
+            Field field = threadLocals;
+            Thread thread =
+                    new Thread(
+                            () -> {
+                                factory.call(
+                                        c ->
+                                                c.evaluateString(
+                                                        c.initSafeStandardObjects(),
+                                                        "1 + 1",
+                                                        "call.js",
+                                                        1,
+                                                        null));
+                                try {
+                                    map[0] = field.get(Thread.currentThread());
+                                } catch (IllegalAccessException e) {
+                                    map[0] = e;
+                                }
+                            });
+            thread.start();
+            thread.join();
+            assertNull(map[0]);
+        }
+    }
+}
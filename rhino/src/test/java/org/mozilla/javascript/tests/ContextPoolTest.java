@@ -0,0 +1,106 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+
+public class ContextPoolTest {
+
+    private static class CountingFactory extends ContextFactory implements ContextFactory.Listener {
+        int created;
+        int released;
+
+        CountingFactory() {
+            addListener(this);
+        }
+
+        @Override
+        protected Context makeContext() {
+            Context cx = super.makeContext();
+            cx.setLanguageVersion(Context.VERSION_ES6);
+            return cx;
+        }
+
+        @Override
+        public void contextCreated(Context cx) {
+            created++;
+        }
+
+        @Override
+        public void contextReleased(Context cx) {
+            released++;
+        }
+    }
+
+    @Test
+    public void contextsAreNotReusedByDefault() {
+        ContextFactory factory = new ContextFactory();
+        Context first = factory.call(cx -> cx);
+        Context second = factory.call(cx -> cx);
+        assertNotSame(first, second);
+        assertEquals(0, factory.getContextPoolSize());
+        assertEquals(0, factory.getContextPoolHits());
+    }
+
+    @Test
+    public void releasedContextIsReused() {
+        CountingFactory factory = new CountingFactory();
+        factory.setContextPoolSize(4);
+        Context first;
+        try (Context cx = factory.enterContext()) {
+            first = cx;
+        }
+        Context second = factory.call(cx -> cx);
+        assertSame(first, second);
+        assertEquals(1, factory.getContextPoolHits());
+        assertEquals(1, factory.created);
+        assertEquals(2, factory.released);
+    }
+
+    @Test
+    public void reusedContextHasSettingsOfNewContext() {
+        ContextFactory factory = new CountingFactory();
+        factory.setContextPoolSize(1);
+        factory.call(
+                cx -> {
+                    cx.setLanguageVersion(Context.VERSION_1_8);
+                    cx.setOptimizationLevel(-1);
+                    cx.putThreadLocal("key", "value");
+                    return cx.evaluateString(
+                            cx.initStandardObjects(), "/a(b)/.exec('ab')", "pool.js", 1, null);
+                });
+        factory.call(
+                cx -> {
+                    assertEquals(Context.VERSION_ES6, cx.getLanguageVersion());
+                    assertEquals(0, cx.getOptimizationLevel());
+                    assertNull(cx.getThreadLocal("key"));
+                    assertEquals(
+                            "",
+                            cx.evaluateString(
+                                    cx.initStandardObjects(), "RegExp.$1", "pool.js", 1, null));
+                    return null;
+                });
+        assertEquals(1, factory.getContextPoolHits());
+    }
+
+    @Test
+    public void contextsOfApplicationAreNotPooled() {
+        ContextFactory factory = new ContextFactory();
+        factory.setContextPoolSize(4);
+        Context own = new Context(factory) {};
+        try (Context cx = factory.enterContext(own)) {
+            assertSame(own, cx);
+        }
+        assertNotSame(own, factory.call(cx -> cx));
+        assertEquals(0, factory.getContextPoolHits());
+    }
+}
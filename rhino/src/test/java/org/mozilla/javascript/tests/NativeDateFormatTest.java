@@ -0,0 +1,64 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import org.junit.Test;
+
+/** Check the ISO 8601 and RFC 1123 formats of toISOString, toUTCString and Date.parse. */
+public class NativeDateFormatTest {
+
+    @Test
+    public void toISOString() {
+        Utils.assertWithAllOptimizationLevels(
+                "2000-02-29T09:41:40.123Z|1969-12-31T23:59:59.999Z|+275760-09-13T00:00:00.000Z"
+                        + "|-271821-04-20T00:00:00.000Z|0000-01-01T00:00:00.000Z",
+                "[951817300123, -1, 8.64e15, -8.64e15, -62167219200000]"
+                        + ".map(function(t) { return new Date(t).toISOString(); }).join('|')");
+    }
+
+    @Test
+    public void toUTCString() {
+        Utils.assertWithAllOptimizationLevels(
+                "Tue, 29 Feb 2000 09:41:40 GMT|Wed, 31 Dec 1969 23:59:59 GMT"
+                        + "|Sat, 13 Sep 275760 00:00:00 GMT|Tue, 20 Apr -271821 00:00:00 GMT",
+                "[951817300123, -1, 8.64e15, -8.64e15]"
+                        + ".map(function(t) { return new Date(t).toUTCString(); }).join('|')");
+    }
+
+    @Test
+    public void parseISOString() {
+        Utils.assertWithAllOptimizationLevels(
+                "951817300123|NaN|NaN|NaN|-62167219200000|951782400000",
+                "['2000-02-29T09:41:40.123Z', '1999-02-29T09:41:40.123Z',"
+                        + " '2000-02-29T24:41:40.123Z', '2000-02-29T09:41:40.123z',"
+                        + " '0000-01-01T00:00:00.000Z', '2000-02-29T00:00:00.000+00:00']"
+                        + ".map(Date.parse).join('|')");
+    }
+
+    @Test
+    public void parseRFC1123String() {
+        // the week day is ignored and days beyond the end of the month carry over,
+        // as in other formats
+        Utils.assertWithAllOptimizationLevels(
+                "951817300000|951817300000|951990100000|-59006413100000|951817300000|NaN",
+                "['Tue, 29 Feb 2000 09:41:40 GMT', 'Sun, 29 Feb 2000 09:41:40 GMT',"
+                        + " 'Tue, 31 Feb 2000 09:41:40 GMT', 'Sun, 28 Feb 0100 09:41:40 GMT',"
+                        + " 'tue, 29 feb 2000 09:41:40 gmt', 'Tue, 29 Feb 2000 09:41:40 XYZ']"
+                        + ".map(Date.parse).join('|')");
+    }
+
+    @Test
+    public void parseFormattedDate() {
+        Utils.assertWithAllOptimizationLevels(
+                true,
+                "var ok = true;\n"
+                        + "for (var t = -5e13; t < 2.5e14; t += 12345678901) {\n"
+                        + "  var d = new Date(t);\n"
+                        + "  ok = ok && Date.parse(d.toISOString()) === t\n"
+                        + "      && Date.parse(d.toUTCString()) === Math.floor(t / 1000) * 1000;\n"
+                        + "}\n"
+                        + "ok");
+    }
+}
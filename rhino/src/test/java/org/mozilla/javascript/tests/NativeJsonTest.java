@@ -6,10 +6,17 @@
 package org.mozilla.javascript.tests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import org.junit.Test;
 import org.mozilla.javascript.Context;
+import org.mozilla.javascript.NativeJSON;
 import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.Undefined;
 
 /** @author Ronald Brill */
 public class NativeJsonTest {
@@ -26,4 +33,28 @@ public class NativeJsonTest {
             assertEquals("java.lang.String", result.getClass().getName());
         }
     }
+
+    @Test
+    public void stringifyToWriter() throws Exception {
+        String jsScript =
+                "var a = []; for (var i = 0; i < 3000; i++) a.push({i: i, s: 'x\\n' + i}); a";
+
+        try (Context cx = Context.enter()) {
+            Scriptable jsScope = cx.initStandardObjects();
+            Object value = cx.evaluateString(jsScope, jsScript, "myscript.js", 1, null);
+            Object expected = NativeJSON.stringify(cx, jsScope, value, null, 2);
+
+            StringWriter writer = new StringWriter();
+            assertTrue(NativeJSON.stringify(cx, jsScope, value, null, 2, writer));
+            assertEquals(expected, writer.toString());
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertTrue(NativeJSON.stringify(cx, jsScope, "\u00e9", null, null, out));
+            assertEquals("\"\u00e9\"", new String(out.toByteArray(), StandardCharsets.UTF_8));
+
+            writer = new StringWriter();
+            assertFalse(NativeJSON.stringify(cx, jsScope, Undefined.instance, writer));
+            assertEquals("", writer.toString());
+        }
+    }
 }
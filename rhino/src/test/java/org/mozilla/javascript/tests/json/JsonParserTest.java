@@ -7,6 +7,9 @@ package org.mozilla.javascript.tests.json;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -269,6 +272,45 @@ public class JsonParserTest {
         parser.parseValue("1.");
     }
 
+    @Test
+    public void shouldParseFromReaderAcrossBufferBoundaries() throws Exception {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 5000; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"k\\u0041\":\"v").append(i);
+            json.append("\",\"n\":-").append(i).append(".5e1}");
+        }
+        json.append(']');
+        NativeArray array = (NativeArray) parser.parseReader(new StringReader(json.toString()));
+        assertEquals(5000, array.getLength());
+        NativeObject last = (NativeObject) array.get(4999);
+        assertEquals("v4999", last.get("kA"));
+        assertEquals(-49995, last.get("n"));
+    }
+
+    @Test
+    public void shouldParseUtf8Bytes() throws Exception {
+        String json = "[\"\u00e9\ud83d\ude00\", true, null]";
+        ByteBuffer bytes = ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+        NativeArray array = (NativeArray) parser.parseUtf8(bytes);
+        assertEquals("\u00e9\ud83d\ude00", array.get(0));
+        assertEquals(true, array.get(1));
+        assertEquals(null, array.get(2));
+        assertEquals(0, bytes.position());
+    }
+
+    @Test(expected = ParseException.class)
+    public void shouldFailToParseMalformedUtf8() throws Exception {
+        parser.parseUtf8(ByteBuffer.wrap(new byte[] {'"', (byte) 0xff, '"'}));
+    }
+
+    @Test(expected = ParseException.class)
+    public void shouldFailToParseTruncatedReader() throws Exception {
+        parser.parseReader(new StringReader("{\"a\": [1, 2"));
+    }
+
     private String str(char... chars) {
         return new String(chars);
     }
@@ -0,0 +1,111 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
+
+/** Checks the fast paths of Array.prototype.sort against the results of the generic sort. */
+public class ArraySortTest {
+
+    private static void assertResult(String expected, String script) {
+        Utils.runWithAllOptimizationLevels(
+                cx -> {
+                    cx.setLanguageVersion(Context.VERSION_ES6);
+                    Scriptable scope = cx.initStandardObjects();
+                    Object result = cx.evaluateString(scope, script, "test.js", 1, null);
+                    assertEquals(script, expected, Context.toString(result));
+                    return null;
+                });
+    }
+
+    @Test
+    public void defaultOrderIsStringOrder() {
+        assertResult(
+                "-1,-20,-3,1,10,2,9", "var a = []; a.push(10, 9, 1, 2, -3, -20, -1); a.sort()");
+        assertResult(
+                "0.5,1e+21,2,Infinity", "var a = []; a.push(2, Infinity, 1e21, 0.5); a.sort()");
+        assertResult("1,10,2,NaN", "[NaN, 2, 10, 1].sort()");
+        assertResult("Infinity,-Infinity", "var a = [0, -0]; a.sort(); [1 / a[0], 1 / a[1]]");
+        assertResult("B,a,b,\u00e4", "['b', '\u00e4', 'a', 'B'].sort()");
+        assertResult("1,2,a,b", "['b', 2, 'a', 1].sort()");
+        assertResult("a,b,,", "var a = ['b', undefined, 'a']; a.length = 4; a.sort(); a.join()");
+        assertResult("false", "var a = ['b', undefined, 'a']; a.length = 4; a.sort(); 3 in a");
+    }
+
+    @Test
+    public void numericComparators() {
+        assertResult("-3,1,2,10", "var a = []; a.push(10, 1, -3, 2); a.sort((a, b) => a - b)");
+        assertResult("10,2,1,-3", "var a = []; a.push(10, 1, -3, 2); a.sort((x, y) => y - x)");
+        assertResult("0.5,1,2.5", "[2.5, 1, 0.5].sort(function (a, b) { return a - b; })");
+        assertResult("2.5,1,0.5", "[1, 2.5, 0.5].sort(function cmp(p,q){return q-p})");
+        assertResult("1,2,3", "[3, 1, 2].sort((a, b) => { return a - b })");
+        assertResult("3,1,2", "[3, 1, 2].sort((a, a2) => a - a)");
+        assertResult(
+                "-1,-Infinity,1",
+                "var a = [1, -0, -1]; a.sort((a, b) => a - b); [a[0], 1 / a[1], a[2]]");
+        assertResult("a,1,2", "['a', 2, 1].sort((a, b) => a - b)");
+        assertResult("1,2,", "[2, undefined, 1].sort((a, b) => a - b)");
+    }
+
+    @Test
+    public void otherComparators() {
+        assertResult("3,2,1", "[1, 2, 3].sort((a, b) => b > a ? 1 : b < a ? -1 : 0)");
+        assertResult(
+                "1,2,3,caught",
+                "var a = [1, 2, 3];"
+                        + " try { a.sort(() => { throw 'x'; }); } catch (e) { a.push('caught'); }"
+                        + " a");
+        assertResult(
+                "3",
+                "var a = []; a.push(3, 1, 2);"
+                        + " a.sort((x, y) => { a.length = 0; return x - y; }); a.length");
+        assertResult(
+                "1,2,3",
+                "var a = [2, 3, 1]; a.sort((x, y) => { a.push(0); return x - y; }); a.slice(0, 3)");
+    }
+
+    private static void assertKeepsElements(String array, String sort) {
+        Utils.runWithAllOptimizationLevels(
+                cx -> {
+                    cx.setLanguageVersion(Context.VERSION_ES6);
+                    Scriptable scope = cx.initStandardObjects();
+                    List<?> before = (List<?>) cx.evaluateString(scope, array, "test.js", 1, null);
+                    Map<String, Class<?>> classes = new HashMap<>();
+                    for (Object element : before) {
+                        classes.put(Context.toString(element), element.getClass());
+                    }
+                    List<?> after = (List<?>) cx.evaluateString(scope, sort, "test.js", 1, null);
+                    assertEquals(before.size(), after.size());
+                    for (Object element : after) {
+                        assertEquals(
+                                sort, classes.get(Context.toString(element)), element.getClass());
+                    }
+                    return null;
+                });
+    }
+
+    @Test
+    public void elementsKeepTheirTypes() {
+        assertKeepsElements("var a = [3, 1.5, 2, 10]; a", "a.sort()");
+        assertKeepsElements("var a = [3, 1.5, 2, 10]; a", "a.sort((x, y) => x - y)");
+        assertKeepsElements("var a = [3, 1.5, 2, 10]; a", "a.sort((x, y) => y - x)");
+        assertKeepsElements("var a = []; a.push(4, 1, 3); a.push(2.5); a", "a.sort()");
+        assertKeepsElements(
+                "var a = []; a.push(4, 1, 3); a.push(2.5); a", "a.sort((x, y) => x - y)");
+    }
+
+    @Test
+    public void frozenArrays() {
+        assertResult("2,1", "var a = [2, 1]; Object.freeze(a); a.sort()");
+        assertResult("1,2", "var a = [2, 1]; Object.preventExtensions(a); a.sort()");
+    }
+}
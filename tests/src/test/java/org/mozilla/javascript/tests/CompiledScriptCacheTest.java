@@ -0,0 +1,131 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.io.File;
+import java.nio.file.Files;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mozilla.javascript.CompiledScriptCache;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Function;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+
+public class CompiledScriptCacheTest {
+    private static final String SOURCE =
+            "function f(s) { return /b+/.exec(s)[0] + `-${s.length}`; }\n"
+                    + "var o = {x: 1, y: [2, 3]};\n"
+                    + "f('abbbc') + ':' + JSON.stringify(o)";
+    private static final String RESULT = "bbb-5:{\"x\":1,\"y\":[2,3]}";
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private CompiledScriptCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new CompiledScriptCache(new File(folder.getRoot(), "cache"));
+    }
+
+    private int countEntries() {
+        String[] names = cache.getDirectory().list();
+        return names == null ? 0 : names.length;
+    }
+
+    private Script compile(Context cx, String source) {
+        cx.setLanguageVersion(Context.VERSION_ES6);
+        cx.setCompiledScriptCache(cache);
+        return cx.compileString(source, "test.js", 1, null);
+    }
+
+    private Object exec(Context cx, Script script) {
+        Scriptable scope = cx.initStandardObjects();
+        return script.exec(cx, scope);
+    }
+
+    @Test
+    public void reuseEntries() {
+        for (int level : Utils.DEFAULT_OPT_LEVELS) {
+            Script[] scripts = new Script[2];
+            for (int i = 0; i < 2; i++) {
+                final int n = i;
+                Utils.runWithOptimizationLevel(
+                        cx -> {
+                            scripts[n] = compile(cx, SOURCE);
+                            assertEquals(RESULT, exec(cx, scripts[n]));
+                            return null;
+                        },
+                        level);
+            }
+            assertNotSame(scripts[0], scripts[1]);
+            if (level >= 0) {
+                // Recompiling would have produced a new class name
+                assertEquals(scripts[0].getClass().getName(), scripts[1].getClass().getName());
+            }
+        }
+        // One entry per optimization level
+        assertEquals(Utils.DEFAULT_OPT_LEVELS.length, countEntries());
+    }
+
+    @Test
+    public void separateEntries() {
+        Utils.runWithAllOptimizationLevels(
+                cx -> {
+                    assertEquals("3", exec(cx, compile(cx, "String(1 + 2)")));
+                    assertEquals("12", exec(cx, compile(cx, "'1' + 2")));
+                    cx.setGeneratingSource(false);
+                    assertEquals("3", exec(cx, compile(cx, "String(1 + 2)")));
+                    return null;
+                });
+        assertEquals(3 * Utils.DEFAULT_OPT_LEVELS.length, countEntries());
+    }
+
+    @Test
+    public void functions() {
+        for (int i = 0; i < 2; i++) {
+            Utils.runWithAllOptimizationLevels(
+                    cx -> {
+                        cx.setCompiledScriptCache(cache);
+                        Scriptable scope = cx.initStandardObjects();
+                        Function f =
+                                cx.compileFunction(
+                                        scope, "function (a) { return a * 2; }", "fn.js", 1, null);
+                        assertEquals(
+                                Double.valueOf(42),
+                                Context.jsToJava(
+                                        f.call(cx, scope, scope, new Object[] {21}),
+                                        Double.class));
+                        return null;
+                    });
+        }
+        assertEquals(Utils.DEFAULT_OPT_LEVELS.length, countEntries());
+    }
+
+    @Test
+    public void ignoreBrokenEntries() throws Exception {
+        Utils.runWithAllOptimizationLevels(
+                cx -> {
+                    compile(cx, SOURCE);
+                    return null;
+                });
+        for (File f : cache.getDirectory().listFiles()) {
+            Files.write(f.toPath(), new byte[] {1, 2, 3});
+        }
+        Utils.runWithAllOptimizationLevels(
+                cx -> {
+                    assertEquals(RESULT, exec(cx, compile(cx, SOURCE)));
+                    return null;
+                });
+
+        cache.clear();
+        assertEquals(0, countEntries());
+    }
+}
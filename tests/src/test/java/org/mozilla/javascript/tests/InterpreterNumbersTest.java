@@ -0,0 +1,97 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+
+/** Checks the numeric fast paths of the interpreter, which work on unboxed doubles. */
+public class InterpreterNumbersTest {
+
+    private static void assertResult(String expected, String script) {
+        Utils.runWithAllOptimizationLevels(
+                cx -> {
+                    cx.setLanguageVersion(Context.VERSION_ES6);
+                    Scriptable scope = cx.initStandardObjects();
+                    Object result = cx.evaluateString(scope, script, "test.js", 1, null);
+                    assertEquals(script, expected, Context.toString(result));
+                    return null;
+                });
+    }
+
+    @Test
+    public void arithmetic() {
+        assertResult("-1", "var a = 1, b = 2; a - b");
+        assertResult("6", "var a = 2, b = 3; a * b");
+        assertResult("0.5", "var a = 1, b = 2; a / b");
+        assertResult("-1", "var a = -7, b = 3; a % b");
+        assertResult("1024", "var a = 2, b = 10; a ** b");
+        assertResult("-Infinity", "var a = 0, b = -1; 1 / (a * b)");
+        assertResult("-Infinity", "var o = {x: 0}; 1 / -o.x");
+        assertResult("NaN", "var o = {x: 'a'}; o.x - 1");
+        assertResult("4", "var o = {x: '6'}; o.x - 2");
+    }
+
+    @Test
+    public void bitwise() {
+        assertResult("-2147483648", "var a = 1, b = 31; a << b");
+        assertResult("2", "var a = 1, b = 33; a << b");
+        assertResult("-1", "var a = 4294967295, b = 0; a | b");
+        assertResult("-8", "var a = -16, b = 1; a >> b");
+        assertResult("6", "var a = 5, b = 3; a ^ b");
+        assertResult("-6", "var a = 5; ~a");
+        assertResult("0", "var a = NaN, b = 0; a & b");
+    }
+
+    @Test
+    public void compare() {
+        assertResult("true,false,false,false", "var a = 1, b = 2; [a < b, a > b, b <= a, a >= b]");
+        assertResult(
+                "false,false,false,false", "var a = NaN, b = 2; [a < b, a > b, a <= b, a >= b]");
+        assertResult("true", "var o = {x: 3}; o.x < 4");
+        assertResult("true", "var a = 10; '9' < a");
+    }
+
+    @Test
+    public void bigInt() {
+        assertResult("-1", "var a = 1n, b = 2n; a - b");
+        assertResult("-2", "var a = 2n; -a");
+        assertResult("true", "var a = 1n, b = 2; a < b");
+        assertResult(
+                "TypeError", "var a = 1n, b = 2; try { a * b } catch (e) { e.constructor.name }");
+    }
+
+    @Test
+    public void numbersAreBoxedAsDoubles() {
+        Utils.runWithOptimizationLevel(
+                cx -> {
+                    Scriptable scope = cx.initStandardObjects();
+                    cx.evaluateString(
+                            scope,
+                            "var o = {}; var a = 20, b = 22;"
+                                    + " o.i = a + b; o.big = a * 1e9; o.d = a / 8; o.z = -0 * a;"
+                                    + " var arr = [a - b];",
+                            "test.js",
+                            1,
+                            null);
+                    Scriptable o = (Scriptable) ScriptableObject.getProperty(scope, "o");
+                    assertEquals(Double.valueOf(42), o.get("i", o));
+                    assertEquals(Double.valueOf(2e10), o.get("big", o));
+                    assertEquals(Double.valueOf(2.5), o.get("d", o));
+                    assertEquals(Double.valueOf(-0.0), o.get("z", o));
+                    Scriptable arr = (Scriptable) ScriptableObject.getProperty(scope, "arr");
+                    assertEquals(Double.valueOf(-2), arr.get(0, arr));
+                    assertEquals(
+                            Double.valueOf(42),
+                            cx.evaluateString(scope, "a + b", "test.js", 1, null));
+                    return null;
+                },
+                -1);
+    }
+}
@@ -0,0 +1,235 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.mozilla.javascript.ClassCache;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+
+/**
+ * Checks that bean properties are read and written the same way with and without the generated
+ * accessors of {@link ClassCache#setInvokerOptimizationEnabled(boolean)}.
+ */
+public class JavaBeanAccessorTest {
+
+    public static class Bean {
+        private static String shared = "shared";
+
+        private int count = 1;
+        private long size = 2;
+        private double ratio = 0.5;
+        private boolean enabled = true;
+        private char letter = 'a';
+        private String name = "bean";
+        private int[] values = {1, 2};
+        private Object any;
+        private NonPublic hidden = new NonPublic();
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public void setSize(long size) {
+            this.size = size;
+        }
+
+        public double getRatio() {
+            return ratio;
+        }
+
+        public void setRatio(double ratio) {
+            this.ratio = ratio;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public char getLetter() {
+            return letter;
+        }
+
+        public void setLetter(char letter) {
+            this.letter = letter;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Bean setName(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public int[] getValues() {
+            return values;
+        }
+
+        public void setValues(int[] values) {
+            this.values = values;
+        }
+
+        public Object getAny() {
+            return any;
+        }
+
+        public void setAny(Object any) {
+            this.any = any;
+        }
+
+        public NonPublic getHidden() {
+            return hidden;
+        }
+
+        public void setHidden(NonPublic hidden) {
+            this.hidden = hidden;
+        }
+
+        public String getBroken() {
+            throw new IllegalStateException("broken");
+        }
+
+        public static String getShared() {
+            return shared;
+        }
+
+        public static void setShared(String value) {
+            shared = value;
+        }
+    }
+
+    static class NonPublic {
+        public String getValue() {
+            return "nonPublic";
+        }
+
+        @Override
+        public String toString() {
+            return "NonPublic";
+        }
+    }
+
+    private static String evaluate(Context cx, boolean optimized, String script) {
+        cx.setLanguageVersion(Context.VERSION_ES6);
+        Scriptable scope = cx.initStandardObjects();
+        ClassCache.get(scope).setInvokerOptimizationEnabled(optimized);
+        List<String> list = new ArrayList<>();
+        list.add("a");
+        ScriptableObject.putProperty(scope, "bean", Context.javaToJS(new Bean(), scope));
+        ScriptableObject.putProperty(
+                scope, "Bean", cx.getWrapFactory().wrapJavaClass(cx, scope, Bean.class));
+        ScriptableObject.putProperty(
+                scope, "list", Context.javaToJS(Collections.unmodifiableList(list), scope));
+        Object result = cx.evaluateString(scope, script, "test.js", 1, null);
+        return Context.toString(result);
+    }
+
+    private static void assertResult(String expected, String script) {
+        Utils.runWithAllOptimizationLevels(
+                cx -> {
+                    assertEquals(script, expected, evaluate(cx, false, script));
+                    assertEquals(script, expected, evaluate(cx, true, script));
+                    return null;
+                });
+    }
+
+    @Test
+    public void flag() {
+        try (Context cx = Context.enter()) {
+            ClassCache cache = ClassCache.get(cx.initStandardObjects());
+            assertFalse(cache.isInvokerOptimizationEnabled());
+            cache.setInvokerOptimizationEnabled(true);
+            assertTrue(cache.isInvokerOptimizationEnabled());
+        }
+    }
+
+    @Test
+    public void primitiveProperties() {
+        assertResult(
+                "1,number,2,0.5,true,97",
+                "[bean.count, typeof bean.count, bean.size, bean.ratio, bean.enabled, bean.letter]"
+                        + ".join()");
+        assertResult(
+                "7,8,0.25,false,122",
+                "bean.count = 7; bean.size = 8; bean.ratio = 0.25; bean.enabled = false;"
+                        + " bean.letter = 'z';"
+                        + " [bean.count, bean.size, bean.ratio, bean.enabled, bean.letter].join()");
+        assertResult("3", "bean.count = '3'; bean.count");
+    }
+
+    @Test
+    public void objectProperties() {
+        assertResult("bean,x", "var n = bean.name; bean.name = 'x'; [n, bean.name].join()");
+        assertResult(
+                "1,2,3",
+                "var v = bean.values; bean.values = [3]; [v[0], v[1], bean.values[0]].join()");
+        assertResult(",42.0", "var a = bean.any; bean.any = 42; [a, bean.any].join()");
+        assertResult("NonPublic", "bean.hidden = bean.hidden; String(bean.hidden)");
+        assertResult("a", "list.empty ? '' : list.get(0)");
+    }
+
+    @Test
+    public void staticProperties() {
+        assertResult(
+                "shared,changed",
+                "var s = Bean.shared; Bean.shared = 'changed'; var r = [s, Bean.shared].join();"
+                        + " Bean.shared = 'shared'; r");
+    }
+
+    @Test
+    public void gettersAreCalledThroughTheAccessor() {
+        Utils.runWithAllOptimizationLevels(
+                cx -> {
+                    String script =
+                            "var e; try { bean.broken } catch (x) { e = x.javaException }"
+                                    + " e.getStackTrace()[1].getClassName()";
+                    assertEquals(
+                            "org.mozilla.javascript.MemberBox", evaluate(cx, false, script));
+                    assertTrue(
+                            evaluate(cx, true, script)
+                                    .startsWith("org.mozilla.javascript.gen.JavaBeanAccessor_"));
+                    return null;
+                });
+    }
+
+    @Test
+    public void exceptionsArePropagated() {
+        assertResult(
+                "java.lang.IllegalStateException: broken",
+                "try { bean.broken; 'no exception' } catch (e) { e.javaException.toString() }");
+    }
+
+    @Test
+    public void nullForPrimitive() {
+        String script = "try { bean.count = null; bean.count } catch (e) { e.name }";
+        Utils.runWithAllOptimizationLevels(
+                cx -> {
+                    assertEquals(evaluate(cx, false, script), evaluate(cx, true, script));
+                    return null;
+                });
+    }
+}
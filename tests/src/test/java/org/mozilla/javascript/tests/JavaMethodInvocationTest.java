@@ -0,0 +1,119 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+
+/** Checks calls from scripts to Java methods and constructors, and the choice of overloads. */
+public class JavaMethodInvocationTest {
+
+    public static class Target {
+        public final String value;
+
+        public Target() {
+            this("none");
+        }
+
+        public Target(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public static String pick(int i) {
+            return "int";
+        }
+
+        public static String pick(String s) {
+            return "String";
+        }
+
+        public static String pick(Object o) {
+            return "Object";
+        }
+
+        public static String pick(int i, String s) {
+            return "int,String";
+        }
+
+        public static String join(String separator, String... parts) {
+            return String.join(separator, parts);
+        }
+
+        public void fail(String message) {
+            throw new IllegalStateException(message);
+        }
+    }
+
+    private static void assertResult(String expected, String script) {
+        Utils.runWithAllOptimizationLevels(
+                cx -> {
+                    cx.setLanguageVersion(Context.VERSION_ES6);
+                    Scriptable scope = cx.initStandardObjects();
+                    List<String> list = new ArrayList<>();
+                    list.add("a");
+                    list.add("b");
+                    ScriptableObject.putProperty(
+                            scope,
+                            "Target",
+                            cx.getWrapFactory().wrapJavaClass(cx, scope, Target.class));
+                    ScriptableObject.putProperty(
+                            scope,
+                            "list",
+                            Context.javaToJS(Collections.unmodifiableList(list), scope));
+                    Object result = cx.evaluateString(scope, script, "test.js", 1, null);
+                    assertEquals(script, expected, Context.toString(result));
+                    return null;
+                });
+    }
+
+    @Test
+    public void methodsAndConstructors() {
+        assertResult("none", "new Target().getValue()");
+        assertResult("x", "new Target('x').getValue()");
+        assertResult("x", "new Target('x').value");
+        assertResult("2", "Math.max(1, java.lang.Math.max(2, 0))");
+    }
+
+    @Test
+    public void methodOfNonPublicClass() {
+        assertResult("b,2", "[list.get(1), list.size()].join()");
+    }
+
+    @Test
+    public void overloadsAreChosenByArgumentTypes() {
+        // Call each overload repeatedly, so that the later calls use the cached choices
+        assertResult(
+                "int,String,Object,int,String",
+                "var r; for (var i = 0; i < 10; i++) {"
+                        + " r = [Target.pick(i), Target.pick('s'), Target.pick(new Target()),"
+                        + " Target.pick(i, 's')]; } r.join()");
+    }
+
+    @Test
+    public void varargs() {
+        assertResult("a", "Target.join('-', 'a')");
+        assertResult("a-b-c", "Target.join('-', 'a', 'b', 'c')");
+        assertResult("", "Target.join('-')");
+    }
+
+    @Test
+    public void exceptionsArePropagated() {
+        assertResult(
+                "java.lang.IllegalStateException: boom",
+                "try { new Target().fail('boom'); 'no exception' }"
+                        + " catch (e) { e.javaException.toString() }");
+    }
+}
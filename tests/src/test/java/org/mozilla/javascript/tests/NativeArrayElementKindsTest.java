@@ -0,0 +1,188 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+
+/**
+ * Checks that arrays behave the same whether their elements are stored as unboxed ints, unboxed
+ * doubles, or objects, and when they switch from one kind of storage to another.
+ */
+public class NativeArrayElementKindsTest {
+
+    private static void assertResult(String expected, String script) {
+        Utils.runWithAllOptimizationLevels(
+                cx -> {
+                    cx.setLanguageVersion(Context.VERSION_ES6);
+                    Scriptable scope = cx.initStandardObjects();
+                    Object result = cx.evaluateString(scope, script, "test.js", 1, null);
+                    assertEquals(script, expected, Context.toString(result));
+                    return null;
+                });
+    }
+
+    @Test
+    public void transitions() {
+        assertResult("1,2,3", "var a = []; for (var i = 1; i <= 3; i++) a[i - 1] = i; a.join()");
+        assertResult("1,2.5,3", "var a = [1]; a.push(2.5); a.push(3); a.join()");
+        assertResult("1,x,3", "var a = []; a.push(1, 2, 3); a[1] = 'x'; a.join()");
+        assertResult(
+                "0,1,2,3,4,5,6,7,8,9,10,11",
+                "var a = []; for (var i = 0; i < 12; i++) a[i] = i; a.join()");
+        assertResult(
+                "0,0.5,1,1.5,2", "var a = []; for (var i = 0; i < 5; i++) a[i] = i / 2; a.join()");
+        assertResult("true,false", "var a = []; a[0] = true; a[1] = false; a.join()");
+    }
+
+    @Test
+    public void literals() {
+        assertResult("1,2,3,4", "var a = [1, 2, 3]; a.push(4); a.join()");
+        assertResult("1,2.5,3,4.5", "var a = [1, 2.5, 3]; a.push(4.5); a.join()");
+        assertResult("1,x,3", "var a = [1, 2, 3]; a[1] = 'x'; a.join()");
+        assertResult("1,,3,4", "var a = [1, , 3]; a.push(4); a.join()");
+        assertResult("false,true", "var a = [1, , 3]; [1 in a, 2 in a].join()");
+        assertResult("1,2.5,x", "var a = new Array(1, 2.5); a.push('x'); a.join()");
+        assertResult("0,1", "var a = new Array(); a.push(0, 1); a.join()");
+    }
+
+    @Test
+    public void specialNumbers() {
+        assertResult("-Infinity", "var a = []; a[0] = 1; a[1] = -0; 1 / a[1]");
+        assertResult("Infinity", "var a = []; a[0] = 0; 1 / a[0]");
+        assertResult("NaN,Infinity", "var a = []; a.push(NaN, Infinity); a.join()");
+        assertResult(
+                "true,false",
+                "var a = []; a.push(NaN); [a.includes(NaN), a.indexOf(NaN) >= 0].join()");
+        assertResult("4294967296", "var a = []; a[0] = 4294967296; a[0]");
+        assertResult("-2147483648", "var a = []; a[0] = -2147483648; a[0]");
+    }
+
+    @Test
+    public void holesAndLength() {
+        assertResult("1,,3", "var a = []; a.push(1, 2, 3); delete a[1]; a.join()");
+        assertResult("false", "var a = []; a.push(1, 2, 3); delete a[1]; 1 in a");
+        assertResult("1,2,,4", "var a = []; a.push(1, 2); a[3] = 4; a.join()");
+        assertResult("1,2,,", "var a = []; a.push(1, 2); a.length = 4; a.join()");
+        assertResult("1", "var a = []; a.push(1, 2, 3); a.length = 1; a.join()");
+        assertResult("1,,", "var a = []; a.push(1, 2, 3); a.length = 1; a.length = 3; a.join()");
+        assertResult("0,1,2", "var a = []; a.push(5, 6, 7); Object.keys(a).join()");
+        assertResult("5", "var a = []; a.push(5, 6, 7); a.length = 0; a[1000] = 5; a[1000]");
+    }
+
+    @Test
+    public void arrayMethods() {
+        assertResult("3,1,2", "var a = []; a.push(1, 2, 3); var x = a.pop(); [x, a].join()");
+        assertResult("1,2,3", "var a = []; a.push(1, 2, 3); var x = a.shift(); [x, a].join()");
+        assertResult("0.5,x,1,2", "var a = []; a.push(1, 2); a.unshift(0.5, 'x'); a.join()");
+        assertResult(
+                "2,3|1,9.5,4",
+                "var a = []; a.push(1, 2, 3, 4); var r = a.splice(1, 2, 9.5); r + '|' + a");
+        assertResult("1,a,b,2", "var a = []; a.push(1, 2); a.splice(1, 0, 'a', 'b'); a.join()");
+        assertResult(
+                "1,2,3.5,x",
+                "var a = [], b = [], c = [];"
+                        + " a.push(1, 2); b.push(3.5); c.push('x'); a.concat(b, c).join()");
+        assertResult("3,2.5,1", "var a = []; a.push(1, 2.5, 3); a.reverse().join()");
+        assertResult("4,2,4", "var a = []; a.push(1, 2, 4); a.copyWithin(0, 2).join()");
+        assertResult(
+                "2,-1,1",
+                "var a = []; a.push(1, 2, 1);"
+                        + " [a.lastIndexOf(1), a.indexOf(5), a.indexOf(2)].join()");
+        assertResult("1,2,3,10", "var a = []; a.push(10, 3, 1, 2); a.sort((x, y) => x - y).join()");
+        assertResult("2,4,6", "var a = []; a.push(1, 2, 3); a.map(x => x * 2).join()");
+    }
+
+    @Test
+    public void frozenAndSealed() {
+        assertResult(
+                "1,2",
+                "var a = []; a.push(1, 2); Object.freeze(a); a[0] = 5; a[2] = 3; a.join()");
+        assertResult(
+                "5,2,false",
+                "var a = []; a.push(1, 2); Object.seal(a); a[0] = 5; [a, delete a[1]].join()");
+        assertResult(
+                "5,2",
+                "var a = []; a.push(1, 2); Object.preventExtensions(a); a[0] = 5; a[2] = 3;"
+                        + " a.join()");
+        assertResult(
+                "TypeError",
+                "'use strict'; var a = []; a.push(1); Object.freeze(a);"
+                        + " try { a[0] = 2; } catch (e) { e.constructor.name }");
+    }
+
+    @Test
+    public void elementsStayNumbers() {
+        assertResult(
+                "number,number,string",
+                "var a = []; a.push(1, 1.5, '2'); a.map(x => typeof x).join()");
+        assertResult("3", "var a = []; a.push(1, 2); a[0] + a[1]");
+        assertResult("12", "var a = []; a.push('1', 2); a[0] + a[1]");
+    }
+
+    @Test
+    public void javaSeesTheStoredTypes() {
+        // The interpreter boxes numbers as Doubles, and Integers from Java stay Integers
+        Utils.runWithOptimizationLevel(
+                cx -> {
+                    Scriptable scope = cx.initStandardObjects();
+                    List<?> doubles =
+                            (List<?>)
+                                    cx.evaluateString(
+                                            scope,
+                                            "var arr = []; arr.push(1.5 + 0.5); arr[1] = 1.5 - 0.5;"
+                                                    + " arr",
+                                            "test.js",
+                                            1,
+                                            null);
+                    assertEquals(Arrays.asList(2.0, 1.0), doubles);
+
+                    Scriptable ints = cx.newArray(scope, new Object[] {3, 1});
+                    ints.put(2, ints, 2);
+                    ScriptableObject.putProperty(scope, "ints", ints);
+                    cx.evaluateString(scope, "ints.sort(); ints.reverse();", "test.js", 1, null);
+                    assertEquals(Arrays.asList(3, 2, 1), ints);
+
+                    Scriptable mixed = cx.newArray(scope, 0);
+                    mixed.put(0, mixed, 1);
+                    mixed.put(1, mixed, 2.0);
+                    ScriptableObject.putProperty(scope, "mixed", mixed);
+                    cx.evaluateString(scope, "mixed.push(mixed[0] + 2)", "test.js", 1, null);
+                    assertEquals(Arrays.asList(1, 2.0, 3.0), mixed);
+                    return null;
+                },
+                -1);
+    }
+
+    @Test
+    public void compiledCodeKeepsBoxes() {
+        // Compiled code boxes every element that it reads, so arrays that it creates store the
+        // boxes, and reading an element twice returns the same one
+        Utils.runWithOptimizationLevel(
+                cx -> {
+                    Scriptable scope = cx.initStandardObjects();
+                    cx.evaluateString(
+                            scope,
+                            "var a = [1000, 2.5]; var b = []; b.push(3000, 4.5);",
+                            "test.js",
+                            1,
+                            null);
+                    for (String name : new String[] {"a", "b"}) {
+                        Scriptable array = (Scriptable) ScriptableObject.getProperty(scope, name);
+                        assertSame(array.get(0, array), array.get(0, array));
+                        assertSame(array.get(1, array), array.get(1, array));
+                    }
+                    return null;
+                },
+                9);
+    }
+}
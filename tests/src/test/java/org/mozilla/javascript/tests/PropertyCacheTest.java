@@ -0,0 +1,7 @@
+package org.mozilla.javascript.tests;
+
+import org.mozilla.javascript.drivers.RhinoTest;
+import org.mozilla.javascript.drivers.ScriptTestsBase;
+
+@RhinoTest(value = "testsrc/jstests/property-cache.js")
+public class PropertyCacheTest extends ScriptTestsBase {}
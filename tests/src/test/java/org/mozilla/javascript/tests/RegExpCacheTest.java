@@ -0,0 +1,136 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.EcmaError;
+import org.mozilla.javascript.RegExpCache;
+import org.mozilla.javascript.Scriptable;
+
+public class RegExpCacheTest {
+
+    private static Object eval(Context cx, Scriptable scope, String source) {
+        return cx.evaluateString(scope, source, "test.js", 1, null);
+    }
+
+    /** Create the lazily initialized RegExp constructor, and then reset the cache. */
+    private static Scriptable initScope(Context cx, RegExpCache cache) {
+        Scriptable scope = cx.initStandardObjects();
+        eval(cx, scope, "RegExp.prototype");
+        cache.clear();
+        return scope;
+    }
+
+    @Test
+    public void repeatedPatternsAreCompiledOnce() {
+        RegExpCache cache = new RegExpCache(16);
+        Utils.runWithAllOptimizationLevels(
+                cx -> {
+                    cx.setRegExpCache(cache);
+                    Scriptable scope = initScope(cx, cache);
+                    Object result =
+                            eval(
+                                    cx,
+                                    scope,
+                                    "var s = 'a-b-c'; for (var i = 0; i < 10; i++) {"
+                                            + " s = s.replace(new RegExp('-', 'g'), '+'); } s");
+                    assertEquals("a+b+c", result);
+                    assertEquals(1, cache.getMissCount());
+                    assertEquals(9, cache.getHitCount());
+                    assertEquals(1, cache.size());
+                    return null;
+                });
+    }
+
+    @Test
+    public void flagsArePartOfTheKey() {
+        RegExpCache cache = new RegExpCache(16);
+        Utils.runWithAllOptimizationLevels(
+                cx -> {
+                    cx.setRegExpCache(cache);
+                    Scriptable scope = initScope(cx, cache);
+                    Object result =
+                            eval(
+                                    cx,
+                                    scope,
+                                    "var a = new RegExp('x', 'g'), b = new RegExp('x', 'i'),"
+                                            + " c = new RegExp('x');"
+                                            + " [a.global, a.ignoreCase, b.global, b.ignoreCase,"
+                                            + " c.global, 'X'.replace(b, 'y')].join()");
+                    assertEquals("true,false,false,true,false,y", result);
+                    assertEquals(3, cache.getMissCount());
+                    return null;
+                });
+    }
+
+    @Test
+    public void invalidPatternsAreNotCached() {
+        RegExpCache cache = new RegExpCache(16);
+        try (Context cx = Context.enter()) {
+            cx.setRegExpCache(cache);
+            Scriptable scope = initScope(cx, cache);
+            for (int i = 0; i < 2; i++) {
+                try {
+                    eval(cx, scope, "new RegExp('(')");
+                    fail();
+                } catch (EcmaError e) {
+                    assertEquals("SyntaxError", e.getName());
+                }
+                try {
+                    eval(cx, scope, "new RegExp('a', 'gg')");
+                    fail();
+                } catch (EcmaError e) {
+                    assertEquals("SyntaxError", e.getName());
+                }
+            }
+            assertEquals(0, cache.size());
+            assertEquals(4, cache.getMissCount());
+        }
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvicted() {
+        RegExpCache cache = new RegExpCache(2);
+        try (Context cx = Context.enter()) {
+            cx.setRegExpCache(cache);
+            Scriptable scope = initScope(cx, cache);
+            eval(cx, scope, "new RegExp('a'); new RegExp('b'); new RegExp('a'); new RegExp('c');");
+            assertEquals(2, cache.size());
+            assertEquals(1, cache.getEvictionCount());
+            // "b" was dropped, and "a" was kept
+            eval(cx, scope, "new RegExp('a')");
+            assertEquals(2, cache.getHitCount());
+            eval(cx, scope, "new RegExp('b')");
+            assertEquals(4, cache.getMissCount());
+        }
+    }
+
+    @Test
+    public void contextCanDisableTheFactoryCache() {
+        ContextFactory factory = new ContextFactory();
+        RegExpCache cache = new RegExpCache(8);
+        factory.setRegExpCache(cache);
+        try (Context cx = factory.enterContext()) {
+            assertSame(cache, cx.getRegExpCache());
+            cx.setRegExpCache(null);
+            assertNull(cx.getRegExpCache());
+            Scriptable scope = cx.initStandardObjects();
+            eval(cx, scope, "new RegExp('a'); new RegExp('a');");
+            assertEquals(0, cache.getMissCount() + cache.getHitCount());
+        }
+        try (Context cx = factory.enterContext()) {
+            Scriptable scope = initScope(cx, cache);
+            eval(cx, scope, "new RegExp('a'); new RegExp('a');");
+            assertEquals(1, cache.getHitCount());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
+
+/**
+ * Checks that regexps that are executed often enough to be compiled to Java classes find the same
+ * matches as the interpreter.
+ */
+public class RegExpCompiledMatchingTest {
+
+    private static void assertResult(String expected, String script) {
+        Utils.runWithAllOptimizationLevels(
+                cx -> {
+                    cx.setLanguageVersion(Context.VERSION_ES6);
+                    Scriptable scope = cx.initStandardObjects();
+                    Object result = cx.evaluateString(scope, script, "test.js", 1, null);
+                    assertEquals(script, expected, Context.toString(result));
+                    return null;
+                });
+    }
+
+    /* Execute the regexp often enough to be compiled, and check that every result is the same */
+    private static void assertExec(String expected, String regexp, String input) {
+        assertResult(
+                expected,
+                "var re = "
+                        + regexp
+                        + "; var r = [];"
+                        + " for (var i = 0; i < 300; i++) { var m = re.exec('"
+                        + input
+                        + "'); r.push(m ? JSON.stringify(m) + m.index : m); }"
+                        + " r.every(x => x === r[0]) ? r[0] : r");
+    }
+
+    @Test
+    public void literalsAndClasses() {
+        assertExec("[\"bc\"]1", "/bc/", "abcd");
+        assertExec("[\"BC\"]1", "/bc/i", "aBCd");
+        assertExec("[\"\u00e9\u00c9\"]1", "/\u00c9\u00e9/i", "a\u00e9\u00c9");
+        assertExec("[\"a1_\"]2", "/\\w\\d[^\\s]/", "- a1_");
+        assertExec("[\"x.y\"]0", "/x.y/", "x.y");
+        assertExec("null", "/x.y/", "x\\ny");
+        assertExec("[\"x\\ny\"]0", "/x.y/s", "x\\ny");
+        assertExec("[\"b\"]2", "/[b-d]/", "aAb");
+        assertExec("[\"B\"]1", "/[b-d]/i", "aBb");
+        assertExec("[\"f\"]3", "/[^a-ceg-ikmo-z]/", "apzf");
+        assertExec("[\"n\"]2", "/[acegikmn]/", "xyn");
+        assertExec("[\"\\n\"]0", "/[^]/", "\\nx");
+        assertExec("null", "/abc/", "ab");
+    }
+
+    @Test
+    public void assertions() {
+        assertExec("[\"b\"]2", "/^b/m", "a\\nb");
+        assertExec("null", "/^b/", "a\\nb");
+        assertExec("[\"a\"]0", "/a$/m", "a\\nb");
+        assertExec("[\"cd\"]4", "/\\bcd/", "abc cd");
+        assertExec("[\"bc\"]1", "/\\Bbc/", "abc cd");
+    }
+
+    @Test
+    public void alternativesAndQuantifiers() {
+        assertExec("[\"a\",\"a\",null]0", "/(a|ab)(c|bcd)?/", "abx");
+        assertExec("[\"abcd\",\"a\",\"bcd\"]0", "/(a|ab)(c|bcd)/", "abcd");
+        assertExec("[\"aaa\",\"a\"]0", "/(a)+/", "aaab");
+        assertExec("[\"a\",\"a\"]0", "/(a)+?/", "aaab");
+        assertExec("[\"<a><b>\"]0", "/<.*>/", "<a><b>");
+        assertExec("[\"<a>\"]0", "/<.*?>/", "<a><b>");
+        assertExec("[\"abab\"]0", "/(?:ab)*/", "ababa");
+        assertExec("[\"abababa\"]0", "/(?:ab)*?a$/", "abababa");
+        assertExec("[\"aaa\"]0", "/a{2,3}/", "aaaa");
+        assertExec("[\"aa\"]0", "/a{2,3}?/", "aaaa");
+        assertExec(
+                "[\"zaacbbbcac\",\"z\",\"ac\",\"a\",null,\"c\"]0",
+                "/(z)((a+)?(b+)?(c))*/",
+                "zaacbbbcac");
+        assertExec("[\"ab\",null]0", "/(?:(a)|b)*/", "ab");
+    }
+
+    @Test
+    public void globalMatching() {
+        assertResult(
+                "agggtaaa,tttaccct,AGGGTAAA",
+                "var s = 'xagggtaaaytttaccctzAGGGTAAA'; var m;"
+                        + " for (var i = 0; i < 300; i++) { m = s.match(/agggtaaa|tttaccct/ig); }"
+                        + " m");
+        assertResult(
+                "x-y-z",
+                "var r; for (var i = 0; i < 300; i++) { r = 'x1y2z'.replace(/\\d/g, '-'); } r");
+        assertResult(
+                "a,b,c",
+                "var r; for (var i = 0; i < 300; i++) { r = 'a1b22c'.split(/\\d+/); } r");
+    }
+
+    @Test
+    public void deepBacktrackingFallsBackToTheInterpreter() {
+        assertResult(
+                "true,false,true,false,true,true",
+                "var re = /^(?:a|b)*c$/; var s = 'ab'.repeat(100000); var r;"
+                        + " for (var i = 0; i < 300; i++) { r = re.test('abc'); }"
+                        + " [re.test(s + 'c'), re.test(s), re.test(s + 'c'), re.test(s),"
+                        + " re.test('abc'), re.test('ab'.repeat(600) + 'c')]");
+        // Captures that were set when the generated code gave up are not reported
+        assertExec(
+                "[\"" + "ab".repeat(1500) + "c\",\"b\"]0",
+                "/(a|b)*c/",
+                "ab".repeat(1500) + "c");
+    }
+}
@@ -0,0 +1,79 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
+
+/** Checks the legacy static properties of RegExp, like RegExp.$1, after the different matches. */
+public class RegExpLegacyStaticsTest {
+
+    private static void assertResult(String expected, String script) {
+        Utils.runWithAllOptimizationLevels(
+                cx -> {
+                    cx.setLanguageVersion(Context.VERSION_ES6);
+                    Scriptable scope = cx.initStandardObjects();
+                    Object result = cx.evaluateString(scope, script, "test.js", 1, null);
+                    assertEquals(script, expected, Context.toString(result));
+                    return null;
+                });
+    }
+
+    private static final String STATICS =
+            " [RegExp.lastMatch, RegExp.leftContext, RegExp.rightContext, RegExp.lastParen,"
+                    + " RegExp.$1, RegExp.$2, RegExp.input].join('|')";
+
+    @Test
+    public void beforeAnyMatch() {
+        assertResult("||||||", STATICS);
+    }
+
+    @Test
+    public void exec() {
+        assertResult("b1|a|c|1|b|1|", "/(b)(\\d)/.exec('ab1c');" + STATICS);
+        assertResult("ab|x|y||||", "/ab/.exec('xaby');" + STATICS);
+        assertResult("x|a|b||||", "/(y)?x/.exec('axb');" + STATICS);
+        assertResult("bz", "/(b)/.exec('ab1c'); RegExp['$_'] = 'z'; RegExp.$1 + RegExp.input");
+        assertResult("b,a", "/b/.exec('abc'); /x/.exec('abc'); [RegExp['$&'], RegExp['$`']]");
+    }
+
+    @Test
+    public void globalMatch() {
+        assertResult(
+                "a1,a2|a2|a1-|-b|2",
+                "var m = 'a1-a2-b'.match(/a(\\d)/g);"
+                        + " [m, RegExp.lastMatch, RegExp.leftContext, RegExp.rightContext,"
+                        + " RegExp.$1].join('|')");
+        assertResult("2|xy", "'xyz'.search(/z/) + '|' + RegExp.leftContext");
+    }
+
+    @Test
+    public void replace() {
+        assertResult("a[b1:b:1:1]c", "'ab1c'.replace(/(b)(\\d)/, \"[$&:$1:$2:$+]\")");
+        assertResult("a[a:c]c", "'abc'.replace(/b/, \"[$`:$']\")");
+        assertResult("x<1><2>", "'x12'.replace(/(\\d)/g, '<$1>')");
+        assertResult("x[$+]z", "'xyz'.replace('y', '[$+]')");
+        assertResult("x[y:x:z]z", "'xyz'.replace('y', \"[$&:$`:$']\")");
+        assertResult("y|x|z||||", "'xyz'.replace('y', 'q');" + STATICS);
+        assertResult(
+                "a(b,b,undefined,1,abc)c",
+                "'abc'.replace(/(b)|(x)/, function(m, p1, p2, i, s) {"
+                        + " return '(' + [m, p1, typeof p2, i, s] + ')'; })");
+        assertResult(
+                "x-y-z|1",
+                "var r = 'x1y2z'.replace(/\\d/g, function(m) { return '-'; });"
+                        + " r + '|' + RegExp.rightContext.length");
+    }
+
+    @Test
+    public void split() {
+        assertResult("a,1,b,2,c", "'a1b2c'.split(/(\\d)/).join()");
+        assertResult("a,1,b", "'a1b'.split(/(\\d)|x/).join()");
+        assertResult("a,,b,,c", "'a1b2c'.split(/\\d|(x)/).join()");
+    }
+}
@@ -0,0 +1,128 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
+
+/** Checks that the linear time matcher finds the same matches as the backtracking one. */
+public class RegExpLinearMatchingTest {
+
+    private static void assertResult(String expected, String script) {
+        for (boolean linear : new boolean[] {false, true}) {
+            Utils.runWithAllOptimizationLevels(
+                    cx -> {
+                        cx.setLanguageVersion(Context.VERSION_ES6);
+                        cx.setLinearRegExpMatching(linear);
+                        Scriptable scope = cx.initStandardObjects();
+                        Object result = cx.evaluateString(scope, script, "test.js", 1, null);
+                        assertEquals(script, expected, Context.toString(result));
+                        return null;
+                    });
+        }
+    }
+
+    private static void assertExec(String expected, String regexp, String input) {
+        assertResult(
+                expected,
+                "var m = "
+                        + regexp
+                        + ".exec('"
+                        + input
+                        + "'); m ? JSON.stringify(m) + m.index : m");
+    }
+
+    @Test
+    public void flag() {
+        try (Context cx = Context.enter()) {
+            assertFalse(cx.isLinearRegExpMatching());
+            cx.setLinearRegExpMatching(true);
+            assertTrue(cx.isLinearRegExpMatching());
+        }
+    }
+
+    @Test
+    public void literalsAndClasses() {
+        assertExec("[\"bc\"]1", "/bc/", "abcd");
+        assertExec("[\"BC\"]1", "/bc/i", "aBCd");
+        assertExec("[\"a1_\"]2", "/\\w\\d[^\\s]/", "- a1_");
+        assertExec("[\"x.y\"]0", "/x.y/", "x.y");
+        assertExec("null", "/x.y/", "x\\ny");
+        assertExec("[\"x\\ny\"]0", "/x.y/s", "x\\ny");
+        assertExec("[\"b\"]2", "/[b-d]/", "aAb");
+        assertExec("[\"B\"]1", "/[b-d]/i", "aBb");
+        assertExec("null", "/abc/", "ab");
+    }
+
+    @Test
+    public void assertions() {
+        assertExec("[\"b\"]2", "/^b/m", "a\\nb");
+        assertExec("null", "/^b/", "a\\nb");
+        assertExec("[\"a\"]0", "/a$/m", "a\\nb");
+        assertExec("[\"cd\"]4", "/\\bcd/", "abc cd");
+        assertExec("[\"bc\"]1", "/\\Bbc/", "abc cd");
+    }
+
+    @Test
+    public void alternativesAndQuantifiers() {
+        assertExec("[\"a\",\"a\",null]0", "/(a|ab)(c|bcd)?/", "abx");
+        assertExec("[\"abcd\",\"a\",\"bcd\"]0", "/(a|ab)(c|bcd)/", "abcd");
+        assertExec("[\"aaa\",\"a\"]0", "/(a)+/", "aaab");
+        assertExec("[\"a\",\"a\"]0", "/(a)+?/", "aaab");
+        assertExec("[\"<a><b>\"]0", "/<.*>/", "<a><b>");
+        assertExec("[\"<a>\"]0", "/<.*?>/", "<a><b>");
+        assertExec("[\"aa\"]0", "/a{2}/", "aaa");
+        assertExec("[\"aaa\"]0", "/a{2,3}/", "aaaa");
+        assertExec("[\"aa\"]0", "/a{2,3}?/", "aaaa");
+        assertExec("[\"aaaa\"]0", "/a{2,}/", "aaaa");
+        assertExec("[\"b\"]0", "/a{0}b/", "b");
+        assertExec(
+                "[\"zaacbbbcac\",\"z\",\"ac\",\"a\",null,\"c\"]0",
+                "/(z)((a+)?(b+)?(c))*/",
+                "zaacbbbcac");
+        assertExec("[\"ab\",null]0", "/(?:(a)|b)*/", "ab");
+        assertExec("[\"\",null]0", "/(a*)?/", "b");
+        assertExec("[\"\",null]0", "/(a*)*/", "b");
+    }
+
+    @Test
+    public void globalMatching() {
+        assertResult("a1,a2", "'a1-a2-b'.match(/a\\d/g)");
+        assertResult("x-y-z", "'x1y2z'.replace(/\\d/g, '-')");
+        assertResult("a,b,c", "'a1b22c'.split(/\\d+/)");
+        assertResult("3", "'xyz'.search(/$/)");
+        assertResult(
+                "2,5",
+                "var re = /b/g; var r = []; re.exec('abcdb'); r.push(re.lastIndex);"
+                        + " re.exec('abcdb'); r.push(re.lastIndex); r");
+    }
+
+    @Test
+    public void catastrophicPatternsAreFast() {
+        Utils.runWithAllOptimizationLevels(
+                cx -> {
+                    cx.setLinearRegExpMatching(true);
+                    Scriptable scope = cx.initStandardObjects();
+                    // These take exponential time with the backtracking matcher
+                    Object result =
+                            cx.evaluateString(
+                                    scope,
+                                    "var s = 'a'.repeat(40);"
+                                            + " [/^(a+)+b/.test(s), /^(a|a)*b/.test(s),"
+                                            + " /(x+x+)+y/.test('x'.repeat(40)),"
+                                            + " /(a|aa)+$/.test(s)]",
+                                    "test.js",
+                                    1,
+                                    null);
+                    assertEquals("false,false,false,true", Context.toString(result));
+                    return null;
+                });
+    }
+}
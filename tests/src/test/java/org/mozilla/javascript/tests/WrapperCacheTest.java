@@ -0,0 +1,159 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.WrapFactory;
+
+/** Checks the cache of the wrappers of Java objects of {@link WrapFactory}. */
+public class WrapperCacheTest {
+
+    public static class Item {
+        public final int value;
+
+        public Item(int value) {
+            this.value = value;
+        }
+    }
+
+    private static Context enter(int cacheSize) {
+        Context cx = new ContextFactory().enterContext();
+        cx.getWrapFactory().setWrapperCacheSize(cacheSize);
+        return cx;
+    }
+
+    private static Object wrap(Context cx, Scriptable scope, Object obj) {
+        return cx.getWrapFactory().wrap(cx, scope, obj, null);
+    }
+
+    @Test
+    public void sameObjectIsSameWrapper() {
+        Item item = new Item(1);
+        try (Context cx = enter(0)) {
+            Scriptable scope = cx.initStandardObjects();
+            assertNotSame(wrap(cx, scope, item), wrap(cx, scope, item));
+        }
+        try (Context cx = enter(100)) {
+            Scriptable scope = cx.initStandardObjects();
+            Object wrapper = wrap(cx, scope, item);
+            assertSame(wrapper, wrap(cx, scope, item));
+            assertNotSame(wrapper, wrap(cx, scope, new Item(1)));
+            List<Object> list = new ArrayList<>();
+            assertSame(wrap(cx, scope, list), wrap(cx, scope, list));
+            Map<Object, Object> map = new HashMap<>();
+            assertSame(wrap(cx, scope, map), wrap(cx, scope, map));
+        }
+    }
+
+    @Test
+    public void newObjectsAreCached() {
+        try (Context cx = enter(100)) {
+            Scriptable scope = cx.initStandardObjects();
+            Item item = new Item(1);
+            Scriptable wrapper = cx.getWrapFactory().wrapNewObject(cx, scope, item);
+            assertSame(wrapper, wrap(cx, scope, item));
+        }
+    }
+
+    @Test
+    public void smallCacheDropsOldWrappers() {
+        try (Context cx = enter(2)) {
+            Scriptable scope = cx.initStandardObjects();
+            Item[] items = new Item[100];
+            Object[] wrappers = new Object[items.length];
+            for (int i = 0; i < items.length; i++) {
+                items[i] = new Item(i);
+                wrappers[i] = wrap(cx, scope, items[i]);
+            }
+            int same = 0;
+            for (int i = 0; i < items.length; i++) {
+                if (wrap(cx, scope, items[i]) == wrappers[i]) {
+                    same++;
+                }
+            }
+            assertTrue(same < items.length);
+        }
+    }
+
+    @Test
+    public void cacheIsPerTopLevelScope() {
+        try (Context cx = enter(100)) {
+            Item item = new Item(1);
+            Scriptable scope1 = cx.initStandardObjects();
+            Scriptable scope2 = cx.initStandardObjects();
+            Object wrapper = wrap(cx, scope1, item);
+            assertSame(scope1, ((Scriptable) wrapper).getParentScope());
+            assertNotSame(wrapper, wrap(cx, scope2, item));
+            assertSame(wrapper, wrap(cx, scope1, item));
+        }
+    }
+
+    @Test
+    public void otherStaticTypesAreNotCached() {
+        List<Class<?>> staticTypes = new ArrayList<>();
+        WrapFactory wf =
+                new WrapFactory() {
+                    @Override
+                    public Scriptable wrapAsJavaObject(
+                            Context cx, Scriptable scope, Object javaObject, Class<?> staticType) {
+                        staticTypes.add(staticType);
+                        return super.wrapAsJavaObject(cx, scope, javaObject, staticType);
+                    }
+                };
+        wf.setWrapperCacheSize(100);
+        try (Context cx = new ContextFactory().enterContext()) {
+            cx.setWrapFactory(wf);
+            Scriptable scope = cx.initStandardObjects();
+            Item item = new Item(1);
+            Object wrapper = wf.wrap(cx, scope, item, null);
+            assertNotSame(wrapper, wf.wrap(cx, scope, item, Object.class));
+            assertSame(wrapper, wf.wrap(cx, scope, item, Item.class));
+            assertSame(wrapper, wf.wrap(cx, scope, item, null));
+            assertEquals(Arrays.asList(null, Object.class), staticTypes);
+        }
+    }
+
+    @Test
+    public void scriptsSeeTheSameValues() {
+        String script =
+                "var sum = 0; for (var n = 0; n < 3; n++) {"
+                        + " for (var i = 0; i < list.size(); i++) { sum += list.get(i).value; } }"
+                        + " var item = new Item(42); list.add(item);"
+                        + " [sum, list.get(10) === item, list.get(10).value].join()";
+        for (int size : new int[] {0, 4, 100}) {
+            try (Context cx = enter(size)) {
+                Scriptable scope = cx.initStandardObjects();
+                List<Object> list = new ArrayList<>();
+                for (int i = 0; i < 10; i++) {
+                    list.add(new Item(i));
+                }
+                ScriptableObject.putProperty(scope, "list", Context.javaToJS(list, scope));
+                ScriptableObject.putProperty(
+                        scope, "Item", cx.getWrapFactory().wrapJavaClass(cx, scope, Item.class));
+                Object result = cx.evaluateString(scope, script, "test.js", 1, null);
+                assertEquals("135,true,42", Context.toString(result));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeSize() {
+        new WrapFactory().setWrapperCacheSize(-1);
+    }
+}
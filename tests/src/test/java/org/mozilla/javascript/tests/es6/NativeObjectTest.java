@@ -383,6 +383,26 @@ public class NativeObjectTest {
         }
     }
 
+    @Test
+    public void isComparesNumbersByValue() {
+        // Compiled code boxes integer constants as Integers, and other numbers as Doubles
+        evaluateAndAssert(
+                "var x = Math.floor(3.5), a = 3, o = {p: 1}; o.p += 2;"
+                        + " [Object.is(x, 3), Object.is(a, x), Object.is(o.p, x),"
+                        + " [3].includes(x), new Map([[o.p, 1]]).has(x), new Set([a]).has(x)]"
+                        + ".join()",
+                "true,true,true,true,true,true");
+        evaluateAndAssert(
+                "var z = 0, n = NaN;"
+                        + " [Object.is(-0, z), Object.is(n, 0 / 0), Object.is(1, 1n),"
+                        + " Object.is(2n ** 64n, 2n ** 64n)].join()",
+                "false,true,false,true");
+        evaluateAndAssert(
+                "var o = {}; Object.defineProperty(o, 'p', {value: 3});"
+                        + " Object.defineProperty(o, 'p', {value: Math.floor(3.5)}); o.p === 3",
+                Boolean.TRUE);
+    }
+
     private static void evaluateAndAssert(final String script, final Object expected) {
         String[] prefixes = {"", "'use strict;'\n"};
         for (final String prefix : prefixes) {
@@ -0,0 +1,110 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests.optimizer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.reflect.Method;
+import org.junit.Before;
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.Function;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.tests.Utils;
+
+/** Compile scripts to hidden classes, which needs Java 15 or later. */
+public class HiddenClassesTest {
+    private final ContextFactory factory =
+            new ContextFactory() {
+                @Override
+                protected boolean hasFeature(Context cx, int featureIndex) {
+                    if (featureIndex == Context.FEATURE_HIDDEN_CLASSES) {
+                        return true;
+                    }
+                    return super.hasFeature(cx, featureIndex);
+                }
+            };
+
+    private Method isHidden;
+
+    @Before
+    public void checkHiddenClasses() {
+        try {
+            isHidden = Class.class.getMethod("isHidden");
+        } catch (NoSuchMethodException e) {
+            isHidden = null;
+        }
+        assumeTrue(isHidden != null);
+    }
+
+    private boolean isHidden(Object o) throws Exception {
+        return (Boolean) isHidden.invoke(o.getClass());
+    }
+
+    @Test
+    public void scripts() throws Exception {
+        String js =
+                "function* gen(n) { for (var i = 0; i < n; i++) yield i; }\n"
+                        + "function sum(a, b) { return a + b; }\n"
+                        + "var r = [];\n"
+                        + "for (var v of gen(3)) r.push(sum(v, 1));\n"
+                        + "var o = {x: r, re: /a(b)/.exec('xab')[1]};\n"
+                        + "`${o.x.join()}:${o.re}`";
+        for (int level : new int[] {0, 9}) {
+            Script[] scripts = new Script[2];
+            for (int i = 0; i < 2; i++) {
+                int n = i;
+                Utils.runWithOptimizationLevel(
+                        factory,
+                        cx -> {
+                            cx.setLanguageVersion(Context.VERSION_ES6);
+                            Scriptable scope = cx.initStandardObjects();
+                            scripts[n] = cx.compileString(js, "test.js", 1, null);
+                            assertEquals("1,2,3:b", scripts[n].exec(cx, scope));
+                            return null;
+                        },
+                        level);
+            }
+            assertTrue(isHidden(scripts[0]));
+            assertNotSame(scripts[0].getClass(), scripts[1].getClass());
+            assertEquals(
+                    scripts[0].getClass().getClassLoader(), scripts[1].getClass().getClassLoader());
+        }
+    }
+
+    @Test
+    public void functions() throws Exception {
+        Function[] f = new Function[1];
+        Utils.runWithOptimizationLevel(
+                factory,
+                cx -> {
+                    Scriptable scope = cx.initStandardObjects();
+                    f[0] = cx.compileFunction(scope, "function(a) { return a + 1; }", "f", 1, null);
+                    assertEquals("x1", f[0].call(cx, scope, scope, new Object[] {"x"}));
+                    return null;
+                },
+                9);
+        assertTrue(isHidden(f[0]));
+    }
+
+    @Test
+    public void interpreted() throws Exception {
+        Script[] script = new Script[1];
+        Utils.runWithOptimizationLevel(
+                factory,
+                cx -> {
+                    script[0] = cx.compileString("1", "test.js", 1, null);
+                    return null;
+                },
+                -1);
+        assertFalse(isHidden(script[0]));
+    }
+}
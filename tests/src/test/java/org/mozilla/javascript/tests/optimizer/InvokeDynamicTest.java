@@ -0,0 +1,143 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests.optimizer;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.EcmaError;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.tests.Utils;
+
+/** Run scripts through the class compiler with invokedynamic call sites enabled. */
+public class InvokeDynamicTest {
+    private final ContextFactory factory =
+            new ContextFactory() {
+                @Override
+                protected boolean hasFeature(Context cx, int featureIndex) {
+                    if (featureIndex == Context.FEATURE_INVOKEDYNAMIC) {
+                        return true;
+                    }
+                    return super.hasFeature(cx, featureIndex);
+                }
+            };
+
+    private Object eval(Context cx, Scriptable scope, String js) {
+        cx.setLanguageVersion(Context.VERSION_ES6);
+        return cx.evaluateString(scope, js, "test.js", 1, null);
+    }
+
+    @Test
+    public void properties() {
+        String js =
+                "function P(x) { this.x = x; }\n"
+                        + "var objs = [new P(1), {x: 2}, {y: 0, x: 3}, Object.create({x: 4}),\n"
+                        + "  {get x() { return 5; }}, [6], 'seven', Object.freeze({x: 8})];\n"
+                        + "objs[5].x = 6;\n"
+                        + "var r = '';\n"
+                        + "for (var i = 0; i < 20; i++) {\n"
+                        + "  r = '';\n"
+                        + "  for (var j = 0; j < objs.length; j++) {\n"
+                        + "    r += objs[j].x + ',';\n"
+                        + "  }\n"
+                        + "}\n"
+                        + "objs[7].x = 9;\n"
+                        + "r + objs[7].x + ',' + objs[6].length";
+        Utils.runWithAllOptimizationLevels(
+                factory,
+                cx -> {
+                    Scriptable scope = cx.initStandardObjects();
+                    assertEquals("1,2,3,4,5,6,undefined,8,8,5", eval(cx, scope, js));
+                    return null;
+                });
+    }
+
+    @Test
+    public void setters() {
+        String js =
+                "var log = '';\n"
+                        + "var proto = { set y(v) { log += v; } };\n"
+                        + "var a = Object.create(proto);\n"
+                        + "var b = {};\n"
+                        + "function set(o, v) { o.y = v; return o.y; }\n"
+                        + "for (var i = 0; i < 3; i++) { set(a, i); set(b, i); }\n"
+                        + "log + ':' + b.y + ':' + a.hasOwnProperty('y')";
+        Utils.runWithAllOptimizationLevels(
+                factory,
+                cx -> {
+                    Scriptable scope = cx.initStandardObjects();
+                    assertEquals("012:2:false", eval(cx, scope, js));
+                    return null;
+                });
+    }
+
+    @Test
+    public void names() {
+        String js =
+                "g = 1;\n"
+                        + "function f() { return g; }\n"
+                        + "var r = f();\n"
+                        + "g = 2;\n"
+                        + "r += f();\n"
+                        + "delete g;\n"
+                        + "try { f(); } catch (e) { r += ':' + e.name; }\n"
+                        + "r";
+        Utils.runWithAllOptimizationLevels(
+                factory,
+                cx -> {
+                    Scriptable scope = cx.initStandardObjects();
+                    assertEquals("3:ReferenceError", eval(cx, scope, js));
+                    return null;
+                });
+    }
+
+    @Test
+    public void polymorphicCalls() {
+        // Enough different kinds of function to make the call sites megamorphic
+        String js =
+                "var fns = [function(a, b) { return 'f' + (a === undefined ? '' : a); },\n"
+                        + "  Math.abs, String, parseInt, Array.prototype.join.bind([1, 2]),\n"
+                        + "  (a) => 'arrow' + a, Boolean, Number, isNaN, Math.max,\n"
+                        + "  JSON.stringify];\n"
+                        + "function call0(f) { return f(); }\n"
+                        + "function call1(f) { return f(-1); }\n"
+                        + "function call2(f) { return f(-2, 3); }\n"
+                        + "function call3(f) { return f(-3, 4, 5); }\n"
+                        + "var r;\n"
+                        + "for (var i = 0; i < 3; i++) {\n"
+                        + "  r = [];\n"
+                        + "  for (var j = 0; j < fns.length; j++) {\n"
+                        + "    var f = fns[j];\n"
+                        + "    r.push(call0(f), call1(f), call2(f), call3(f));\n"
+                        + "  }\n"
+                        + "}\n"
+                        + "r.join('|')";
+        Utils.runWithAllOptimizationLevels(
+                factory,
+                cx -> {
+                    Scriptable scope = cx.initStandardObjects();
+                    assertEquals(
+                            "f|f-1|f-2|f-3|NaN|1|2|3||-1|-2|-3|NaN|-1|-2|-3"
+                                    + "|1,2|1-12|1-22|1-32|arrowundefined|arrow-1|arrow-2|arrow-3"
+                                    + "|false|true|true|true|0|-1|-2|-3|true|false|false|false"
+                                    + "|-Infinity|-1|3|5||-1|-2|-3",
+                            eval(cx, scope, js));
+                    return null;
+                });
+    }
+
+    @Test(expected = EcmaError.class)
+    public void callNonFunction() {
+        Utils.runWithAllOptimizationLevels(
+                factory,
+                cx -> {
+                    Scriptable scope = cx.initStandardObjects();
+                    eval(cx, scope, "var o = {f: 1}; o.f(1, 2);");
+                    return null;
+                });
+    }
+}
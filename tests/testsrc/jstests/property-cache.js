@@ -0,0 +1,117 @@
+load("testsrc/assert.js");
+
+// Tests for the shape-based property caches used by compiled code.
+// Every property access below runs many times so that each site sees
+// several objects, some with the same shape and some without.
+
+function Point(x, y) {
+  this.x = x;
+  this.y = y;
+}
+
+function sumX(objs) {
+  var sum = 0;
+  for (var i = 0; i < objs.length; i++) {
+    sum += objs[i].x;
+  }
+  return sum;
+}
+
+// Monomorphic: all objects share one shape
+var points = [];
+for (var i = 0; i < 100; i++) {
+  points.push(new Point(i, -i));
+}
+assertEquals(4950, sumX(points));
+
+// Polymorphic: same property at different positions
+var mixed = [];
+for (var i = 0; i < 100; i++) {
+  mixed.push(i % 2 ? { x: 1, y: 2 } : { y: 2, x: 1 });
+}
+assertEquals(100, sumX(mixed));
+
+// Megamorphic: many distinct shapes
+var many = [];
+for (var i = 0; i < 100; i++) {
+  var o = {};
+  o['p' + i] = 0;
+  o.x = 2;
+  many.push(o);
+}
+assertEquals(200, sumX(many));
+
+// Inherited properties and missing ones
+var proto = { x: 5 };
+var inherits = [];
+for (var i = 0; i < 10; i++) {
+  inherits.push(Object.create(proto));
+}
+assertEquals(50, sumX(inherits));
+assertTrue(isNaN(sumX([{ y: 1 }])));
+
+// Writes through the cache
+function setX(objs, v) {
+  for (var i = 0; i < objs.length; i++) {
+    objs[i].x = v;
+  }
+}
+setX(points, 3);
+assertEquals(300, sumX(points));
+
+// Deleting a property changes the shape
+var p = new Point(1, 2);
+assertEquals(2, sumX([p, p]));
+delete p.x;
+assertTrue(isNaN(sumX([p])));
+p.x = 7;
+assertEquals(7, sumX([p]));
+delete p.y;
+assertEquals(7, sumX([p]));
+
+// Replacing a value with an accessor keeps the shape
+var q = new Point(1, 2);
+assertEquals(1, sumX([q]));
+Object.defineProperty(q, 'x', { get: function() { return 11; }, set: function(v) { this.y = v; } });
+assertEquals(11, sumX([q]));
+setX([q], 9);
+assertEquals(9, q.y);
+assertEquals(11, q.x);
+
+// Read-only, sealed and frozen objects
+var r = new Point(1, 2);
+Object.defineProperty(r, 'x', { writable: false });
+setX([r], 100);
+assertEquals(1, r.x);
+var s = Object.seal(new Point(1, 2));
+setX([s], 5);
+assertEquals(5, s.x);
+var f = Object.freeze(new Point(1, 2));
+setX([f], 5);
+assertEquals(1, f.x);
+
+// Objects that grow too large for a shape
+var big = {};
+for (var i = 0; i < 200; i++) {
+  big['k' + i] = i;
+}
+big.x = 4;
+assertEquals(8, sumX([big, big]));
+setX([big], 6);
+assertEquals(6, big.x);
+assertEquals(199, big.k199);
+
+// Enumeration order is preserved
+var ordered = { b: 1, a: 2, c: 3 };
+delete ordered.a;
+ordered.a = 4;
+assertEquals('b,c,a', Object.keys(ordered).join());
+
+// Index properties on plain objects
+var withIndex = { x: 1 };
+withIndex[0] = 'zero';
+assertEquals(1, sumX([withIndex]));
+assertEquals('zero', withIndex[0]);
+assertEquals('0,x', Object.keys(withIndex).sort().join());
+
+"success";